@@ -0,0 +1,131 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors. <springcloudgateway@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.collection;
+
+import static org.springcloud.gateway.core.lang.Assert2.isTrueOf;
+import static org.springcloud.gateway.core.lang.Assert2.notNullOf;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * {@link MpscRingBuffer}, The bounded lock-free multi producers and single
+ * consumer ring buffer, each slot has a sequence to publish the element
+ * (Dmitry Vyukov's bounded queue). The {@link #offer(Object)} never blocks and
+ * returns false when the buffer is full, the {@link #poll()} and
+ * {@link #drain(Consumer, int)} must be called by only one thread.
+ * 
+ * @author springcloudgateway &lt;springcloudgateway@gmail.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+public class MpscRingBuffer<E> {
+
+    private final int mask;
+    private final AtomicReferenceArray<E> elements;
+    private final AtomicLongArray sequences;
+    private final AtomicLong producerIndex = new AtomicLong(0);
+    private volatile long consumerIndex;
+
+    public MpscRingBuffer(int capacity) {
+        isTrueOf(capacity > 0 && capacity <= (1 << 30), "capacity");
+        int size = Integer.highestOneBit(capacity);
+        size = size < capacity ? size << 1 : size;
+        this.mask = size - 1;
+        this.elements = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Publish the element, it is safe for multiple producer threads.
+     * 
+     * @param e
+     * @return Returns false if the buffer is full.
+     */
+    public boolean offer(E e) {
+        notNullOf(e, "element");
+        long index;
+        while (true) {
+            index = producerIndex.get();
+            long diff = sequences.get((int) index & mask) - index;
+            if (diff == 0) {
+                if (producerIndex.compareAndSet(index, index + 1)) {
+                    break;
+                }
+            } else if (diff < 0) { // The slot is not consumed yet.
+                return false;
+            }
+        }
+        int slot = (int) index & mask;
+        elements.lazySet(slot, e);
+        sequences.set(slot, index + 1);
+        return true;
+    }
+
+    /**
+     * Take the oldest element, which must only be called by the consumer
+     * thread.
+     * 
+     * @return Returns null if the buffer is empty.
+     */
+    public E poll() {
+        long index = consumerIndex;
+        int slot = (int) index & mask;
+        if (sequences.get(slot) != index + 1) {
+            return null;
+        }
+        E e = elements.get(slot);
+        elements.lazySet(slot, null);
+        sequences.set(slot, index + mask + 1);
+        consumerIndex = index + 1;
+        return e;
+    }
+
+    /**
+     * Take and process the elements at most the limit, which must only be
+     * called by the consumer thread.
+     * 
+     * @param consumer
+     * @param limit
+     * @return Returns the number of processed elements.
+     */
+    public int drain(Consumer<E> consumer, int limit) {
+        int count = 0;
+        E e;
+        while (count < limit && (e = poll()) != null) {
+            consumer.accept(e);
+            ++count;
+        }
+        return count;
+    }
+
+    /**
+     * @return The approximate number of elements.
+     */
+    public int size() {
+        return (int) Math.max(0, Math.min(producerIndex.get() - consumerIndex, mask + 1));
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+}
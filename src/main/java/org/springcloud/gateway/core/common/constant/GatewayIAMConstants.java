@@ -44,6 +44,7 @@ public abstract class GatewayIAMConstants extends IAMConstants {
     public static final String CONF_PREFIX_IAM_GATEWAY_LOADBANANER = CONF_PREFIX_IAM_GATEWAY + ".loadbalancer";
     public static final String CONF_PREFIX_IAM_GATEWAY_RESPONSECACHE = CONF_PREFIX_IAM_GATEWAY + ".responsecache";
     public static final String CONF_PREFIX_IAM_GATEWAY_TRAFFIC = CONF_PREFIX_IAM_GATEWAY + ".traffic";
+    public static final String CONF_PREFIX_IAM_GATEWAY_METRICS = CONF_PREFIX_IAM_GATEWAY + ".metrics";
 
     //
     // (Dynamic) configuration cache prefix definitions.
@@ -54,6 +55,11 @@ public abstract class GatewayIAMConstants extends IAMConstants {
     public static final String CACHE_PREFIX_IAM_GWTEWAY_IPFILTER = CACHE_PREFIX_IAM_GWTEWAY + ":ipfilter";
 
     public static final String CACHE_PREFIX_IAM_GWTEWAY_ROUTES = CACHE_PREFIX_IAM_GWTEWAY + ":routes";
+    // use `{}` around the routes key as the Redis key hash tag, so that the
+    // versions and revision keys are in the same cluster slot as the routes
+    // key (whose slot is hashed by its full name), see RedisRouteDefinitionRepository.
+    public static final String CACHE_PREFIX_IAM_GWTEWAY_ROUTES_VERSIONS = "{" + CACHE_PREFIX_IAM_GWTEWAY_ROUTES + "}:versions";
+    public static final String CACHE_PREFIX_IAM_GWTEWAY_ROUTES_REVISION = "{" + CACHE_PREFIX_IAM_GWTEWAY_ROUTES + "}:revision";
 
     public static final String CACHE_PREFIX_IAM_GWTEWAY_AUTH = CACHE_PREFIX_IAM_GWTEWAY + ":auth";
     public static final String CACHE_PREFIX_IAM_GWTEWAY_AUTH_SIGN_SECRET = CACHE_PREFIX_IAM_GWTEWAY_AUTH + ":sign:secret";
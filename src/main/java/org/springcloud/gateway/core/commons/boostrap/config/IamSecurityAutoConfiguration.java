@@ -21,6 +21,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.data.redis.core.StringRedisTemplate;
 
 import org.springcloud.gateway.core.common.constant.GatewayIAMConstants;
+import org.springcloud.gateway.core.commons.boostrap.config.IamSecurityProperties.EventRecorderProperties;
 import org.springcloud.gateway.core.commons.boostrap.sign.SimpleSignAuthingFilterFactory;
 import org.springcloud.gateway.core.commons.bootstrap.sign.event.DefaultRedisSignAuthingEventRecoder;
 import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade;
@@ -44,8 +45,14 @@ public class IamSecurityAutoConfiguration {
     // Simple signature authorizer configuration.
 
     @Bean(name = BEAN_SIMPLE_SIGN_EVENTBUS, destroyMethod = "close")
-    public EventBusSupport simpleSignAuthingEventBusSupport(IamSecurityProperties authingConfig) {
-        return new EventBusSupport(authingConfig.getSimpleSign().getEventRecorder().getPublishEventBusThreads());
+    public EventBusSupport simpleSignAuthingEventBusSupport(
+            IamSecurityProperties authingConfig,
+            GatewayMetricsFacade metricsFacade) {
+        EventRecorderProperties eventRecorder = authingConfig.getSimpleSign().getEventRecorder();
+        EventBusSupport eventBus = new EventBusSupport("simplesign-eventbus", eventRecorder.getPublishEventBusThreads(),
+                eventRecorder.getPublishEventBusBufferSize(), eventRecorder.getPublishEventBusOverflowPolicy());
+        metricsFacade.bindEventBus(eventBus);
+        return eventBus;
     }
 
     @Bean
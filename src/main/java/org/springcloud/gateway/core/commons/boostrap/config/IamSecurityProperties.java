@@ -8,6 +8,9 @@ import static org.springcloud.gateway.core.common.constant.GatewayIAMConstants.C
 
 import org.springframework.validation.annotation.Validated;
 
+import org.springcloud.gateway.core.eventbus.EventBusSupport;
+import org.springcloud.gateway.core.eventbus.EventBusSupport.OverflowPolicy;
+
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -79,6 +82,18 @@ public class IamSecurityProperties {
          */
         private int publishEventBusThreads = 1;
 
+        /**
+         * The ring buffer size of each event topic of the publish eventRecorder
+         * bus.
+         */
+        private int publishEventBusBufferSize = EventBusSupport.DEFAULT_BUFFER_SIZE;
+
+        /**
+         * The policy of publishing event when the ring buffer of the event
+         * topic is full.
+         */
+        private OverflowPolicy publishEventBusOverflowPolicy = EventBusSupport.DEFAULT_OVERFLOW_POLICY;
+
         /**
          * Based on whether the redis eventRecorder logger enables logging, if
          * it is turned on, it can be used as a downgrade recovery strategy when
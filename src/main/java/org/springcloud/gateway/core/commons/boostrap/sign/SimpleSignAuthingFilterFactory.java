@@ -70,6 +70,7 @@ import org.springcloud.gateway.core.commons.fault.IamGatewayFault.SafeFilterOrde
 import org.springcloud.gateway.core.commons.fault.bloom.RedisBloomFilter;
 import org.springcloud.gateway.core.commons.fault.bloom.RedisBloomFilter.BloomConfig;
 import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade;
+import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade.MeterTags;
 import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade.MetricsName;
 import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade.MetricsTag;
 import org.springcloud.gateway.core.eventbus.EventBusSupport;
@@ -193,7 +194,11 @@ public class SimpleSignAuthingFilterFactory extends AbstractGatewayFilterFactory
         return authingConfig.getSimpleSign().getSignReplayVerifyBloomLoadPrefix().concat(":").concat(routeId);
     }
 
-    private byte[] doSignature(SimpleSignAuthingFilterFactory.Config config, ServerWebExchange exchange, String appId) {
+    private byte[] doSignature(
+            SimpleSignAuthingFilterFactory.Config config,
+            MeterTags metricsTags,
+            ServerWebExchange exchange,
+            String appId) {
         // Load stored secret.
         byte[] storedAppSecret = loadStoredSecret(config, appId);
 
@@ -206,7 +211,7 @@ public class SimpleSignAuthingFilterFactory extends AbstractGatewayFilterFactory
             return config.getSignAlgorithm().getFunction().apply(new byte[][] { storedAppSecret, signPlainBytes });
         } finally {
             // Add time metrics.
-            addTimerMetrics(exchange, MetricsName.SIMPLE_SIGN_TIME, config, beginTime);
+            addTimerMetrics(exchange, MetricsName.SIMPLE_SIGN_TIME, metricsTags, beginTime);
         }
     }
 
@@ -280,21 +285,12 @@ public class SimpleSignAuthingFilterFactory extends AbstractGatewayFilterFactory
         return chain.filter(exchange.mutate().principal(Mono.just(new SimpleSignPrincipal(appId))).request(request).build());
     }
 
-    private void addCounterMetrics(
-            ServerWebExchange exchange,
-            MetricsName metricsName,
-            SimpleSignAuthingFilterFactory.Config config) {
-        metricsFacade.counter(exchange, metricsName, 1, MetricsTag.SIGN_ALG, config.getSignAlgorithm().name(),
-                MetricsTag.SIGN_HASH, config.getSignHashingMode().name());
+    private void addCounterMetrics(ServerWebExchange exchange, MetricsName metricsName, MeterTags metricsTags) {
+        metricsFacade.counter(exchange, metricsName, 1, metricsTags);
     }
 
-    private void addTimerMetrics(
-            ServerWebExchange exchange,
-            MetricsName metricsName,
-            SimpleSignAuthingFilterFactory.Config config,
-            long beginNanoTime) {
-        metricsFacade.timer(exchange, metricsName, beginNanoTime, MetricsTag.SIGN_ALG, config.getSignAlgorithm().name(),
-                MetricsTag.SIGN_HASH, config.getSignHashingMode().name());
+    private void addTimerMetrics(ServerWebExchange exchange, MetricsName metricsName, MeterTags metricsTags, long beginNanoTime) {
+        metricsFacade.timer(exchange, metricsName, beginNanoTime, metricsTags);
     }
 
     private void publishSuccessEvent(String appId, SimpleSignAuthingFilterFactory.Config config, ServerWebExchange exchange) {
@@ -501,9 +497,15 @@ public class SimpleSignAuthingFilterFactory extends AbstractGatewayFilterFactory
         }
     }
 
-    @AllArgsConstructor
     class SimpleSignAuthingGatewayFilter implements GatewayFilter, Ordered {
         private final Config config;
+        private final MeterTags metricsTags;
+
+        SimpleSignAuthingGatewayFilter(Config config) {
+            this.config = config;
+            this.metricsTags = metricsFacade.prepareTags(MetricsTag.SIGN_ALG, config.getSignAlgorithm().name(),
+                    MetricsTag.SIGN_HASH, config.getSignHashingMode().name());
+        }
 
         @Override
         public int getOrder() {
@@ -540,7 +542,7 @@ public class SimpleSignAuthingFilterFactory extends AbstractGatewayFilterFactory
             if (config.isSignReplayVerifyEnabled()) {
                 if (obtainBloomFilter(exchange, config).bloomExist(getBloomKey(exchange), sign)) {
                     log.warn("Illegal signature locked. - sign={}, appId={}", sign, appId);
-                    addCounterMetrics(exchange, MetricsName.SIMPLE_SIGN_BLOOM_FAIL_TOTAL, config);
+                    addCounterMetrics(exchange, MetricsName.SIMPLE_SIGN_BLOOM_FAIL_TOTAL, metricsTags);
 
                     publishFailureEvent(appId, config, exchange, "illegal_signature");
                     return writeResponse(HttpStatus.LOCKED, exchange, "illegal_signature");
@@ -549,10 +551,10 @@ public class SimpleSignAuthingFilterFactory extends AbstractGatewayFilterFactory
 
             // Verify signature.
             try {
-                byte[] _sign = doSignature(config, exchange, appId);
+                byte[] _sign = doSignature(config, metricsTags, exchange, appId);
                 if (!isEqual(_sign, Hex.decodeHex(sign.toCharArray()))) {
                     log.warn("Invalid request sign='{}', sign='{}'", sign, Hex.encodeHexString(_sign));
-                    addCounterMetrics(exchange, MetricsName.SIMPLE_SIGN_FAIL_TOTAL, config);
+                    addCounterMetrics(exchange, MetricsName.SIMPLE_SIGN_FAIL_TOTAL, metricsTags);
                     // Publish failure event.
                     publishFailureEvent(appId, config, exchange, "invalid_signature");
                     return writeResponse(HttpStatus.UNAUTHORIZED, exchange, "invalid_signature");
@@ -563,7 +565,7 @@ public class SimpleSignAuthingFilterFactory extends AbstractGatewayFilterFactory
                 metricsFacade.counter(exchange, MetricsName.SIMPLE_SIGN_SUCCCESS_TOTAL, 1);
                 if (config.isSignReplayVerifyEnabled()) {
                     obtainBloomFilter(exchange, config).bloomAdd(getBloomKey(exchange), sign);
-                    addCounterMetrics(exchange, MetricsName.SIMPLE_SIGN_BLOOM_SUCCESS_TOTAL, config);
+                    addCounterMetrics(exchange, MetricsName.SIMPLE_SIGN_BLOOM_SUCCESS_TOTAL, metricsTags);
                 }
 
                 publishSuccessEvent(appId, config, exchange);
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors.<springcloudgateway@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.commons.cb;
+
+import static java.lang.System.currentTimeMillis;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.stream.Collectors.toSet;
+import static org.apache.commons.lang3.StringUtils.isBlank;
+import static org.springcloud.gateway.core.lang.Assert2.notNullOf;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.Nullable;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.client.discovery.event.HeartbeatEvent;
+import org.springframework.cloud.gateway.event.RefreshRoutesResultEvent;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.web.server.ServerWebExchange;
+
+import org.springcloud.gateway.core.commons.cb.config.CBProperties;
+import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade;
+import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade.MetricsName;
+import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade.MetricsTag;
+import org.springcloud.gateway.core.commons.serv.LoadBalancerUtil;
+
+import io.micrometer.core.instrument.Gauge;
+import lombok.CustomLog;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link RouteCircuitBreakerRegistry}, The registry of the per route (and per
+ * upstream instance) {@link SlidingWindowCircuitBreaker}, the state and window
+ * stats of each breaker are exported as gauges when it is created. </br>
+ * </br>
+ * The instance breakers (and their gauges) are evicted when the routes are
+ * refreshed or the discovery heartbeat is received, if the instance is no
+ * longer registered in the discovery, or the breaker is idle longer than
+ * {@link CBProperties#getInstanceBreakerIdleExpire()} (e.g. the route is
+ * removed).
+ *
+ * @author springcloudgateway &lt;springcloudgateway@163.com, springcloudgateway@163.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+@CustomLog
+public class RouteCircuitBreakerRegistry implements ApplicationListener<ApplicationEvent> {
+
+    private final CBProperties circuitBreakerConfig;
+    private final GatewayMetricsFacade metricsFacade;
+    private final @Nullable ObjectProvider<DiscoveryClient> discoveryClientProvider;
+    private final Map<String, SlidingWindowCircuitBreaker> routeBreakers = new ConcurrentHashMap<>(16);
+    private final Map<String, InstanceBreaker> instanceBreakers = new ConcurrentHashMap<>(16);
+
+    public RouteCircuitBreakerRegistry(CBProperties circuitBreakerConfig, GatewayMetricsFacade metricsFacade) {
+        this(circuitBreakerConfig, metricsFacade, null);
+    }
+
+    public RouteCircuitBreakerRegistry(CBProperties circuitBreakerConfig, GatewayMetricsFacade metricsFacade,
+            @Nullable ObjectProvider<DiscoveryClient> discoveryClientProvider) {
+        this.circuitBreakerConfig = notNullOf(circuitBreakerConfig, "circuitBreakerConfig");
+        this.metricsFacade = notNullOf(metricsFacade, "metricsFacade");
+        this.discoveryClientProvider = discoveryClientProvider;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationEvent event) {
+        if ((event instanceof RefreshRoutesResultEvent && ((RefreshRoutesResultEvent) event).isSuccess())
+                || event instanceof HeartbeatEvent) {
+            evictInstanceBreakers();
+        }
+    }
+
+    /**
+     * Gets or create the breaker of the route, the time limiter is applied to
+     * the route breaker only.
+     *
+     * @param routeId
+     * @return
+     */
+    public SlidingWindowCircuitBreaker getRouteBreaker(String routeId) {
+        SlidingWindowCircuitBreaker breaker = routeBreakers.get(routeId);
+        if (isNull(breaker)) {
+            breaker = routeBreakers.computeIfAbsent(routeId, id -> {
+                SlidingWindowCircuitBreaker newBreaker = new SlidingWindowCircuitBreaker(id, circuitBreakerConfig,
+                        circuitBreakerConfig.getTimeLimiter().getTimeoutDuration());
+                registerGauges(newBreaker, MetricsTag.ROUTE_ID, id);
+                return newBreaker;
+            });
+        }
+        return breaker;
+    }
+
+    /**
+     * Gets or create the breaker of the upstream instance of the route.
+     *
+     * @param routeId
+     * @param serviceId
+     *            The service of the instance in the discovery, or null if the
+     *            route is not load balanced by the discovery.
+     * @param instanceId
+     * @return
+     */
+    public SlidingWindowCircuitBreaker getInstanceBreaker(String routeId, @Nullable String serviceId, String instanceId) {
+        String key = routeId.concat("@").concat(instanceId);
+        InstanceBreaker instanceBreaker = instanceBreakers.get(key);
+        if (isNull(instanceBreaker)) {
+            instanceBreaker = instanceBreakers.computeIfAbsent(key, k -> {
+                SlidingWindowCircuitBreaker newBreaker = new SlidingWindowCircuitBreaker(k, circuitBreakerConfig, null);
+                return new InstanceBreaker(serviceId, instanceId, newBreaker,
+                        registerGauges(newBreaker, MetricsTag.ROUTE_ID, routeId, MetricsTag.LB_INSTANCE_ID, instanceId));
+            });
+        }
+        instanceBreaker.lastAccessTime = currentTimeMillis();
+        return instanceBreaker.breaker;
+    }
+
+    /**
+     * Evict the instance breakers of the deregistered instances or idle longer
+     * than the expiration.
+     */
+    void evictInstanceBreakers() {
+        long idleExpireMs = circuitBreakerConfig.getInstanceBreakerIdleExpire().toMillis();
+        long now = currentTimeMillis();
+        Map<String, Set<String>> registeredInstances = new HashMap<>(4);
+        for (Iterator<InstanceBreaker> it = instanceBreakers.values().iterator(); it.hasNext();) {
+            InstanceBreaker instanceBreaker = it.next();
+            boolean expired = now - instanceBreaker.lastAccessTime > idleExpireMs;
+            if (!expired && nonNull(instanceBreaker.serviceId)) {
+                Set<String> instanceIds = registeredInstances.computeIfAbsent(instanceBreaker.serviceId,
+                        serviceId -> getRegisteredInstanceIds(serviceId));
+                expired = nonNull(instanceIds) && !instanceIds.contains(instanceBreaker.instanceId);
+            }
+            if (expired) {
+                log.debug("Evict the circuit breaker of instance: {}", instanceBreaker.breaker.getName());
+                it.remove();
+                for (Gauge gauge : instanceBreaker.gauges) {
+                    metricsFacade.removeMeter(gauge);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the registered instance IDs of the service, or null if unknown
+     * (e.g. the discovery is unavailable), which never evicts the breakers.
+     */
+    private @Nullable Set<String> getRegisteredInstanceIds(String serviceId) {
+        DiscoveryClient discoveryClient = isNull(discoveryClientProvider) ? null : discoveryClientProvider.getIfAvailable();
+        if (isNull(discoveryClient)) {
+            return null;
+        }
+        try {
+            return discoveryClient.getInstances(serviceId).stream().map(RouteCircuitBreakerRegistry::getBreakerInstanceId).collect(toSet());
+        } catch (Exception e) {
+            log.warn("Cannot to get the instances of service: {}, {}", serviceId, e.getMessage());
+            return null;
+        }
+    }
+
+    private Gauge[] registerGauges(SlidingWindowCircuitBreaker breaker, String... tags) {
+        return new Gauge[] { metricsFacade.gauge(MetricsName.CIRCUITBREAKER_STATE, () -> breaker.getState().getValue(), tags),
+                metricsFacade.gauge(MetricsName.CIRCUITBREAKER_WINDOW_CALLS, () -> breaker.getSnapshot().getTotalCalls(), tags),
+                metricsFacade.gauge(MetricsName.CIRCUITBREAKER_FAILURE_RATE, () -> breaker.getSnapshot().getFailureRate(), tags),
+                metricsFacade.gauge(MetricsName.CIRCUITBREAKER_SLOW_CALL_RATE, () -> breaker.getSnapshot().getSlowCallRate(),
+                        tags),
+                metricsFacade.gauge(MetricsName.CIRCUITBREAKER_NOT_PERMITTED, () -> breaker.getNotPermittedCalls(), tags) };
+    }
+
+    static class InstanceBreaker {
+        private final @Nullable String serviceId;
+        private final String instanceId;
+        private final SlidingWindowCircuitBreaker breaker;
+        private final Gauge[] gauges;
+        private volatile long lastAccessTime = currentTimeMillis();
+
+        InstanceBreaker(@Nullable String serviceId, String instanceId, SlidingWindowCircuitBreaker breaker, Gauge[] gauges) {
+            this.serviceId = serviceId;
+            this.instanceId = instanceId;
+            this.breaker = breaker;
+            this.gauges = gauges;
+        }
+    }
+
+    /**
+     * The per upstream instance breaker decorator, which is put into the
+     * exchange attributes by the circuit breaker filter, and applied by the
+     * load balancer filter after the instance is chosen.
+     */
+    /**
+     * Gets the breaker instance ID of the instance, i.e. the instance ID, or
+     * the 'host:port' if absent.
+     */
+    public static String getBreakerInstanceId(ServiceInstance instance) {
+        String instanceId = LoadBalancerUtil.getInstanceId(instance);
+        return isBlank(instanceId) ? instance.getHost() + ":" + instance.getPort() : instanceId;
+    }
+
+    public static interface InstanceBreakerDecorator {
+        Mono<Void> decorate(ServerWebExchange exchange, String serviceId, String instanceId, Mono<Void> toRun);
+    }
+
+    public static final String KEY_INSTANCE_BREAKER_DECORATOR = RouteCircuitBreakerRegistry.class.getName()
+            .concat(".instanceBreakerDecorator");
+
+}
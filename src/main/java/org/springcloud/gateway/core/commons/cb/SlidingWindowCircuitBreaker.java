@@ -0,0 +1,275 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors.<springcloudgateway@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.commons.cb;
+
+import static java.lang.String.format;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static org.springcloud.gateway.core.lang.Assert2.hasTextOf;
+import static org.springcloud.gateway.core.lang.Assert2.notNullOf;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+import javax.annotation.Nullable;
+
+import org.springframework.cloud.client.circuitbreaker.ReactiveCircuitBreaker;
+
+import org.springcloud.gateway.core.commons.cb.SlidingWindowMetrics.Snapshot;
+import org.springcloud.gateway.core.commons.cb.config.CBProperties;
+
+import lombok.CustomLog;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link SlidingWindowCircuitBreaker}, The lock-free circuit breaker state
+ * machine (CLOSED -> OPEN -> HALF_OPEN -> CLOSED/OPEN) based on the
+ * {@link SlidingWindowMetrics}, with the failure rate and slow call rate
+ * thresholds of {@link CBProperties}. </br>
+ * </br>
+ * The state is an immutable holder replaced by CAS, each call records its
+ * outcome into the window of the state it was permitted by, so the late
+ * results of the previous state never affect the current state.
+ *
+ * @author springcloudgateway &lt;springcloudgateway@163.com, springcloudgateway@163.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+@CustomLog
+public class SlidingWindowCircuitBreaker implements ReactiveCircuitBreaker {
+
+    private final String name;
+    private final CBProperties config;
+    private final @Nullable Duration timeout;
+    private final long slowCallNanos;
+    private final long waitInOpenNanos;
+    private final AtomicReference<StateHolder> state;
+    private final LongAdder notPermittedCalls = new LongAdder();
+
+    public SlidingWindowCircuitBreaker(String name, CBProperties config, @Nullable Duration timeout) {
+        this.name = hasTextOf(name, "name");
+        this.config = notNullOf(config, "config");
+        this.timeout = timeout;
+        this.slowCallNanos = config.getSlowCallDurationThreshold().toNanos();
+        this.waitInOpenNanos = config.getWaitIntervalFunctionInOpenState().toNanos();
+        this.state = new AtomicReference<>(newClosed());
+    }
+
+    @Override
+    public <T> Mono<T> run(Mono<T> toRun, Function<Throwable, Mono<T>> fallback) {
+        Mono<T> result = Mono.defer(() -> {
+            StateHolder permitted = tryAcquirePermission();
+            if (isNull(permitted)) {
+                return Mono.error(new CircuitBreakerOpenException(name));
+            }
+            long begin = System.nanoTime();
+            return (nonNull(timeout) ? toRun.timeout(timeout) : toRun)
+                    .doOnSuccess(v -> onResult(permitted, System.nanoTime() - begin, true))
+                    .doOnError(ex -> onResult(permitted, System.nanoTime() - begin, false))
+                    .doOnCancel(() -> permitted.releasePermission());
+        });
+        return isNull(fallback) ? result : result.onErrorResume(fallback);
+    }
+
+    @Override
+    public <T> Flux<T> run(Flux<T> toRun, Function<Throwable, Flux<T>> fallback) {
+        Flux<T> result = Flux.defer(() -> {
+            StateHolder permitted = tryAcquirePermission();
+            if (isNull(permitted)) {
+                return Flux.error(new CircuitBreakerOpenException(name));
+            }
+            long begin = System.nanoTime();
+            return (nonNull(timeout) ? toRun.timeout(timeout) : toRun)
+                    .doOnComplete(() -> onResult(permitted, System.nanoTime() - begin, true))
+                    .doOnError(ex -> onResult(permitted, System.nanoTime() - begin, false))
+                    .doOnCancel(() -> permitted.releasePermission());
+        });
+        return isNull(fallback) ? result : result.onErrorResume(fallback);
+    }
+
+    /**
+     * Decorate the call whose success is determined after completion (e.g.
+     * by the response status), the not permitted call fails with
+     * {@link CircuitBreakerOpenException}
+     *
+     * @param toRun
+     * @param successful
+     * @return
+     */
+    public Mono<Void> decorate(Mono<Void> toRun, BooleanSupplier successful) {
+        return Mono.defer(() -> {
+            StateHolder permitted = tryAcquirePermission();
+            if (isNull(permitted)) {
+                return Mono.error(new CircuitBreakerOpenException(name));
+            }
+            long begin = System.nanoTime();
+            return toRun.doOnSuccess(v -> onResult(permitted, System.nanoTime() - begin, successful.getAsBoolean()))
+                    .doOnError(ex -> onResult(permitted, System.nanoTime() - begin, false))
+                    .doOnCancel(() -> permitted.releasePermission());
+        });
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public State getState() {
+        return state.get().state;
+    }
+
+    public Snapshot getSnapshot() {
+        SlidingWindowMetrics window = state.get().window;
+        return isNull(window) ? new Snapshot(0, 0, 0) : window.getSnapshot();
+    }
+
+    public long getNotPermittedCalls() {
+        return notPermittedCalls.sum();
+    }
+
+    /**
+     * Try acquire the permission of a call.
+     *
+     * @return Returns the state which the call is permitted by, or null if
+     *         not permitted.
+     */
+    StateHolder tryAcquirePermission() {
+        for (;;) {
+            StateHolder current = state.get();
+            switch (current.state) {
+            case CLOSED:
+                return current;
+            case OPEN:
+                if (System.nanoTime() - current.openedAt < waitInOpenNanos) {
+                    notPermittedCalls.increment();
+                    return null;
+                }
+                transitionTo(current, newHalfOpen());
+                break; // Retry with the new state.
+            default: // HALF_OPEN
+                if (current.tryAcquirePermission()) {
+                    return current;
+                }
+                notPermittedCalls.increment();
+                return null;
+            }
+        }
+    }
+
+    void onResult(StateHolder permitted, long costNanos, boolean success) {
+        Snapshot snapshot = permitted.window.record(!success, costNanos >= slowCallNanos);
+        switch (permitted.state) {
+        case CLOSED:
+            if (snapshot.getTotalCalls() >= config.getMinimumNumberOfCalls() && isOverThresholds(snapshot)) {
+                transitionTo(permitted, newOpen());
+            }
+            break;
+        case HALF_OPEN:
+            if (snapshot.getTotalCalls() >= config.getPermittedNumberOfCallsInHalfOpenState()) {
+                transitionTo(permitted, isOverThresholds(snapshot) ? newOpen() : newClosed());
+            }
+            break;
+        default:
+            break;
+        }
+    }
+
+    private boolean isOverThresholds(Snapshot snapshot) {
+        return snapshot.getFailureRate() >= config.getFailureRateThreshold()
+                || snapshot.getSlowCallRate() >= config.getSlowCallRateThreshold();
+    }
+
+    private void transitionTo(StateHolder expected, StateHolder next) {
+        if (state.compareAndSet(expected, next)) {
+            log.info("CircuitBreaker '{}' state transition from {} to {}, window: {}", name, expected.state, next.state,
+                    isNull(expected.window) ? null : expected.window.getSnapshot());
+        }
+    }
+
+    private StateHolder newClosed() {
+        return new StateHolder(State.CLOSED, 0L,
+                SlidingWindowMetrics.create(config.getSlidingWindowType(), config.getSlidingWindowSize()), 0);
+    }
+
+    private StateHolder newOpen() {
+        return new StateHolder(State.OPEN, System.nanoTime(), null, 0);
+    }
+
+    private StateHolder newHalfOpen() {
+        int permits = Math.max(config.getPermittedNumberOfCallsInHalfOpenState(), 1);
+        return new StateHolder(State.HALF_OPEN, 0L, new SlidingWindowMetrics.CountBased(permits), permits);
+    }
+
+    static class StateHolder {
+        private final State state;
+        private final long openedAt;
+        private final SlidingWindowMetrics window;
+        private final AtomicInteger permits;
+
+        StateHolder(State state, long openedAt, SlidingWindowMetrics window, int permits) {
+            this.state = state;
+            this.openedAt = openedAt;
+            this.window = window;
+            this.permits = new AtomicInteger(permits);
+        }
+
+        boolean tryAcquirePermission() {
+            for (;;) {
+                int current = permits.get();
+                if (current <= 0) {
+                    return false;
+                }
+                if (permits.compareAndSet(current, current - 1)) {
+                    return true;
+                }
+            }
+        }
+
+        void releasePermission() {
+            if (state == State.HALF_OPEN) {
+                permits.incrementAndGet();
+            }
+        }
+    }
+
+    public static enum State {
+        CLOSED(0), OPEN(1), HALF_OPEN(2);
+
+        private final int value;
+
+        private State(int value) {
+            this.value = value;
+        }
+
+        public int getValue() {
+            return value;
+        }
+    }
+
+    public static class CircuitBreakerOpenException extends RuntimeException {
+        private static final long serialVersionUID = -3216472087521034762L;
+
+        public CircuitBreakerOpenException(String name) {
+            super(format("CircuitBreaker '%s' is OPEN or HALF_OPEN and does not permit further calls", name), null, false,
+                    false);
+        }
+    }
+
+}
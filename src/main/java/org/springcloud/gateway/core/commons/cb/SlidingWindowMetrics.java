@@ -0,0 +1,197 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors.<springcloudgateway@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.commons.cb;
+
+import static java.util.Objects.isNull;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig.SlidingWindowType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * {@link SlidingWindowMetrics}, The lock-free sliding window of the call
+ * outcomes, which is backed by a ring of buckets:
+ * <ul>
+ * <li>COUNT_BASED: The ring of the last N call outcomes, the outcome of the
+ * new call replaces the oldest slot.</li>
+ * <li>TIME_BASED: The ring of the N one-second buckets, the stale bucket is
+ * replaced by a new zeroed bucket by the first call of the new second (CAS on
+ * the bucket reference).</li>
+ * </ul>
+ * The recorders never block each other, and the snapshot is approximate
+ * (eventually consistent) under the concurrent recording, which is enough for
+ * the circuit breaker decisions.
+ *
+ * @author springcloudgateway &lt;springcloudgateway@163.com, springcloudgateway@163.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+public abstract class SlidingWindowMetrics {
+
+    /**
+     * Record the call outcome.
+     *
+     * @param failed
+     * @param slow
+     * @return Returns the snapshot after recording.
+     */
+    public abstract Snapshot record(boolean failed, boolean slow);
+
+    public abstract Snapshot getSnapshot();
+
+    public static SlidingWindowMetrics create(SlidingWindowType type, int windowSize) {
+        return type == SlidingWindowType.TIME_BASED ? new TimeBased(windowSize) : new CountBased(windowSize);
+    }
+
+    static class CountBased extends SlidingWindowMetrics {
+        private final int size;
+        private final AtomicIntegerArray slots;
+        private final AtomicLong cursor = new AtomicLong();
+        private final AtomicInteger totalCalls = new AtomicInteger();
+        private final AtomicInteger failedCalls = new AtomicInteger();
+        private final AtomicInteger slowCalls = new AtomicInteger();
+
+        CountBased(int size) {
+            this.size = Math.max(size, 1);
+            this.slots = new AtomicIntegerArray(this.size);
+        }
+
+        @Override
+        public Snapshot record(boolean failed, boolean slow) {
+            int outcome = OUTCOME_CALL | (failed ? OUTCOME_FAILED : 0) | (slow ? OUTCOME_SLOW : 0);
+            int slot = (int) (cursor.getAndIncrement() % size);
+            int evicted = slots.getAndSet(slot, outcome);
+            if ((evicted & OUTCOME_CALL) == 0) {
+                totalCalls.incrementAndGet();
+            }
+            adjust(failedCalls, outcome, evicted, OUTCOME_FAILED);
+            adjust(slowCalls, outcome, evicted, OUTCOME_SLOW);
+            return getSnapshot();
+        }
+
+        @Override
+        public Snapshot getSnapshot() {
+            return new Snapshot(totalCalls.get(), failedCalls.get(), slowCalls.get());
+        }
+
+        private static void adjust(AtomicInteger counter, int outcome, int evicted, int flag) {
+            int delta = ((outcome & flag) != 0 ? 1 : 0) - ((evicted & flag) != 0 ? 1 : 0);
+            if (delta != 0) {
+                counter.addAndGet(delta);
+            }
+        }
+    }
+
+    static class TimeBased extends SlidingWindowMetrics {
+        private final int size;
+        private final AtomicReferenceArray<Bucket> buckets;
+
+        TimeBased(int windowSeconds) {
+            this.size = Math.max(windowSeconds, 1);
+            this.buckets = new AtomicReferenceArray<>(size);
+        }
+
+        @Override
+        public Snapshot record(boolean failed, boolean slow) {
+            long epoch = currentEpochSecond();
+            int index = (int) Math.floorMod(epoch, (long) size);
+            Bucket bucket = buckets.get(index);
+            while (isNull(bucket) || bucket.epoch != epoch) {
+                // The new bucket is zeroed before it is published, so the
+                // increments of the concurrent recorders are never wiped.
+                Bucket newBucket = new Bucket(epoch);
+                if (buckets.compareAndSet(index, bucket, newBucket)) {
+                    bucket = newBucket;
+                } else {
+                    bucket = buckets.get(index);
+                }
+            }
+            bucket.totalCalls.incrementAndGet();
+            if (failed) {
+                bucket.failedCalls.incrementAndGet();
+            }
+            if (slow) {
+                bucket.slowCalls.incrementAndGet();
+            }
+            return getSnapshot();
+        }
+
+        @Override
+        public Snapshot getSnapshot() {
+            long epoch = currentEpochSecond();
+            int total = 0, failed = 0, slow = 0;
+            for (int i = 0; i < size; i++) {
+                Bucket bucket = buckets.get(i);
+                if (!isNull(bucket) && epoch - bucket.epoch < size) {
+                    total += bucket.totalCalls.get();
+                    failed += bucket.failedCalls.get();
+                    slow += bucket.slowCalls.get();
+                }
+            }
+            return new Snapshot(total, failed, slow);
+        }
+
+        private static long currentEpochSecond() {
+            return TimeUnit.NANOSECONDS.toSeconds(System.nanoTime());
+        }
+
+        static class Bucket {
+            private final long epoch;
+            private final AtomicInteger totalCalls = new AtomicInteger();
+            private final AtomicInteger failedCalls = new AtomicInteger();
+            private final AtomicInteger slowCalls = new AtomicInteger();
+
+            Bucket(long epoch) {
+                this.epoch = epoch;
+            }
+        }
+    }
+
+    @Getter
+    @ToString
+    @AllArgsConstructor
+    public static class Snapshot {
+        private final int totalCalls;
+        private final int failedCalls;
+        private final int slowCalls;
+
+        /**
+         * @return The failure rate in percentage (0~100).
+         */
+        public float getFailureRate() {
+            return totalCalls <= 0 ? 0f : Math.min(failedCalls * 100f / totalCalls, 100f);
+        }
+
+        /**
+         * @return The slow call rate in percentage (0~100).
+         */
+        public float getSlowCallRate() {
+            return totalCalls <= 0 ? 0f : Math.min(slowCalls * 100f / totalCalls, 100f);
+        }
+    }
+
+    private static final int OUTCOME_CALL = 1;
+    private static final int OUTCOME_FAILED = 1 << 1;
+    private static final int OUTCOME_SLOW = 1 << 2;
+
+}
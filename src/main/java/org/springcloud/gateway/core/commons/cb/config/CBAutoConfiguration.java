@@ -20,13 +20,15 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.cloud.circuitbreaker.resilience4j.ReactiveResilience4JCircuitBreakerFactory;
 import org.springframework.cloud.circuitbreaker.resilience4j.Resilience4JConfigBuilder;
 import org.springframework.cloud.client.circuitbreaker.Customizer;
-import org.springframework.cloud.client.circuitbreaker.ReactiveCircuitBreakerFactory;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
 import org.springframework.context.annotation.Bean;
 import org.springframework.web.reactive.DispatcherHandler;
 
 import org.springcloud.gateway.core.common.constant.GatewayIAMConstants;
+import org.springcloud.gateway.core.commons.cb.RouteCircuitBreakerRegistry;
 import org.springcloud.gateway.core.commons.handler.DefaultCircuitBreakerCustomizer;
 import org.springcloud.gateway.core.commons.handler.IamSpringCloudCircuitBreakerResilience4JFilterFactory;
+import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade;
 
 /**
  * {@link CircuitBreakerAutoConfiguration}
@@ -45,13 +47,19 @@ public class CBAutoConfiguration {
         return new CBProperties();
     }
 
-    @SuppressWarnings("rawtypes")
+    @Bean
+    public RouteCircuitBreakerRegistry routeCircuitBreakerRegistry(
+            CBProperties circuitBreakerConfig,
+            GatewayMetricsFacade metricsFacade,
+            ObjectProvider<DiscoveryClient> discoveryClientProvider) {
+        return new RouteCircuitBreakerRegistry(circuitBreakerConfig, metricsFacade, discoveryClientProvider);
+    }
+
     @Bean
     public IamSpringCloudCircuitBreakerResilience4JFilterFactory iamSpringCloudCircuitBreakerResilience4JFilterFactory(
-            ReactiveCircuitBreakerFactory reactiveCircuitBreakerFactory,
+            RouteCircuitBreakerRegistry breakerRegistry,
             ObjectProvider<DispatcherHandler> dispatcherHandlerProvider) {
-        return new IamSpringCloudCircuitBreakerResilience4JFilterFactory(reactiveCircuitBreakerFactory,
-                dispatcherHandlerProvider);
+        return new IamSpringCloudCircuitBreakerResilience4JFilterFactory(breakerRegistry, dispatcherHandlerProvider);
     }
 
     @Bean
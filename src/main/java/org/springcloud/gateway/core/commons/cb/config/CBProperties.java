@@ -93,6 +93,13 @@ public class CBProperties {
      */
     private Duration slowCallDurationThreshold = Duration.ofSeconds(CircuitBreakerConfig.DEFAULT_SLOW_CALL_DURATION_THRESHOLD);
 
+    /**
+     * The idle expiration of the per instance breakers, the idle breakers
+     * (e.g. of the removed routes or instances) and their gauges are evicted
+     * when the routes are refreshed or the discovery heartbeat is received.
+     */
+    private Duration instanceBreakerIdleExpire = Duration.ofMinutes(10);
+
     public TimeLimiterConfig toTimeLimiterConfig() {
         return TimeLimiterConfig.custom()
                 .timeoutDuration(getTimeLimiter().getTimeoutDuration())
@@ -0,0 +1,248 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors.<springcloudgateway@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.commons.entrypoint;
+
+import static java.util.Collections.emptyMap;
+import static java.util.Objects.isNull;
+import static org.springcloud.gateway.core.lang.Assert2.notNullOf;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.MDC;
+import org.springframework.boot.ApplicationArguments;
+
+import org.springcloud.gateway.core.collection.MpscRingBuffer;
+import org.springcloud.gateway.core.commons.entrypoint.config.LoggingProperties;
+import org.springcloud.gateway.core.commons.entrypoint.config.LoggingProperties.SinkType;
+import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade;
+import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade.MetricsName;
+import org.springcloud.gateway.core.task.ApplicationTaskRunner;
+import org.springcloud.gateway.core.task.RunnerProperties;
+import org.springcloud.gateway.core.task.RunnerProperties.StartupMode;
+import org.springcloud.gateway.core.task.SafeScheduledTaskPoolExecutor;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * {@link AccessLogWriter}, The asynchronous writer of flight logs, the log
+ * records are published into the bounded {@link MpscRingBuffer} by the event
+ * loop threads, and are formatted and written by the dedicated writer thread
+ * (which parks when the buffer is empty), so the event loop never touches the
+ * disk or the network. When the buffer is full the record is dropped and
+ * counted. </br>
+ * </br>
+ * The sink is the appenders of the source logger (e.g. rolling file) by
+ * default, or the JSON records to the UDP/TCP collector, see:
+ * {@link SocketAccessLogSink}. </br>
+ * </br>
+ * The MDC (e.g. traceId, spanId, principal), the event time and the thread
+ * name of the caller are captured into the record, and restored when it is
+ * written, so the async records are the same as the synchronous ones.
+ * 
+ * @author springcloudgateway &lt;springcloudgateway@163.com, springcloudgateway@163.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+@Slf4j
+public class AccessLogWriter extends ApplicationTaskRunner<RunnerProperties> {
+
+    private final LoggingProperties loggingConfig;
+    private final GatewayMetricsFacade metricsFacade;
+    private final MpscRingBuffer<LogRecord> ringBuffer;
+    private final AccessLogSink sink;
+    private volatile boolean started;
+    private volatile Thread writerThread;
+
+    public AccessLogWriter(LoggingProperties loggingConfig, GatewayMetricsFacade metricsFacade) {
+        super(new RunnerProperties(StartupMode.ASYNC, 1));
+        this.loggingConfig = notNullOf(loggingConfig, "loggingConfig");
+        this.metricsFacade = notNullOf(metricsFacade, "metricsFacade");
+        this.ringBuffer = new MpscRingBuffer<>(loggingConfig.getAsyncBufferCapacity());
+        this.sink = loggingConfig.getAsyncSink().getType() == SinkType.LOGGER ? new LoggerSink()
+                : new SocketAccessLogSink(loggingConfig.getAsyncSink());
+    }
+
+    @Override
+    protected void onApplicationStarted(ApplicationArguments args, SafeScheduledTaskPoolExecutor worker) throws Exception {
+        if (!loggingConfig.isAsyncEnabled()) {
+            return;
+        }
+        metricsFacade.gauge(MetricsName.LOGGING_ASYNC_PENDING, () -> ringBuffer.size());
+        this.started = true;
+        // The single worker thread is dedicated to the writing loop.
+        worker.execute(() -> writeLoop());
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        this.started = false;
+        LockSupport.unpark(writerThread);
+        super.destroy();
+        // Flush the remaining records.
+        drain();
+        synchronized (this) {
+            sink.close();
+        }
+    }
+
+    /**
+     * Write the log record asynchronously, or synchronously when the async
+     * writing is disabled or not started.
+     * 
+     * @param logger
+     *            The source logger, which determines the appenders.
+     * @param pattern
+     *            The slf4j message pattern.
+     * @param args
+     */
+    public void write(Logger logger, String pattern, Object[] args) {
+        if (!started) {
+            logger.info(pattern, args);
+            return;
+        }
+        if (!logger.isInfoEnabled()) {
+            return;
+        }
+        LogRecord record = new LogRecord(logger, pattern, args, MDC.getCopyOfContextMap(), System.currentTimeMillis(),
+                Thread.currentThread().getName());
+        if (!ringBuffer.offer(record)) {
+            metricsFacade.counter(MetricsName.LOGGING_ASYNC_DROPPED_TOTAL, 1);
+        }
+    }
+
+    private void writeLoop() {
+        this.writerThread = Thread.currentThread();
+        long idleNanos = TimeUnit.MILLISECONDS.toNanos(loggingConfig.getAsyncDrainIntervalMs());
+        try {
+            while (started) {
+                if (drain() == 0) {
+                    LockSupport.parkNanos(this, idleNanos);
+                }
+            }
+        } finally {
+            this.writerThread = null;
+        }
+    }
+
+    /**
+     * Write the pending records to the sink, which is only called by the
+     * writer thread, or by the closing thread after the writer thread is
+     * stopped.
+     * 
+     * @return Returns the number of the written records.
+     */
+    private synchronized int drain() {
+        int total = 0, count;
+        while ((count = ringBuffer.drain(record -> writeToSink(record), DRAIN_BATCH_SIZE)) > 0) {
+            total += count;
+        }
+        if (total > 0) {
+            try {
+                sink.flush();
+            } catch (Exception e) {
+                metricsFacade.counter(MetricsName.LOGGING_SINK_FAIL_TOTAL, 1);
+                log.warn("Failed to flush flight logs. - {}", e.getMessage());
+            }
+        }
+        return total;
+    }
+
+    private void writeToSink(LogRecord record) {
+        try {
+            sink.write(record);
+        } catch (Exception e) {
+            metricsFacade.counter(MetricsName.LOGGING_SINK_FAIL_TOTAL, 1);
+            if (log.isDebugEnabled()) {
+                log.debug("Failed to write flight logs.", e);
+            }
+        }
+    }
+
+    /**
+     * Append the record with the captured MDC and event time. For logback,
+     * the logging event is created with the captured states directly,
+     * otherwise the captured MDC is restored around the logging (and the
+     * event time is the writing time).
+     */
+    private static void append(LogRecord record) {
+        if (record.logger instanceof ch.qos.logback.classic.Logger) {
+            ch.qos.logback.classic.Logger logger = (ch.qos.logback.classic.Logger) record.logger;
+            LoggingEvent event = new LoggingEvent(FQCN, logger, Level.INFO, record.pattern, null, record.args);
+            event.setTimeStamp(record.timestamp);
+            event.setThreadName(record.threadName);
+            event.setMDCPropertyMap(isNull(record.mdc) ? emptyMap() : record.mdc);
+            logger.callAppenders(event);
+            return;
+        }
+        try {
+            if (isNull(record.mdc)) {
+                MDC.clear();
+            } else {
+                MDC.setContextMap(record.mdc);
+            }
+            record.logger.info(record.pattern, record.args);
+        } finally {
+            MDC.clear();
+        }
+    }
+
+    @AllArgsConstructor
+    static class LogRecord {
+        final Logger logger;
+        final String pattern;
+        final Object[] args;
+        final Map<String, String> mdc;
+        final long timestamp;
+        final String threadName;
+    }
+
+    /**
+     * The sink of the log records, which is only called by the writer thread.
+     */
+    static interface AccessLogSink extends Closeable {
+        void write(LogRecord record) throws IOException;
+
+        void flush() throws IOException;
+    }
+
+    static class LoggerSink implements AccessLogSink {
+        @Override
+        public void write(LogRecord record) {
+            append(record);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static final String FQCN = AccessLogWriter.class.getName();
+
+    private static final int DRAIN_BATCH_SIZE = 1024;
+
+}
@@ -20,7 +20,10 @@ import static org.springcloud.gateway.core.lang.FastTimeClock.currentTimeMillis;
 import static java.lang.String.format;
 import static java.util.Collections.singletonMap;
 import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.unmodifiableSet;
 import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.stream.Collectors.toSet;
 import static org.apache.commons.lang3.SystemUtils.LINE_SEPARATOR;
 import static org.springframework.http.MediaType.APPLICATION_ATOM_XML;
 import static org.springframework.http.MediaType.APPLICATION_CBOR;
@@ -35,15 +38,22 @@ import static org.springframework.http.MediaType.TEXT_PLAIN;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 
+import org.reactivestreams.Publisher;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
 import org.springframework.cloud.gateway.route.Route;
 import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
 import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.expression.EvaluationException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
@@ -63,6 +73,7 @@ import org.springcloud.gateway.core.utils.web.ReactiveRequestExtractor;
 import org.springcloud.gateway.core.web.matcher.SpelRequestMatcher;
 
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 /**
@@ -77,9 +88,11 @@ public abstract class EntrypointBaseGlobalFilter implements GlobalFilter, Ordere
 
     protected final LoggingProperties loggingConfig;
     protected final SpelRequestMatcher requestMatcher;
+    protected final AccessLogWriter accessLogWriter;
 
-    public EntrypointBaseGlobalFilter(LoggingProperties loggingConfig) {
+    public EntrypointBaseGlobalFilter(LoggingProperties loggingConfig, AccessLogWriter accessLogWriter) {
         this.loggingConfig = notNullOf(loggingConfig, "loggingConfig");
+        this.accessLogWriter = notNullOf(accessLogWriter, "accessLogWriter");
         // Build gray request matcher.
         this.requestMatcher = new SpelRequestMatcher(loggingConfig.getPreferMatchRuleDefinitions());
         // Check expression.
@@ -105,7 +118,7 @@ public abstract class EntrypointBaseGlobalFilter implements GlobalFilter, Ordere
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
         // Check if filtering flight logging is enabled.
-        if (!isLoggingRequest(exchange)) {
+        if (!isLoggingRequest(exchange) || !isSampledRequest(exchange)) {
             if (log.isDebugEnabled()) {
                 ServerHttpRequest request = exchange.getRequest();
                 log.debug("Not to meet the conditional rule to enable logging. - uri: {}, headers: {}, queryParams: {}",
@@ -173,6 +186,31 @@ public abstract class EntrypointBaseGlobalFilter implements GlobalFilter, Ordere
         }
     }
 
+    /**
+     * Check if the current request is sampled, the decision is made only once
+     * per exchange, so that the request and response logs are sampled
+     * together.
+     * 
+     * @param exchange
+     * @return
+     */
+    protected boolean isSampledRequest(ServerWebExchange exchange) {
+        Boolean sampled = exchange.getAttribute(KEY_SAMPLED);
+        if (isNull(sampled)) {
+            // The explicitly requested verbose logging is always sampled.
+            if (nonNull(exchange.getRequest().getHeaders().getFirst(loggingConfig.getVerboseLevelRequestHeader()))) {
+                sampled = true;
+            } else {
+                Route route = exchange.getRequiredAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+                Double sampleRate = loggingConfig.getRouteSampleRates().get(route.getId());
+                double rate = isNull(sampleRate) ? loggingConfig.getDefaultSampleRate() : sampleRate;
+                sampled = rate >= 1d || (rate > 0d && ThreadLocalRandom.current().nextDouble() < rate);
+            }
+            exchange.getAttributes().put(KEY_SAMPLED, sampled);
+        }
+        return sampled;
+    }
+
     /**
      * Determine request verbose logging level.
      * 
@@ -230,6 +268,17 @@ public abstract class EntrypointBaseGlobalFilter implements GlobalFilter, Ordere
         return LoggingMessageUtil.isDownloadStreamMedia(mediaType);
     }
 
+    /**
+     * Check if the header is one of the {@link #LOG_GENERIC_HEADERS} (case
+     * insensitive).
+     * 
+     * @param headerName
+     * @return
+     */
+    protected boolean isGenericHeader(String headerName) {
+        return LOG_GENERIC_HEADER_NAMES.contains(headerName.toLowerCase(Locale.US));
+    }
+
     /**
      * Reading to logging characters from request body stream segment or
      * response body stream segment.
@@ -242,6 +291,88 @@ public abstract class EntrypointBaseGlobalFilter implements GlobalFilter, Ordere
         return BaseLoggingWebFilter.readToLogString(bodySegment, expectMaxLen);
     }
 
+    /**
+     * {@link BodyPeeker}, Peek the first few bytes of the streaming body for
+     * logging, all the data buffers are passed through as is, without
+     * aggregating or buffering the body. </br>
+     * The head of body is held by the retained slices of the data buffers, and
+     * copied only once when the peeking is completed, which may be on another
+     * thread (e.g. doFinally of the cancelled exchange), so the slices are
+     * guarded by the peeker itself.
+     */
+    protected static class BodyPeeker {
+        private final int maxLength;
+        private final Consumer<byte[]> onPeeked;
+        private final List<DataBuffer> slices = new ArrayList<>(2);
+        private int size;
+        private boolean completed;
+
+        public BodyPeeker(int maxLength, Consumer<byte[]> onPeeked) {
+            this.maxLength = Math.max(maxLength, 0);
+            this.onPeeked = notNullOf(onPeeked, "onPeeked");
+        }
+
+        /**
+         * Peek the body, and complete when the body is terminated or
+         * cancelled.
+         */
+        public Flux<DataBuffer> peek(Flux<DataBuffer> body) {
+            return body.doOnNext(buffer -> retainHead(buffer)).doFinally(signal -> complete());
+        }
+
+        /**
+         * Peek the body which is flushed by each inner publisher (e.g. SSE),
+         * the peeking is completed only when the whole body is terminated or
+         * cancelled, rather than the first inner publisher.
+         */
+        public Flux<Flux<DataBuffer>> peekEach(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            return Flux.from(body)
+                    .map(inner -> Flux.<DataBuffer> from(inner).doOnNext(buffer -> retainHead(buffer)))
+                    .doFinally(signal -> complete());
+        }
+
+        /**
+         * Complete peeking, and the peeked bytes are emitted only once.
+         */
+        public void complete() {
+            synchronized (this) {
+                if (completed) {
+                    return;
+                }
+                completed = true;
+            }
+            // No more slices added after completed.
+            byte[] peeked = new byte[size];
+            int offset = 0;
+            for (DataBuffer slice : slices) {
+                int length = slice.readableByteCount();
+                slice.read(peeked, offset, length);
+                offset += length;
+                DataBufferUtils.release(slice);
+            }
+            slices.clear();
+            onPeeked.accept(peeked);
+        }
+
+        private void retainHead(DataBuffer buffer) {
+            boolean full;
+            synchronized (this) {
+                int length = Math.min(maxLength - size, buffer.readableByteCount());
+                if (length <= 0 || completed) {
+                    return;
+                }
+                // The slice shares the memory without moving the read
+                // position of the buffer.
+                slices.add(buffer.retainedSlice(buffer.readPosition(), length));
+                size += length;
+                full = size >= maxLength;
+            }
+            if (full) {
+                complete();
+            }
+        }
+    }
+
     /**
      * Logging for generic HTTP headers.
      */
@@ -273,6 +404,12 @@ public abstract class EntrypointBaseGlobalFilter implements GlobalFilter, Ordere
         }
     });
 
+    /**
+     * The lower case names of {@link #LOG_GENERIC_HEADERS}.
+     */
+    public static final Set<String> LOG_GENERIC_HEADER_NAMES = unmodifiableSet(
+            LOG_GENERIC_HEADERS.stream().map(h -> h.toLowerCase(Locale.US)).collect(toSet()));
+
     /**
      * The content-type definition of the request or corresponding body needs to
      * be recorded.
@@ -303,5 +440,6 @@ public abstract class EntrypointBaseGlobalFilter implements GlobalFilter, Ordere
     public static final String KEY_START_TIME = EntrypointBaseGlobalFilter.class.getName() + ".startTime";
     public static final String KEY_VERBOSE_LEVEL = EntrypointBaseGlobalFilter.class.getName() + ".verboseLevel";
     public static final String KEY_LOG_RECORD = EntrypointBaseGlobalFilter.class.getName() + ".logRecord";
+    public static final String KEY_SAMPLED = EntrypointBaseGlobalFilter.class.getName() + ".sampled";
 
 }
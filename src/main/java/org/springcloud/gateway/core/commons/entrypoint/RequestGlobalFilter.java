@@ -15,29 +15,19 @@
  */
 package org.springcloud.gateway.core.commons.entrypoint;
 
-import static org.apache.commons.lang3.StringUtils.containsIgnoreCase;
 import static org.apache.commons.lang3.StringUtils.trimToEmpty;
 import static org.apache.commons.lang3.SystemUtils.LINE_SEPARATOR;
 
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.function.Function;
 
 import org.springcloud.gateway.core.commons.entrypoint.config.LoggingProperties;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
-import org.springframework.cloud.gateway.filter.factory.rewrite.CachedBodyOutputMessage;
-import org.springframework.cloud.gateway.support.BodyInserterContext;
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.ReactiveHttpOutputMessage;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
-import org.springframework.web.reactive.function.BodyInserter;
-import org.springframework.web.reactive.function.BodyInserters;
-import org.springframework.web.reactive.function.server.HandlerStrategies;
-import org.springframework.web.reactive.function.server.ServerRequest;
 import org.springframework.web.server.ServerWebExchange;
 
 import lombok.extern.slf4j.Slf4j;
@@ -54,8 +44,8 @@ import reactor.core.publisher.Mono;
 @Slf4j
 public class RequestGlobalFilter extends EntrypointBaseGlobalFilter {
 
-    public RequestGlobalFilter(LoggingProperties loggingConfig) {
-        super(loggingConfig);
+    public RequestGlobalFilter(LoggingProperties loggingConfig, AccessLogWriter accessLogWriter) {
+        super(loggingConfig, accessLogWriter);
     }
 
     @Override
@@ -116,7 +106,7 @@ public class RequestGlobalFilter extends EntrypointBaseGlobalFilter {
         // Print request headers.
         if (log5_10) {
             headers.forEach((headerName, headerValue) -> {
-                if (log6_10 || LOG_GENERIC_HEADERS.stream().anyMatch(h -> containsIgnoreCase(h, headerName))) {
+                if (log6_10 || isGenericHeader(headerName)) {
                     requestLog.append(LINE_SEPARATOR);
                     requestLog.append("{}: {}");
                     requestLogArgs.add(headerName);
@@ -133,10 +123,10 @@ public class RequestGlobalFilter extends EntrypointBaseGlobalFilter {
                 requestLog.append(LOG_REQUEST_BODY);
                 requestLog.append(LOG_REQUEST_END);
                 requestLogArgs.add("[Upload Binary Data] ...");
-                log.info(requestLog.toString(), requestLogArgs.toArray());
+                accessLogWriter.write(log, requestLog.toString(), requestLogArgs.toArray());
             } else {
                 requestLog.append(LOG_REQUEST_END);
-                log.info(requestLog.toString(), requestLogArgs.toArray());
+                accessLogWriter.write(log, requestLog.toString(), requestLogArgs.toArray());
             }
         }
         final boolean _processBodyIfNeed = processBodyIfNeed;
@@ -164,91 +154,47 @@ public class RequestGlobalFilter extends EntrypointBaseGlobalFilter {
         // }
         // return chain.filter(exchange);
 
-        // Note: The following transform function may be executed multiple
-        // times. For the time being, we only print the first segment of data in
-        // the request body. We think that printing too much data may be
-        // meaningless and waste resources.
-        AtomicInteger transformCount = new AtomicInteger(0);
-        return decorateRequest(exchange, chain, requestBodySegment -> {
-            if (transformCount.incrementAndGet() <= 1) {
-                // Add request body.
-                if (_processBodyIfNeed) {
-                    if (log8_10) {
-                        requestLog.append(LOG_REQUEST_BODY);
-                        requestLog.append(LOG_REQUEST_END);
-                        // Note: Only get the first small part of the data of
-                        // the request body, which has prevented the amount of
-                        // data from being too large.
-                        int length = Math.min(requestBodySegment.length, loggingConfig.getMaxPrintRequestBodyLength());
-                        requestLogArgs.add(readToLogString(requestBodySegment, length));
-                        log.info(requestLog.toString(), requestLogArgs.toArray());
-                    } else if (log3_10) {
-                        requestLog.append(LOG_REQUEST_END);
-                        log.info(requestLog.toString(), requestLogArgs.toArray());
-                    }
-                }
+        // Only the first small part of the request body is peeked and printed,
+        // the body is streamed to the upstream as is. We think that printing
+        // too much data may be meaningless and waste resources.
+        if (!_processBodyIfNeed) {
+            return chain.filter(exchange);
+        }
+        if (!log8_10) {
+            if (log3_10) {
+                requestLog.append(LOG_REQUEST_END);
+                accessLogWriter.write(log, requestLog.toString(), requestLogArgs.toArray());
             }
-            return Mono.just(requestBodySegment);
+            return chain.filter(exchange);
+        }
+        // Note: Peek one more byte to know whether the body is truncated.
+        int maxLength = loggingConfig.getMaxPrintRequestBodyLength();
+        BodyPeeker peeker = new BodyPeeker(maxLength + 1, requestBodySegment -> {
+            // Add request body.
+            requestLog.append(LOG_REQUEST_BODY);
+            requestLog.append(LOG_REQUEST_END);
+            requestLogArgs.add(readToLogString(requestBodySegment, maxLength));
+            accessLogWriter.write(log, requestLog.toString(), requestLogArgs.toArray());
         });
+        return chain.filter(exchange.mutate().request(decorateRequest(exchange, peeker)).build())
+                .doFinally(signal -> peeker.complete());
     }
 
     /**
-     * The request object decorated as an editable request body to solve the
-     * problem that the request body can only be read once.
+     * The request object decorated to peek the first part of the request
+     * body, without aggregating the body.
      * 
      * @param exchange
-     * @param chain
-     * @param transformer
+     * @param peeker
      * @return
-     * @see {@link org.springframework.cloud.gateway.filter.factory.rewrite.ModifyRequestBodyGatewayFilterFactory#apply()}
-     * @see https://blog.csdn.net/kk380446/article/details/119537443
-     * @see https://www.cnblogs.com/hyf-huangyongfei/p/12849406.html
      */
-    private Mono<Void> decorateRequest(
-            ServerWebExchange exchange,
-            GatewayFilterChain chain,
-            Function<? super byte[], ? extends Mono<? extends byte[]>> transformer) {
-
-        // Tip: String type can also be used.
-        // Class<String> inClass = String.class;
-        // Class<String> outClass = String.class;
-        Class<byte[]> inClass = byte[].class;
-        Class<byte[]> outClass = byte[].class;
-
-        ServerRequest serverRequest = ServerRequest.create(exchange, HandlerStrategies.withDefaults().messageReaders());
-        // ServerRequest serverRequest = new
-        // org.springframework.cloud.gateway.support.DefaultServerRequest(exchange);
-        Mono<byte[]> modifiedBody = serverRequest.bodyToMono(inClass).flatMap(transformer);
-
-        BodyInserter<Mono<byte[]>, ReactiveHttpOutputMessage> bodyInserter = BodyInserters.fromPublisher(modifiedBody, outClass);
-        HttpHeaders newHeaders = new HttpHeaders();
-        newHeaders.putAll(exchange.getRequest().getHeaders());
-        newHeaders.remove(HttpHeaders.CONTENT_LENGTH);
-
-        CachedBodyOutputMessage outputMessage = new CachedBodyOutputMessage(exchange, newHeaders);
-        ServerHttpRequestDecorator decorator = new ServerHttpRequestDecorator(exchange.getRequest()) {
-            @Override
-            public HttpHeaders getHeaders() {
-                long contentLength = newHeaders.getContentLength();
-                HttpHeaders _newHeaders = new HttpHeaders();
-                _newHeaders.putAll(newHeaders);
-                if (contentLength > 0) {
-                    _newHeaders.setContentLength(contentLength);
-                } else {
-                    _newHeaders.set(HttpHeaders.TRANSFER_ENCODING, "chunked");
-                }
-                return _newHeaders;
-            }
-
+    private ServerHttpRequest decorateRequest(ServerWebExchange exchange, BodyPeeker peeker) {
+        return new ServerHttpRequestDecorator(exchange.getRequest()) {
             @Override
             public Flux<DataBuffer> getBody() {
-                return outputMessage.getBody();
+                return peeker.peek(super.getBody());
             }
         };
-
-        return bodyInserter.insert(outputMessage, new BodyInserterContext())
-                .then(Mono.defer(() -> chain.filter(exchange.mutate().request(decorator).build())))
-                .onErrorResume((Function<Throwable, Mono<Void>>) ex -> Mono.error(ex));
     }
 
 }
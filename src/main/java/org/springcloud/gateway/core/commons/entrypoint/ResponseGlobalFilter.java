@@ -16,31 +16,21 @@
 package org.springcloud.gateway.core.commons.entrypoint;
 
 import static java.util.Objects.nonNull;
-import static org.apache.commons.lang3.StringUtils.containsIgnoreCase;
 import static org.apache.commons.lang3.StringUtils.trimToEmpty;
 import static org.apache.commons.lang3.SystemUtils.LINE_SEPARATOR;
 
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.function.Function;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.reactivestreams.Publisher;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
-import org.springframework.cloud.gateway.filter.factory.rewrite.CachedBodyOutputMessage;
-import org.springframework.cloud.gateway.support.BodyInserterContext;
-import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.ReactiveHttpOutputMessage;
+import org.springframework.http.MediaType;
 import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
-import org.springframework.util.LinkedMultiValueMap;
-import org.springframework.web.reactive.function.BodyInserter;
-import org.springframework.web.reactive.function.BodyInserters;
-import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.server.ServerWebExchange;
 import org.springcloud.gateway.core.commons.entrypoint.config.LoggingProperties;
 import org.springcloud.gateway.core.lang.FastTimeClock;
@@ -59,8 +49,8 @@ import reactor.core.publisher.Mono;
 @Slf4j
 public class ResponseGlobalFilter extends EntrypointBaseGlobalFilter {
 
-    public ResponseGlobalFilter(LoggingProperties loggingConfig) {
-        super(loggingConfig);
+    public ResponseGlobalFilter(LoggingProperties loggingConfig, AccessLogWriter accessLogWriter) {
+        super(loggingConfig, accessLogWriter);
     }
 
     @Override
@@ -108,127 +98,72 @@ public class ResponseGlobalFilter extends EntrypointBaseGlobalFilter {
             responseLogArgs.add(costTime + "ms");
         }
 
-        AtomicBoolean addedResponseHeaders = new AtomicBoolean(false);
-        // Note: The following transform function may be executed multiple
-        // times. For the time being, we only print the first segment of data in
-        // the response body. We think that printing too much data may be
-        // meaningless and waste resources.
-        AtomicInteger transformCount = new AtomicInteger(0);
-        ServerHttpResponse newRespnose = decorateResponse(exchange, chain, responseBodySegment -> {
-            if (transformCount.incrementAndGet() <= 1) {
-                // Print response headers.
-                if (log6_10) {
-                    addedResponseHeaders.set(true);
-                    HttpHeaders httpHeaders = exchange.getResponse().getHeaders();
-                    httpHeaders.forEach((headerName, headerValue) -> {
-                        if (log8_10 || LOG_GENERIC_HEADERS.stream().anyMatch(h -> containsIgnoreCase(h, headerName))) {
-                            responseLog.append("\n{}: {}");
-                            responseLogArgs.add(headerName);
-                            responseLogArgs.add(headerValue.toString());
-                        }
-                    });
-                }
-
-                // If it is a file download, direct printing does not display
-                // binary.
-                if (isDownloadStreamMedia(headers.getContentType())) {
-                    responseLog.append(LOG_RESPONSE_BODY);
-                    responseLogArgs.add("[Download Binary Data] ...");
-                } else {
-                    // When the response has no body, print the end flag
-                    // directly.
-                    boolean processBodyIfNeed = log9_10 && isCompatibleWithPlainBody(response.getHeaders().getContentType());
-                    // Print response body.
-                    if (processBodyIfNeed) {
-                        // Full print response body.
-                        responseLog.append(LOG_RESPONSE_BODY);
-                        int length = Math.min(responseBodySegment.length, loggingConfig.getMaxPrintResponseBodyLength());
-                        responseLogArgs.add(readToLogString(responseBodySegment, length));
-                    }
-                }
-            }
-            return Mono.just(responseBodySegment);
-        });
+        // Only the first small part of the response body is peeked and
+        // printed, the body is streamed to the client as is. We think that
+        // printing too much data may be meaningless and waste resources.
+        // Note: Peek one more byte to know whether the body is truncated, and
+        // only one byte to know whether the body is present when the body is
+        // not printed (e.g. the download binary marker).
+        int maxLength = loggingConfig.getMaxPrintResponseBodyLength();
+        AtomicReference<byte[]> responseBodySegment = new AtomicReference<>();
+        BodyPeeker peeker = log3_10 ? new BodyPeeker(log9_10 ? maxLength + 1 : 1, segment -> responseBodySegment.set(segment))
+                : null;
+        ServerHttpResponse newRespnose = nonNull(peeker) ? decorateResponse(exchange, peeker) : response;
 
         return chain.filter(exchange.mutate().response(newRespnose).build()).doFinally(signal -> {
-            // If there is a response body, the response header has been added
-            // before, no need to add.
-            if (!addedResponseHeaders.get() && log6_10) {
+            // Print response headers.
+            if (log6_10) {
                 HttpHeaders httpHeaders = newRespnose.getHeaders();
                 httpHeaders.forEach((headerName, headerValue) -> {
-                    if (log8_10 || LOG_GENERIC_HEADERS.stream().anyMatch(h -> containsIgnoreCase(h, headerName))) {
+                    if (log8_10 || isGenericHeader(headerName)) {
                         responseLog.append(LINE_SEPARATOR + "{}: {}");
                         responseLogArgs.add(headerName);
                         responseLogArgs.add(headerValue.toString());
                     }
                 });
             }
+            if (nonNull(peeker)) {
+                peeker.complete();
+            }
+            byte[] bodySegment = responseBodySegment.get();
+            if (nonNull(bodySegment) && bodySegment.length > 0) {
+                MediaType contentType = newRespnose.getHeaders().getContentType();
+                // If it is a file download, direct printing does not display
+                // binary.
+                if (isDownloadStreamMedia(contentType)) {
+                    responseLog.append(LOG_RESPONSE_BODY);
+                    responseLogArgs.add("[Download Binary Data] ...");
+                } else if (log9_10 && isCompatibleWithPlainBody(contentType)) {
+                    // Print response body.
+                    responseLog.append(LOG_RESPONSE_BODY);
+                    responseLogArgs.add(readToLogString(bodySegment, maxLength));
+                }
+            }
             if (log3_10) {
                 responseLog.append(LOG_RESPONSE_END);
-                log.info(responseLog.toString(), responseLogArgs.toArray());
+                accessLogWriter.write(log, responseLog.toString(), responseLogArgs.toArray());
             }
         });
     }
 
     /**
-     * The response object decorated as an editable response body to solve the
-     * problem that the response body can only be read once.
+     * The response object decorated to peek the first part of the response
+     * body, without aggregating the body.
      * 
      * @param exchange
-     * @param chain
-     * @param transformer
+     * @param peeker
      * @return
-     * @see {@link org.springframework.cloud.gateway.filter.factory.rewrite.ModifyResponseBodyGatewayFilterFactory#apply()}
-     * @see https://www.cnblogs.com/hyf-huangyongfei/p/12849406.html
-     * @see https://blog.csdn.net/kk380446/article/details/119537443
      */
-    private ServerHttpResponse decorateResponse(
-            ServerWebExchange exchange,
-            GatewayFilterChain chain,
-            Function<? super byte[], ? extends Mono<? extends byte[]>> transformer) {
+    private ServerHttpResponse decorateResponse(ServerWebExchange exchange, BodyPeeker peeker) {
         return new ServerHttpResponseDecorator(exchange.getResponse()) {
             @Override
-            public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) { // Mono<NettyDataBuffer>
-                // Tip: String type can also be used.
-                // Class<String> inClass = String.class;
-                // Class<String> outClass = String.class;
-                Class<byte[]> inClass = byte[].class;
-                Class<byte[]> outClass = byte[].class;
-
-                String responseContentType = exchange.getAttribute(ServerWebExchangeUtils.ORIGINAL_RESPONSE_CONTENT_TYPE_ATTR);
-                HttpHeaders newHeaders = new HttpHeaders();
-                newHeaders.add(HttpHeaders.CONTENT_TYPE, responseContentType);
-
-                ClientResponse clientResponse = ClientResponse.create(exchange.getResponse().getStatusCode())
-                        .headers(headers -> headers.putAll(newHeaders))
-                        .body(Flux.from(body))
-                        .build();
-
-                Mono<byte[]> modifiedBody = clientResponse.bodyToMono(inClass).flatMap(transformer);
-                BodyInserter<Mono<byte[]>, ReactiveHttpOutputMessage> bodyInserter = BodyInserters.fromPublisher(modifiedBody,
-                        outClass);
-
-                // [FIX]: If the order of this filter is set to be executed
-                // before, then the return header here is of type
-                // ReadOnlyHttpHeaders, but it will be abnormal when other
-                // filters need to modify the header. Is this due to the order
-                // of the filters ???
-                HttpHeaders editableHeaders = new HttpHeaders(new LinkedMultiValueMap<>(exchange.getResponse().getHeaders()));
-                CachedBodyOutputMessage outputMessage = new CachedBodyOutputMessage(exchange, editableHeaders);
-
-                return bodyInserter.insert(outputMessage, new BodyInserterContext()).then(Mono.defer(() -> {
-                    Flux<DataBuffer> messageBody = outputMessage.getBody();
-                    HttpHeaders headers = getDelegate().getHeaders();
-                    if (!headers.containsKey(HttpHeaders.TRANSFER_ENCODING)) {
-                        messageBody = messageBody.doOnNext(data -> headers.setContentLength(data.readableByteCount()));
-                    }
-                    return getDelegate().writeWith(messageBody);
-                }));
+            public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                return super.writeWith(peeker.peek(Flux.from(body)));
             }
 
             @Override
             public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
-                return writeWith(Flux.from(body).flatMapSequential(p -> p));
+                return super.writeAndFlushWith(peeker.peekEach(body));
             }
         };
     }
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors.<springcloudgateway@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.commons.entrypoint;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static org.springcloud.gateway.core.lang.Assert2.isTrueOf;
+import static org.springcloud.gateway.core.lang.Assert2.notNullOf;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.Map;
+
+import org.slf4j.helpers.MessageFormatter;
+
+import org.springcloud.gateway.core.commons.entrypoint.AccessLogWriter.AccessLogSink;
+import org.springcloud.gateway.core.commons.entrypoint.AccessLogWriter.LogRecord;
+import org.springcloud.gateway.core.commons.entrypoint.config.LoggingProperties.AsyncSinkProperties;
+import org.springcloud.gateway.core.commons.entrypoint.config.LoggingProperties.SinkType;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * {@link SocketAccessLogSink}, Write the flight log records as the JSON
+ * objects to the remote collector (e.g. fluent-bit, vector or logstash). Each
+ * record is one datagram of UDP, or one line of the TCP stream (newline
+ * delimited JSON), e.g: </br>
+ *
+ * <pre>
+ * {"timestamp":1700000000000,"thread":"reactor-http-epoll-1","logger":"...","message":"...","mdc":{"traceId":"..."}}
+ * </pre>
+ *
+ * The sink is only called by the writer thread, so the encoding buffer is
+ * reused. The TCP connection is established lazily, and re-established after
+ * the reconnect delay when failed.
+ *
+ * @author springcloudgateway &lt;springcloudgateway@163.com, springcloudgateway@163.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+@Slf4j
+class SocketAccessLogSink implements AccessLogSink {
+
+    private final AsyncSinkProperties config;
+    private final InetSocketAddress address;
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final ByteArrayOutputStream encodeBuffer = new ByteArrayOutputStream(INITIAL_RECORD_SIZE);
+
+    private DatagramSocket datagramSocket;
+    private Socket socket;
+    private OutputStream socketOutput;
+    private long reconnectAt;
+
+    SocketAccessLogSink(AsyncSinkProperties config) {
+        this.config = notNullOf(config, "sinkConfig");
+        isTrueOf(config.getType() != SinkType.LOGGER, "sinkType");
+        this.address = new InetSocketAddress(config.getHost(), config.getPort());
+    }
+
+    @Override
+    public void write(LogRecord record) throws IOException {
+        encode(record);
+        if (config.getType() == SinkType.UDP) {
+            if (isNull(datagramSocket)) {
+                this.datagramSocket = new DatagramSocket();
+            }
+            datagramSocket.send(new DatagramPacket(encodeBuffer.toByteArray(), encodeBuffer.size(), address));
+            return;
+        }
+        try {
+            encodeBuffer.write('\n');
+            encodeBuffer.writeTo(connect());
+        } catch (IOException e) {
+            disconnect();
+            throw e;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (nonNull(socketOutput)) {
+            try {
+                socketOutput.flush();
+            } catch (IOException e) {
+                disconnect();
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            disconnect();
+            if (nonNull(datagramSocket)) {
+                datagramSocket.close();
+                this.datagramSocket = null;
+            }
+        }
+    }
+
+    private void encode(LogRecord record) throws IOException {
+        encodeBuffer.reset();
+        try (JsonGenerator generator = jsonFactory.createGenerator(encodeBuffer, JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            generator.writeNumberField("timestamp", record.timestamp);
+            generator.writeStringField("thread", record.threadName);
+            generator.writeStringField("logger", record.logger.getName());
+            generator.writeStringField("message", MessageFormatter.arrayFormat(record.pattern, record.args).getMessage());
+            if (nonNull(record.mdc) && !record.mdc.isEmpty()) {
+                generator.writeObjectFieldStart("mdc");
+                for (Map.Entry<String, String> entry : record.mdc.entrySet()) {
+                    generator.writeStringField(entry.getKey(), entry.getValue());
+                }
+                generator.writeEndObject();
+            }
+            generator.writeEndObject();
+        }
+    }
+
+    private OutputStream connect() throws IOException {
+        if (nonNull(socketOutput)) {
+            return socketOutput;
+        }
+        long now = System.currentTimeMillis();
+        if (now < reconnectAt) {
+            throw new IOException("The flight logs collector is disconnected, reconnect after " + (reconnectAt - now) + "ms");
+        }
+        // Delay the next attempt if this one fails.
+        this.reconnectAt = now + config.getReconnectDelayMs();
+        Socket socket = new Socket();
+        try {
+            socket.setTcpNoDelay(true);
+            socket.connect(address, config.getConnectTimeoutMs());
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+        log.info("Connected to the flight logs collector: {}", address);
+        this.socket = socket;
+        this.socketOutput = new BufferedOutputStream(socket.getOutputStream(), SOCKET_BUFFER_SIZE);
+        return socketOutput;
+    }
+
+    private void disconnect() {
+        if (nonNull(socket)) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                log.debug("Failed to close the flight logs collector connection.", e);
+            }
+        }
+        this.socket = null;
+        this.socketOutput = null;
+    }
+
+    private static final int INITIAL_RECORD_SIZE = 2048;
+    private static final int SOCKET_BUFFER_SIZE = 64 * 1024;
+
+}
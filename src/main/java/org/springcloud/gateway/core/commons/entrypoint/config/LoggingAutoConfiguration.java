@@ -17,8 +17,10 @@ package org.springcloud.gateway.core.commons.entrypoint.config;
 
 import static org.springcloud.gateway.core.common.constant.GatewayIAMConstants.CONF_PREFIX_IAM_GATEWAY_LOGGING;
 
+import org.springcloud.gateway.core.commons.entrypoint.AccessLogWriter;
 import org.springcloud.gateway.core.commons.entrypoint.RequestGlobalFilter;
 import org.springcloud.gateway.core.commons.entrypoint.ResponseGlobalFilter;
+import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 
@@ -38,13 +40,18 @@ public class LoggingAutoConfiguration {
     }
 
     @Bean
-    public RequestGlobalFilter requestGlobalFilter(LoggingProperties loggingConfig) {
-        return new RequestGlobalFilter(loggingConfig);
+    public AccessLogWriter accessLogWriter(LoggingProperties loggingConfig, GatewayMetricsFacade metricsFacade) {
+        return new AccessLogWriter(loggingConfig, metricsFacade);
     }
 
     @Bean
-    public ResponseGlobalFilter responseGlobalFilter(LoggingProperties loggingConfig) {
-        return new ResponseGlobalFilter(loggingConfig);
+    public RequestGlobalFilter requestGlobalFilter(LoggingProperties loggingConfig, AccessLogWriter accessLogWriter) {
+        return new RequestGlobalFilter(loggingConfig, accessLogWriter);
+    }
+
+    @Bean
+    public ResponseGlobalFilter responseGlobalFilter(LoggingProperties loggingConfig, AccessLogWriter accessLogWriter) {
+        return new ResponseGlobalFilter(loggingConfig, accessLogWriter);
     }
 
 }
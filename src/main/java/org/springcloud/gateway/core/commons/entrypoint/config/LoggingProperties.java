@@ -16,7 +16,9 @@
 package org.springcloud.gateway.core.commons.entrypoint.config;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.springcloud.gateway.core.web.matcher.SpelRequestMatcher.MatchHttpRequestRule;
 
@@ -93,4 +95,78 @@ public class LoggingProperties {
      */
     private List<MatchHttpRequestRule> preferMatchRuleDefinitions = new ArrayList<>();
 
+    /**
+     * The default sampling rate(0~1) of the matched flight logs, which is used
+     * to bound the cost of logging. The request that explicitly sets the
+     * {@link #verboseLevelRequestHeader} is always logged.
+     */
+    private double defaultSampleRate = 1d;
+
+    /**
+     * The sampling rate(0~1) of the specified routes, which takes precedence
+     * over {@link #defaultSampleRate}, e.g: {my-service-route: 0.01}
+     */
+    private Map<String, Double> routeSampleRates = new HashMap<>();
+
+    /**
+     * Whether to write the flight logs asynchronously by the dedicated writer
+     * thread, so that the event loop threads never touch the disk.
+     */
+    private boolean asyncEnabled = true;
+
+    /**
+     * The capacity of the async flight logs ring buffer (rounded up to the
+     * power of 2), the logs are dropped when the buffer is full.
+     */
+    private int asyncBufferCapacity = 8192;
+
+    /**
+     * The max idle wait of the dedicated writer thread when the ring buffer is
+     * empty.
+     */
+    private long asyncDrainIntervalMs = 10L;
+
+    /**
+     * The sink of the async flight logs.
+     */
+    private AsyncSinkProperties asyncSink = new AsyncSinkProperties();
+
+    @Getter
+    @Setter
+    @ToString
+    public static class AsyncSinkProperties {
+
+        /**
+         * The sink type, {@link SinkType#LOGGER} writes to the appenders of the
+         * source logger (e.g. rolling file), the others write the JSON records
+         * to the remote collector.
+         */
+        private SinkType type = SinkType.LOGGER;
+
+        /**
+         * The host of the UDP/TCP collector.
+         */
+        private String host = "127.0.0.1";
+
+        /**
+         * The port of the UDP/TCP collector.
+         */
+        private int port = 5170;
+
+        /**
+         * The connect timeout of the TCP collector.
+         */
+        private int connectTimeoutMs = 3_000;
+
+        /**
+         * The delay of reconnecting the TCP collector after failure, the
+         * records are dropped (and counted) during the delay.
+         */
+        private long reconnectDelayMs = 5_000L;
+    }
+
+    public static enum SinkType {
+        LOGGER, UDP, TCP;
+    }
+
 }
@@ -88,6 +88,8 @@ public abstract class IamGatewayFault {
          */
         public static final int ORDER_REQUEST_LIMITER = getIntegerProperty("ISCG_ORDER_REQUEST_LIMITER", -40);
 
+        public static final int ORDER_CONCURRENCY_LIMITER = getIntegerProperty("ISCG_ORDER_CONCURRENCY_LIMITER", -35);
+
         public static final int ORDER_TRAFFIC_REPLICATION = getIntegerProperty("ISCG_ORDER_TRAFFIC_REPLICATION", -30);
 
         public static final int ORDER_RESPONSE_CACHE = getIntegerProperty("ISCG_ORDER_RESPONSE_CACHE", -20);
@@ -36,20 +36,19 @@ import org.springframework.web.server.ServerWebExchange;
 
 import com.google.common.base.Predicates;
 
-import org.springcloud.gateway.core.commons.fault.IamGatewayFault;
 import org.springcloud.gateway.core.commons.fault.IamGatewayFault.SafeFilterOrdered;
 import org.springcloud.gateway.core.commons.fj.config.FaultProperties;
 import org.springcloud.gateway.core.commons.fj.config.FaultProperties.AbstractInjectorProperties;
 import org.springcloud.gateway.core.commons.fj.config.FaultProperties.InjectorProperties;
 import org.springcloud.gateway.core.commons.fj.config.FaultProperties.InjectorProvider;
 import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade;
+import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade.MeterTags;
 import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade.MetricsName;
 import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade.MetricsTag;
 import org.springcloud.gateway.core.bean.ConfigBeanUtils;
 import org.springcloud.gateway.core.utils.web.ReactiveRequestExtractor;
 import org.springcloud.gateway.core.web.matcher.SpelRequestMatcher;
 
-import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
@@ -105,9 +104,14 @@ public class InectorFilterFactory extends AbstractGatewayFilterFactory<InectorFi
     public static class Config extends InjectorProperties {
     }
 
-    @AllArgsConstructor
     class FaultInjectorGatewayFilter implements GatewayFilter, Ordered {
         private final Config config;
+        private final MeterTags metricsTags;
+
+        FaultInjectorGatewayFilter(Config config) {
+            this.config = config;
+            this.metricsTags = metricsFacade.prepareTags(MetricsTag.FAULT_INJECTOR, config.getProvider().name());
+        }
 
         @Override
         public int getOrder() {
@@ -121,8 +125,7 @@ public class InectorFilterFactory extends AbstractGatewayFilterFactory<InectorFi
             }
 
             // Add metrics of total.
-            metricsFacade.counter(exchange, MetricsName.FAULT_TOTAL, 1, MetricsTag.ROUTE_ID, IamGatewayFault.getRouteId(exchange),
-                    MetricsTag.FAULT_INJECTOR, config.getProvider().name());
+            metricsFacade.counter(exchange, MetricsName.FAULT_TOTAL, 1, metricsTags);
 
             switch (config.getProvider()) {
             case Abort:
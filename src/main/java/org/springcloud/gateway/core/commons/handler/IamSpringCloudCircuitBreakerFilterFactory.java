@@ -18,6 +18,8 @@ package org.springcloud.gateway.core.commons.handler;
 
 import static java.util.Collections.singletonList;
 import static java.util.Optional.ofNullable;
+import static org.springcloud.gateway.core.commons.cb.RouteCircuitBreakerRegistry.KEY_INSTANCE_BREAKER_DECORATOR;
+import static org.springcloud.gateway.core.lang.Assert2.notNullOf;
 import static org.springframework.cloud.gateway.support.GatewayToStringStyler.filterToStringCreator;
 import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.CIRCUITBREAKER_EXECUTION_EXCEPTION_ATTR;
 import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR;
@@ -31,10 +33,11 @@ import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import org.springcloud.gateway.core.commons.cb.RouteCircuitBreakerRegistry;
+import org.springcloud.gateway.core.commons.cb.RouteCircuitBreakerRegistry.InstanceBreakerDecorator;
 import org.springcloud.gateway.core.commons.fault.IamGatewayFault.SafeFilterOrdered;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.cloud.client.circuitbreaker.ReactiveCircuitBreaker;
-import org.springframework.cloud.client.circuitbreaker.ReactiveCircuitBreakerFactory;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
@@ -49,7 +52,6 @@ import org.springframework.web.reactive.DispatcherHandler;
 import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.util.UriComponentsBuilder;
 
-import lombok.AllArgsConstructor;
 import reactor.core.publisher.Mono;
 
 /**
@@ -62,9 +64,7 @@ public abstract class IamSpringCloudCircuitBreakerFilterFactory
     /** CircuitBreaker component name. */
     public static final String NAME = "IamCircuitBreaker";
 
-    private ReactiveCircuitBreakerFactory reactiveCircuitBreakerFactory;
-
-    private ReactiveCircuitBreaker circuitBreaker;
+    private final RouteCircuitBreakerRegistry breakerRegistry;
 
     private final ObjectProvider<DispatcherHandler> dispatcherHandlerProvider;
 
@@ -72,10 +72,10 @@ public abstract class IamSpringCloudCircuitBreakerFilterFactory
     // instead.
     private volatile DispatcherHandler dispatcherHandler;
 
-    public IamSpringCloudCircuitBreakerFilterFactory(ReactiveCircuitBreakerFactory reactiveCircuitBreakerFactory,
+    public IamSpringCloudCircuitBreakerFilterFactory(RouteCircuitBreakerRegistry breakerRegistry,
             ObjectProvider<DispatcherHandler> dispatcherHandlerProvider) {
         super(Config.class);
-        this.reactiveCircuitBreakerFactory = reactiveCircuitBreakerFactory;
+        this.breakerRegistry = notNullOf(breakerRegistry, "breakerRegistry");
         this.dispatcherHandlerProvider = dispatcherHandlerProvider;
     }
 
@@ -95,9 +95,10 @@ public abstract class IamSpringCloudCircuitBreakerFilterFactory
     @Override
     public GatewayFilter apply(Config config) {
         //
-        // [FIXED] ADD Use member variables
+        // [FIXED] Each route uses its own breaker, instead of the last created
+        // one shared by all routes.
         //
-        this.circuitBreaker = reactiveCircuitBreakerFactory.create(config.getId());
+        ReactiveCircuitBreaker circuitBreaker = breakerRegistry.getRouteBreaker(config.getId());
         Set<HttpStatus> statuses = config.getStatusCodes()
                 .stream()
                 .map(HttpStatusHolder::parse)
@@ -162,7 +163,7 @@ public abstract class IamSpringCloudCircuitBreakerFilterFactory
         //
         // [Begin] Modified to Ordered gateway filter.
         //
-        return new IamSpringCloudCircuitBreakerGatewayFilter(config, statuses);
+        return new IamSpringCloudCircuitBreakerGatewayFilter(config, statuses, circuitBreaker);
         //
         // [End] Modified to Ordered gateway filter.
         //
@@ -189,6 +190,12 @@ public abstract class IamSpringCloudCircuitBreakerFilterFactory
 
         private Set<String> statusCodes = new HashSet<>();
 
+        /**
+         * Whether to enable the breakers of each upstream instance chosen by
+         * the canary load balancer, in addition to the route breaker.
+         */
+        private boolean perInstance = false;
+
         @Override
         public void setRouteId(String routeId) {
             this.routeId = routeId;
@@ -221,7 +228,7 @@ public abstract class IamSpringCloudCircuitBreakerFilterFactory
         }
 
         public String getId() {
-            if (StringUtils.hasLength(name) && !StringUtils.hasLength(routeId)) {
+            if (StringUtils.hasLength(routeId)) {
                 return routeId;
             }
             return name;
@@ -241,6 +248,15 @@ public abstract class IamSpringCloudCircuitBreakerFilterFactory
             return this;
         }
 
+        public boolean isPerInstance() {
+            return perInstance;
+        }
+
+        public Config setPerInstance(boolean perInstance) {
+            this.perInstance = perInstance;
+            return this;
+        }
+
     }
 
     @SuppressWarnings("serial")
@@ -252,11 +268,27 @@ public abstract class IamSpringCloudCircuitBreakerFilterFactory
 
     }
 
-    @AllArgsConstructor
     class IamSpringCloudCircuitBreakerGatewayFilter implements GatewayFilter, Ordered {
 
         private final Config config;
         private final Set<HttpStatus> statuses;
+        private final ReactiveCircuitBreaker circuitBreaker;
+
+        /**
+         * The upstream responses of the configured statuses are failures of
+         * the instance breaker, the same as the route breaker.
+         */
+        private final InstanceBreakerDecorator instanceBreakerDecorator;
+
+        IamSpringCloudCircuitBreakerGatewayFilter(Config config, Set<HttpStatus> statuses,
+                ReactiveCircuitBreaker circuitBreaker) {
+            this.config = config;
+            this.statuses = statuses;
+            this.circuitBreaker = circuitBreaker;
+            this.instanceBreakerDecorator = (exchange, serviceId, instanceId, toRun) -> breakerRegistry
+                    .getInstanceBreaker(config.getId(), serviceId, instanceId)
+                    .decorate(toRun, () -> !statuses.contains(exchange.getResponse().getStatusCode()));
+        }
 
         @Override
         public int getOrder() {
@@ -265,6 +297,9 @@ public abstract class IamSpringCloudCircuitBreakerFilterFactory
 
         @Override
         public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+            if (config.isPerInstance()) {
+                exchange.getAttributes().put(KEY_INSTANCE_BREAKER_DECORATOR, instanceBreakerDecorator);
+            }
             return circuitBreaker.run(chain.filter(exchange).doOnSuccess(v -> {
                 if (statuses.contains(exchange.getResponse().getStatusCode())) {
                     HttpStatus status = exchange.getResponse().getStatusCode();
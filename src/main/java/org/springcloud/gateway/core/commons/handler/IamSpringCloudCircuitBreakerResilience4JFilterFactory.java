@@ -17,12 +17,14 @@
 package org.springcloud.gateway.core.commons.handler;
 
 import org.springframework.beans.factory.ObjectProvider;
-import org.springframework.cloud.client.circuitbreaker.ReactiveCircuitBreakerFactory;
 import org.springframework.cloud.gateway.support.ServiceUnavailableException;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.reactive.DispatcherHandler;
 import org.springframework.web.server.ResponseStatusException;
 
+import org.springcloud.gateway.core.commons.cb.RouteCircuitBreakerRegistry;
+import org.springcloud.gateway.core.commons.cb.SlidingWindowCircuitBreaker.CircuitBreakerOpenException;
+
 import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
 import reactor.core.publisher.Mono;
 
@@ -32,9 +34,9 @@ import reactor.core.publisher.Mono;
 @SuppressWarnings("rawtypes")
 public class IamSpringCloudCircuitBreakerResilience4JFilterFactory extends IamSpringCloudCircuitBreakerFilterFactory {
 
-    public IamSpringCloudCircuitBreakerResilience4JFilterFactory(ReactiveCircuitBreakerFactory reactiveCircuitBreakerFactory,
+    public IamSpringCloudCircuitBreakerResilience4JFilterFactory(RouteCircuitBreakerRegistry breakerRegistry,
             ObjectProvider<DispatcherHandler> dispatcherHandlerProvider) {
-        super(reactiveCircuitBreakerFactory, dispatcherHandlerProvider);
+        super(breakerRegistry, dispatcherHandlerProvider);
     }
 
     @Override
@@ -42,7 +44,7 @@ public class IamSpringCloudCircuitBreakerResilience4JFilterFactory extends IamSp
         if (java.util.concurrent.TimeoutException.class.isInstance(t)) {
             return Mono.error(new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT, t.getMessage(), t));
         }
-        if (CallNotPermittedException.class.isInstance(t)) {
+        if (CallNotPermittedException.class.isInstance(t) || CircuitBreakerOpenException.class.isInstance(t)) {
             return Mono.error(new ServiceUnavailableException());
         }
         return Mono.error(t);
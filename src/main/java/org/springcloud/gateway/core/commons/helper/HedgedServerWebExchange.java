@@ -0,0 +1,200 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors.<springcloudgateway@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.commons.helper;
+
+import static java.util.Objects.nonNull;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.server.reactive.AbstractServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.ServerWebExchangeDecorator;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * {@link HedgedServerWebExchange}, The exchange of a hedged attempt, which has
+ * its own copy of the attributes (the routing filters keep the per attempt
+ * state in the attributes) and its own response status and headers, so that
+ * the attempts can run concurrently. </br>
+ * </br>
+ * The first attempt that commits its response (i.e. receives the upstream
+ * response) wins the {@link HedgeRace}, its status and headers are copied to
+ * the original response and its body is streamed to the original response as
+ * is (without buffering, so the large and SSE responses are also supported),
+ * and the other attempts are cancelled.
+ *
+ * @author springcloudgateway &lt;springcloudgateway@163.com, springcloudgateway@163.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+class HedgedServerWebExchange extends ServerWebExchangeDecorator {
+
+    private final HedgeRace race;
+    private final Map<String, Object> attributes;
+    private final HedgedServerHttpResponse response;
+
+    HedgedServerWebExchange(ServerWebExchange delegate, HedgeRace race) {
+        super(delegate);
+        this.race = race;
+        this.attributes = new ConcurrentHashMap<>(delegate.getAttributes());
+        this.response = new HedgedServerHttpResponse();
+    }
+
+    @Override
+    public ServerHttpResponse getResponse() {
+        return response;
+    }
+
+    @Override
+    public Map<String, Object> getAttributes() {
+        return attributes;
+    }
+
+    /**
+     * Run the attempt, which is cancelled (completes empty) when the other
+     * attempt wins the race.
+     */
+    Mono<HedgedServerWebExchange> attempt(Function<ServerWebExchange, Mono<Void>> filter) {
+        return filter.apply(this).thenReturn(this).takeUntilOther(race.lostBy(this));
+    }
+
+    /**
+     * Copy the attributes of the winner attempt to the original exchange.
+     */
+    void completeTo(ServerWebExchange exchange) {
+        exchange.getAttributes().putAll(attributes);
+    }
+
+    /**
+     * Commit the response of the attempt to the original response if it wins
+     * the race, otherwise the attempt is failed with {@link HedgeLostException}.
+     */
+    private Mono<Void> commitTo(Function<ServerHttpResponse, Mono<Void>> writer) {
+        if (!race.tryWin(this)) {
+            return Mono.error(new HedgeLostException());
+        }
+        ServerHttpResponse target = getDelegate().getResponse();
+        if (nonNull(response.getRawStatusCode())) {
+            target.setRawStatusCode(response.getRawStatusCode());
+        }
+        target.getHeaders().putAll(response.getHeaders());
+        response.getCookies().values().forEach(cookies -> cookies.forEach(target::addCookie));
+        return writer.apply(target);
+    }
+
+    class HedgedServerHttpResponse extends AbstractServerHttpResponse {
+
+        HedgedServerHttpResponse() {
+            super(getDelegate().getResponse().bufferFactory());
+        }
+
+        @Override
+        public <T> T getNativeResponse() {
+            throw new IllegalStateException("The hedged attempt response has no native response");
+        }
+
+        @Override
+        public Mono<Void> setComplete() {
+            return isCommitted() ? Mono.empty()
+                    : super.setComplete().then(Mono.defer(() -> commitTo(target -> target.setComplete())));
+        }
+
+        @Override
+        protected Mono<Void> writeWithInternal(Publisher<? extends DataBuffer> body) {
+            return commitTo(target -> target.writeWith(body));
+        }
+
+        @Override
+        protected Mono<Void> writeAndFlushWithInternal(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            return commitTo(target -> target.writeAndFlushWith(body));
+        }
+
+        @Override
+        protected void applyStatusCode() {
+        }
+
+        @Override
+        protected void applyHeaders() {
+        }
+
+        @Override
+        protected void applyCookies() {
+        }
+    }
+
+    /**
+     * The race of the attempts of a hedged request, the first committed
+     * attempt wins.
+     */
+    static class HedgeRace {
+        private final long beginTime = System.currentTimeMillis();
+        private final AtomicReference<HedgedServerWebExchange> winner = new AtomicReference<>();
+        private final Sinks.One<HedgedServerWebExchange> committed = Sinks.one();
+        private final LongConsumer onCommitted;
+
+        /**
+         * @param onCommitted
+         *            The callback of the elapsed time to the first commit,
+         *            which is the latency of the primary attempt (or the
+         *            lower bound of it when the hedged attempt wins).
+         */
+        HedgeRace(LongConsumer onCommitted) {
+            this.onCommitted = onCommitted;
+        }
+
+        boolean isCommitted() {
+            return nonNull(winner.get());
+        }
+
+        long getBeginTime() {
+            return beginTime;
+        }
+
+        private boolean tryWin(HedgedServerWebExchange attempt) {
+            if (!winner.compareAndSet(null, attempt)) {
+                return winner.get() == attempt;
+            }
+            onCommitted.accept(System.currentTimeMillis() - beginTime);
+            committed.tryEmitValue(attempt);
+            return true;
+        }
+
+        private Mono<HedgedServerWebExchange> lostBy(HedgedServerWebExchange attempt) {
+            return committed.asMono().filter(w -> w != attempt);
+        }
+    }
+
+    /**
+     * The attempt lost the race, which is never propagated when there is a
+     * winner.
+     */
+    @SuppressWarnings("serial")
+    static class HedgeLostException extends RuntimeException {
+        HedgeLostException() {
+            super("The hedged attempt lost the race", null, false, false);
+        }
+    }
+
+}
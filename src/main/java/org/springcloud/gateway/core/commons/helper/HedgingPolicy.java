@@ -0,0 +1,104 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors.<springcloudgateway@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.commons.helper;
+
+import static org.springcloud.gateway.core.lang.Assert2.isTrueOf;
+import static org.springcloud.gateway.core.lang.Assert2.notNullOf;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.server.ServerWebExchange;
+
+import org.springcloud.gateway.core.commons.helper.HelperGatewayFilterFactory.HedgeConfig;
+
+/**
+ * {@link HedgingPolicy}, The hedging policy of a route, the hedged request is
+ * fired after the delay of the latency quantile (e.g. p95) of the recent
+ * requests, which is estimated from a ring of the recent latency samples and
+ * recomputed every {@link #RECOMPUTE_INTERVAL} samples, so that only about 5%
+ * of the requests are hedged.
+ *
+ * @author springcloudgateway &lt;springcloudgateway@163.com, springcloudgateway@163.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+public class HedgingPolicy {
+
+    private final HedgeConfig config;
+    private final long minDelayMs;
+    private final long maxDelayMs;
+    private final AtomicLongArray samples;
+    private final AtomicLong cursor = new AtomicLong(0L);
+    private volatile long delayMs;
+
+    public HedgingPolicy(HedgeConfig config) {
+        this.config = notNullOf(config, "config");
+        isTrueOf(config.getQuantile() > 0 && config.getQuantile() < 1, "hedge.quantile > 0 && hedge.quantile < 1");
+        isTrueOf(config.getWindowSize() > 0, "hedge.windowSize > 0");
+        notNullOf(config.getMinDelay(), "hedge.minDelay");
+        notNullOf(config.getMaxDelay(), "hedge.maxDelay");
+        this.minDelayMs = config.getMinDelay().toMillis();
+        this.maxDelayMs = config.getMaxDelay().toMillis();
+        this.samples = new AtomicLongArray(config.getWindowSize());
+        this.delayMs = maxDelayMs;
+    }
+
+    /**
+     * Whether the request is hedgeable, only the requests without body of the
+     * configured (idempotent) methods can be hedged, because the request body
+     * cannot be subscribed twice.
+     */
+    public boolean isHedgeable(ServerWebExchange exchange) {
+        ServerHttpRequest request = exchange.getRequest();
+        HttpHeaders headers = request.getHeaders();
+        return config.getMethods().contains(request.getMethod()) && headers.getContentLength() <= 0
+                && !headers.containsKey(HttpHeaders.TRANSFER_ENCODING);
+    }
+
+    public void record(long costMs) {
+        long index = cursor.getAndIncrement();
+        samples.set((int) (index % samples.length()), costMs);
+        long count = index + 1;
+        if (count >= config.getMinSamples() && count % RECOMPUTE_INTERVAL == 0) {
+            recompute((int) Math.min(count, samples.length()));
+        }
+    }
+
+    /**
+     * @return The delay of firing the hedged request, which is the max delay
+     *         before the min samples are recorded.
+     */
+    public long getDelayMs() {
+        return delayMs;
+    }
+
+    private void recompute(int size) {
+        long[] sorted = new long[size];
+        for (int i = 0; i < size; i++) {
+            sorted[i] = samples.get(i);
+        }
+        Arrays.sort(sorted);
+        long quantile = sorted[Math.max((int) Math.ceil(config.getQuantile() * size) - 1, 0)];
+        this.delayMs = Math.max(minDelayMs, Math.min(maxDelayMs, quantile));
+    }
+
+    public static final int RECOMPUTE_INTERVAL = 64;
+
+}
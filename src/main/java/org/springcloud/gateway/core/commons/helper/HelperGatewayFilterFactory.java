@@ -16,13 +16,24 @@
 
 package org.springcloud.gateway.core.commons.helper;
 
+import static org.springcloud.gateway.core.commons.serv.CanaryLoadBalancerFilterFactory.KEY_CHOSEN_INSTANCE_ID;
+import static org.springcloud.gateway.core.commons.serv.CanaryLoadBalancerFilterFactory.KEY_EXCLUDED_INSTANCE_IDS;
+import static java.util.Objects.isNull;
+import static org.springcloud.gateway.core.lang.Assert2.notNullOf;
 import static org.springframework.cloud.gateway.support.GatewayToStringStyler.filterToStringCreator;
 
 import java.io.IOException;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 
@@ -30,13 +41,21 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.reactivestreams.Publisher;
 import org.springcloud.gateway.core.commons.fault.IamGatewayFault.SafeFilterOrdered;
+import org.springcloud.gateway.core.commons.helper.HedgedServerWebExchange.HedgeLostException;
+import org.springcloud.gateway.core.commons.helper.HedgedServerWebExchange.HedgeRace;
+import org.springcloud.gateway.core.commons.helper.config.IamRetryProperties;
+import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade;
+import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade.MetricsName;
+import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade.MetricsTag;
 import org.springframework.cloud.gateway.event.EnableBodyCachingEvent;
+import org.springframework.cloud.gateway.event.RefreshRoutesResultEvent;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
 import org.springframework.cloud.gateway.support.HasRouteId;
 import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
 import org.springframework.cloud.gateway.support.TimeoutException;
+import org.springframework.context.ApplicationListener;
 import org.springframework.core.Ordered;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
@@ -44,7 +63,9 @@ import org.springframework.http.HttpStatus.Series;
 import org.springframework.util.Assert;
 import org.springframework.web.server.ServerWebExchange;
 
+import io.micrometer.core.instrument.Gauge;
 import lombok.AllArgsConstructor;
+import reactor.core.Exceptions;
 import reactor.core.publisher.Mono;
 import reactor.netty.Connection;
 import reactor.retry.Backoff;
@@ -54,7 +75,8 @@ import reactor.retry.Retry;
 import reactor.retry.RetryContext;
 
 @SuppressWarnings({ "unchecked", "unused", "deprecation" })
-public class HelperGatewayFilterFactory extends AbstractGatewayFilterFactory<HelperGatewayFilterFactory.RetryConfig> {
+public class HelperGatewayFilterFactory extends AbstractGatewayFilterFactory<HelperGatewayFilterFactory.RetryConfig>
+        implements ApplicationListener<RefreshRoutesResultEvent> {
 
     /**
      * Retry iteration key.
@@ -63,8 +85,16 @@ public class HelperGatewayFilterFactory extends AbstractGatewayFilterFactory<Hel
 
     private static final Log log = LogFactory.getLog(HelperGatewayFilterFactory.class);
 
-    public HelperGatewayFilterFactory() {
+    private final IamRetryProperties defaultRetryConfig;
+    private final GatewayMetricsFacade metricsFacade;
+    private final Map<String, RetryBudget> budgets = new ConcurrentHashMap<>(16);
+    private final Map<String, Gauge> budgetGauges = new ConcurrentHashMap<>(16);
+    private volatile Set<String> appliedBudgetRouteIds = ConcurrentHashMap.newKeySet();
+
+    public HelperGatewayFilterFactory(IamRetryProperties defaultRetryConfig, GatewayMetricsFacade metricsFacade) {
         super(RetryConfig.class);
+        this.defaultRetryConfig = notNullOf(defaultRetryConfig, "defaultRetryConfig");
+        this.metricsFacade = notNullOf(metricsFacade, "metricsFacade");
     }
 
     @Override
@@ -78,8 +108,12 @@ public class HelperGatewayFilterFactory extends AbstractGatewayFilterFactory<Hel
 
     @Override
     public GatewayFilter apply(RetryConfig retryConfig) {
+        applyDefaultToConfig(retryConfig);
         retryConfig.validate();
 
+        RetryBudget budget = newRetryBudget(retryConfig);
+        HedgingPolicy hedging = retryConfig.getHedge().isEnabled() ? new HedgingPolicy(retryConfig.getHedge()) : null;
+
         Repeat<ServerWebExchange> statusCodeRepeat = null;
         if (!retryConfig.getStatuses().isEmpty() || !retryConfig.getSeries().isEmpty()) {
             Predicate<RepeatContext<ServerWebExchange>> repeatPredicate = context -> {
@@ -107,7 +141,7 @@ public class HelperGatewayFilterFactory extends AbstractGatewayFilterFactory<Hel
 
                 trace("retryableMethod: %b, httpMethod %s, configured methods %s", () -> retryableMethod, () -> httpMethod,
                         retryConfig::getMethods);
-                return retryableMethod && finalRetryableStatusCode;
+                return retryableMethod && finalRetryableStatusCode && tryWithdrawRetryBudget(exchange, budget);
             };
 
             statusCodeRepeat = Repeat.onlyIf(repeatPredicate).doOnRepeat(context -> reset(context.applicationContext()));
@@ -141,7 +175,7 @@ public class HelperGatewayFilterFactory extends AbstractGatewayFilterFactory<Hel
                         boolean retryableMethod = retryConfig.getMethods().contains(httpMethod);
                         trace("retryableMethod: %b, httpMethod %s, configured methods %s", () -> retryableMethod,
                                 () -> httpMethod, retryConfig::getMethods);
-                        return retryableMethod;
+                        return retryableMethod && tryWithdrawRetryBudget(exchange, budget);
                     }
                 }
                 trace("exception or its cause is not retryable %s, configured exceptions %s",
@@ -157,7 +191,7 @@ public class HelperGatewayFilterFactory extends AbstractGatewayFilterFactory<Hel
             }
         }
 
-        GatewayFilter gatewayFilter = apply(retryConfig.getRouteId(), statusCodeRepeat, exceptionRetry);
+        GatewayFilter gatewayFilter = apply(retryConfig.getRouteId(), statusCodeRepeat, exceptionRetry, budget, hedging);
         return new GatewayFilter() {
             @Override
             public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
@@ -171,11 +205,80 @@ public class HelperGatewayFilterFactory extends AbstractGatewayFilterFactory<Hel
                         .append("statuses", retryConfig.getStatuses())
                         .append("methods", retryConfig.getMethods())
                         .append("exceptions", retryConfig.getExceptions())
+                        .append("budget", retryConfig.getBudget().isEnabled())
+                        .append("hedge", retryConfig.getHedge().isEnabled())
                         .toString();
             }
         };
     }
 
+    private void applyDefaultToConfig(RetryConfig config) {
+        if (config.getBudget() == null) {
+            config.setBudget(defaultRetryConfig.getBudget());
+        }
+        if (config.getHedge() == null) {
+            config.setHedge(defaultRetryConfig.getHedge());
+        }
+    }
+
+    /**
+     * Create the retry budget of the route, the budget gauge is registered
+     * once per route and always reports the budget of the latest applied
+     * filter (e.g. after the routes refreshed).
+     */
+    private RetryBudget newRetryBudget(RetryConfig config) {
+        if (!config.getBudget().isEnabled()) {
+            return null;
+        }
+        RetryBudget budget = new RetryBudget(config.getBudget());
+        String routeId = config.getRouteId();
+        if (routeId != null) {
+            // The route filters are rebuilt before the refreshed result event.
+            appliedBudgetRouteIds.add(routeId);
+            if (budgets.put(routeId, budget) == null) {
+                budgetGauges.computeIfAbsent(routeId, k -> metricsFacade.gauge(MetricsName.RETRY_BUDGET_BALANCE, () -> {
+                    RetryBudget latest = budgets.get(routeId);
+                    return isNull(latest) ? 0d : latest.getBalance();
+                }, MetricsTag.ROUTE_ID, routeId));
+            }
+        }
+        return budget;
+    }
+
+    /**
+     * Discard the budgets (and the gauges) of the routes which were not
+     * rebuilt with the budget by this refresh (i.e. removed, or the budget
+     * disabled).
+     */
+    @Override
+    public void onApplicationEvent(RefreshRoutesResultEvent event) {
+        Set<String> refreshedRouteIds = appliedBudgetRouteIds;
+        appliedBudgetRouteIds = ConcurrentHashMap.newKeySet();
+        if (!event.isSuccess()) {
+            return;
+        }
+        for (Iterator<Entry<String, RetryBudget>> it = budgets.entrySet().iterator(); it.hasNext();) {
+            String routeId = it.next().getKey();
+            if (!refreshedRouteIds.contains(routeId)) {
+                trace("discard the retry budget of removed route %s", () -> routeId);
+                it.remove();
+                Gauge gauge = budgetGauges.remove(routeId);
+                if (gauge != null) {
+                    metricsFacade.removeMeter(gauge);
+                }
+            }
+        }
+    }
+
+    private boolean tryWithdrawRetryBudget(ServerWebExchange exchange, RetryBudget budget) {
+        if (budget == null || budget.tryWithdraw()) {
+            return true;
+        }
+        trace("retry budget exhausted, balance %s", budget::getBalance);
+        metricsFacade.counter(exchange, MetricsName.RETRY_BUDGET_EXHAUSTED_TOTAL, 1);
+        return false;
+    }
+
     private String getExceptionNameWithCause(Throwable exception) {
         if (exception != null) {
             StringBuilder builder = new StringBuilder(exception.getClass().getName());
@@ -223,6 +326,15 @@ public class HelperGatewayFilterFactory extends AbstractGatewayFilterFactory<Hel
     }
 
     public GatewayFilter apply(String routeId, Repeat<ServerWebExchange> repeat, Retry<ServerWebExchange> retry) {
+        return apply(routeId, repeat, retry, null, null);
+    }
+
+    public GatewayFilter apply(
+            String routeId,
+            Repeat<ServerWebExchange> repeat,
+            Retry<ServerWebExchange> retry,
+            RetryBudget budget,
+            HedgingPolicy hedging) {
         if (routeId != null && getPublisher() != null) {
             // send an event to enable caching
             getPublisher().publishEvent(new EnableBodyCachingEvent(this, routeId));
@@ -256,7 +368,7 @@ public class HelperGatewayFilterFactory extends AbstractGatewayFilterFactory<Hel
         //
         // [Begin] Modified to Ordered gateway filter.
         //
-        return new IamRetryGatewayFailter(routeId, repeat, retry);
+        return new IamRetryGatewayFailter(routeId, repeat, retry, budget, hedging);
         //
         // [End] Modified to Ordered gateway filter.
         //
@@ -298,6 +410,10 @@ public class HelperGatewayFilterFactory extends AbstractGatewayFilterFactory<Hel
 
         private BackoffConfig backoff;
 
+        private BudgetConfig budget;
+
+        private HedgeConfig hedge;
+
         public RetryConfig allMethods() {
             return setMethods(HttpMethod.values());
         }
@@ -310,6 +426,11 @@ public class HelperGatewayFilterFactory extends AbstractGatewayFilterFactory<Hel
             if (this.backoff != null) {
                 this.backoff.validate();
             }
+            Assert.notNull(this.budget, "budget must be present");
+            Assert.notNull(this.hedge, "hedge must be present");
+            if (this.hedge.isEnabled()) {
+                Assert.notEmpty(this.hedge.getMethods(), "hedge methods may not be empty");
+            }
         }
 
         public BackoffConfig getBackoff() {
@@ -326,6 +447,24 @@ public class HelperGatewayFilterFactory extends AbstractGatewayFilterFactory<Hel
             return this;
         }
 
+        public BudgetConfig getBudget() {
+            return budget;
+        }
+
+        public RetryConfig setBudget(BudgetConfig budget) {
+            this.budget = budget;
+            return this;
+        }
+
+        public HedgeConfig getHedge() {
+            return hedge;
+        }
+
+        public RetryConfig setHedge(HedgeConfig hedge) {
+            this.hedge = hedge;
+            return this;
+        }
+
         @Override
         public void setRouteId(String routeId) {
             this.routeId = routeId;
@@ -441,12 +580,153 @@ public class HelperGatewayFilterFactory extends AbstractGatewayFilterFactory<Hel
 
     }
 
+    /**
+     * The token bucket retry budget of the route, e.g. the ratio 0.2 means the
+     * retries (and hedged requests) are at most 20% of the requests, plus the
+     * minimum retries per second reserved for the low traffic routes.
+     */
+    public static class BudgetConfig {
+
+        private boolean enabled = false;
+
+        private double ratio = 0.2d;
+
+        private double minRetriesPerSecond = 10d;
+
+        private int maxTokens = 100;
+
+        public BudgetConfig() {
+        }
+
+        public BudgetConfig(boolean enabled, double ratio, double minRetriesPerSecond, int maxTokens) {
+            this.enabled = enabled;
+            this.ratio = ratio;
+            this.minRetriesPerSecond = minRetriesPerSecond;
+            this.maxTokens = maxTokens;
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getRatio() {
+            return ratio;
+        }
+
+        public void setRatio(double ratio) {
+            this.ratio = ratio;
+        }
+
+        public double getMinRetriesPerSecond() {
+            return minRetriesPerSecond;
+        }
+
+        public void setMinRetriesPerSecond(double minRetriesPerSecond) {
+            this.minRetriesPerSecond = minRetriesPerSecond;
+        }
+
+        public int getMaxTokens() {
+            return maxTokens;
+        }
+
+        public void setMaxTokens(int maxTokens) {
+            this.maxTokens = maxTokens;
+        }
+
+    }
+
+    /**
+     * The hedging of the idempotent requests, the hedged request is fired
+     * (to another instance) after the delay of the latency quantile (clamped
+     * to minDelay~maxDelay) when the first request has no response, the first
+     * response wins and the other is cancelled.
+     */
+    public static class HedgeConfig {
+
+        private boolean enabled = false;
+
+        private List<HttpMethod> methods = toList(HttpMethod.GET);
+
+        private double quantile = 0.95d;
+
+        private Duration minDelay = Duration.ofMillis(10);
+
+        private Duration maxDelay = Duration.ofSeconds(1);
+
+        private int windowSize = 1000;
+
+        private int minSamples = 100;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public List<HttpMethod> getMethods() {
+            return methods;
+        }
+
+        public void setMethods(List<HttpMethod> methods) {
+            this.methods = methods;
+        }
+
+        public double getQuantile() {
+            return quantile;
+        }
+
+        public void setQuantile(double quantile) {
+            this.quantile = quantile;
+        }
+
+        public Duration getMinDelay() {
+            return minDelay;
+        }
+
+        public void setMinDelay(Duration minDelay) {
+            this.minDelay = minDelay;
+        }
+
+        public Duration getMaxDelay() {
+            return maxDelay;
+        }
+
+        public void setMaxDelay(Duration maxDelay) {
+            this.maxDelay = maxDelay;
+        }
+
+        public int getWindowSize() {
+            return windowSize;
+        }
+
+        public void setWindowSize(int windowSize) {
+            this.windowSize = windowSize;
+        }
+
+        public int getMinSamples() {
+            return minSamples;
+        }
+
+        public void setMinSamples(int minSamples) {
+            this.minSamples = minSamples;
+        }
+
+    }
+
     @AllArgsConstructor
     class IamRetryGatewayFailter implements GatewayFilter, Ordered {
 
         private final String routeId;
         private final Repeat<ServerWebExchange> repeat;
         private final Retry<ServerWebExchange> retry;
+        private final RetryBudget budget;
+        private final HedgingPolicy hedging;
 
         @Override
         public int getOrder() {
@@ -456,9 +736,15 @@ public class HelperGatewayFilterFactory extends AbstractGatewayFilterFactory<Hel
         @Override
         public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
             trace("Entering retry-filter");
+            if (budget != null) {
+                budget.deposit();
+            }
 
             // chain.filter returns a Mono<Void>
-            Publisher<Void> publisher = chain.filter(exchange)
+            Mono<Void> attempt = (hedging != null && hedging.isHedgeable(exchange))
+                    ? Mono.defer(() -> hedge(exchange, chain))
+                    : chain.filter(exchange);
+            Publisher<Void> publisher = attempt
                     // .log("retry-filter", Level.INFO)
                     .doOnSuccess(aVoid -> updateIteration(exchange))
                     .doOnError(throwable -> updateIteration(exchange));
@@ -478,6 +764,61 @@ public class HelperGatewayFilterFactory extends AbstractGatewayFilterFactory<Hel
             return Mono.fromDirect(publisher);
         }
 
+        /**
+         * Fire the hedged request (to another instance) if the first request
+         * has not received the response after the delay, the first attempt
+         * that receives the response wins and streams its response, and the
+         * other is cancelled. The hedged request withdraws from the retry
+         * budget too. </br>
+         * </br>
+         * The elapsed time to the first response is recorded as the latency of
+         * the primary attempt, no matter whether the hedged request is fired.
+         */
+        private Mono<Void> hedge(ServerWebExchange exchange, GatewayFilterChain chain) {
+            HedgeRace race = new HedgeRace(costMs -> hedging.record(costMs));
+            HedgedServerWebExchange primary = new HedgedServerWebExchange(exchange, race);
+            HedgedServerWebExchange hedged = new HedgedServerWebExchange(exchange, race);
+
+            Mono<HedgedServerWebExchange> primaryAttempt = primary.attempt(chain::filter);
+            Mono<HedgedServerWebExchange> hedgedAttempt = Mono.delay(Duration.ofMillis(hedging.getDelayMs()))
+                    .filter(tick -> !race.isCommitted() && tryWithdrawRetryBudget(exchange, budget))
+                    .flatMap(tick -> {
+                        trace("firing hedged request after %dms", () -> System.currentTimeMillis() - race.getBeginTime());
+                        metricsFacade.counter(exchange, MetricsName.RETRY_HEDGE_TOTAL, 1);
+                        // Exclude the instance of the primary attempt.
+                        String primaryInstanceId = (String) primary.getAttributes().get(KEY_CHOSEN_INSTANCE_ID);
+                        if (primaryInstanceId != null) {
+                            hedged.getAttributes().put(KEY_EXCLUDED_INSTANCE_IDS, Collections.singleton(primaryInstanceId));
+                        }
+                        return hedged.attempt(chain::filter);
+                    });
+
+            return Mono.firstWithValue(primaryAttempt, hedgedAttempt)
+                    .onErrorMap(NoSuchElementException.class, this::unwrapHedgeError)
+                    .doOnNext(winner -> {
+                        if (winner == hedged) {
+                            metricsFacade.counter(exchange, MetricsName.RETRY_HEDGE_WIN_TOTAL, 1);
+                        }
+                        winner.completeTo(exchange);
+                    })
+                    .then();
+        }
+
+        /**
+         * When all attempts failed, propagate the original error so that the
+         * retry predicate still matches the exceptions.
+         */
+        private Throwable unwrapHedgeError(NoSuchElementException ex) {
+            if (ex.getCause() != null) {
+                for (Throwable cause : Exceptions.unwrapMultiple(ex.getCause())) {
+                    if (cause != null && !(cause instanceof NoSuchElementException) && !(cause instanceof HedgeLostException)) {
+                        return cause;
+                    }
+                }
+            }
+            return ex;
+        }
+
     }
 
     public static final String BEAN_NAME = "IamRetry";
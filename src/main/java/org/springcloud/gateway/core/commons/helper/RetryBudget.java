@@ -0,0 +1,94 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors.<springcloudgateway@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.commons.helper;
+
+import static java.util.Objects.nonNull;
+import static org.springcloud.gateway.core.lang.Assert2.isTrueOf;
+import static org.springcloud.gateway.core.lang.Assert2.notNullOf;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nullable;
+
+import org.springcloud.gateway.core.commons.helper.HelperGatewayFilterFactory.BudgetConfig;
+
+import com.google.common.util.concurrent.RateLimiter;
+
+/**
+ * {@link RetryBudget}, The token bucket retry budget of a route, each original
+ * request deposits the ratio (e.g. 0.2) of a token and each retry (or hedged
+ * request) withdraws a whole token, so that the retries are bounded to the
+ * ratio of the requests (plus the minimum retries per second reserved for the
+ * low traffic routes), and the retry storms are cut off during the backend
+ * brownout.
+ *
+ * @author springcloudgateway &lt;springcloudgateway@163.com, springcloudgateway@163.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+public class RetryBudget {
+
+    private final long depositMilliTokens;
+    private final long maxMilliTokens;
+    private final AtomicLong milliTokens = new AtomicLong(0L);
+    private final @Nullable RateLimiter reserve;
+
+    public RetryBudget(BudgetConfig config) {
+        notNullOf(config, "config");
+        isTrueOf(config.getRatio() >= 0 && config.getRatio() <= 1, "budget.ratio >= 0 && budget.ratio <= 1");
+        isTrueOf(config.getMaxTokens() > 0, "budget.maxTokens > 0");
+        this.depositMilliTokens = (long) (config.getRatio() * MILLI_TOKENS);
+        this.maxMilliTokens = config.getMaxTokens() * MILLI_TOKENS;
+        this.reserve = config.getMinRetriesPerSecond() > 0 ? RateLimiter.create(config.getMinRetriesPerSecond()) : null;
+    }
+
+    /**
+     * Deposit the ratio of a token for an original request.
+     */
+    public void deposit() {
+        for (;;) {
+            long current = milliTokens.get();
+            long next = Math.min(current + depositMilliTokens, maxMilliTokens);
+            if (next == current || milliTokens.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Try withdraw a token for a retry.
+     *
+     * @return Returns false if the budget is exhausted.
+     */
+    public boolean tryWithdraw() {
+        for (;;) {
+            long current = milliTokens.get();
+            if (current < MILLI_TOKENS) {
+                return nonNull(reserve) && reserve.tryAcquire();
+            }
+            if (milliTokens.compareAndSet(current, current - MILLI_TOKENS)) {
+                return true;
+            }
+        }
+    }
+
+    public double getBalance() {
+        return milliTokens.get() / (double) MILLI_TOKENS;
+    }
+
+    private static final long MILLI_TOKENS = 1000L;
+
+}
@@ -20,6 +20,7 @@ import org.springframework.context.annotation.Bean;
 
 import org.springcloud.gateway.core.common.constant.GatewayIAMConstants;
 import org.springcloud.gateway.core.commons.helper.HelperGatewayFilterFactory;
+import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade;
 
 /**
  * {@link IamRetryAutoConfiguration}
@@ -37,8 +38,10 @@ public class IamRetryAutoConfiguration {
     }
 
     @Bean
-    public HelperGatewayFilterFactory helperGatewayFilterFactory() {
-        return new HelperGatewayFilterFactory();
+    public HelperGatewayFilterFactory helperGatewayFilterFactory(
+            IamRetryProperties retryConfig,
+            GatewayMetricsFacade metricsFacade) {
+        return new HelperGatewayFilterFactory(retryConfig, metricsFacade);
     }
 
 }
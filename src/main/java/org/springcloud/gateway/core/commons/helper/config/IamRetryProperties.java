@@ -15,6 +15,13 @@
  */
 package org.springcloud.gateway.core.commons.helper.config;
 
+import org.springcloud.gateway.core.commons.helper.HelperGatewayFilterFactory.BudgetConfig;
+import org.springcloud.gateway.core.commons.helper.HelperGatewayFilterFactory.HedgeConfig;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
 /**
  * {@link IamRetryProperties}
  * 
@@ -22,6 +29,21 @@ package org.springcloud.gateway.core.commons.helper.config;
  * @version v1.0.0
  * @since v3.0.0
  */
+@Getter
+@Setter
+@ToString
 public class IamRetryProperties {
 
+    /**
+     * The default retry budget of the routes, which is used when the route
+     * filter is not configured.
+     */
+    private BudgetConfig budget = new BudgetConfig();
+
+    /**
+     * The default hedging of the routes, which is used when the route filter
+     * is not configured.
+     */
+    private HedgeConfig hedge = new HedgeConfig();
+
 }
@@ -0,0 +1,226 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors. <springcloudgateway@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.commons.ipfs;
+
+import static org.springcloud.gateway.core.collection.CollectionUtils2.safeList;
+import static org.springcloud.gateway.core.lang.Assert2.notNullOf;
+import static java.util.Objects.isNull;
+import static org.apache.commons.lang3.StringUtils.isBlank;
+import static org.apache.commons.lang3.StringUtils.split;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.HttpStatusHolder;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.server.ServerWebExchange;
+import org.springcloud.gateway.core.commons.fault.IamGatewayFault.SafeFilterOrdered;
+import org.springcloud.gateway.core.commons.ipfs.config.IPFSProperties;
+import org.springcloud.gateway.core.commons.ipfs.config.IPFSProperties.BlocklistStrategyProperties;
+import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade;
+import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade.MetricsName;
+import org.springcloud.gateway.core.bean.ConfigBeanUtils;
+import org.springcloud.gateway.core.net.IpPrefixTrie;
+
+import io.netty.util.NetUtil;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link IpBlocklistFilterFactory}, Reject the requests whose client address
+ * hits the global IP reputation blocklist, see {@link IpBlocklistRegistry}.
+ * Unlike {@link SubnetFilterFactory}, the CIDRs are not configured per route,
+ * and are reloaded without rebuilding the routes. </br>
+ * </br>
+ * The forwarded headers are only used when the remote peer is one of the
+ * {@link BlocklistStrategyProperties#getTrustedProxies()}, and the right-most
+ * untrusted hop is the client address, so the spoofed headers of the clients
+ * can't bypass the blocklist. If the blocklist is disabled (no registry), the
+ * filter passes all the requests.
+ *
+ * @author springcloudgateway &lt;springcloudgateway@gmail.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+public class IpBlocklistFilterFactory extends AbstractGatewayFilterFactory<IpBlocklistFilterFactory.Config> {
+
+    private final IPFSProperties ipFilterConfig;
+    private final ObjectProvider<IpBlocklistRegistry> blocklistRegistryProvider;
+    private final GatewayMetricsFacade metricsFacade;
+
+    public IpBlocklistFilterFactory(IPFSProperties ipFilterConfig, ObjectProvider<IpBlocklistRegistry> blocklistRegistryProvider,
+            GatewayMetricsFacade metricsFacade) {
+        super(IpBlocklistFilterFactory.Config.class);
+        this.ipFilterConfig = notNullOf(ipFilterConfig, "ipFilterConfig");
+        this.blocklistRegistryProvider = notNullOf(blocklistRegistryProvider, "blocklistRegistryProvider");
+        this.metricsFacade = notNullOf(metricsFacade, "metricsFacade");
+    }
+
+    @Override
+    public String name() {
+        return BEAN_NAME;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        applyDefaultToConfig(config);
+        return new IpBlocklistGatewayFilter(config, blocklistRegistryProvider.getIfAvailable(), buildTrustedProxiesTrie(config));
+    }
+
+    private void applyDefaultToConfig(Config config) {
+        try {
+            ConfigBeanUtils.configureWithDefault(new Config(), config, ipFilterConfig.getBlocklist().getDefaultStrategy());
+        } catch (IllegalArgumentException | IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static IpPrefixTrie buildTrustedProxiesTrie(BlocklistStrategyProperties config) {
+        IpPrefixTrie trie = new IpPrefixTrie();
+        safeList(config.getTrustedProxies()).forEach(cidr -> trie.add(cidr, FLAG_TRUSTED));
+        return trie.build();
+    }
+
+    /**
+     * Resolve the raw client address bytes. The remote peer address is used
+     * unless it is a trusted proxy, in which case the hops of the first
+     * present forwarded header are walked from right to left (i.e. from the
+     * nearest proxy), and the first untrusted hop is the client address. If
+     * all the hops are trusted, the left-most hop is used.
+     *
+     * @return Returns null if the remote address is unknown, or
+     *         {@link SubnetFilterFactory#INVALID_ADDRESS} if the hop is not an
+     *         IP address.
+     */
+    static byte[] resolveClientAddress(
+            List<String> forwardHeaderNames,
+            IpPrefixTrie trustedProxies,
+            ServerWebExchange exchange) {
+        InetSocketAddress remoteAddress = exchange.getRequest().getRemoteAddress();
+        if (isNull(remoteAddress) || isNull(remoteAddress.getAddress())) {
+            return null;
+        }
+        byte[] address = remoteAddress.getAddress().getAddress();
+        if (!isTrusted(trustedProxies, address)) {
+            return address;
+        }
+        List<String> hops = getForwardedHops(forwardHeaderNames, exchange.getRequest().getHeaders());
+        for (int i = hops.size() - 1; i >= 0; i--) {
+            address = NetUtil.createByteArrayFromIpAddressString(hops.get(i));
+            if (isNull(address)) {
+                return SubnetFilterFactory.INVALID_ADDRESS;
+            }
+            if (!isTrusted(trustedProxies, address)) {
+                return address;
+            }
+        }
+        return address;
+    }
+
+    private static boolean isTrusted(IpPrefixTrie trustedProxies, byte[] address) {
+        return (trustedProxies.longestMatch(address) & FLAG_TRUSTED) != 0;
+    }
+
+    private static List<String> getForwardedHops(List<String> forwardHeaderNames, HttpHeaders headers) {
+        List<String> hops = new ArrayList<>(4);
+        for (String header : safeList(forwardHeaderNames)) {
+            // The multiple header lines are the same as the comma separated.
+            for (String value : safeList(headers.get(header))) {
+                for (String hop : split(value, ',')) {
+                    if (!isBlank(hop) && !"Unknown".equalsIgnoreCase(hop.trim())) {
+                        hops.add(hop.trim());
+                    }
+                }
+            }
+            if (!hops.isEmpty()) {
+                break;
+            }
+        }
+        return hops;
+    }
+
+    @Getter
+    @Setter
+    @Validated
+    @ToString
+    public static class Config extends BlocklistStrategyProperties {
+    }
+
+    @AllArgsConstructor
+    class IpBlocklistGatewayFilter implements GatewayFilter, Ordered {
+        private final Config config;
+        private final @Nullable IpBlocklistRegistry blocklistRegistry;
+        private final IpPrefixTrie trustedProxies;
+
+        @Override
+        public int getOrder() {
+            return SafeFilterOrdered.ORDER_IPFILTER;
+        }
+
+        @Override
+        public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+            if (isNull(blocklistRegistry)) {
+                return chain.filter(exchange);
+            }
+            // Add metrics of total.
+            metricsFacade.counter(exchange, MetricsName.IPBLOCKLIST_TOTAL, 1);
+
+            if (!isBlocked(exchange)) {
+                return chain.filter(exchange);
+            }
+
+            // Add metrics of hits total.
+            metricsFacade.counter(exchange, MetricsName.IPBLOCKLIST_HITS_TOTAL, 1);
+
+            // Response of reject.
+            ServerWebExchangeUtils.setResponseStatus(exchange, HttpStatusHolder.parse(config.getStatusCode()));
+            return exchange.getResponse().setComplete();
+        }
+
+        private boolean isBlocked(ServerWebExchange exchange) {
+            byte[] address = resolveClientAddress(config.getForwardHeaderNames(), trustedProxies, exchange);
+            if (isNull(address)) {
+                return false;
+            }
+            // The forwarded client address is not an IP address.
+            if (address == SubnetFilterFactory.INVALID_ADDRESS) {
+                return true;
+            }
+            // The local address is allowed to pass by default.
+            if (config.isAnyLocalAddressAllowed() && SubnetFilterFactory.isLocalAddress(address)) {
+                return false;
+            }
+            return blocklistRegistry.isBlocked(address);
+        }
+    }
+
+    public static final String BEAN_NAME = "IpBlocklist";
+    static final int FLAG_TRUSTED = 1;
+
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors. <springcloudgateway@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.commons.ipfs;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.singletonList;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.apache.commons.lang3.StringUtils.isBlank;
+import static org.springcloud.gateway.core.lang.Assert2.notNullOf;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.Nullable;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import com.google.common.eventbus.Subscribe;
+
+import org.springcloud.gateway.core.commons.ipfs.config.IPFSProperties.BlocklistProperties;
+import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade;
+import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade.MetricsName;
+import org.springcloud.gateway.core.io.FileEventWatcher;
+import org.springcloud.gateway.core.io.FileEventWatcher.FileChangedEvent;
+import org.springcloud.gateway.core.net.IpIntervalSet;
+import org.springcloud.gateway.core.task.ApplicationTaskRunner;
+import org.springcloud.gateway.core.task.RunnerProperties;
+import org.springcloud.gateway.core.task.RunnerProperties.StartupMode;
+import org.springcloud.gateway.core.task.SafeScheduledTaskPoolExecutor;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * {@link IpBlocklistRegistry}, The large scale IP reputation blocklist, which
+ * is loaded from the local file and/or redis set into the compact
+ * {@link IpIntervalSet}. </br>
+ * </br>
+ * The blocklist is rebuilt in the background when the local file changes (see
+ * {@link FileEventWatcher}) or the redis version key changes, and then
+ * replaced atomically, so the readers are never blocked and the routes do not
+ * need to be rebuilt.
+ *
+ * @author springcloudgateway &lt;springcloudgateway@gmail.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+@Slf4j
+public class IpBlocklistRegistry extends ApplicationTaskRunner<RunnerProperties> {
+
+    private final BlocklistProperties blocklistConfig;
+    private final GatewayMetricsFacade metricsFacade;
+    private final ObjectProvider<StringRedisTemplate> stringTemplateProvider;
+    private final AtomicBoolean reloadPending = new AtomicBoolean(false);
+
+    private volatile IpIntervalSet blocklist = IpIntervalSet.EMPTY;
+    private volatile String lastRedisVersion;
+    private FileEventWatcher fileWatcher;
+
+    public IpBlocklistRegistry(BlocklistProperties blocklistConfig, GatewayMetricsFacade metricsFacade,
+            ObjectProvider<StringRedisTemplate> stringTemplateProvider) {
+        super(new RunnerProperties(StartupMode.ASYNC, 1));
+        this.blocklistConfig = notNullOf(blocklistConfig, "blocklistConfig");
+        this.metricsFacade = notNullOf(metricsFacade, "metricsFacade");
+        this.stringTemplateProvider = notNullOf(stringTemplateProvider, "stringTemplateProvider");
+    }
+
+    @Override
+    protected void onApplicationStarted(ApplicationArguments args, SafeScheduledTaskPoolExecutor worker) throws Exception {
+        if (!blocklistConfig.isEnabled()) {
+            return;
+        }
+        metricsFacade.gauge(MetricsName.IPBLOCKLIST_INTERVALS, () -> blocklist.size());
+
+        worker.execute(() -> reload());
+
+        // Watching local file changes.
+        File localFile = getLocalFile();
+        if (nonNull(localFile) && blocklistConfig.isWatchLocalFile()) {
+            this.fileWatcher = new FileEventWatcher(singletonList(localFile.getAbsoluteFile().getParentFile()));
+            this.fileWatcher.addListenrs(this).run();
+        }
+
+        // Checking redis version changes.
+        if (blocklistConfig.isRedisEnabled()) {
+            worker.scheduleWithFixedDelay(() -> checkRedisVersion(), blocklistConfig.getRedisCheckIntervalMs(),
+                    blocklistConfig.getRedisCheckIntervalMs(), MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (nonNull(fileWatcher)) {
+            fileWatcher.close();
+        }
+        super.destroy();
+    }
+
+    /**
+     * Check whether the raw address is blocked.
+     *
+     * @param address
+     *            The IPv4(4 bytes) or IPv6(16 bytes) address.
+     * @return
+     */
+    public boolean isBlocked(@Nullable byte[] address) {
+        return blocklist.contains(address);
+    }
+
+    public IpIntervalSet getBlocklist() {
+        return blocklist;
+    }
+
+    @Subscribe
+    public void onFileChanged(FileChangedEvent event) {
+        File localFile = getLocalFile();
+        if (nonNull(localFile) && nonNull(event.getSource())
+                && Objects.equals(localFile.getName(), event.getSource().getFileName().toString())) {
+            scheduleReload();
+        }
+    }
+
+    /**
+     * Schedule reload with delay, the multiple change events within the delay
+     * are merged into one reload.
+     */
+    public void scheduleReload() {
+        if (reloadPending.compareAndSet(false, true)) {
+            getWorker().schedule(() -> {
+                reloadPending.set(false);
+                reload();
+            }, blocklistConfig.getReloadDelayMs(), MILLISECONDS);
+        }
+    }
+
+    /**
+     * Rebuild the blocklist from all sources, and replace the current one. The
+     * redis version is read before loading and is only recorded after the
+     * reload succeeds, so that a failed reload is retried on the next version
+     * check.
+     *
+     * @return Returns true if reloaded successfully.
+     */
+    public synchronized boolean reload() {
+        long begin = System.nanoTime();
+        try {
+            String redisVersion = getRedisVersion();
+            IpIntervalSet.Builder builder = new IpIntervalSet.Builder();
+            int invalid = loadLocalFile(builder) + loadRedisSet(builder);
+            IpIntervalSet newBlocklist = builder.build();
+            this.blocklist = newBlocklist;
+            this.lastRedisVersion = redisVersion;
+
+            metricsFacade.counter(MetricsName.IPBLOCKLIST_RELOAD_TOTAL, 1);
+            log.info("Reloaded ip blocklist of intervals(v4: {}, v6: {}), invalid entries: {}, cost: {}ms",
+                    newBlocklist.getV4IntervalCount(), newBlocklist.getV6IntervalCount(), invalid,
+                    (System.nanoTime() - begin) / 1000_000);
+            return true;
+        } catch (Exception e) {
+            metricsFacade.counter(MetricsName.IPBLOCKLIST_RELOAD_FAIL_TOTAL, 1);
+            log.error("Failed to reload ip blocklist, keep using the previous.", e);
+            return false;
+        }
+    }
+
+    private void checkRedisVersion() {
+        try {
+            String version = getRedisVersion();
+            if (!Objects.equals(version, lastRedisVersion)) {
+                log.info("The ip blocklist redis version changed from '{}' to '{}'", lastRedisVersion, version);
+                reload();
+            }
+        } catch (Exception e) {
+            log.warn(format("Failed to check ip blocklist redis version of '%s'", blocklistConfig.getRedisVersionKey()), e);
+        }
+    }
+
+    private String getRedisVersion() {
+        if (!blocklistConfig.isRedisEnabled()) {
+            return null;
+        }
+        return stringTemplateProvider.getObject().opsForValue().get(blocklistConfig.getRedisVersionKey());
+    }
+
+    private int loadLocalFile(IpIntervalSet.Builder builder) throws IOException {
+        File localFile = getLocalFile();
+        if (isNull(localFile) || !localFile.exists()) {
+            return 0;
+        }
+        int invalid = 0;
+        try (BufferedReader reader = Files.newBufferedReader(localFile.toPath(), UTF_8)) {
+            String line;
+            while (nonNull(line = reader.readLine())) {
+                invalid += safeAdd(builder, line);
+            }
+        }
+        return invalid;
+    }
+
+    private int loadRedisSet(IpIntervalSet.Builder builder) {
+        if (!blocklistConfig.isRedisEnabled()) {
+            return 0;
+        }
+        int invalid = 0;
+        ScanOptions options = ScanOptions.scanOptions().count(blocklistConfig.getRedisScanCount()).build();
+        try (Cursor<String> cursor = stringTemplateProvider.getObject()
+                .opsForSet()
+                .scan(blocklistConfig.getRedisSetKey(), options);) {
+            while (cursor.hasNext()) {
+                invalid += safeAdd(builder, cursor.next());
+            }
+        }
+        return invalid;
+    }
+
+    private int safeAdd(IpIntervalSet.Builder builder, String cidrOrIp) {
+        try {
+            builder.add(cidrOrIp);
+            return 0;
+        } catch (IllegalArgumentException e) {
+            log.debug("Skip invalid blocklist entry: {}", cidrOrIp);
+            return 1;
+        }
+    }
+
+    private File getLocalFile() {
+        return isBlank(blocklistConfig.getLocalFile()) ? null : new File(blocklistConfig.getLocalFile());
+    }
+
+}
@@ -17,14 +17,16 @@ package org.springcloud.gateway.core.commons.ipfs;
 
 import static org.springcloud.gateway.core.collection.CollectionUtils2.safeList;
 import static org.springcloud.gateway.core.lang.Assert2.notNullOf;
-import static java.lang.String.format;
+import static java.util.Objects.isNull;
 import static org.apache.commons.lang3.StringUtils.isBlank;
+import static org.apache.commons.lang3.StringUtils.substringBefore;
 
 import java.net.Inet4Address;
 import java.net.Inet6Address;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
+import java.util.List;
 
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
@@ -35,23 +37,20 @@ import org.springframework.core.Ordered;
 import org.springframework.http.HttpHeaders;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.server.ServerWebExchange;
-import org.springcloud.gateway.core.commons.fault.IamGatewayFault;
 import org.springcloud.gateway.core.commons.fault.IamGatewayFault.SafeFilterOrdered;
 import org.springcloud.gateway.core.commons.ipfs.config.IPFSProperties;
 import org.springcloud.gateway.core.commons.ipfs.config.IPFSProperties.StrategyProperties;
 import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade;
 import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade.MetricsName;
-import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade.MetricsTag;
 import org.springcloud.gateway.core.bean.ConfigBeanUtils;
-import org.springcloud.gateway.core.net.CIDR;
+import org.springcloud.gateway.core.net.IpPrefixTrie;
 
-import io.netty.handler.ipfilter.IpFilterRuleType;
-import io.netty.handler.ipfilter.IpSubnetFilterRule;
 import io.netty.util.NetUtil;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
 import reactor.core.publisher.Mono;
 
 /**
@@ -62,6 +61,7 @@ import reactor.core.publisher.Mono;
  * @since v3.0.0
  * @see {@link io.netty.handler.ipfilter.IpSubnetFilterRule}
  */
+@Slf4j
 public class SubnetFilterFactory extends AbstractGatewayFilterFactory<SubnetFilterFactory.Config> {
 
     private final IPFSProperties ipFilterConfig;
@@ -81,7 +81,7 @@ public class SubnetFilterFactory extends AbstractGatewayFilterFactory<SubnetFilt
     @Override
     public GatewayFilter apply(Config config) {
         applyDefaultToConfig(config);
-        return new IpSubnetGatewayFilter(config.validate());
+        return new IpSubnetGatewayFilter(config.validate(), buildSubnetTrie(config));
     }
 
     private void applyDefaultToConfig(Config config) {
@@ -92,6 +92,73 @@ public class SubnetFilterFactory extends AbstractGatewayFilterFactory<SubnetFilt
         }
     }
 
+    /**
+     * Pre-parse the all sub-net CIDRs into the prefix trie, the allowed CIDRs
+     * are flagged as {@link #FLAG_ACCEPT} and the denied CIDRs are flagged as
+     * {@link #FLAG_REJECT}.
+     */
+    static IpPrefixTrie buildSubnetTrie(Config config) {
+        IpPrefixTrie trie = new IpPrefixTrie();
+        safeList(config.getIPSubnets()).forEach(s -> safeList(s.getCidrs())
+                .forEach(cidr -> trie.add(cidr, s.isAllow() ? FLAG_ACCEPT : FLAG_REJECT)));
+        return trie.build();
+    }
+
+    /**
+     * Resolve the raw client address bytes, according to the forwarded headers
+     * first and then the remote peer address. Note:This method does not send
+     * network resolutions. </br>
+     * </br>
+     * The first (client) address of the forwarded header list is used, and if
+     * it is not an IP address, the {@link #INVALID_ADDRESS} is returned to
+     * reject the request, rather than falling back to the peer address (which
+     * is usually the trusted proxy).
+     */
+    static byte[] resolveClientAddress(List<String> forwardHeaderNames, ServerWebExchange exchange) {
+        HttpHeaders headers = exchange.getRequest().getHeaders();
+        for (String header : safeList(forwardHeaderNames)) {
+            String host = headers.getFirst(header);
+            if (!isBlank(host) && !"Unknown".equalsIgnoreCase(host.trim())) {
+                host = substringBefore(host, ",").trim();
+                byte[] address = NetUtil.createByteArrayFromIpAddressString(host);
+                if (isNull(address)) {
+                    log.debug("Invalid client address '{}' of the forwarded header: {}", host, header);
+                    return INVALID_ADDRESS;
+                }
+                return address;
+            }
+        }
+        // Fall-back
+        InetSocketAddress remoteAddress = exchange.getRequest().getRemoteAddress();
+        if (isNull(remoteAddress) || isNull(remoteAddress.getAddress())) {
+            return null;
+        }
+        return remoteAddress.getAddress().getAddress();
+    }
+
+    /**
+     * Check whether the raw address is any local or link local or loop back
+     * address, it is the same as
+     * {@link InetAddress#isAnyLocalAddress()}/{@link InetAddress#isLinkLocalAddress()}/{@link InetAddress#isLoopbackAddress()}
+     */
+    static boolean isLocalAddress(byte[] address) {
+        if (address.length == 4) {
+            return (address[0] == 0 && address[1] == 0 && address[2] == 0 && address[3] == 0) // any
+                    || address[0] == 127 // loop back
+                    || ((address[0] & 0xFF) == 169 && (address[1] & 0xFF) == 254); // link local
+        }
+        // IPv6: link local(fe80::/10)
+        if ((address[0] & 0xFF) == 0xFE && (address[1] & 0xC0) == 0x80) {
+            return true;
+        }
+        for (int i = 0; i < 15; i++) {
+            if (address[i] != 0) {
+                return false;
+            }
+        }
+        return address[15] == 0 || address[15] == 1; // any or loop back
+    }
+
     /**
      * Creates InetSocketAddress instance. Numeric IP addresses will be detected
      * and resolved without doing reverse DNS lookups.
@@ -140,6 +207,7 @@ public class SubnetFilterFactory extends AbstractGatewayFilterFactory<SubnetFilt
     @AllArgsConstructor
     class IpSubnetGatewayFilter implements GatewayFilter, Ordered {
         private final Config config;
+        private final IpPrefixTrie subnetTrie;
 
         @Override
         public int getOrder() {
@@ -149,16 +217,14 @@ public class SubnetFilterFactory extends AbstractGatewayFilterFactory<SubnetFilt
         @Override
         public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
             // Add metrics of total.
-            metricsFacade.counter(exchange, MetricsName.IPFILTER_TOTAL, 1, MetricsTag.ROUTE_ID,
-                    IamGatewayFault.getRouteId(exchange));
+            metricsFacade.counter(exchange, MetricsName.IPFILTER_TOTAL, 1);
 
             if (isAllowed(config, exchange)) {
                 return chain.filter(exchange);
             }
 
             // Add metrics of hits total.
-            metricsFacade.counter(exchange, MetricsName.IPFILTER_HITS_TOTAL, 1, MetricsTag.ROUTE_ID,
-                    IamGatewayFault.getRouteId(exchange));
+            metricsFacade.counter(exchange, MetricsName.IPFILTER_HITS_TOTAL, 1);
 
             // Response of reject.
             ServerWebExchangeUtils.setResponseStatus(exchange, HttpStatusHolder.parse(config.getStatusCode()));
@@ -168,34 +234,32 @@ public class SubnetFilterFactory extends AbstractGatewayFilterFactory<SubnetFilt
         private boolean isAllowed(Config config, ServerWebExchange exchange) {
             // Determine remote client address.
             // Note:This method does not send network resolutions
-            InetSocketAddress remoteAddress = createInetSocketAddress(getClientAddress(config, exchange), 0, false);
+            byte[] address = resolveClientAddress(config.getForwardHeaderNames(), exchange);
+            if (isNull(address)) {
+                return config.isAcceptNotMatchCidr();
+            }
+            if (address == INVALID_ADDRESS) {
+                return false;
+            }
 
             // The local address is allowed to pass by default.
-            InetAddress address = remoteAddress.getAddress();
-            if (config.isAnyLocalAddressAllowed()
-                    && (address.isAnyLocalAddress() || address.isLinkLocalAddress() || address.isLoopbackAddress())) {
+            if (config.isAnyLocalAddressAllowed() && isLocalAddress(address)) {
                 return true;
             }
 
-            // Check if it is allowed to pass.
-            //
+            // Check if it is allowed to pass, by the most specific CIDR.
+            int flags = subnetTrie.longestMatch(address);
             // matching white-list
-            boolean isAccept = safeList(config.getIPSubnets()).stream()
-                    .filter(s -> s.isAllow())
-                    .flatMap(s -> safeList(s.getCidrs()).stream())
-                    .anyMatch(cidr -> buildRule(cidr, IpFilterRuleType.ACCEPT).matches(remoteAddress));
-
+            boolean isAccept = (flags & FLAG_ACCEPT) != 0;
             // matching blacklist
-            boolean isReject = safeList(config.getIPSubnets()).stream()
-                    .filter(s -> !s.isAllow())
-                    .flatMap(s -> safeList(s.getCidrs()).stream())
-                    .anyMatch(cidr -> buildRule(cidr, IpFilterRuleType.REJECT).matches(remoteAddress));
+            boolean isReject = (flags & FLAG_REJECT) != 0;
 
             // If none of the conditions are met, allow access.
             boolean allowed = isAccept && !isReject;
             if (!isAccept && isReject) {
                 allowed = false;
             } else if (isAccept && isReject) {
+                // The same CIDR is both allowed and denied.
                 // Whether to use the blacklist first in case of conflict?
                 allowed = !config.isPreferRejectOnCidrConflict();
             } else if (!isAccept && !isReject) {
@@ -204,29 +268,16 @@ public class SubnetFilterFactory extends AbstractGatewayFilterFactory<SubnetFilt
             return allowed;
         }
 
-        private String getClientAddress(Config config, ServerWebExchange exchange) {
-            HttpHeaders headers = exchange.getRequest().getHeaders();
-            String host = null;
-            for (String header : config.getForwardHeaderNames()) {
-                host = headers.getFirst(header);
-                if (!isBlank(host) && !"Unknown".equalsIgnoreCase(host)) {
-                    return host;
-                }
-            }
-            // Fall-back
-            return exchange.getRequest().getRemoteAddress().getAddress().getHostAddress();
-        }
+    }
 
-        private IpSubnetFilterRule buildRule(String cidr, IpFilterRuleType ruleType) {
-            try {
-                CIDR _cidr = CIDR.newCIDR(cidr);
-                return new IpSubnetFilterRule(_cidr.getBaseAddress(), _cidr.getMask(), ruleType);
-            } catch (UnknownHostException e) {
-                throw new IllegalArgumentException(format("Failed to parse cidr for '%s'", cidr));
-            }
-        }
+    public static final int FLAG_ACCEPT = 1;
+    public static final int FLAG_REJECT = 1 << 1;
 
-    }
+    /**
+     * The resolved address of the forwarded header which is not an IP
+     * address.
+     */
+    static final byte[] INVALID_ADDRESS = new byte[0];
 
     public static final String BEAN_NAME = "IpFilter";
 
@@ -15,10 +15,15 @@
  */
 package org.springcloud.gateway.core.commons.ipfs.config;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
+import org.springframework.data.redis.core.StringRedisTemplate;
 
 import org.springcloud.gateway.core.common.constant.GatewayIAMConstants;
+import org.springcloud.gateway.core.commons.ipfs.IpBlocklistFilterFactory;
+import org.springcloud.gateway.core.commons.ipfs.IpBlocklistRegistry;
 import org.springcloud.gateway.core.commons.ipfs.SubnetFilterFactory;
 import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade;
 
@@ -42,4 +47,22 @@ public class IPFSAutoConfiguration {
         return new SubnetFilterFactory(ipListConfig, metricsFacade);
     }
 
+    @Bean
+    @ConditionalOnProperty(name = GatewayIAMConstants.CONF_PREFIX_IAM_GATEWAY_IPFILTER
+            + ".blocklist.enabled", matchIfMissing = false)
+    public IpBlocklistRegistry ipBlocklistRegistry(
+            IPFSProperties ipListConfig,
+            GatewayMetricsFacade metricsFacade,
+            ObjectProvider<StringRedisTemplate> stringTemplateProvider) {
+        return new IpBlocklistRegistry(ipListConfig.getBlocklist(), metricsFacade, stringTemplateProvider);
+    }
+
+    @Bean
+    public IpBlocklistFilterFactory ipBlocklistFilterFactory(
+            IPFSProperties ipListConfig,
+            ObjectProvider<IpBlocklistRegistry> blocklistRegistryProvider,
+            GatewayMetricsFacade metricsFacade) {
+        return new IpBlocklistFilterFactory(ipListConfig, blocklistRegistryProvider, metricsFacade);
+    }
+
 }
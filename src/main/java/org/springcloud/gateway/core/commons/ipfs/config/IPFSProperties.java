@@ -17,8 +17,10 @@ package org.springcloud.gateway.core.commons.ipfs.config;
 
 import static java.util.Arrays.asList;
 import static java.util.Objects.nonNull;
+import static org.springcloud.gateway.core.common.constant.GatewayIAMConstants.CACHE_PREFIX_IAM_GWTEWAY_IPFILTER;
 
 import java.net.UnknownHostException;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.springframework.http.HttpStatus;
@@ -52,6 +54,11 @@ public class IPFSProperties {
      */
     private StrategyProperties defaultStrategy = new StrategyProperties();
 
+    /**
+     * The large scale IP reputation blocklist configuration.
+     */
+    private BlocklistProperties blocklist = new BlocklistProperties();
+
     @Getter
     @Setter
     @Validated
@@ -95,6 +102,100 @@ public class IPFSProperties {
         private List<IPSubnet> iPSubnets;
     }
 
+    @Getter
+    @Setter
+    @Validated
+    @ToString
+    public static class BlocklistProperties {
+
+        /**
+         * Whether to enable loading the IP reputation blocklist.
+         */
+        private boolean enabled = false;
+
+        /**
+         * The local blocklist file path, one CIDR or IP per line, and the
+         * lines starting with '#' are ignored. e.g: /etc/iscg/blocklist.txt
+         */
+        private String localFile;
+
+        /**
+         * Whether to watch the local blocklist file changes and reload it.
+         */
+        private boolean watchLocalFile = true;
+
+        /**
+         * The redis set key of the blocklist CIDRs or IPs.
+         */
+        private String redisSetKey = CACHE_PREFIX_IAM_GWTEWAY_IPFILTER + ":blocklist";
+
+        /**
+         * The redis version key of the blocklist, the publisher should change
+         * it after the blocklist set is updated, the blocklist is only reloaded
+         * when the version changes.
+         */
+        private String redisVersionKey = CACHE_PREFIX_IAM_GWTEWAY_IPFILTER + ":blocklist:version";
+
+        /**
+         * Whether to load the blocklist from redis set.
+         */
+        private boolean redisEnabled = false;
+
+        /**
+         * The interval of checking the redis blocklist version.
+         */
+        private long redisCheckIntervalMs = 10_000L;
+
+        /**
+         * The redis SSCAN batch count.
+         */
+        private int redisScanCount = 10_000;
+
+        /**
+         * The delay of reload after the local file changes, which is used to
+         * merge the multiple change events when the file is being written.
+         */
+        private long reloadDelayMs = 500L;
+
+        /**
+         * The default blocklist filter strategy configuration.
+         */
+        private BlocklistStrategyProperties defaultStrategy = new BlocklistStrategyProperties();
+    }
+
+    @Getter
+    @Setter
+    @Validated
+    @ToString
+    public static class BlocklistStrategyProperties {
+
+        /**
+         * The allow all local addresses to pass.
+         */
+        private boolean anyLocalAddressAllowed = true;
+
+        /**
+         * The HttpStatus returned when the blocklist is hit, the default is
+         * FORBIDDEN.
+         */
+        private String statusCode = HttpStatus.FORBIDDEN.name();
+
+        /**
+         * The list of request header names used to determine the actual client
+         * IP after being forwarded by the trusted proxies.
+         */
+        private List<String> forwardHeaderNames = asList(WebUtils.HEADER_REAL_IP);
+
+        /**
+         * The CIDRs of the trusted proxies (e.g. the load balancers in front of
+         * the gateway). The forwarded headers are only used if the remote peer
+         * is a trusted proxy, and the right-most untrusted hop is the client
+         * address, otherwise the remote peer address is used, so that the
+         * blocklist can't be bypassed by the spoofed headers.
+         */
+        private List<String> trustedProxies = new ArrayList<>();
+    }
+
     @Getter
     @Setter
     @Validated
@@ -18,13 +18,17 @@ package org.springcloud.gateway.core.commons.kernel;
 import static com.google.common.cache.CacheBuilder.newBuilder;
 import static org.springcloud.gateway.core.lang.Assert2.notNull;
 import static org.springcloud.gateway.core.lang.Assert2.notNullOf;
+import static java.lang.String.format;
 import static java.lang.String.valueOf;
 import static java.util.Collections.singletonMap;
 import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.apache.commons.lang3.StringUtils.isBlank;
+import static org.springcloud.gateway.core.commons.kernel.encoding.EncodedVariant.getVariantKey;
 
 import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -47,7 +51,10 @@ import org.springframework.http.ReactiveHttpOutputMessage;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.util.InvalidMimeTypeException;
 import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.reactive.function.BodyInserter;
 import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.ClientResponse;
@@ -65,20 +72,26 @@ import org.springcloud.gateway.core.commons.kernel.cache.ResponseCache;
 import org.springcloud.gateway.core.commons.kernel.cache.SimpleResponseCache;
 import org.springcloud.gateway.core.commons.kernel.config.ResponseCacheProperties;
 import org.springcloud.gateway.core.commons.kernel.config.ResponseCacheProperties.CachedProperties;
+import org.springcloud.gateway.core.commons.kernel.config.ResponseCacheProperties.CompressionProperties;
+import org.springcloud.gateway.core.commons.kernel.encoding.ContentEncoder;
+import org.springcloud.gateway.core.commons.kernel.encoding.ContentEncodingNegotiator;
+import org.springcloud.gateway.core.commons.kernel.encoding.EncodedVariant;
 import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade;
+import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade.MeterTags;
 import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade.MetricsName;
 import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade.MetricsTag;
 import org.springcloud.gateway.core.bean.ConfigBeanUtils;
 import org.springcloud.gateway.core.utils.web.ReactiveRequestExtractor;
 import org.springcloud.gateway.core.web.matcher.SpelRequestMatcher;
 
+import io.micrometer.core.instrument.DistributionSummary;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.util.ReferenceCountUtil;
-import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 /**
  * {@link KernelCacheFilterFactory}
@@ -95,6 +108,7 @@ public class KernelCacheFilterFactory extends AbstractGatewayFilterFactory<Kerne
     private final GatewayMetricsFacade metricsFacade;
     private final SpelRequestMatcher requestMatcher;
     private final ConcurrentMap<String, ResponseCache> responseCaches = new ConcurrentHashMap<>(4);
+    private final ConcurrentMap<String, DistributionSummary> compressionRatios = new ConcurrentHashMap<>(4);
 
     public KernelCacheFilterFactory(ResponseCacheProperties responseCacheConfig, ReactiveByteArrayRedisTemplate redisTemplate,
             GatewayMetricsFacade metricsFacade) {
@@ -123,7 +137,7 @@ public class KernelCacheFilterFactory extends AbstractGatewayFilterFactory<Kerne
     @Override
     public GatewayFilter apply(Config config) {
         applyDefaultToConfig(config);
-        return new RequestCacheGatewayFilter(config);
+        return new RequestCacheGatewayFilter(config, new ContentEncodingNegotiator(config.getCompression()));
     }
 
     @SuppressWarnings("deprecation")
@@ -141,9 +155,19 @@ public class KernelCacheFilterFactory extends AbstractGatewayFilterFactory<Kerne
     public static class Config extends CachedProperties {
     }
 
-    @AllArgsConstructor
     class RequestCacheGatewayFilter implements GatewayFilter, Ordered {
         private final Config config;
+        private final ContentEncodingNegotiator negotiator;
+        private final Map<String, MeterTags> encodingMetricsTags = new HashMap<>(4);
+
+        RequestCacheGatewayFilter(Config config, ContentEncodingNegotiator negotiator) {
+            this.config = config;
+            this.negotiator = negotiator;
+            for (ContentEncoder encoder : negotiator.getEncoders()) {
+                encodingMetricsTags.put(encoder.getName(),
+                        metricsFacade.prepareTags(MetricsTag.CONTENT_ENCODING, encoder.getName()));
+            }
+        }
 
         @Override
         public int getOrder() {
@@ -161,8 +185,7 @@ public class KernelCacheFilterFactory extends AbstractGatewayFilterFactory<Kerne
             }
 
             // Add metrics of total.
-            metricsFacade.counter(exchange, MetricsName.RESPONSE_CACHE_TOTAL, 1, MetricsTag.ROUTE_ID,
-                    IamGatewayFault.getRouteId(exchange));
+            metricsFacade.counter(exchange, MetricsName.RESPONSE_CACHE_TOTAL, 1);
 
             // Calculate the request unique hash key.
             String hashKey = getRequestHashKey(config, exchange);
@@ -170,13 +193,31 @@ public class KernelCacheFilterFactory extends AbstractGatewayFilterFactory<Kerne
             // Gets or create response cache by route.
             ResponseCache responseCache = obtainRouteResponseCache(exchange);
 
-            // First get the response data from the cache.
+            // The negotiated encoded variant is got first, so that the hit of
+            // the variant is only one lookup, and then the identity.
+            ContentEncoder encoder = negotiateEncoder(exchange);
+            Mono<Void> identity = Mono.defer(() -> filterWithIdentity(exchange, chain, responseCache, hashKey));
+            if (isNull(encoder)) {
+                return identity;
+            }
+            return responseCache.get(getVariantKey(hashKey, encoder.getName()))
+                    .flatMap(variantBytes -> Mono.justOrEmpty(EncodedVariant.fromBytes(variantBytes)))
+                    .map(variant -> responseWithVariant(exchange, hashKey, encoder, variant))
+                    .defaultIfEmpty(identity)
+                    .flatMap(response -> response);
+        }
+
+        private Mono<Void> filterWithIdentity(
+                ServerWebExchange exchange,
+                GatewayFilterChain chain,
+                ResponseCache responseCache,
+                String hashKey) {
             return responseCache.get(hashKey).defaultIfEmpty(new byte[0]).flatMap(cachedResponseBytes -> {
                 // Response cached data.
                 if (nonNull(cachedResponseBytes) && cachedResponseBytes.length > 0) {
                     // Add metrics of hits total.
-                    metricsFacade.counter(exchange, MetricsName.RESPONSE_CACHE_HITS_TOTAL, 1, MetricsTag.ROUTE_ID,
-                            IamGatewayFault.getRouteId(exchange));
+                    metricsFacade.counter(exchange, MetricsName.RESPONSE_CACHE_HITS_TOTAL, 1);
+                    addVaryAcceptEncoding(exchange);
                     return responseWithCached(exchange, hashKey, cachedResponseBytes);
                 }
 
@@ -189,6 +230,12 @@ public class KernelCacheFilterFactory extends AbstractGatewayFilterFactory<Kerne
                     }
                     return Mono.just(responseBodySegment);
                 });
+                // The cached response may be responded with the encoded
+                // variant later, so the miss is also varied by encoding.
+                newResponse.beforeCommit(() -> {
+                    addVaryAcceptEncoding(exchange);
+                    return Mono.empty();
+                });
 
                 // The doFinally() method does not block the response to write
                 // data to the remote client.
@@ -197,9 +244,7 @@ public class KernelCacheFilterFactory extends AbstractGatewayFilterFactory<Kerne
                         byte[] respBytes = new byte[respBuf.readableBytes()];
                         respBuf.readBytes(respBytes);
                         if (nonNull(respBytes) && respBytes.length > 0) {
-                            // Use a subscribe() to prevent reactive
-                            // RedisResponseCache from not completing.
-                            responseCache.put(hashKey, respBytes).subscribe();
+                            storeResponse(exchange, responseCache, hashKey, respBytes);
                             log.debug("Cached response body of hashKey: {}, uri: {}", hashKey, exchange.getRequest().getURI());
                         }
                     } finally {
@@ -329,6 +374,160 @@ public class KernelCacheFilterFactory extends AbstractGatewayFilterFactory<Kerne
             };
         }
 
+        /**
+         * Check if the response is eligible to be encoded, the response
+         * already encoded by the upstream is never encoded again.
+         * 
+         * @param exchange
+         * @param respBytes
+         * @return
+         */
+        private boolean isCompressibleResponse(ServerWebExchange exchange, byte[] respBytes) {
+            CompressionProperties compression = config.getCompression();
+            if (!compression.isEnabled() || negotiator.getEncoders().isEmpty()
+                    || respBytes.length < compression.getMinResponseSize()) {
+                return false;
+            }
+            HttpHeaders headers = exchange.getResponse().getHeaders();
+            if (!isBlank(headers.getFirst(HttpHeaders.CONTENT_ENCODING))) {
+                return false;
+            }
+            String contentType = exchange.getAttribute(ServerWebExchangeUtils.ORIGINAL_RESPONSE_CONTENT_TYPE_ATTR);
+            if (isBlank(contentType)) {
+                contentType = headers.getFirst(HttpHeaders.CONTENT_TYPE);
+            }
+            if (isBlank(contentType) || isNull(compression.getMimeTypes())) {
+                return false;
+            }
+            try {
+                MimeType mimeType = MimeTypeUtils.parseMimeType(contentType);
+                return compression.getMimeTypes().stream().anyMatch(
+                        candidate -> MimeTypeUtils.parseMimeType(candidate).isCompatibleWith(mimeType));
+            } catch (InvalidMimeTypeException e) {
+                return false;
+            }
+        }
+
+        /**
+         * Store the response body, the encoded variants of the last stored
+         * body are always discarded first, so that they are never responded
+         * for the new body which is not compressible (or not compressed
+         * smaller).
+         * 
+         * @param exchange
+         * @param responseCache
+         * @param hashKey
+         * @param respBytes
+         */
+        private void storeResponse(
+                ServerWebExchange exchange,
+                ResponseCache responseCache,
+                String hashKey,
+                byte[] respBytes) {
+            Mono<Void> store = Flux.fromIterable(negotiator.getEncoders())
+                    .flatMap(encoder -> responseCache.invalidate(getVariantKey(hashKey, encoder.getName())))
+                    .then(responseCache.put(hashKey, respBytes))
+                    .then();
+            if (isCompressibleResponse(exchange, respBytes)) {
+                store = store.then(encodeVariants(exchange, responseCache, hashKey, respBytes));
+            }
+            // Use a subscribe() to prevent reactive RedisResponseCache from
+            // not completing.
+            store.subscribe(null, ex -> log.warn(format("Failed to store response of hashKey: %s", hashKey), ex));
+        }
+
+        /**
+         * Encode the cached response body with all the available encoders,
+         * and store the variants next to the cached entry, so that the hot
+         * response body is encoded only once. The large body is encoded on
+         * the bounded elastic scheduler to avoid blocking the event loop.
+         * 
+         * @param exchange
+         * @param responseCache
+         * @param hashKey
+         * @param respBytes
+         * @return
+         */
+        private Mono<Void> encodeVariants(
+                ServerWebExchange exchange,
+                ResponseCache responseCache,
+                String hashKey,
+                byte[] respBytes) {
+            String routeId = IamGatewayFault.getRouteId(exchange);
+            Mono<Void> encodeVariants = Flux.fromIterable(negotiator.getEncoders()).concatMap(encoder -> {
+                long beginNanoTime = System.nanoTime();
+                byte[] encoded = encoder.encode(respBytes);
+                long encodeNanos = System.nanoTime() - beginNanoTime;
+                getCompressionRatio(routeId, encoder.getName()).record((double) encoded.length / respBytes.length);
+                if (encoded.length >= respBytes.length) {
+                    // Incompressible, the identity is responded directly.
+                    return Mono.empty();
+                }
+                return responseCache.put(getVariantKey(hashKey, encoder.getName()),
+                        new EncodedVariant(encodeNanos, encoded).toBytes());
+            }).then();
+            if (respBytes.length >= config.getCompression().getOffloadThreshold()) {
+                encodeVariants = encodeVariants.subscribeOn(Schedulers.boundedElastic());
+            }
+            return encodeVariants;
+        }
+
+        /**
+         * Add the {@code Vary: Accept-Encoding} to both the hit and the miss
+         * response if the compression is enabled, so that the downstream
+         * caches never mix up the encoded and the identity responses.
+         * 
+         * @param exchange
+         */
+        private void addVaryAcceptEncoding(ServerWebExchange exchange) {
+            if (!config.getCompression().isEnabled() || negotiator.getEncoders().isEmpty()) {
+                return;
+            }
+            HttpHeaders headers = exchange.getResponse().getHeaders();
+            if (!headers.getVary().contains(HttpHeaders.ACCEPT_ENCODING)) {
+                headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            }
+        }
+
+        /**
+         * Negotiate the encoder of the cached variant by the request
+         * {@code Accept-Encoding}.
+         * 
+         * @param exchange
+         * @return The negotiated encoder, or null if the identity should be
+         *         responded.
+         */
+        private ContentEncoder negotiateEncoder(ServerWebExchange exchange) {
+            if (!config.getCompression().isEnabled()) {
+                return null;
+            }
+            return negotiator.negotiate(exchange.getRequest().getHeaders().getFirst(HttpHeaders.ACCEPT_ENCODING));
+        }
+
+        /**
+         * Respond to the cached encoded variant negotiated by the request
+         * {@code Accept-Encoding}.
+         * 
+         * @param exchange
+         * @param hashKey
+         * @param encoder
+         * @param variant
+         * @return
+         */
+        private Mono<Void> responseWithVariant(
+                ServerWebExchange exchange,
+                String hashKey,
+                ContentEncoder encoder,
+                EncodedVariant variant) {
+            // Add metrics of hits total and the encode CPU time saved.
+            metricsFacade.counter(exchange, MetricsName.RESPONSE_CACHE_HITS_TOTAL, 1);
+            metricsFacade.counter(exchange, MetricsName.RESPONSE_CACHE_COMPRESSION_SAVED_CPU_SECONDS,
+                    variant.getEncodeNanos() / 1e9d, encodingMetricsTags.get(encoder.getName()));
+            addVaryAcceptEncoding(exchange);
+            exchange.getResponse().getHeaders().set(HttpHeaders.CONTENT_ENCODING, encoder.getName());
+            return responseWithCached(exchange, hashKey, variant.getBody());
+        }
+
         /**
          * Respond directly to the last cached response bytes data.
          * 
@@ -347,6 +546,12 @@ public class KernelCacheFilterFactory extends AbstractGatewayFilterFactory<Kerne
 
     }
 
+    private DistributionSummary getCompressionRatio(String routeId, String encoding) {
+        return compressionRatios.computeIfAbsent(routeId.concat(":").concat(encoding),
+                key -> metricsFacade.getDistributionSummary(MetricsName.RESPONSE_CACHE_COMPRESSION_RATIO, null,
+                        MetricsTag.ROUTE_ID, routeId, MetricsTag.CONTENT_ENCODING, encoding));
+    }
+
     public static final String BEAN_NAME = "ResponseCache";
     public static final String VAR_ROUTE_ID = "routeId";
 
@@ -15,6 +15,7 @@
  */
 package org.springcloud.gateway.core.commons.kernel.config;
 
+import static java.util.Arrays.asList;
 import static org.springcloud.gateway.core.common.constant.GatewayIAMConstants.CACHE_SUFFIX_IAM_GATEWAY_RESPONSECACHE;
 
 import java.time.Duration;
@@ -103,6 +104,12 @@ public class ResponseCacheProperties {
          * The request to redis configuration properties.
          */
         private RedisCacheProperties redis = new RedisCacheProperties();
+
+        /**
+         * The encoded (compressed) variants of the cached response
+         * configuration properties.
+         */
+        private CompressionProperties compression = new CompressionProperties();
     }
 
     @Getter
@@ -193,5 +200,53 @@ public class ResponseCacheProperties {
         private long expireMs = 60_000L;
     }
 
+    @Getter
+    @Setter
+    @Validated
+    @ToString
+    public static class CompressionProperties {
+
+        /**
+         * Whether to enable the encoded variants of the cached response, the
+         * variants are encoded once when the response cached, and responded
+         * directly by the negotiated {@code Accept-Encoding}.
+         */
+        private boolean enabled = false;
+
+        /**
+         * The content encodings of the variants, in the preferred order when
+         * the q-values are equal. The 'br' and 'zstd' are available only when
+         * the native libraries (brotli4j and zstd-jni) are on the classpath.
+         */
+        private List<String> encodings = new ArrayList<>(asList("br", "zstd", "gzip"));
+
+        /**
+         * The compression level of gzip and deflate (1-9).
+         */
+        private int gzipLevel = 6;
+
+        /**
+         * The compression level of zstd.
+         */
+        private int zstdLevel = 3;
+
+        /**
+         * The minimum response size to be encoded.
+         */
+        private int minResponseSize = 1024;
+
+        /**
+         * The response larger than this size is encoded on the bounded
+         * elastic scheduler instead of the event loop.
+         */
+        private int offloadThreshold = 64 * 1024;
+
+        /**
+         * The response content types to be encoded.
+         */
+        private List<String> mimeTypes = new ArrayList<>(asList("text/html", "text/xml", "text/plain", "text/css",
+                "text/javascript", "application/javascript", "application/json", "application/xml", "image/svg+xml"));
+    }
+
     public static String RESPONSE_CACHED_HEADER = "X-Iscg-Cached";
 }
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors.<springcloudgateway@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.commons.kernel.encoding;
+
+/**
+ * {@link ContentEncoder}, The HTTP content encoder of the cached response
+ * body, e.g. gzip/deflate/br/zstd.
+ *
+ * @author springcloudgateway &lt;springcloudgateway@163.com, springcloudgateway@163.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+public interface ContentEncoder {
+
+    /**
+     * The content coding name, which is used to match the
+     * {@code Accept-Encoding} and as the {@code Content-Encoding}.
+     */
+    String getName();
+
+    /**
+     * Whether the encoder can be used at runtime, e.g. the native library of
+     * brotli/zstd is on the classpath.
+     */
+    default boolean isAvailable() {
+        return true;
+    }
+
+    /**
+     * Encode the whole content bytes.
+     *
+     * @param content
+     * @return
+     */
+    byte[] encode(byte[] content);
+
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors.<springcloudgateway@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.commons.kernel.encoding;
+
+import static java.util.Collections.unmodifiableList;
+import static java.util.Objects.isNull;
+import static java.util.stream.Collectors.toList;
+import static java.util.Objects.nonNull;
+import static org.apache.commons.lang3.StringUtils.isBlank;
+import static org.springcloud.gateway.core.lang.Assert2.notNullOf;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springcloud.gateway.core.commons.kernel.config.ResponseCacheProperties.CompressionProperties;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * {@link ContentEncodingNegotiator}, Select the content encoder of the
+ * response by the q-values of the request {@code Accept-Encoding}, the
+ * encoder with the highest q-value is selected, and the configured order of
+ * encodings is the preference when the q-values are equal.
+ *
+ * @author springcloudgateway &lt;springcloudgateway@163.com, springcloudgateway@163.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ * @see https://www.rfc-editor.org/rfc/rfc9110#field.accept-encoding
+ */
+@Slf4j
+public class ContentEncodingNegotiator {
+
+    private final List<ContentEncoder> encoders;
+
+    public ContentEncodingNegotiator(CompressionProperties config) {
+        notNullOf(config, "compression");
+        List<ContentEncoder> encoders = new ArrayList<>(4);
+        List<String> unavailable = new ArrayList<>(2);
+        if (nonNull(config.getEncodings())) {
+            for (String encoding : config.getEncodings()) {
+                ContentEncoder encoder = createEncoder(config, encoding);
+                if (isNull(encoder)) {
+                    unavailable.add(encoding);
+                } else if (encoder.isAvailable()) {
+                    encoders.add(encoder);
+                } else {
+                    unavailable.add(encoder.getName());
+                }
+            }
+        }
+        // e.g. only 'br' configured without the native library, the gzip is
+        // always available by the JDK.
+        if (encoders.isEmpty() && !unavailable.isEmpty()) {
+            encoders.add(DeflaterContentEncoder.gzip(config.getGzipLevel()));
+        }
+        if (config.isEnabled() && !unavailable.isEmpty()) {
+            log.warn("The response cache content encodings: {} are unavailable, the encoded variants fallback to: {}",
+                    unavailable, encoders.stream().map(ContentEncoder::getName).collect(toList()));
+        }
+        this.encoders = unmodifiableList(encoders);
+    }
+
+    /**
+     * Gets the available encoders by the preference order.
+     */
+    public List<ContentEncoder> getEncoders() {
+        return encoders;
+    }
+
+    /**
+     * Negotiate the content encoder by the request accept encoding.
+     *
+     * @param acceptEncoding
+     * @return The selected encoder, or null if the identity should be used.
+     */
+    public ContentEncoder negotiate(String acceptEncoding) {
+        if (isBlank(acceptEncoding) || encoders.isEmpty()) {
+            return null;
+        }
+        Map<String, Float> qvalues = parseAcceptEncoding(acceptEncoding);
+        Float wildcard = qvalues.get("*");
+        ContentEncoder selected = null;
+        float selectedQ = 0f;
+        for (ContentEncoder encoder : encoders) {
+            Float q = qvalues.get(encoder.getName());
+            if (isNull(q)) {
+                q = isNull(wildcard) ? 0f : wildcard;
+            }
+            if (q > selectedQ) {
+                selected = encoder;
+                selectedQ = q;
+            }
+        }
+        return selected;
+    }
+
+    static Map<String, Float> parseAcceptEncoding(String acceptEncoding) {
+        Map<String, Float> qvalues = new HashMap<>(8);
+        for (String part : acceptEncoding.split(",")) {
+            String[] params = part.split(";");
+            String coding = params[0].trim().toLowerCase(Locale.ROOT);
+            if (coding.isEmpty()) {
+                continue;
+            }
+            float q = 1f;
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim();
+                if (param.length() > 2 && (param.charAt(0) == 'q' || param.charAt(0) == 'Q') && param.charAt(1) == '=') {
+                    try {
+                        q = Float.parseFloat(param.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        q = 0f;
+                    }
+                }
+            }
+            // Keep the highest q-value of the duplicated codings.
+            qvalues.merge(coding, q, Math::max);
+        }
+        return qvalues;
+    }
+
+    private static ContentEncoder createEncoder(CompressionProperties config, String encoding) {
+        switch (String.valueOf(encoding).trim().toLowerCase(Locale.ROOT)) {
+        case DeflaterContentEncoder.GZIP:
+            return DeflaterContentEncoder.gzip(config.getGzipLevel());
+        case DeflaterContentEncoder.DEFLATE:
+            return DeflaterContentEncoder.deflate(config.getGzipLevel());
+        case NettyContentEncoder.BROTLI:
+            return NettyContentEncoder.brotli();
+        case NettyContentEncoder.ZSTD:
+            return NettyContentEncoder.zstd(config.getZstdLevel());
+        default:
+            log.warn("Unsupported response cache content encoding: {}", encoding);
+            return null;
+        }
+    }
+
+}
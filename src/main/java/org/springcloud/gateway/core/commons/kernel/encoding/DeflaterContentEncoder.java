@@ -0,0 +1,96 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors.<springcloudgateway@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.commons.kernel.encoding;
+
+import static org.springcloud.gateway.core.lang.Assert2.isTrueOf;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * {@link DeflaterContentEncoder}, The gzip and deflate (zlib) encoders of JDK
+ * with the configurable compression level.
+ *
+ * @author springcloudgateway &lt;springcloudgateway@163.com, springcloudgateway@163.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+public class DeflaterContentEncoder implements ContentEncoder {
+
+    private final String name;
+    private final int level;
+
+    private DeflaterContentEncoder(String name, int level) {
+        isTrueOf(level >= Deflater.BEST_SPEED && level <= Deflater.BEST_COMPRESSION, "level >= 1 && level <= 9");
+        this.name = name;
+        this.level = level;
+    }
+
+    public static DeflaterContentEncoder gzip(int level) {
+        return new DeflaterContentEncoder(GZIP, level);
+    }
+
+    public static DeflaterContentEncoder deflate(int level) {
+        return new DeflaterContentEncoder(DEFLATE, level);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public byte[] encode(byte[] content) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(content.length / 4, 64));
+        try (OutputStream encoder = newEncoderStream(out)) {
+            encoder.write(content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private OutputStream newEncoderStream(OutputStream out) throws IOException {
+        if (GZIP.equals(name)) {
+            return new GZIPOutputStream(out, BUFFER_SIZE) {
+                {
+                    def.setLevel(level);
+                }
+            };
+        }
+        Deflater deflater = new Deflater(level);
+        return new DeflaterOutputStream(out, deflater, BUFFER_SIZE) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    deflater.end();
+                }
+            }
+        };
+    }
+
+    public static final String GZIP = "gzip";
+    public static final String DEFLATE = "deflate";
+    private static final int BUFFER_SIZE = 8192;
+
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors.<springcloudgateway@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.commons.kernel.encoding;
+
+import static java.util.Objects.isNull;
+
+import java.nio.ByteBuffer;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * {@link EncodedVariant}, The encoded variant of the cached response body,
+ * which is stored next to the identity entry (the key suffixed with the
+ * content coding). The encode cost is stored together with the body, so that
+ * the CPU time saved by each hit can be reported on any node sharing the
+ * cache.
+ *
+ * <pre>
+ * | magic (1) | encodeNanos (8) | body ... |
+ * </pre>
+ *
+ * @author springcloudgateway &lt;springcloudgateway@163.com, springcloudgateway@163.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+@Getter
+@AllArgsConstructor
+public class EncodedVariant {
+
+    private final long encodeNanos;
+    private final byte[] body;
+
+    public byte[] toBytes() {
+        return ByteBuffer.allocate(HEADER_SIZE + body.length).put(MAGIC).putLong(encodeNanos).put(body).array();
+    }
+
+    /**
+     * Parse the stored variant bytes, returns null if it is not a valid
+     * variant, e.g. written by the older version.
+     *
+     * @param value
+     * @return
+     */
+    public static EncodedVariant fromBytes(byte[] value) {
+        if (isNull(value) || value.length <= HEADER_SIZE || value[0] != MAGIC) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(value);
+        buffer.get();
+        long encodeNanos = buffer.getLong();
+        byte[] body = new byte[buffer.remaining()];
+        buffer.get(body);
+        return new EncodedVariant(encodeNanos, body);
+    }
+
+    public static String getVariantKey(String hashKey, String encoding) {
+        return hashKey.concat(":").concat(encoding);
+    }
+
+    private static final byte MAGIC = (byte) 0xCE;
+    private static final int HEADER_SIZE = 1 + Long.BYTES;
+
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors.<springcloudgateway@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.commons.kernel.encoding;
+
+import static java.util.Objects.isNull;
+import static org.springcloud.gateway.core.lang.Assert2.hasTextOf;
+import static org.springcloud.gateway.core.lang.Assert2.notNullOf;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.compression.Brotli;
+import io.netty.handler.codec.compression.BrotliEncoder;
+import io.netty.handler.codec.compression.Zstd;
+import io.netty.handler.codec.compression.ZstdEncoder;
+import io.netty.util.ReferenceCountUtil;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * {@link NettyContentEncoder}, The brotli and zstd encoders of netty codec,
+ * which depend on the optional native libraries (brotli4j and zstd-jni), so
+ * they are available only when the libraries are on the classpath.
+ *
+ * @author springcloudgateway &lt;springcloudgateway@163.com, springcloudgateway@163.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+@Slf4j
+public class NettyContentEncoder implements ContentEncoder {
+
+    private final String name;
+    private final BooleanSupplier availability;
+    private final Supplier<ChannelHandler> encoderSupplier;
+
+    NettyContentEncoder(String name, BooleanSupplier availability, Supplier<ChannelHandler> encoderSupplier) {
+        this.name = hasTextOf(name, "name");
+        this.availability = notNullOf(availability, "availability");
+        this.encoderSupplier = notNullOf(encoderSupplier, "encoderSupplier");
+    }
+
+    public static NettyContentEncoder brotli() {
+        return new NettyContentEncoder(BROTLI, () -> Brotli.isAvailable(), () -> new BrotliEncoder());
+    }
+
+    public static NettyContentEncoder zstd(int level) {
+        return new NettyContentEncoder(ZSTD, () -> Zstd.isAvailable(), () -> new ZstdEncoder(level));
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * The availability is checked once per process (the encoders are created
+     * by each filter apply), and the unavailable one is warned only once.
+     */
+    @Override
+    public boolean isAvailable() {
+        return AVAILABILITIES.computeIfAbsent(name, _name -> {
+            boolean available;
+            try {
+                available = availability.getAsBoolean();
+            } catch (Throwable e) {
+                // e.g. NoClassDefFoundError of the native library.
+                available = false;
+            }
+            if (!available) {
+                log.warn("The content encoder '{}' is unavailable, the native library ({}) is not on the classpath.", name,
+                        BROTLI.equals(name) ? "com.aayushatharva.brotli4j:brotli4j" : "com.github.luben:zstd-jni");
+            }
+            return available;
+        });
+    }
+
+    @Override
+    public byte[] encode(byte[] content) {
+        EmbeddedChannel channel = new EmbeddedChannel(encoderSupplier.get());
+        CompositeByteBuf encoded = Unpooled.compositeBuffer(Integer.MAX_VALUE);
+        try {
+            channel.writeOutbound(Unpooled.wrappedBuffer(content));
+            channel.finish();
+            ByteBuf buf;
+            while (!isNull(buf = channel.readOutbound())) {
+                encoded.addComponent(true, buf);
+            }
+            byte[] result = new byte[encoded.readableBytes()];
+            encoded.readBytes(result);
+            return result;
+        } finally {
+            ReferenceCountUtil.safeRelease(encoded);
+            channel.finishAndReleaseAll();
+        }
+    }
+
+    private static final Map<String, Boolean> AVAILABILITIES = new ConcurrentHashMap<>(4);
+
+    public static final String BROTLI = "br";
+    public static final String ZSTD = "zstd";
+
+}
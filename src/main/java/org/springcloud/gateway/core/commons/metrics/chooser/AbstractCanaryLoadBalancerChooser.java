@@ -3,6 +3,7 @@ package org.springcloud.gateway.core.commons.metrics.chooser;
 import static org.springcloud.gateway.core.collection.CollectionUtils2.safeList;
 import static org.springcloud.gateway.core.collection.CollectionUtils2.safeMap;
 import static org.springcloud.gateway.core.commons.metrics.config.CanaryLoadbalanceAutoConfiguration.BEAN_CANARY_LB_REQUEST_MATCHER;
+import static org.springcloud.gateway.core.commons.serv.CanaryLoadBalancerFilterFactory.KEY_EXCLUDED_INSTANCE_IDS;
 import static org.springcloud.gateway.core.lang.StringUtils2.eqIgnCase;
 import static org.springcloud.gateway.core.log.SmartLoggerFactory.getLogger;
 import static java.lang.String.format;
@@ -11,6 +12,7 @@ import static org.apache.commons.lang3.StringUtils.startsWith;
 import static org.springframework.util.CollectionUtils.isEmpty;
 
 import java.util.List;
+import java.util.Set;
 
 import javax.annotation.Resource;
 
@@ -86,7 +88,23 @@ public abstract class AbstractCanaryLoadBalancerChooser implements CanaryLoadBal
             candidateInstances = findCandidateInstances(allInstances, rules.stream().map(r -> r.getName()).collect(toList()));
         }
 
-        return doChooseInstance(config, exchange, loadBalancerStats, serviceId, candidateInstances);
+        return doChooseInstance(config, exchange, loadBalancerStats, serviceId, excludeInstances(exchange, candidateInstances));
+    }
+
+    /**
+     * Exclude the instances of {@link CanaryLoadBalancerFilterFactory#KEY_EXCLUDED_INSTANCE_IDS}
+     * (e.g. the instance of the primary attempt of the hedged request) from
+     * the candidates, unless no other candidate is left.
+     */
+    protected List<ServiceInstance> excludeInstances(ServerWebExchange exchange, List<ServiceInstance> candidateInstances) {
+        Set<String> excludedInstanceIds = exchange.getAttribute(KEY_EXCLUDED_INSTANCE_IDS);
+        if (isEmpty(excludedInstanceIds) || isEmpty(candidateInstances)) {
+            return candidateInstances;
+        }
+        List<ServiceInstance> candidates = candidateInstances.stream()
+                .filter(i -> !excludedInstanceIds.contains(LoadBalancerUtil.getInstanceId(i)))
+                .collect(toList());
+        return candidates.isEmpty() ? candidateInstances : candidates;
     }
 
     public List<ServiceInstance> findCandidateInstances(List<ServiceInstance> instances, List<String> matchedRuleNames) {
@@ -19,15 +19,28 @@ import static org.springcloud.gateway.core.lang.Assert2.hasTextOf;
 import static org.springcloud.gateway.core.lang.Assert2.notNullOf;
 import static java.lang.String.format;
 import static java.lang.String.valueOf;
+import static java.lang.System.currentTimeMillis;
 import static java.lang.System.nanoTime;
 import static java.util.Arrays.asList;
+import static java.util.Collections.emptySet;
 import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.function.Supplier;
 
 import javax.validation.constraints.NotNull;
@@ -42,11 +55,19 @@ import com.google.common.collect.Lists;
 
 import org.springcloud.gateway.core.commons.fault.IamGatewayFault;
 import org.springcloud.gateway.core.commons.metrics.stats.LoadBalancerStats.InstanceStatus;
+import org.springcloud.gateway.core.commons.microtag.config.KernalMetProperties;
+import org.springcloud.gateway.core.commons.microtag.config.KernalMetProperties.CardinalityProperties;
+import org.springcloud.gateway.core.commons.microtag.config.KernalMetProperties.HistogramProperties;
 import org.springcloud.gateway.core.commons.serv.LoadBalancerUtil;
+import org.springcloud.gateway.core.eventbus.EventBusSupport;
 
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
 import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Tag;
 import io.micrometer.core.instrument.Timer;
 import io.micrometer.prometheus.PrometheusMeterRegistry;
 import io.prometheus.client.Collector.MetricFamilySamples;
@@ -70,6 +91,43 @@ public class GatewayMetricsFacade implements InitializingBean {
 
     private final Map<String, MetricFamilySamples> sampleRegistry = new ConcurrentHashMap<>(16);
 
+    /**
+     * The pre-resolved meters of each route without extra tags.
+     */
+    private final Map<String, RouteMeters> routeMetersCache = new ConcurrentHashMap<>(64);
+
+    /**
+     * The pre-resolved meters with extra tags.
+     */
+    private final Map<MeterKey, Meter> meterCache = new ConcurrentHashMap<>(256);
+
+    /**
+     * The registered distinct values of each tag key per metric, which is used
+     * to limit the tags cardinality.
+     */
+    private final Map<String, Set<String>> tagValuesRegistry = new ConcurrentHashMap<>(64);
+
+    /**
+     * The last changed states of the cached meters, which is used to expire
+     * the idle meters.
+     */
+    private final Map<Meter.Id, IdleState> idleStates = new ConcurrentHashMap<>(256);
+
+    /**
+     * The idle meters which are removed from the caches but still registered,
+     * until they are confirmed idle by the next expiry check.
+     */
+    private final Map<Meter.Id, IdleState> retiringMeters = new HashMap<>(16);
+
+    /**
+     * The generation of the caches, which is increased whenever the meters are
+     * retired from the caches, so that the pre-resolved meters of the
+     * {@link MeterTags} are resolved again.
+     */
+    private volatile int cacheGeneration;
+
+    private final KernalMetProperties metConfig;
+
     private final PrometheusMeterRegistry meterRegistry;
 
     /**
@@ -84,8 +142,9 @@ public class GatewayMetricsFacade implements InitializingBean {
      */
     private DefaultServiceInstance localInstance;
 
-    public GatewayMetricsFacade(@NotNull PrometheusMeterRegistry meterRegistry, @NotNull InetUtils inet,
-            @NotNull Environment environment) {
+    public GatewayMetricsFacade(@NotNull KernalMetProperties metConfig, @NotNull PrometheusMeterRegistry meterRegistry,
+            @NotNull InetUtils inet, @NotNull Environment environment) {
+        this.metConfig = notNullOf(metConfig, "metConfig");
         this.meterRegistry = notNullOf(meterRegistry, "meterRegistry");
         this.inet = notNullOf(inet, "inet");
         this.environment = notNullOf(environment, "environment");
@@ -115,10 +174,31 @@ public class GatewayMetricsFacade implements InitializingBean {
             notNullOf(metricsName, "metricsName");
             String routeId = IamGatewayFault.getRouteId(exchange);
             if (nonNull(routeId)) {
-                List<String> _tags = Lists.newArrayList(tags);
-                _tags.add(MetricsTag.ROUTE_ID);
-                _tags.add(routeId);
-                getCounter(metricsName, _tags.toArray(new String[0])).increment(amount);
+                getRouteCounter(metricsName, routeId, tags).increment(amount);
+            }
+        } catch (Exception e) {
+            log.warn(format("Cannot add to counter metrics name: %s, amount: {}", metricsName, valueOf(amount)), e);
+        }
+    }
+
+    /**
+     * Add to the counter of the route with the fixed tags prepared by
+     * {@link #prepareTags(String...)}, which is an array slot read in the
+     * per-tags cache without any allocation.
+     */
+    public void counter(ServerWebExchange exchange, MetricsName metricsName, double amount, MeterTags tags) {
+        try {
+            notNullOf(exchange, "exchange");
+            notNullOf(metricsName, "metricsName");
+            String routeId = IamGatewayFault.getRouteId(exchange);
+            if (nonNull(routeId)) {
+                RouteMeters meters = getRouteMeters(tags, routeId);
+                Counter counter = meters.counters.get(metricsName.ordinal());
+                if (isNull(counter)) {
+                    counter = getCachedMeter(MeterType.COUNTER, metricsName, routeId, tags.tags);
+                    meters.counters.lazySet(metricsName.ordinal(), counter);
+                }
+                counter.increment(amount);
             }
         } catch (Exception e) {
             log.warn(format("Cannot add to counter metrics name: %s, amount: {}", metricsName, valueOf(amount)), e);
@@ -128,7 +208,7 @@ public class GatewayMetricsFacade implements InitializingBean {
     public void counter(MetricsName metricsName, double amount, String... tags) {
         try {
             notNullOf(metricsName, "metricsName");
-            getCounter(metricsName, tags).increment(amount);
+            this.<Counter> getCachedMeter(MeterType.COUNTER, metricsName, null, tags).increment(amount);
         } catch (Exception e) {
             log.warn(format("Cannot add to counter metrics name: %s, amount: {}", metricsName, valueOf(amount)), e);
         }
@@ -144,7 +224,8 @@ public class GatewayMetricsFacade implements InitializingBean {
             _tags.add(status.getInstance().getServiceId());
             _tags.add(MetricsTag.LB_INSTANCE_ID);
             _tags.add(LoadBalancerUtil.getInstanceId(status.getInstance()));
-            getCounter(metricsName, _tags.toArray(new String[0])).increment(amount);
+            this.<Counter> getCachedMeter(MeterType.COUNTER, metricsName, null, _tags.toArray(new String[0])).increment(
+                    amount);
         } catch (Exception e) {
             log.warn(format("Cannot add to counter metrics name: %s, amount: {}, instanceStatus: {}", metricsName,
                     valueOf(amount)), status, e);
@@ -153,10 +234,7 @@ public class GatewayMetricsFacade implements InitializingBean {
 
     public void counter(MetricsName metricsName, String routeId, double amount, String... tags) {
         try {
-            List<String> _tags = Lists.newArrayList(tags);
-            _tags.add(MetricsTag.ROUTE_ID);
-            _tags.add(routeId);
-            getCounter(metricsName, _tags.toArray(new String[0])).increment(amount);
+            getRouteCounter(metricsName, routeId, tags).increment(amount);
         } catch (Exception e) {
             log.warn(format("Cannot add to counter metrics name: %s, amount: {}, routeId: {}", metricsName, valueOf(amount)),
                     routeId, e);
@@ -164,9 +242,6 @@ public class GatewayMetricsFacade implements InitializingBean {
     }
 
     public Counter getCounter(MetricsName metricsName, String... tags) {
-        List<String> _tags = Lists.newArrayList(tags);
-        _tags.add(MetricsTag.SELF_INSTANCE_ID);
-        _tags.add(LoadBalancerUtil.getInstanceId(localInstance));
         return Counter.builder(metricsName.getName()).description(metricsName.getHelp()).tags(tags).register(meterRegistry);
     }
 
@@ -175,54 +250,389 @@ public class GatewayMetricsFacade implements InitializingBean {
                 meterRegistry);
     }
 
+    /**
+     * Register the queue depth gauge, the published and dropped events
+     * counters, and the publish latency timer of the event bus, each of them
+     * only reads its own statistics of the event bus on scrape.
+     * 
+     * @param eventBus
+     */
+    public void bindEventBus(EventBusSupport eventBus) {
+        notNullOf(eventBus, "eventBus");
+        String name = eventBus.getName();
+        Gauge.builder(MetricsName.EVENTBUS_QUEUE_DEPTH.getName(), eventBus, EventBusSupport::getQueueDepth)
+                .description(MetricsName.EVENTBUS_QUEUE_DEPTH.getHelp())
+                .tags(MetricsTag.EVENTBUS, name)
+                .register(meterRegistry);
+        FunctionCounter.builder(MetricsName.EVENTBUS_PUBLISHED_TOTAL.getName(), eventBus, EventBusSupport::getPublishedEvents)
+                .description(MetricsName.EVENTBUS_PUBLISHED_TOTAL.getHelp())
+                .tags(MetricsTag.EVENTBUS, name)
+                .register(meterRegistry);
+        FunctionCounter.builder(MetricsName.EVENTBUS_DROPPED_TOTAL.getName(), eventBus, EventBusSupport::getDroppedEvents)
+                .description(MetricsName.EVENTBUS_DROPPED_TOTAL.getHelp())
+                .tags(MetricsTag.EVENTBUS, name)
+                .register(meterRegistry);
+        FunctionTimer.builder(MetricsName.EVENTBUS_PUBLISH_SECONDS.getName(), eventBus,
+                bus -> bus.getPublishedEvents() + bus.getDroppedEvents(), EventBusSupport::getTotalPublishNanos, NANOSECONDS)
+                .description(MetricsName.EVENTBUS_PUBLISH_SECONDS.getHelp())
+                .tags(MetricsTag.EVENTBUS, name)
+                .register(meterRegistry);
+    }
+
     public void timer(ServerWebExchange exchange, MetricsName metricsName, long beginNanoTime, String... tags) {
         notNullOf(exchange, "exchange");
         notNullOf(metricsName, "metricsName");
-        Duration cost = Duration.ofNanos(nanoTime() - beginNanoTime);
+        long costNanos = nanoTime() - beginNanoTime;
+        try {
+            String routeId = IamGatewayFault.getRouteId(exchange);
+            if (nonNull(routeId)) {
+                getRouteTimer(metricsName, routeId, tags).record(costNanos, NANOSECONDS);
+            }
+        } catch (Exception e) {
+            log.warn(format("Cannot add to counter metrics name: %s, cost: {}ns", metricsName, valueOf(costNanos)), e);
+        }
+    }
+
+    /**
+     * Record to the timer of the route with the fixed tags prepared by
+     * {@link #prepareTags(String...)}, see
+     * {@link #counter(ServerWebExchange, MetricsName, double, MeterTags)}
+     */
+    public void timer(ServerWebExchange exchange, MetricsName metricsName, long beginNanoTime, MeterTags tags) {
+        notNullOf(exchange, "exchange");
+        notNullOf(metricsName, "metricsName");
+        long costNanos = nanoTime() - beginNanoTime;
         try {
             String routeId = IamGatewayFault.getRouteId(exchange);
             if (nonNull(routeId)) {
-                List<String> _tags = Lists.newArrayList(tags);
-                _tags.add(MetricsTag.SELF_INSTANCE_ID);
-                _tags.add(LoadBalancerUtil.getInstanceId(localInstance));
-                _tags.add(MetricsTag.ROUTE_ID);
-                _tags.add(routeId);
-                getTimer(metricsName, _tags.toArray(new String[0])).record(cost);
+                RouteMeters meters = getRouteMeters(tags, routeId);
+                Timer timer = meters.timers.get(metricsName.ordinal());
+                if (isNull(timer)) {
+                    timer = getCachedMeter(MeterType.TIMER, metricsName, routeId, tags.tags);
+                    meters.timers.lazySet(metricsName.ordinal(), timer);
+                }
+                timer.record(costNanos, NANOSECONDS);
             }
         } catch (Exception e) {
-            log.warn(format("Cannot add to counter metrics name: %s, cost: {}ns", metricsName, valueOf(cost.getNano())), e);
+            log.warn(format("Cannot add to counter metrics name: %s, cost: {}ns", metricsName, valueOf(costNanos)), e);
         }
     }
 
+    /**
+     * Prepare the fixed tags (e.g. the tags of the filter config), which is
+     * usually created once per filter instance, so that each recording of
+     * {@link #counter(ServerWebExchange, MetricsName, double, MeterTags)} and
+     * {@link #timer(ServerWebExchange, MetricsName, long, MeterTags)} neither
+     * builds the varargs tags nor the cache key.
+     * 
+     * @param tags
+     * @return
+     */
+    public MeterTags prepareTags(String... tags) {
+        return new MeterTags(isNull(tags) ? EMPTY_TAGS : tags.clone());
+    }
+
     public void timer(MetricsName metricsName, String routeId, long beginNanoTime, String... tags) {
         notNullOf(metricsName, "metricsName");
         hasTextOf(routeId, "routeId");
-        Duration cost = Duration.ofNanos(nanoTime() - beginNanoTime);
+        long costNanos = nanoTime() - beginNanoTime;
         try {
-            List<String> _tags = Lists.newArrayList(tags);
-            _tags.add(MetricsTag.SELF_INSTANCE_ID);
-            _tags.add(LoadBalancerUtil.getInstanceId(localInstance));
-            _tags.add(MetricsTag.ROUTE_ID);
-            _tags.add(routeId);
-            getTimer(metricsName, _tags.toArray(new String[0])).record(cost);
+            getRouteTimer(metricsName, routeId, tags).record(costNanos, NANOSECONDS);
         } catch (Exception e) {
-            log.warn(format("Cannot add to counter metrics name: %s, cost: {}ns", metricsName, valueOf(cost.getNano())), e);
+            log.warn(format("Cannot add to counter metrics name: %s, cost: {}ns", metricsName, valueOf(costNanos)), e);
         }
     }
 
     public Timer getTimer(MetricsName metricsName, String... tags) {
+        HistogramProperties histogram = metConfig.getHistogram();
         return Timer.builder(metricsName.getName())
-                .distributionStatisticBufferLength(10240)
-                // .distributionStatisticExpiry(Duration.ofDays(1))
+                .distributionStatisticBufferLength(histogram.getBufferLength())
+                .distributionStatisticExpiry(Duration.ofMillis(histogram.getExpiryMs()))
+                .publishPercentiles(histogram.getPercentiles())
+                .percentilePrecision(histogram.getPercentilePrecision())
+                .publishPercentileHistogram(histogram.isPercentileHistogram())
                 .description(metricsName.getHelp())
                 .tags(tags)
                 .register(meterRegistry);
     }
 
+    /**
+     * Gets the pre-resolved counter of the route, when there are no extra tags
+     * (except the routeId tag itself), it is an array slot read in the per
+     * route cache, otherwise it is a lookup in the meters cache.
+     */
+    private Counter getRouteCounter(MetricsName metricsName, String routeId, String[] tags) {
+        if (isRouteOnlyTags(routeId, tags)) {
+            RouteMeters meters = getRouteMeters(routeId);
+            Counter counter = meters.counters.get(metricsName.ordinal());
+            if (isNull(counter)) {
+                counter = getCounter(metricsName, MetricsTag.ROUTE_ID, routeId);
+                meters.counters.lazySet(metricsName.ordinal(), counter);
+            }
+            return counter;
+        }
+        return getCachedMeter(MeterType.COUNTER, metricsName, routeId, tags);
+    }
+
+    /**
+     * Gets the pre-resolved timer of the route, see
+     * {@link #getRouteCounter(MetricsName, String, String[])}
+     */
+    private Timer getRouteTimer(MetricsName metricsName, String routeId, String[] tags) {
+        if (isRouteOnlyTags(routeId, tags)) {
+            RouteMeters meters = getRouteMeters(routeId);
+            Timer timer = meters.timers.get(metricsName.ordinal());
+            if (isNull(timer)) {
+                timer = getTimer(metricsName, MetricsTag.SELF_INSTANCE_ID, LoadBalancerUtil.getInstanceId(localInstance),
+                        MetricsTag.ROUTE_ID, routeId);
+                meters.timers.lazySet(metricsName.ordinal(), timer);
+            }
+            return timer;
+        }
+        return getCachedMeter(MeterType.TIMER, metricsName, routeId, tags);
+    }
+
+    private RouteMeters getRouteMeters(String routeId) {
+        RouteMeters meters = routeMetersCache.get(routeId);
+        if (isNull(meters)) {
+            meters = routeMetersCache.computeIfAbsent(routeId, _routeId -> new RouteMeters());
+        }
+        return meters;
+    }
+
+    /**
+     * Gets the pre-resolved meters of the route with the prepared tags, which
+     * are discarded once any meter is retired from the caches, so that they
+     * are resolved (and cached) again instead of recording to the retired
+     * meters.
+     */
+    private RouteMeters getRouteMeters(MeterTags tags, String routeId) {
+        ResolvedMeters resolved = tags.resolved;
+        int generation = cacheGeneration;
+        if (resolved.generation != generation) {
+            tags.resolved = resolved = new ResolvedMeters(generation);
+        }
+        RouteMeters meters = resolved.routeMeters.get(routeId);
+        if (isNull(meters)) {
+            meters = resolved.routeMeters.computeIfAbsent(routeId, _routeId -> new RouteMeters());
+        }
+        return meters;
+    }
+
+    /**
+     * Gets the cached meter by the metrics name, routeId and tags, the key
+     * refers to the caller tags array, and only on the cache miss, the full
+     * tags are built and registered to the registry. </br>
+     * </br>
+     * The tag values beyond the cardinality limit are folded into the overflow
+     * series, which is cached by the folded full tags instead of the original
+     * tags, so that the cache is bounded as the same as the registry.
+     */
+    @SuppressWarnings("unchecked")
+    private <M extends Meter> M getCachedMeter(MeterType type, MetricsName metricsName, String routeId, String[] tags) {
+        MeterKey key = new MeterKey(type, metricsName, routeId, tags);
+        Meter meter = meterCache.get(key);
+        if (nonNull(meter)) {
+            return (M) meter;
+        }
+        List<String> _tags = Lists.newArrayList(key.tags);
+        if (type == MeterType.TIMER) {
+            _tags.add(MetricsTag.SELF_INSTANCE_ID);
+            _tags.add(LoadBalancerUtil.getInstanceId(localInstance));
+        }
+        if (nonNull(routeId)) {
+            _tags.add(MetricsTag.ROUTE_ID);
+            _tags.add(routeId);
+        }
+        String[] fullTags = _tags.toArray(new String[0]);
+        if (limitTagsCardinality(metricsName, fullTags)) {
+            return (M) meterCache.computeIfAbsent(new MeterKey(type, metricsName, null, fullTags),
+                    k -> type == MeterType.TIMER ? getTimer(metricsName, fullTags) : getCounter(metricsName, fullTags));
+        }
+        return (M) meterCache.computeIfAbsent(key.copy(),
+                k -> type == MeterType.TIMER ? getTimer(metricsName, fullTags) : getCounter(metricsName, fullTags));
+    }
+
+    /**
+     * Replace the tag values beyond the cardinality limit with the overflow
+     * value in place.
+     *
+     * @return Returns true if any tag value is folded.
+     */
+    private boolean limitTagsCardinality(MetricsName metricsName, String[] fullTags) {
+        CardinalityProperties cardinality = metConfig.getCardinality();
+        boolean folded = false;
+        for (int i = 0; i + 1 < fullTags.length; i += 2) {
+            String tagKey = fullTags[i], tagValue = fullTags[i + 1];
+            if (MetricsTag.SELF_INSTANCE_ID.equals(tagKey) || isNull(tagValue)) {
+                continue;
+            }
+            Set<String> values = tagValuesRegistry.computeIfAbsent(metricsName.getName().concat(":").concat(tagKey),
+                    k -> ConcurrentHashMap.newKeySet());
+            if (!values.contains(tagValue)) {
+                if (values.size() >= cardinality.getMaxTagValues()) {
+                    fullTags[i + 1] = cardinality.getOverflowTagValue();
+                    folded = true;
+                } else {
+                    values.add(tagValue);
+                }
+            }
+        }
+        return folded;
+    }
+
+    /**
+     * Remove the cached meters whose count has not changed within the idle
+     * timeout, e.g. the meters of the offline instances. The recording threads
+     * are not involved, so there is no cost on the hot path. </br>
+     * </br>
+     * The idle meters are removed in two checks, so that a recording which
+     * races with the removal is not lost: firstly they are only retired from
+     * the caches (and the pre-resolved meters of {@link MeterTags} are
+     * discarded), but are still registered, so the racing recording is still
+     * exported, and the next recording resolves the same registered meter into
+     * the caches again. Then on the next check, the retired meters which are
+     * neither cached again nor changed are removed from the registry, the
+     * changed ones are retired once more.
+     *
+     * @param idleTimeoutMs
+     * @return Returns the number of removed meters.
+     */
+    public synchronized int expireIdleMeters(long idleTimeoutMs) {
+        long now = currentTimeMillis();
+        int removed = 0;
+        if (!retiringMeters.isEmpty()) {
+            Set<Meter> cachedMeters = getCachedMeters();
+            for (IdleState state : new ArrayList<>(retiringMeters.values())) {
+                if (cachedMeters.contains(state.meter)) {
+                    retiringMeters.remove(state.meter.getId());
+                } else if (getCount(state.meter) == state.lastCount) {
+                    retiringMeters.remove(state.meter.getId());
+                    removeMeter(state.meter);
+                    ++removed;
+                } else {
+                    retireMeter(state.meter, now);
+                }
+            }
+        }
+
+        int retired = 0;
+        for (RouteMeters meters : routeMetersCache.values()) {
+            for (int i = 0; i < METRICS_NAME_COUNT; i++) {
+                Counter counter = meters.counters.get(i);
+                if (nonNull(counter) && isIdleMeter(counter, now, idleTimeoutMs)
+                        && meters.counters.compareAndSet(i, counter, null)) {
+                    retireMeter(counter, now);
+                    ++retired;
+                }
+                Timer timer = meters.timers.get(i);
+                if (nonNull(timer) && isIdleMeter(timer, now, idleTimeoutMs) && meters.timers.compareAndSet(i, timer, null)) {
+                    retireMeter(timer, now);
+                    ++retired;
+                }
+            }
+        }
+        for (Iterator<Meter> it = meterCache.values().iterator(); it.hasNext();) {
+            Meter meter = it.next();
+            if (isIdleMeter(meter, now, idleTimeoutMs)) {
+                it.remove();
+                retireMeter(meter, now);
+                ++retired;
+            }
+        }
+        if (retired > 0) {
+            ++cacheGeneration;
+        }
+
+        if (removed > 0) {
+            // Release the tag values of the removed meters.
+            Map<String, Set<String>> liveTagValues = new HashMap<>(tagValuesRegistry.size());
+            for (Meter meter : meterCache.values()) {
+                addTagValues(liveTagValues, meter);
+            }
+            for (IdleState state : retiringMeters.values()) {
+                addTagValues(liveTagValues, state.meter);
+            }
+            tagValuesRegistry.forEach((key, values) -> values.retainAll(liveTagValues.getOrDefault(key, emptySet())));
+        }
+        return removed;
+    }
+
+    private void retireMeter(Meter meter, long now) {
+        retiringMeters.put(meter.getId(), new IdleState(meter, getCount(meter), now));
+    }
+
+    private Set<Meter> getCachedMeters() {
+        Set<Meter> cachedMeters = Collections.newSetFromMap(new IdentityHashMap<>(meterCache.size() * 2));
+        cachedMeters.addAll(meterCache.values());
+        for (RouteMeters meters : routeMetersCache.values()) {
+            for (int i = 0; i < METRICS_NAME_COUNT; i++) {
+                Counter counter = meters.counters.get(i);
+                if (nonNull(counter)) {
+                    cachedMeters.add(counter);
+                }
+                Timer timer = meters.timers.get(i);
+                if (nonNull(timer)) {
+                    cachedMeters.add(timer);
+                }
+            }
+        }
+        return cachedMeters;
+    }
+
+    private static void addTagValues(Map<String, Set<String>> tagValues, Meter meter) {
+        for (Tag tag : meter.getId().getTags()) {
+            tagValues.computeIfAbsent(meter.getId().getName().concat(":").concat(tag.getKey()), k -> new HashSet<>())
+                    .add(tag.getValue());
+        }
+    }
+
+    private static double getCount(Meter meter) {
+        if (meter instanceof Counter) {
+            return ((Counter) meter).count();
+        } else if (meter instanceof Timer) {
+            return ((Timer) meter).count();
+        }
+        return Double.NaN;
+    }
+
+    private boolean isIdleMeter(Meter meter, long now, long idleTimeoutMs) {
+        double count = getCount(meter);
+        if (Double.isNaN(count)) {
+            return false;
+        }
+        IdleState state = idleStates.get(meter.getId());
+        if (isNull(state) || state.meter != meter || state.lastCount != count) {
+            idleStates.put(meter.getId(), new IdleState(meter, count, now));
+            return false;
+        }
+        return now - state.lastChangedTime >= idleTimeoutMs;
+    }
+
+    /**
+     * Remove the meter (e.g. the gauge bound to a discarded object) from the
+     * registry.
+     * 
+     * @param meter
+     */
+    public void removeMeter(Meter meter) {
+        idleStates.remove(meter.getId());
+        meterRegistry.remove(meter);
+    }
+
+    private static boolean isRouteOnlyTags(String routeId, String[] tags) {
+        return isNull(tags) || tags.length == 0
+                || (tags.length == 2 && MetricsTag.ROUTE_ID.equals(tags[0]) && routeId.equals(tags[1]));
+    }
+
     public DistributionSummary getDistributionSummary(MetricsName metricsName, String unit, String... tags) {
+        HistogramProperties histogram = metConfig.getHistogram();
         return DistributionSummary.builder(metricsName.getName())
-                .distributionStatisticBufferLength(10240)
-                // .distributionStatisticExpiry(Duration.ofDays(1))
+                .distributionStatisticBufferLength(histogram.getBufferLength())
+                .distributionStatisticExpiry(Duration.ofMillis(histogram.getExpiryMs()))
+                .publishPercentiles(histogram.getPercentiles())
+                .percentilePrecision(histogram.getPercentilePrecision())
+                .publishPercentileHistogram(histogram.isPercentileHistogram())
                 .baseUnit(unit)
                 .description(metricsName.getHelp())
                 .tags(tags)
@@ -275,6 +685,90 @@ public class GatewayMetricsFacade implements InitializingBean {
         return (SummaryMetricFamily) samples;
     }
 
+    static enum MeterType {
+        COUNTER, TIMER;
+    }
+
+    static class RouteMeters {
+        private final AtomicReferenceArray<Counter> counters = new AtomicReferenceArray<>(METRICS_NAME_COUNT);
+        private final AtomicReferenceArray<Timer> timers = new AtomicReferenceArray<>(METRICS_NAME_COUNT);
+    }
+
+    static class MeterKey {
+        private final MeterType type;
+        private final MetricsName metricsName;
+        private final String routeId;
+        private final String[] tags;
+        private final int hash;
+
+        MeterKey(MeterType type, MetricsName metricsName, String routeId, String[] tags) {
+            this.type = type;
+            this.metricsName = metricsName;
+            this.routeId = routeId;
+            this.tags = isNull(tags) ? EMPTY_TAGS : tags;
+            this.hash = 31 * (31 * (31 * type.hashCode() + metricsName.hashCode()) + Objects.hashCode(routeId))
+                    + Arrays.hashCode(this.tags);
+        }
+
+        /**
+         * The caller tags array may be reused, so copy it before caching.
+         */
+        MeterKey copy() {
+            return new MeterKey(type, metricsName, routeId, tags.clone());
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof MeterKey)) {
+                return false;
+            }
+            MeterKey that = (MeterKey) obj;
+            return hash == that.hash && type == that.type && metricsName == that.metricsName
+                    && Objects.equals(routeId, that.routeId) && Arrays.equals(tags, that.tags);
+        }
+    }
+
+    /**
+     * The fixed tags prepared by {@link GatewayMetricsFacade#prepareTags(String...)},
+     * with its own pre-resolved meters of each route.
+     */
+    public static final class MeterTags {
+        private final String[] tags;
+        private volatile ResolvedMeters resolved = new ResolvedMeters(-1);
+
+        MeterTags(String[] tags) {
+            this.tags = tags;
+        }
+
+        @Override
+        public String toString() {
+            return Arrays.toString(tags);
+        }
+    }
+
+    @AllArgsConstructor
+    static class ResolvedMeters {
+        private final int generation;
+        private final Map<String, RouteMeters> routeMeters = new ConcurrentHashMap<>(8);
+    }
+
+    @AllArgsConstructor
+    static class IdleState {
+        private final Meter meter;
+        private final double lastCount;
+        private final long lastChangedTime;
+    }
+
+    private static final String[] EMPTY_TAGS = new String[0];
+
     @Getter
     @AllArgsConstructor
     public static enum MetricsName {
@@ -372,6 +866,29 @@ public class GatewayMetricsFacade implements InitializingBean {
 
         REDIS_QUOTALIMIT_TIME("iscg_redis_quotalimit_time", "The number of redis quota limit cost time"),
 
+        //
+        // Request size.
+        //
+
+        REQUEST_SIZE_REJECTED_TOTAL("iscg_request_size_rejected_total",
+                "The number of requests rejected by the request size limiter"),
+
+        REQUEST_SIZE_REJECTED_BYTES_TOTAL("iscg_request_size_rejected_bytes_total",
+                "The number of body bytes (the declared length, or the received length of streaming body) of the rejected requests"),
+
+        //
+        // Event bus.
+        //
+
+        EVENTBUS_QUEUE_DEPTH("iscg_eventbus_queue_depth", "The number of events waiting in the ring buffers of the event bus"),
+
+        EVENTBUS_PUBLISHED_TOTAL("iscg_eventbus_published_total", "The number of events published to the event bus"),
+
+        EVENTBUS_DROPPED_TOTAL("iscg_eventbus_dropped_total",
+                "The number of events dropped by the overflow policy of the event bus"),
+
+        EVENTBUS_PUBLISH_SECONDS("iscg_eventbus_publish_seconds", "The time of publishing to the event bus"),
+
         //
         // Response cache.
         //
@@ -380,6 +897,12 @@ public class GatewayMetricsFacade implements InitializingBean {
 
         RESPONSE_CACHE_HITS_TOTAL("iscg_responsecache_hits_total", "The number of total hits in the response cache"),
 
+        RESPONSE_CACHE_COMPRESSION_RATIO("iscg_responsecache_compression_ratio",
+                "The ratio of the encoded size to the identity size of the response cache variants"),
+
+        RESPONSE_CACHE_COMPRESSION_SAVED_CPU_SECONDS("iscg_responsecache_compression_saved_cpu_seconds",
+                "The total CPU time saved by responding the encoded variants in the response cache"),
+
         //
         // IpFilter.
         //
@@ -388,6 +911,28 @@ public class GatewayMetricsFacade implements InitializingBean {
 
         IPFILTER_HITS_TOTAL("iscg_ipfilter_hits_total", "The number of total hits in the ipfilter"),
 
+        IPBLOCKLIST_TOTAL("iscg_ipblocklist_total", "The number of total processing in the ip blocklist filter"),
+
+        IPBLOCKLIST_HITS_TOTAL("iscg_ipblocklist_hits_total", "The number of total hits in the ip blocklist filter"),
+
+        IPBLOCKLIST_RELOAD_TOTAL("iscg_ipblocklist_reload_total", "The number of total reloads of the ip blocklist"),
+
+        IPBLOCKLIST_RELOAD_FAIL_TOTAL("iscg_ipblocklist_reload_fail_total",
+                "The number of total failed reloads of the ip blocklist"),
+
+        IPBLOCKLIST_INTERVALS("iscg_ipblocklist_intervals", "The number of merged address intervals in the ip blocklist"),
+
+        //
+        // Logging.
+        //
+
+        LOGGING_ASYNC_DROPPED_TOTAL("iscg_logging_async_dropped_total",
+                "The number of flight logs dropped because the async buffer is full"),
+
+        LOGGING_ASYNC_PENDING("iscg_logging_async_pending", "The number of flight logs pending in the async buffer"),
+
+        LOGGING_SINK_FAIL_TOTAL("iscg_logging_sink_fail_total", "The number of flight logs failed to write to the sink"),
+
         //
         // Fault.
         //
@@ -398,12 +943,99 @@ public class GatewayMetricsFacade implements InitializingBean {
         // Traffic.
         //
 
-        TRAFFIC_REPLICATION_TOTAL("iscg_traffic_replication_total", "The number of total processing in the traffic replication");
+        TRAFFIC_REPLICATION_TOTAL("iscg_traffic_replication_total", "The number of total processing in the traffic replication"),
+
+        TRAFFIC_REPLICATION_DROPPED_TOTAL("iscg_traffic_replication_dropped_total",
+                "The number of mirror requests dropped by the replication budget"),
+
+        TRAFFIC_REPLICATION_FAIL_TOTAL("iscg_traffic_replication_fail_total", "The number of failed mirror requests"),
+
+        TRAFFIC_REPLICATION_INFLIGHT("iscg_traffic_replication_inflight", "The number of in-flight mirror requests"),
+
+        TRAFFIC_REPLICATION_PERCENTAGE_FACTOR("iscg_traffic_replication_percentage_factor",
+                "The adaptive factor of the replication sampling percentage"),
+
+        TRAFFIC_RECORD_TOTAL("iscg_traffic_record_total", "The number of total recorded traffic"),
+
+        TRAFFIC_RECORD_DROPPED_TOTAL("iscg_traffic_record_dropped_total", "The number of dropped traffic records"),
+
+        //
+        // CircuitBreaker.
+        //
+
+        CIRCUITBREAKER_STATE("iscg_circuitbreaker_state", "The state of circuit breaker (0: CLOSED, 1: OPEN, 2: HALF_OPEN)"),
+
+        CIRCUITBREAKER_WINDOW_CALLS("iscg_circuitbreaker_window_calls", "The number of calls in the circuit breaker window"),
+
+        CIRCUITBREAKER_FAILURE_RATE("iscg_circuitbreaker_failure_rate",
+                "The failure rate (percentage) in the circuit breaker window"),
+
+        CIRCUITBREAKER_SLOW_CALL_RATE("iscg_circuitbreaker_slow_call_rate",
+                "The slow call rate (percentage) in the circuit breaker window"),
+
+        CIRCUITBREAKER_NOT_PERMITTED("iscg_circuitbreaker_not_permitted_calls",
+                "The number of calls not permitted by the circuit breaker"),
+
+        //
+        // Concurrency limiter.
+        //
+
+        CONCURRENCY_LIMIT("iscg_concurrency_limit", "The adaptive concurrency limit of the route or upstream"),
+
+        CONCURRENCY_INFLIGHT("iscg_concurrency_inflight", "The number of in-flight requests of the concurrency limiter"),
+
+        CONCURRENCY_QUEUED("iscg_concurrency_queued", "The number of requests waiting for the concurrency limiter slots"),
+
+        CONCURRENCY_REJECTED_TOTAL("iscg_concurrency_rejected_total",
+                "The number of requests rejected by the concurrency limiter"),
+
+        //
+        // Retry.
+        //
+
+        RETRY_BUDGET_BALANCE("iscg_retry_budget_balance", "The balance tokens of the retry budget"),
+
+        RETRY_BUDGET_EXHAUSTED_TOTAL("iscg_retry_budget_exhausted_total",
+                "The number of retries (or hedged requests) denied by the exhausted retry budget"),
+
+        RETRY_HEDGE_TOTAL("iscg_retry_hedge_total", "The number of fired hedged requests"),
+
+        RETRY_HEDGE_WIN_TOTAL("iscg_retry_hedge_win_total", "The number of hedged requests completed before the first"),
+
+        //
+        // TLS session.
+        //
+
+        TLS_SESSION_RESUMED_TOTAL("iscg_tls_session_resumed_total",
+                "The number of TLS handshakes resumed by the session cache or session ticket"),
+
+        TLS_FULL_HANDSHAKE_TOTAL("iscg_tls_full_handshake_total", "The number of TLS full (not resumed) handshakes"),
+
+        SNI_CERT_DOMAINS("iscg_sni_cert_domains", "The number of indexed (exact and wildcard) domains of SNI certificates"),
+
+        SNI_CERT_RELOAD_TOTAL("iscg_sni_cert_reload_total", "The number of total reloads of the SNI certificates"),
+
+        SNI_CERT_RELOAD_FAIL_TOTAL("iscg_sni_cert_reload_fail_total",
+                "The number of total failed reloads of the SNI certificates"),
+
+        //
+        // HTTP/2 server.
+        //
+
+        HTTP2_ACTIVE_CONNECTIONS("iscg_http2_active_connections", "The number of active HTTP/2 (h2 and h2c) connections"),
+
+        HTTP2_ACTIVE_STREAMS("iscg_http2_active_streams", "The number of active HTTP/2 streams"),
+
+        HTTP2_STREAMS_TOTAL("iscg_http2_streams_total", "The number of total HTTP/2 streams"),
+
+        HTTP2_CONNECTION_STREAMS("iscg_http2_connection_streams", "The number of streams per HTTP/2 connection");
 
         private final String name;
         private final String help;
     }
 
+    private static final int METRICS_NAME_COUNT = MetricsName.values().length;
+
     public static abstract class MetricsTag {
 
         // for Common tags.
@@ -430,6 +1062,26 @@ public class GatewayMetricsFacade implements InitializingBean {
 
         public static final String FAULT_INJECTOR = "injector";
 
+        // for Traffic tags.
+
+        public static final String TRAFFIC_DROP_REASON = "dropReason";
+
+        // for Concurrency limiter tags.
+
+        public static final String CONCURRENCY_LIMIT_KEY = "limitKey";
+
+        // for Response cache tags.
+
+        public static final String CONTENT_ENCODING = "encoding";
+
+        // for Request size tags.
+
+        public static final String REQUEST_SIZE_REJECT_REASON = "rejectReason";
+
+        // for Event bus tags.
+
+        public static final String EVENTBUS = "bus";
+
     }
 
 }
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors.<springcloudgateway@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.commons.microtag;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.springcloud.gateway.core.lang.Assert2.notNullOf;
+
+import org.springframework.boot.ApplicationArguments;
+
+import org.springcloud.gateway.core.commons.microtag.config.KernalMetProperties;
+import org.springcloud.gateway.core.commons.microtag.config.KernalMetProperties.ExpiryProperties;
+import org.springcloud.gateway.core.task.ApplicationTaskRunner;
+import org.springcloud.gateway.core.task.RunnerProperties;
+import org.springcloud.gateway.core.task.RunnerProperties.StartupMode;
+import org.springcloud.gateway.core.task.SafeScheduledTaskPoolExecutor;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * {@link IdleMeterExpirer}, Periodically remove the idle meters of
+ * {@link GatewayMetricsFacade}, so that the meters of the churned instances
+ * and routes do not accumulate in the registry.
+ * 
+ * @author springcloudgateway &lt;springcloudgateway@163.com, springcloudgateway@163.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+@Slf4j
+public class IdleMeterExpirer extends ApplicationTaskRunner<RunnerProperties> {
+
+    private final KernalMetProperties metConfig;
+    private final GatewayMetricsFacade metricsFacade;
+
+    public IdleMeterExpirer(KernalMetProperties metConfig, GatewayMetricsFacade metricsFacade) {
+        super(new RunnerProperties(StartupMode.ASYNC, 1));
+        this.metConfig = notNullOf(metConfig, "metConfig");
+        this.metricsFacade = notNullOf(metricsFacade, "metricsFacade");
+    }
+
+    @Override
+    protected void onApplicationStarted(ApplicationArguments args, SafeScheduledTaskPoolExecutor worker) throws Exception {
+        ExpiryProperties expiry = metConfig.getExpiry();
+        if (!expiry.isEnabled()) {
+            return;
+        }
+        worker.scheduleWithFixedDelay(() -> {
+            try {
+                int removed = metricsFacade.expireIdleMeters(expiry.getIdleTimeoutMs());
+                if (removed > 0) {
+                    log.info("Removed {} idle meters.", removed);
+                }
+            } catch (Exception e) {
+                log.warn("Failed to remove idle meters.", e);
+            }
+        }, expiry.getCheckIntervalMs(), expiry.getCheckIntervalMs(), MILLISECONDS);
+    }
+
+}
@@ -15,7 +15,10 @@
  */
 package org.springcloud.gateway.core.commons.microtag.config;
 
+import org.springcloud.gateway.core.common.constant.GatewayIAMConstants;
 import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade;
+import org.springcloud.gateway.core.commons.microtag.IdleMeterExpirer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.cloud.commons.util.InetUtils;
 import org.springframework.context.annotation.Bean;
 import org.springframework.core.env.Environment;
@@ -31,12 +34,24 @@ import io.micrometer.prometheus.PrometheusMeterRegistry;
  */
 public class KernalMetAutoConfiguration {
 
+    @Bean
+    @ConfigurationProperties(prefix = GatewayIAMConstants.CONF_PREFIX_IAM_GATEWAY_METRICS)
+    public KernalMetProperties kernalMetProperties() {
+        return new KernalMetProperties();
+    }
+
     @Bean
     public GatewayMetricsFacade gatewayMetricsFacade(
+            KernalMetProperties metConfig,
             PrometheusMeterRegistry meterRegistry,
             InetUtils inet,
             Environment environment) {
-        return new GatewayMetricsFacade(meterRegistry, inet, environment);
+        return new GatewayMetricsFacade(metConfig, meterRegistry, inet, environment);
+    }
+
+    @Bean
+    public IdleMeterExpirer idleMeterExpirer(KernalMetProperties metConfig, GatewayMetricsFacade metricsFacade) {
+        return new IdleMeterExpirer(metConfig, metricsFacade);
     }
 
 }
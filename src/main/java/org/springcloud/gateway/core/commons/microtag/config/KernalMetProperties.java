@@ -0,0 +1,124 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors.<springcloudgateway@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.commons.microtag.config;
+
+import org.springframework.validation.annotation.Validated;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * {@link KernalMetProperties}
+ * 
+ * @author springcloudgateway &lt;springcloudgateway@163.com, springcloudgateway@163.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+@Getter
+@Setter
+@Validated
+@ToString
+public class KernalMetProperties {
+
+    private HistogramProperties histogram = new HistogramProperties();
+
+    private CardinalityProperties cardinality = new CardinalityProperties();
+
+    private ExpiryProperties expiry = new ExpiryProperties();
+
+    /**
+     * The distribution statistic configuration of timers and summaries, the
+     * percentiles are computed by the fixed size HdrHistogram ring buffer of
+     * micrometer, so the memory of each meter is bounded by
+     * {@link #bufferLength} and {@link #percentilePrecision}.
+     */
+    @Getter
+    @Setter
+    @Validated
+    @ToString
+    public static class HistogramProperties {
+
+        /**
+         * The number of histograms in the ring buffer.
+         */
+        private int bufferLength = 3;
+
+        /**
+         * The time of each histogram is accumulated before it is rotated.
+         */
+        private long expiryMs = 120_000L;
+
+        /**
+         * The client side computed percentiles, e.g: [0.5, 0.95, 0.99], empty
+         * means no histogram is maintained.
+         */
+        private double[] percentiles = {};
+
+        /**
+         * The number of significant decimal digits of the percentiles.
+         */
+        private int percentilePrecision = 1;
+
+        /**
+         * Whether to publish the percentile histogram buckets for the server
+         * side aggregation.
+         */
+        private boolean percentileHistogram = false;
+    }
+
+    @Getter
+    @Setter
+    @Validated
+    @ToString
+    public static class CardinalityProperties {
+
+        /**
+         * The max number of distinct values of each tag key per metric, the
+         * overflow values are folded into {@link #overflowTagValue}.
+         */
+        private int maxTagValues = 1000;
+
+        /**
+         * The tag value of the folded overflow series.
+         */
+        private String overflowTagValue = "other";
+    }
+
+    @Getter
+    @Setter
+    @Validated
+    @ToString
+    public static class ExpiryProperties {
+
+        /**
+         * Whether to remove the meters that have not been updated for a long
+         * time, e.g. the meters of the offline instances.
+         */
+        private boolean enabled = true;
+
+        /**
+         * The idle time after which the meter is removed.
+         */
+        private long idleTimeoutMs = 30 * 60_000L;
+
+        /**
+         * The interval of checking idle meters.
+         */
+        private long checkIntervalMs = 60_000L;
+    }
+
+}
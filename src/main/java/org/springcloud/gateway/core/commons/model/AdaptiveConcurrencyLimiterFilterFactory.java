@@ -0,0 +1,286 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors.<springcloudgateway@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.commons.model;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.apache.commons.lang3.StringUtils.isBlank;
+import static org.springcloud.gateway.core.lang.Assert2.notNullOf;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.setResponseStatus;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.cloud.gateway.event.RefreshRoutesResultEvent;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.HasRouteId;
+import org.springframework.cloud.gateway.support.HttpStatusHolder;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ServerWebExchange;
+import org.springcloud.gateway.core.bean.ConfigBeanUtils;
+import org.springcloud.gateway.core.commons.fault.IamGatewayFault.SafeFilterOrdered;
+import org.springcloud.gateway.core.commons.metrics.stats.LoadBalancerStats;
+import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade;
+import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade.MeterTags;
+import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade.MetricsName;
+import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade.MetricsTag;
+import org.springcloud.gateway.core.commons.model.concurrency.AdaptiveConcurrencyLimiter;
+import org.springcloud.gateway.core.commons.model.concurrency.AdaptiveConcurrencyLimiter.Listener;
+import org.springcloud.gateway.core.commons.model.config.IamRequestLimiterProperties;
+import org.springcloud.gateway.core.commons.model.config.IamRequestLimiterProperties.ConcurrencyLimiterProperties;
+
+import io.micrometer.core.instrument.Gauge;
+import lombok.AllArgsConstructor;
+import lombok.CustomLog;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * {@link AdaptiveConcurrencyLimiterFilterFactory}, Limit the in-flight
+ * requests of each route (or upstream) by the concurrency limit discovered from
+ * the observed RTT (Gradient2 or Vegas), unlike the static rate limits of
+ * {@link IamRequestLimiterFilterFactory}, the limit follows the capacity
+ * changes of the backends. </br>
+ * </br>
+ * The RTT sample prefers the upstream cost time since the load balancer
+ * connected (see {@link LoadBalancerStats#connect}), and falls back to the
+ * time since the slot was acquired. </br>
+ * </br>
+ * When the routes are refreshed, only the limiters (and their gauges) of the
+ * removed routes or of the routes with the changed config are discarded, which
+ * are re-created lazily by the rebuilt route filters, the others keep their
+ * discovered limits and in-flight counts.
+ *
+ * @author springcloudgateway &lt;springcloudgateway@163.com, springcloudgateway@163.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+@Getter
+@Setter
+@ToString
+@CustomLog
+public class AdaptiveConcurrencyLimiterFilterFactory
+        extends AbstractGatewayFilterFactory<AdaptiveConcurrencyLimiterFilterFactory.Config>
+        implements ApplicationListener<RefreshRoutesResultEvent> {
+
+    private final IamRequestLimiterProperties requestLimiterConfig;
+    private final GatewayMetricsFacade metricsFacade;
+    private final Map<String, KeyedLimiter> limiters = new ConcurrentHashMap<>(16);
+    private volatile Map<String, Config> appliedConfigs = new ConcurrentHashMap<>(16);
+
+    public AdaptiveConcurrencyLimiterFilterFactory(IamRequestLimiterProperties requestLimiterConfig,
+            GatewayMetricsFacade metricsFacade) {
+        super(AdaptiveConcurrencyLimiterFilterFactory.Config.class);
+        this.requestLimiterConfig = notNullOf(requestLimiterConfig, "requestLimiterConfig");
+        this.metricsFacade = notNullOf(metricsFacade, "metricsFacade");
+    }
+
+    @Override
+    public String name() {
+        return BEAN_FILTER_NAME;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        applyDefaultToConfig(config);
+        // The route filters are rebuilt before the refreshed result event.
+        if (!isBlank(config.getRouteId())) {
+            appliedConfigs.put(config.getRouteId(), config);
+        }
+        return new AdaptiveConcurrencyLimiterGatewayFilter(config);
+    }
+
+    private void applyDefaultToConfig(Config config) {
+        try {
+            ConfigBeanUtils.configureWithDefault(new Config(), config, requestLimiterConfig.getConcurrency());
+        } catch (IllegalArgumentException | IllegalAccessException e) {
+            throw new IllegalStateException("Unable apply defaults to adaptive concurrency limiter gateway filter config", e);
+        }
+    }
+
+    /**
+     * Discard the limiters whose owner route was not rebuilt by this refresh
+     * (i.e. removed, or no longer with this filter) or was rebuilt with the
+     * changed config.
+     */
+    @Override
+    public void onApplicationEvent(RefreshRoutesResultEvent event) {
+        Map<String, Config> refreshedConfigs = appliedConfigs;
+        appliedConfigs = new ConcurrentHashMap<>(16);
+        if (!event.isSuccess()) {
+            return;
+        }
+        for (Iterator<KeyedLimiter> it = limiters.values().iterator(); it.hasNext();) {
+            KeyedLimiter keyed = it.next();
+            Config refreshedConfig = refreshedConfigs.get(keyed.ownerRouteId);
+            if (isNull(refreshedConfig) || !keyed.config.equals(refreshedConfig)) {
+                log.info("Discard the concurrency limiter: {} of removed or changed route: {}", keyed.limiter.getKey(),
+                        keyed.ownerRouteId);
+                it.remove();
+                keyed.removeGauges();
+            }
+        }
+    }
+
+    /**
+     * Gets or create the limiter of the route or upstream, the limiter shared
+     * by the routes of the same upstream is created with the config of the
+     * first route, and is rebuilt when the config of that route changed.
+     */
+    private KeyedLimiter getLimiter(Config config, Route route) {
+        String key = route.getId();
+        if (config.isKeyByUpstream() && !isBlank(route.getUri().getHost())) {
+            key = route.getUri().getHost();
+        }
+        KeyedLimiter keyed = limiters.get(key);
+        if (isNull(keyed) || keyed.isOutdated(route.getId(), config)) {
+            keyed = limiters.compute(key, (k, existing) -> {
+                if (nonNull(existing)) {
+                    if (!existing.isOutdated(route.getId(), config)) {
+                        return existing;
+                    }
+                    log.info("Rebuild the concurrency limiter: {} of changed config: {}", k, config);
+                    existing.removeGauges();
+                }
+                return new KeyedLimiter(route.getId(), config, new AdaptiveConcurrencyLimiter(k, config));
+            });
+        }
+        return keyed;
+    }
+
+    @Getter
+    @Setter
+    @ToString
+    public static class Config extends ConcurrencyLimiterProperties implements HasRouteId {
+        // Excluded from the equals of the limiter config.
+        private String routeId;
+    }
+
+    class KeyedLimiter {
+        private final String ownerRouteId;
+        private final Config config;
+        private final AdaptiveConcurrencyLimiter limiter;
+        private final Gauge[] gauges;
+        private final MeterTags metricsTags;
+
+        KeyedLimiter(String ownerRouteId, Config config, AdaptiveConcurrencyLimiter limiter) {
+            this.ownerRouteId = ownerRouteId;
+            this.config = config;
+            this.limiter = limiter;
+            String key = limiter.getKey();
+            this.gauges = new Gauge[] {
+                    metricsFacade.gauge(MetricsName.CONCURRENCY_LIMIT, () -> limiter.getLimit(),
+                            MetricsTag.CONCURRENCY_LIMIT_KEY, key),
+                    metricsFacade.gauge(MetricsName.CONCURRENCY_INFLIGHT, () -> limiter.getInflight(),
+                            MetricsTag.CONCURRENCY_LIMIT_KEY, key),
+                    metricsFacade.gauge(MetricsName.CONCURRENCY_QUEUED, () -> limiter.getQueued(),
+                            MetricsTag.CONCURRENCY_LIMIT_KEY, key) };
+            this.metricsTags = metricsFacade.prepareTags(MetricsTag.CONCURRENCY_LIMIT_KEY, key);
+        }
+
+        /**
+         * The other routes of the shared upstream limiter never rebuild it,
+         * otherwise the routes of the different configs would rebuild it
+         * back and forth.
+         */
+        boolean isOutdated(String routeId, Config newConfig) {
+            return ownerRouteId.equals(routeId) && config != newConfig && !config.equals(newConfig);
+        }
+
+        void removeGauges() {
+            for (Gauge gauge : gauges) {
+                metricsFacade.removeMeter(gauge);
+            }
+        }
+    }
+
+    @AllArgsConstructor
+    class AdaptiveConcurrencyLimiterGatewayFilter implements GatewayFilter, Ordered {
+        private final Config config;
+
+        @Override
+        public int getOrder() {
+            return SafeFilterOrdered.ORDER_CONCURRENCY_LIMITER;
+        }
+
+        @Override
+        public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+            Route route = exchange.getRequiredAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+            KeyedLimiter keyed = getLimiter(config, route);
+            return keyed.limiter.acquire()
+                    .flatMap(listener -> chain.filter(exchange)
+                            .doFinally(signal -> onComplete(exchange, listener, signal))
+                            .thenReturn(listener))
+                    .switchIfEmpty(Mono.defer(() -> reject(exchange, keyed)))
+                    .then();
+        }
+
+        private Mono<Listener> reject(ServerWebExchange exchange, KeyedLimiter keyed) {
+            log.info("Rejected of concurrency limit: {}, path: {}", keyed.limiter, exchange.getRequest().getURI().getPath());
+            metricsFacade.counter(exchange, MetricsName.CONCURRENCY_REJECTED_TOTAL, 1, keyed.metricsTags);
+            setResponseStatus(exchange, HttpStatusHolder.parse(config.getStatusCode()));
+            return exchange.getResponse().setComplete().then(Mono.empty());
+        }
+
+        private void onComplete(ServerWebExchange exchange, Listener listener, SignalType signal) {
+            switch (signal) {
+            case CANCEL:
+                listener.onIgnore();
+                break;
+            case ON_ERROR:
+                listener.onDropped(getRttNanos(exchange, listener));
+                break;
+            default:
+                if (isOverloadStatus(exchange.getResponse().getRawStatusCode())) {
+                    listener.onDropped(getRttNanos(exchange, listener));
+                } else {
+                    listener.onSuccess(getRttNanos(exchange, listener));
+                }
+            }
+        }
+
+        private long getRttNanos(ServerWebExchange exchange, Listener listener) {
+            // Prefer the upstream cost time since the load balancer connected.
+            Long upstreamBeginTime = exchange.getAttribute(LoadBalancerStats.KEY_COST_TIME);
+            if (nonNull(upstreamBeginTime)) {
+                long costMs = System.currentTimeMillis() - upstreamBeginTime;
+                if (costMs > 0) {
+                    return MILLISECONDS.toNanos(costMs);
+                }
+            }
+            return System.nanoTime() - listener.getStartNanos();
+        }
+
+        private boolean isOverloadStatus(Integer statusCode) {
+            return nonNull(statusCode) && (statusCode == HttpStatus.TOO_MANY_REQUESTS.value()
+                    || statusCode == HttpStatus.SERVICE_UNAVAILABLE.value()
+                    || statusCode == HttpStatus.GATEWAY_TIMEOUT.value());
+        }
+    }
+
+    public static final String BEAN_FILTER_NAME = "AdaptiveConcurrencyLimiter";
+}
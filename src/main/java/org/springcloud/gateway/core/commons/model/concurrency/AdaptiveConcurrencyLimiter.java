@@ -0,0 +1,265 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors.<springcloudgateway@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.commons.model.concurrency;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static org.springcloud.gateway.core.lang.Assert2.hasTextOf;
+import static org.springcloud.gateway.core.lang.Assert2.notNullOf;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springcloud.gateway.core.commons.model.config.IamRequestLimiterProperties.ConcurrencyLimiterProperties;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * {@link AdaptiveConcurrencyLimiter}, The concurrency limiter of a route (or
+ * upstream), the in-flight requests are counted lock-free (CAS against the
+ * current limit of {@link ConcurrencyLimit}), and the requests over the limit
+ * are rejected immediately, or queued briefly (at most maxQueueSize and
+ * maxQueueWaitMs) until a slot is released.
+ *
+ * @author springcloudgateway &lt;springcloudgateway@163.com, springcloudgateway@163.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final String key;
+    private final ConcurrencyLimit limit;
+    private final int maxQueueSize;
+    private final long maxQueueWaitMs;
+    private final AtomicInteger inflight = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+    private final LongAdder rejected = new LongAdder();
+
+    public AdaptiveConcurrencyLimiter(String key, ConcurrencyLimiterProperties config) {
+        this.key = hasTextOf(key, "key");
+        notNullOf(config, "config");
+        this.limit = ConcurrencyLimit.create(config);
+        this.maxQueueSize = Math.max(config.getMaxQueueSize(), 0);
+        this.maxQueueWaitMs = Math.max(config.getMaxQueueWaitMs(), 0);
+    }
+
+    /**
+     * Acquire a slot, the request over the limit is queued briefly if the queue
+     * is enabled.
+     *
+     * @return Returns the listener of the acquired slot, or empty if rejected.
+     */
+    public Mono<Listener> acquire() {
+        // Don't jump the queue of the waiters.
+        Listener listener = waiters.isEmpty() ? tryAcquire() : null;
+        if (nonNull(listener)) {
+            return Mono.just(listener);
+        }
+        if (maxQueueSize <= 0 || maxQueueWaitMs <= 0) {
+            rejected.increment();
+            return Mono.empty();
+        }
+        if (queued.incrementAndGet() > maxQueueSize) {
+            queued.decrementAndGet();
+            rejected.increment();
+            return Mono.empty();
+        }
+        // The cancelling is observed outside of the sink, because the sink
+        // does not call back onCancel once the value is emitted, and then the
+        // value is dropped by the cancelled subscriber.
+        return Mono.defer(() -> {
+            Waiter waiter = new Waiter();
+            return Mono.<Listener> create(sink -> {
+                waiter.sink = sink;
+                waiters.offer(waiter);
+                Disposable timeout = Schedulers.parallel().schedule(() -> waiter.abandon(true), maxQueueWaitMs,
+                        TimeUnit.MILLISECONDS);
+                sink.onDispose(timeout);
+                // Re-check after enqueued, the slots may have been released.
+                drain();
+            }).doOnCancel(() -> waiter.abandon(false));
+        });
+    }
+
+    /**
+     * Try acquire a slot without waiting.
+     *
+     * @return Returns the listener of the acquired slot, or null if the limit
+     *         is reached.
+     */
+    public Listener tryAcquire() {
+        for (;;) {
+            int current = inflight.get();
+            if (current >= limit.getLimit()) {
+                return null;
+            }
+            if (inflight.compareAndSet(current, current + 1)) {
+                return new Listener(current + 1);
+            }
+        }
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public int getLimit() {
+        return limit.getLimit();
+    }
+
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    public int getQueued() {
+        return queued.get();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    private void drain() {
+        while (!waiters.isEmpty()) {
+            Listener listener = tryAcquire();
+            if (isNull(listener)) {
+                return;
+            }
+            Waiter waiter = waiters.poll();
+            if (isNull(waiter) || !waiter.grant(listener)) {
+                // The waiter is gone (timeout or cancelled), give back the
+                // slot and retry with the next one.
+                listener.discard();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + " [key=" + key + ", limit=" + limit + ", inflight=" + inflight + ", queued="
+                + queued + "]";
+    }
+
+    class Waiter {
+        // Published to the drainer by the enqueuing.
+        private MonoSink<Listener> sink;
+        private final AtomicBoolean done = new AtomicBoolean(false);
+        private volatile Listener granted;
+
+        /**
+         * The granted listener must be published before the done flag, so the
+         * concurrent cancelling which loses the race always sees it and
+         * releases the slot (the listener is released at most once, whoever
+         * of the drainer and the cancelling releases it).
+         */
+        boolean grant(Listener listener) {
+            granted = listener;
+            if (done.compareAndSet(false, true)) {
+                queued.decrementAndGet();
+                sink.success(listener);
+                return true;
+            }
+            return false;
+        }
+
+        void abandon(boolean timeout) {
+            if (done.compareAndSet(false, true)) {
+                queued.decrementAndGet();
+                waiters.remove(this);
+                if (timeout) {
+                    rejected.increment();
+                    sink.success();
+                }
+            } else if (!timeout && nonNull(granted)) {
+                // Cancelled while granting, the listener may not have been
+                // received, and it's idempotent to release again.
+                granted.onIgnore();
+            }
+        }
+    }
+
+    /**
+     * The listener of an acquired slot, which must be completed exactly once
+     * (the repeated completions are ignored).
+     */
+    public class Listener {
+        private final int inflightAtStart;
+        private final long startNanos = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        Listener(int inflightAtStart) {
+            this.inflightAtStart = inflightAtStart;
+        }
+
+        public long getStartNanos() {
+            return startNanos;
+        }
+
+        /**
+         * The request is completed successfully, update the limit with the
+         * RTT sample.
+         */
+        public void onSuccess(long rttNanos) {
+            if (released.compareAndSet(false, true)) {
+                limit.onSample(rttNanos, inflightAtStart, false);
+                release();
+            }
+        }
+
+        /**
+         * The request is failed or timeout, which is treated as the signal of
+         * overload.
+         */
+        public void onDropped(long rttNanos) {
+            if (released.compareAndSet(false, true)) {
+                limit.onSample(rttNanos, inflightAtStart, true);
+                release();
+            }
+        }
+
+        /**
+         * The request is cancelled, release the slot without the sample.
+         */
+        public void onIgnore() {
+            if (released.compareAndSet(false, true)) {
+                release();
+            }
+        }
+
+        /**
+         * Give back the slot which is never received, without draining.
+         */
+        void discard() {
+            if (released.compareAndSet(false, true)) {
+                inflight.decrementAndGet();
+            }
+        }
+
+        private void release() {
+            inflight.decrementAndGet();
+            drain();
+        }
+    }
+
+}
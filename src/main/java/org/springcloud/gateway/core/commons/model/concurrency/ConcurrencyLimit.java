@@ -0,0 +1,60 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors.<springcloudgateway@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.commons.model.concurrency;
+
+import org.springcloud.gateway.core.commons.model.config.IamRequestLimiterProperties.ConcurrencyLimiterProperties;
+
+/**
+ * {@link ConcurrencyLimit}, The algorithm of discovering the concurrency limit
+ * from the observed round trip times.
+ *
+ * @author springcloudgateway &lt;springcloudgateway@163.com, springcloudgateway@163.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+public interface ConcurrencyLimit {
+
+    /**
+     * @return The current estimated concurrency limit.
+     */
+    int getLimit();
+
+    /**
+     * Update the limit with a completed request sample.
+     *
+     * @param rttNanos
+     *            The round trip time of the request.
+     * @param inflight
+     *            The number of in-flight requests when the request started.
+     * @param didDrop
+     *            Whether the request was dropped (e.g. failed or timeout).
+     */
+    void onSample(long rttNanos, int inflight, boolean didDrop);
+
+    public static ConcurrencyLimit create(ConcurrencyLimiterProperties config) {
+        switch (config.getAlgorithm()) {
+        case VEGAS:
+            return new VegasLimit(config);
+        default:
+            return new Gradient2Limit(config);
+        }
+    }
+
+    public static enum LimitAlgorithm {
+        GRADIENT2, VEGAS;
+    }
+
+}
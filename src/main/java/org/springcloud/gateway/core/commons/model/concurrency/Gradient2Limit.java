@@ -0,0 +1,93 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors.<springcloudgateway@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.commons.model.concurrency;
+
+import static org.springcloud.gateway.core.lang.Assert2.notNullOf;
+
+import org.springcloud.gateway.core.commons.model.config.IamRequestLimiterProperties.ConcurrencyLimiterProperties;
+
+/**
+ * {@link Gradient2Limit}, The gradient based limit (after the Netflix
+ * concurrency-limits Gradient2Limit), which compares the short term RTT with
+ * the long term exponential average RTT: </br>
+ *
+ * <pre>
+ * gradient = max(0.5, min(1.0, rttTolerance * longRtt / shortRtt))
+ * newLimit = limit * gradient + queueSize
+ * limit    = limit * (1 - smoothing) + newLimit * smoothing
+ * </pre>
+ *
+ * The limit is not increased when the in-flight requests are less than half of
+ * the limit (app limited), and the long term RTT is decayed quickly towards the
+ * short term RTT after the backend recovers.
+ *
+ * @author springcloudgateway &lt;springcloudgateway@163.com, springcloudgateway@163.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+public class Gradient2Limit implements ConcurrencyLimit {
+
+    private final ConcurrencyLimiterProperties config;
+    private final double alpha;
+    private volatile double estimatedLimit;
+    private double longRtt;
+    private int warmupSamples;
+
+    public Gradient2Limit(ConcurrencyLimiterProperties config) {
+        this.config = notNullOf(config, "config");
+        this.alpha = 2d / (Math.max(config.getLongWindow(), 1) + 1);
+        this.estimatedLimit = config.getInitialLimit();
+    }
+
+    @Override
+    public int getLimit() {
+        return (int) estimatedLimit;
+    }
+
+    @Override
+    public synchronized void onSample(long rttNanos, int inflight, boolean didDrop) {
+        if (rttNanos <= 0) {
+            return;
+        }
+        double shortRtt = rttNanos;
+        // The simple average for warmup, then the exponential average.
+        if (warmupSamples < WARMUP_SAMPLES) {
+            longRtt = (longRtt * warmupSamples + shortRtt) / ++warmupSamples;
+        } else {
+            longRtt = longRtt * (1 - alpha) + shortRtt * alpha;
+        }
+        // The backend has recovered, quickly decay the long term RTT.
+        if (longRtt / shortRtt > 2) {
+            longRtt *= 0.95d;
+        }
+        // Don't grow the limit if the limit is not reached (app limited).
+        if (inflight < estimatedLimit / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5d, Math.min(1.0d, config.getRttTolerance() * longRtt / shortRtt));
+        double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        newLimit = estimatedLimit * (1 - config.getSmoothing()) + newLimit * config.getSmoothing();
+        estimatedLimit = Math.max(config.getMinLimit(), Math.min(config.getMaxLimit(), newLimit));
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + " [limit=" + getLimit() + ", longRtt=" + longRtt + "]";
+    }
+
+    private static final int WARMUP_SAMPLES = 10;
+
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors.<springcloudgateway@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.commons.model.concurrency;
+
+import static org.springcloud.gateway.core.lang.Assert2.notNullOf;
+
+import org.springcloud.gateway.core.commons.model.config.IamRequestLimiterProperties.ConcurrencyLimiterProperties;
+
+/**
+ * {@link VegasLimit}, The delay based limit (after the TCP Vegas and the
+ * Netflix concurrency-limits VegasLimit), which estimates the queue size from
+ * the minimum (no load) RTT: </br>
+ *
+ * <pre>
+ * queueSize = limit * (1 - rttNoLoad / rtt)
+ * </pre>
+ *
+ * The limit is increased aggressively when the queue is almost empty (less
+ * than log10(limit)), increased by log10(limit) when less than alpha, and
+ * decreased by log10(limit) when greater than beta or the request was
+ * dropped. The alpha and beta are multiplied by log10(limit).
+ *
+ * @author springcloudgateway &lt;springcloudgateway@163.com, springcloudgateway@163.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+public class VegasLimit implements ConcurrencyLimit {
+
+    private final ConcurrencyLimiterProperties config;
+    private volatile double estimatedLimit;
+    private long rttNoLoad;
+
+    public VegasLimit(ConcurrencyLimiterProperties config) {
+        this.config = notNullOf(config, "config");
+        this.estimatedLimit = config.getInitialLimit();
+    }
+
+    @Override
+    public int getLimit() {
+        return (int) estimatedLimit;
+    }
+
+    @Override
+    public synchronized void onSample(long rttNanos, int inflight, boolean didDrop) {
+        if (rttNanos <= 0) {
+            return;
+        }
+        if (rttNoLoad == 0 || rttNanos < rttNoLoad) {
+            rttNoLoad = rttNanos;
+            return;
+        }
+        double limit = estimatedLimit;
+        double log10 = Math.max(Math.log10(limit), 1d);
+        double newLimit;
+        if (didDrop) {
+            newLimit = limit - log10;
+        } else if (inflight * 2 < limit) {
+            // Don't grow the limit if the limit is not reached (app limited).
+            return;
+        } else {
+            int queueSize = (int) Math.ceil(limit * (1 - (double) rttNoLoad / rttNanos));
+            if (queueSize <= log10) {
+                newLimit = limit + config.getBeta() * log10;
+            } else if (queueSize < config.getAlpha() * log10) {
+                newLimit = limit + log10;
+            } else if (queueSize > config.getBeta() * log10) {
+                newLimit = limit - log10;
+            } else {
+                return;
+            }
+        }
+        newLimit = Math.max(config.getMinLimit(), Math.min(config.getMaxLimit(), newLimit));
+        estimatedLimit = limit * (1 - config.getSmoothing()) + newLimit * config.getSmoothing();
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + " [limit=" + getLimit() + ", rttNoLoad=" + rttNoLoad + "]";
+    }
+
+}
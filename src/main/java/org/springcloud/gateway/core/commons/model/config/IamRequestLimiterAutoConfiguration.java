@@ -36,6 +36,8 @@ import org.springframework.data.redis.core.script.RedisScript;
 
 import org.springcloud.gateway.core.common.constant.GatewayIAMConstants;
 import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade;
+import org.springcloud.gateway.core.commons.model.AdaptiveConcurrencyLimiterFilterFactory;
+import org.springcloud.gateway.core.commons.model.config.IamRequestLimiterProperties.EventRecorderProperties;
 import org.springcloud.gateway.core.commons.model.IamRequestLimiterFilterFactory;
 import org.springcloud.gateway.core.commons.model.configurer.LimiterStrategyConfigurer;
 import org.springcloud.gateway.core.commons.model.configurer.RedisLimiterStrategyConfigurer;
@@ -184,13 +186,26 @@ public class IamRequestLimiterAutoConfiguration {
         return new IamRequestLimiterFilterFactory(requsetLimiterConfig, keyResolverAdapter, requestLimiterAdapter);
     }
 
+    @Bean
+    public AdaptiveConcurrencyLimiterFilterFactory adaptiveConcurrencyLimiterFilterFactory(
+            IamRequestLimiterProperties requsetLimiterConfig,
+            GatewayMetricsFacade metricsFacade) {
+        return new AdaptiveConcurrencyLimiterFilterFactory(requsetLimiterConfig, metricsFacade);
+    }
+
     //
     // SpringCloud limiter event.
     //
 
     @Bean(name = BEAN_REDIS_RATELIMITE_EVENTBUS, destroyMethod = "close")
-    public EventBusSupport redisRateLimiteEventBusSupport(IamRequestLimiterProperties requestLimiteConfig) {
-        return new EventBusSupport(requestLimiteConfig.getEventRecorder().getPublishEventBusThreads());
+    public EventBusSupport redisRateLimiteEventBusSupport(
+            IamRequestLimiterProperties requestLimiteConfig,
+            GatewayMetricsFacade metricsFacade) {
+        EventRecorderProperties eventRecorder = requestLimiteConfig.getEventRecorder();
+        EventBusSupport eventBus = new EventBusSupport("ratelimit-eventbus", eventRecorder.getPublishEventBusThreads(),
+                eventRecorder.getPublishEventBusBufferSize(), eventRecorder.getPublishEventBusOverflowPolicy());
+        metricsFacade.bindEventBus(eventBus);
+        return eventBus;
     }
 
     @Bean
@@ -25,6 +25,7 @@ import static org.springcloud.gateway.core.common.constant.GatewayIAMConstants.C
 
 import org.springframework.http.HttpStatus;
 import org.springframework.validation.annotation.Validated;
+import org.springcloud.gateway.core.commons.model.concurrency.ConcurrencyLimit.LimitAlgorithm;
 import org.springcloud.gateway.core.commons.model.interceptor.quota.RedisQuotaRequestLimiterStrategy;
 import org.springcloud.gateway.core.commons.model.interceptor.rate.RedisRateRequestLimiterStrategy;
 import org.springcloud.gateway.core.commons.model.key.HeaderIamKeyResolver.HeaderKeyResolverStrategy;
@@ -33,8 +34,11 @@ import org.springcloud.gateway.core.commons.model.key.IntervalIamKeyResolver.Int
 import org.springcloud.gateway.core.commons.model.key.IpRangeIamKeyResolver.IpRangeKeyResolverStrategy;
 import org.springcloud.gateway.core.commons.model.key.PathIamKeyResolver.PathKeyResolverStrategy;
 import org.springcloud.gateway.core.commons.model.key.PrincipalIamKeyResolver.PrincipalKeyResolverStrategy;
+import org.springcloud.gateway.core.eventbus.EventBusSupport;
+import org.springcloud.gateway.core.eventbus.EventBusSupport.OverflowPolicy;
 
 import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -84,6 +88,11 @@ public class IamRequestLimiterProperties {
      */
     private EventRecorderProperties eventRecorder = new EventRecorderProperties();
 
+    /**
+     * The default adaptive concurrency limiter configuration properties.
+     */
+    private ConcurrencyLimiterProperties concurrency = new ConcurrencyLimiterProperties();
+
     /**
      * The default key resolver configuration properties.
      */
@@ -343,6 +352,18 @@ public class IamRequestLimiterProperties {
          */
         private int publishEventBusThreads = 1;
 
+        /**
+         * The ring buffer size of each event topic of the publish eventRecorder
+         * bus.
+         */
+        private int publishEventBusBufferSize = EventBusSupport.DEFAULT_BUFFER_SIZE;
+
+        /**
+         * The policy of publishing event when the ring buffer of the event
+         * topic is full.
+         */
+        private OverflowPolicy publishEventBusOverflowPolicy = EventBusSupport.DEFAULT_OVERFLOW_POLICY;
+
         /**
          * Based on whether the redis eventRecorder logger enables logging, if
          * it is turned on, it can be used as a downgrade recovery
@@ -383,4 +404,92 @@ public class IamRequestLimiterProperties {
 
     }
 
+    /**
+     * The adaptive concurrency limiter configuration properties.
+     */
+    @Getter
+    @Setter
+    @ToString
+    @EqualsAndHashCode
+    @Validated
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class ConcurrencyLimiterProperties {
+
+        /**
+         * The algorithm of discovering the concurrency limit from the observed
+         * RTT.
+         */
+        private LimitAlgorithm algorithm = LimitAlgorithm.GRADIENT2;
+
+        /**
+         * Whether to limit by the upstream (the host of the route URI, e.g. the
+         * lb://serviceId) instead of the route, the routes with the same
+         * upstream will share the limit.
+         */
+        private boolean keyByUpstream = false;
+
+        /**
+         * The initial concurrency limit before the RTT samples are observed.
+         */
+        private int initialLimit = 20;
+
+        /**
+         * The minimum concurrency limit.
+         */
+        private int minLimit = 1;
+
+        /**
+         * The maximum concurrency limit.
+         */
+        private int maxLimit = 1000;
+
+        /**
+         * The maximum number of requests waiting for a slot when the limit is
+         * reached, 0 means to reject immediately.
+         */
+        private int maxQueueSize = 0;
+
+        /**
+         * The maximum milliseconds of a request waiting for a slot.
+         */
+        private long maxQueueWaitMs = 50L;
+
+        /**
+         * The smoothing factor (0~1) of updating the limit, the smaller the
+         * smoother.
+         */
+        private double smoothing = 0.2d;
+
+        /**
+         * The tolerance of the short term RTT over the long term RTT before
+         * reducing the limit (for GRADIENT2).
+         */
+        private double rttTolerance = 1.5d;
+
+        /**
+         * The number of samples of the long term exponential average RTT (for
+         * GRADIENT2).
+         */
+        private int longWindow = 600;
+
+        /**
+         * The queue size (multiplied by log10(limit)) below which the limit is
+         * increased (for VEGAS).
+         */
+        private int alpha = 3;
+
+        /**
+         * The queue size (multiplied by log10(limit)) above which the limit is
+         * decreased (for VEGAS).
+         */
+        private int beta = 6;
+
+        /**
+         * HttpStatus to return when the limit is reached, defaults to
+         * TOO_MANY_REQUESTS.
+         */
+        private String statusCode = HttpStatus.TOO_MANY_REQUESTS.name();
+    }
+
 }
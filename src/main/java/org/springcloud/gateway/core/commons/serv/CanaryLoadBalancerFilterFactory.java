@@ -15,6 +15,7 @@
  */
 package org.springcloud.gateway.core.commons.serv;
 
+import static org.springcloud.gateway.core.commons.cb.RouteCircuitBreakerRegistry.KEY_INSTANCE_BREAKER_DECORATOR;
 import static org.springcloud.gateway.core.lang.Assert2.notNullOf;
 import static org.springcloud.gateway.core.log.SmartLoggerFactory.getLogger;
 import static java.lang.System.nanoTime;
@@ -41,6 +42,8 @@ import org.springframework.cloud.gateway.support.DelegatingServiceInstance;
 import org.springframework.cloud.gateway.support.NotFoundException;
 import org.springframework.core.Ordered;
 import org.springframework.web.server.ServerWebExchange;
+import org.springcloud.gateway.core.commons.cb.RouteCircuitBreakerRegistry;
+import org.springcloud.gateway.core.commons.cb.RouteCircuitBreakerRegistry.InstanceBreakerDecorator;
 import org.springcloud.gateway.core.commons.fault.IamGatewayFault.SafeFilterOrdered;
 import org.springcloud.gateway.core.commons.metrics.chooser.CanaryLoadBalancerChooser;
 import org.springcloud.gateway.core.commons.metrics.chooser.CanaryLoadBalancerChooser.LoadBalancerAlgorithm;
@@ -54,6 +57,7 @@ import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade.Metric
 import org.springcloud.gateway.core.bean.ConfigBeanUtils;
 import org.springcloud.gateway.core.log.SmartLogger;
 import org.springcloud.gateway.core.framework.operator.GenericOperatorAdapter;
+import org.springcloud.gateway.core.framework.operator.GenericOperatorAdapter.ResolvedOperator;
 
 import lombok.Getter;
 import lombok.Setter;
@@ -137,6 +141,7 @@ public class CanaryLoadBalancerFilterFactory extends AbstractGatewayFilterFactor
         private final LoadBalancerStats loadBalancerStats;
         private final Config config;
         private final GatewayMetricsFacade metricsFacade;
+        private final ResolvedOperator<LoadBalancerAlgorithm, CanaryLoadBalancerChooser> chooser;
 
         public CanaryLoadBalancerGatewayFilter(
                 GenericOperatorAdapter<LoadBalancerAlgorithm, CanaryLoadBalancerChooser> ruleAdapter,
@@ -145,6 +150,8 @@ public class CanaryLoadBalancerFilterFactory extends AbstractGatewayFilterFactor
             this.loadBalancerStats = notNullOf(loadBalancerStats, "loadBalancerStats");
             this.config = notNullOf(config, "config");
             this.metricsFacade = notNullOf(metricsFacade, "metricsFacade");
+            // Resolve the chooser once on the filter applied.
+            this.chooser = ruleAdapter.resolve(config.getChoose().getLoadBalancerAlgorithm());
         }
 
         /**
@@ -206,6 +213,10 @@ public class CanaryLoadBalancerFilterFactory extends AbstractGatewayFilterFactor
             // default, if the loadbalancer doesn't provide one.
             String overrideScheme = !isBlank(schemePrefix) ? requestUri.getScheme() : null;
             DelegatingServiceInstance instance = new DelegatingServiceInstance(response.getServer(), overrideScheme);
+            String instanceId = LoadBalancerUtil.getInstanceId(instance);
+            if (!isBlank(instanceId)) {
+                exchange.getAttributes().put(KEY_CHOSEN_INSTANCE_ID, instanceId);
+            }
 
             URI newRequestUri = LoadBalancerUriTools.reconstructURI(instance, uri);
 
@@ -214,8 +225,16 @@ public class CanaryLoadBalancerFilterFactory extends AbstractGatewayFilterFactor
             }
             exchange.getAttributes().put(GATEWAY_REQUEST_URL_ATTR, newRequestUri);
 
+            // Apply the breaker of the chosen instance if enabled.
+            Mono<Void> result = chain.filter(exchange);
+            InstanceBreakerDecorator breakerDecorator = exchange.getAttribute(KEY_INSTANCE_BREAKER_DECORATOR);
+            if (!isNull(breakerDecorator)) {
+                result = breakerDecorator.decorate(exchange, requestUri.getHost(),
+                        RouteCircuitBreakerRegistry.getBreakerInstanceId(instance), result);
+            }
+
             // PreFilter and PostFilter, https://blogs.springcloud.gateway.com/archives/3401
-            return chain.filter(exchange).doOnRequest(v -> {
+            return result.doOnRequest(v -> {
                 loadBalancerStats.connect(exchange, instance);
             }).doFinally(signal -> {
                 if (signal == SignalType.ON_COMPLETE || signal == SignalType.CANCEL || signal == SignalType.ON_ERROR) {
@@ -229,13 +248,10 @@ public class CanaryLoadBalancerFilterFactory extends AbstractGatewayFilterFactor
 
             URI uri = exchange.getAttribute(GATEWAY_REQUEST_URL_ATTR);
             String serviceId = uri.getHost();
-            ServiceInstance chosen = ruleAdapter.forOperator(config.getChoose().getLoadBalancerAlgorithm()).choose(config,
-                    exchange, serviceId);
+            ServiceInstance chosen = chooser.get().choose(config, exchange, serviceId);
 
             // Add time metrics.
-            metricsFacade
-                    .getTimer(MetricsName.CANARY_LB_CHOOSE_TIME, MetricsTag.LB,
-                            config.getChoose().getLoadBalancerAlgorithm().name())
+            metricsFacade.getTimer(MetricsName.CANARY_LB_CHOOSE_TIME, MetricsTag.LB, chooser.getKind().name())
                     .record(Duration.ofNanos(nanoTime() - beginTime));
 
             if (isNull(chosen)) {
@@ -247,4 +263,17 @@ public class CanaryLoadBalancerFilterFactory extends AbstractGatewayFilterFactor
 
     public static final String NAME_CANARY_LOADBALANCER_FILTER = "CanaryLoadBalancer";
 
+    /**
+     * The instance id chosen by the current attempt of the request.
+     */
+    public static final String KEY_CHOSEN_INSTANCE_ID = CanaryLoadBalancerFilterFactory.class.getName()
+            .concat(".chosenInstanceId");
+
+    /**
+     * The instance ids ({@code Set<String>}) to be excluded when choosing,
+     * e.g. the instance of the primary attempt of the hedged request.
+     */
+    public static final String KEY_EXCLUDED_INSTANCE_IDS = CanaryLoadBalancerFilterFactory.class.getName()
+            .concat(".excludedInstanceIds");
+
 }
\ No newline at end of file
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors.<springcloudgateway@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.commons.server;
+
+import static java.util.Objects.isNull;
+import static org.springcloud.gateway.core.lang.Assert2.notNullOf;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade;
+import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade.MetricsName;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.netty.channel.Channel;
+import io.netty.handler.codec.http2.Http2StreamChannel;
+import io.netty.util.AttributeKey;
+import reactor.netty.Connection;
+
+/**
+ * {@link Http2StreamMetricsRecorder}, Record the streams of the HTTP/2 (h2
+ * and h2c) connections, the streams of each connection are counted on the
+ * parent channel, and recorded into the distribution summary when the
+ * connection closed.
+ *
+ * @author springcloudgateway &lt;springcloudgateway@163.com, springcloudgateway@163.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+public class Http2StreamMetricsRecorder {
+
+    private final GatewayMetricsFacade metricsFacade;
+    private final AtomicInteger activeConnections = new AtomicInteger();
+    private final AtomicInteger activeStreams = new AtomicInteger();
+    private final DistributionSummary connectionStreams;
+
+    public Http2StreamMetricsRecorder(GatewayMetricsFacade metricsFacade) {
+        this.metricsFacade = notNullOf(metricsFacade, "metricsFacade");
+        this.metricsFacade.gauge(MetricsName.HTTP2_ACTIVE_CONNECTIONS, () -> activeConnections.get());
+        this.metricsFacade.gauge(MetricsName.HTTP2_ACTIVE_STREAMS, () -> activeStreams.get());
+        this.connectionStreams = metricsFacade.getDistributionSummary(MetricsName.HTTP2_CONNECTION_STREAMS, "streams");
+    }
+
+    /**
+     * Called when the connection configured, only the streams of HTTP/2 are
+     * recorded.
+     *
+     * @param connection
+     */
+    public void onConnection(Connection connection) {
+        Channel channel = connection.channel();
+        if (!(channel instanceof Http2StreamChannel) || isNull(channel.parent())) {
+            return;
+        }
+        Channel parent = channel.parent();
+        AtomicLong streams = parent.attr(KEY_CONNECTION_STREAMS).get();
+        if (isNull(streams)) {
+            streams = new AtomicLong();
+            AtomicLong existing = parent.attr(KEY_CONNECTION_STREAMS).setIfAbsent(streams);
+            if (isNull(existing)) {
+                activeConnections.incrementAndGet();
+                AtomicLong total = streams;
+                parent.closeFuture().addListener(future -> {
+                    activeConnections.decrementAndGet();
+                    connectionStreams.record(total.get());
+                });
+            } else {
+                streams = existing;
+            }
+        }
+        streams.incrementAndGet();
+        activeStreams.incrementAndGet();
+        metricsFacade.counter(MetricsName.HTTP2_STREAMS_TOTAL, 1);
+        channel.closeFuture().addListener(future -> activeStreams.decrementAndGet());
+    }
+
+    private static final AttributeKey<AtomicLong> KEY_CONNECTION_STREAMS = AttributeKey
+            .valueOf(Http2StreamMetricsRecorder.class.getName() + ".connectionStreams");
+
+}
@@ -0,0 +1,360 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors.<springcloudgateway@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.commons.server;
+
+import static com.google.common.cache.CacheBuilder.newBuilder;
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.emptySet;
+import static java.util.Collections.unmodifiableSet;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.springcloud.gateway.core.lang.Assert2.notNullOf;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.NetworkInterface;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.CRL;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.CertificateException;
+import java.security.cert.X509CRL;
+import java.security.cert.X509CRLEntry;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nullable;
+import javax.security.auth.x500.X500Principal;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.core.io.Resource;
+
+import com.google.common.cache.Cache;
+import com.google.common.io.BaseEncoding;
+import com.google.common.io.Resources;
+
+import org.springcloud.gateway.core.commons.fault.cert.CertificateUtil;
+import org.springcloud.gateway.core.commons.fault.cert.KeyStoreUtil;
+import org.springcloud.gateway.core.commons.server.config.GatewayWebServerProperties;
+import org.springcloud.gateway.core.commons.server.config.GatewayWebServerProperties.PeerVerifier;
+import org.springcloud.gateway.core.task.ApplicationTaskRunner;
+import org.springcloud.gateway.core.task.RunnerProperties;
+import org.springcloud.gateway.core.task.RunnerProperties.StartupMode;
+import org.springcloud.gateway.core.task.SafeScheduledTaskPoolExecutor;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * {@link PeerCertificateVerifier}, The custom verification of the peer
+ * (client) certificates, which checks the CN against the host, the CN
+ * whitelist and the CRLs. </br>
+ * </br>
+ * All the inputs are prepared in the background and replaced atomically as a
+ * snapshot: the local addresses are refreshed periodically, the CN whitelist
+ * is a hash set, and the CRLs are indexed by the issuer and serial number, so
+ * the cost of a verification does not grow with the number of the revoked
+ * certificates. The verification results are cached by the certificate
+ * fingerprint and the peer address, and the cache entries of the previous
+ * snapshots are never hit again.
+ *
+ * @author springcloudgateway &lt;springcloudgateway@163.com, springcloudgateway@163.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+@Slf4j
+public class PeerCertificateVerifier extends ApplicationTaskRunner<RunnerProperties> {
+
+    private final PeerVerifier config;
+    private final Cache<String, Optional<String>> verifiedCache;
+    private final AtomicLong generation = new AtomicLong();
+    private volatile Snapshot snapshot;
+
+    public PeerCertificateVerifier(GatewayWebServerProperties webServerConfig) {
+        super(new RunnerProperties(StartupMode.ASYNC, 1));
+        notNullOf(webServerConfig, "webServerConfig");
+        this.config = webServerConfig.getSslVerifier().getPeer();
+        this.verifiedCache = newBuilder().maximumSize(config.getVerifiedCacheSize())
+                .expireAfterWrite(config.getVerifiedCacheExpireMs(), MILLISECONDS)
+                .build();
+        this.snapshot = config.isEnabled()
+                ? new Snapshot(generation.incrementAndGet(), loadLocalAddresses(), loadCNWhitelist(null), loadCrlIndex(null))
+                : new Snapshot(generation.incrementAndGet(), emptySet(), Loaded.of(emptySet(), 0L),
+                        Loaded.of(CrlIndex.EMPTY, 0L));
+    }
+
+    @Override
+    protected void onApplicationStarted(ApplicationArguments args, SafeScheduledTaskPoolExecutor worker) throws Exception {
+        if (!config.isEnabled()) {
+            return;
+        }
+        worker.scheduleWithFixedDelay(() -> refresh(), config.getReloadIntervalMs(), config.getReloadIntervalMs(),
+                MILLISECONDS);
+    }
+
+    /**
+     * Verify the peer certificate chain, the standard PKIX validation of the
+     * chain is not included.
+     *
+     * @param chain
+     * @param ip
+     *            The peer address, or null if unknown.
+     * @throws CertificateException
+     */
+    public void verify(X509Certificate[] chain, @Nullable String ip) throws CertificateException {
+        Snapshot current = snapshot;
+        X509Certificate owner = CertificateUtil.findOwner(chain);
+        String cacheKey = current.generation + ":" + fingerprint(owner) + "@" + ip;
+        Optional<String> failure = verifiedCache.getIfPresent(cacheKey);
+        if (isNull(failure)) {
+            failure = Optional.ofNullable(doVerify(current, chain, owner, ip));
+            verifiedCache.put(cacheKey, failure);
+        }
+        if (failure.isPresent()) {
+            throw new CertificateException(failure.get());
+        }
+    }
+
+    /**
+     * Refresh the snapshot when the local addresses, the whitelist file or the
+     * CRL file changed.
+     */
+    public synchronized void refresh() {
+        try {
+            Snapshot current = snapshot;
+            Set<String> localAddresses = loadLocalAddresses();
+            Loaded<Set<String>> cnWhitelist = loadCNWhitelist(current.cnWhitelist);
+            Loaded<CrlIndex> crlIndex = loadCrlIndex(current.crlIndex);
+            if (!localAddresses.equals(current.localAddresses) || cnWhitelist != current.cnWhitelist
+                    || crlIndex != current.crlIndex) {
+                this.snapshot = new Snapshot(generation.incrementAndGet(), localAddresses, cnWhitelist, crlIndex);
+                log.info("Refreshed the peer verification snapshot of local addresses: {}, CN whitelist: {}, CRL entries: {}",
+                        localAddresses.size(), isNull(cnWhitelist.value) ? null : cnWhitelist.value.size(),
+                        isNull(crlIndex.value) ? null : crlIndex.value.size());
+            }
+        } catch (Exception e) {
+            log.warn("Failed to refresh the peer verification snapshot.", e);
+        }
+    }
+
+    private @Nullable String doVerify(Snapshot current, X509Certificate[] chain, X509Certificate owner, @Nullable String ip) {
+        Set<String> cns = CertificateUtil.getCommonNames(owner);
+        if (config.isCheckCNHost()) {
+            // The request from the local machine, as long as the CN matches
+            // any IP address of the local machine.
+            boolean matched = SecureSslServerCustomizer.LOCAL_ADDRESS.contains(ip)
+                    ? cns.stream().anyMatch(cn -> current.localAddresses.contains(cn))
+                    : (nonNull(ip) && cns.contains(ip));
+            if (!matched) {
+                return format("Illegal client, IP does not match certificate. CNs=%s, IP=%s", cns, ip);
+            }
+        }
+        if (nonNull(config.getCheckCNWhiteFile())) {
+            if (nonNull(current.cnWhitelist.error)) {
+                return current.cnWhitelist.error;
+            }
+            if (cns.stream().noneMatch(cn -> current.cnWhitelist.value.contains(cn))) {
+                return format("CN does not match white. CNs=%s", cns);
+            }
+        }
+        if (nonNull(config.getCheckCrlFile())) {
+            if (nonNull(current.crlIndex.error)) {
+                return current.crlIndex.error;
+            }
+            if (current.crlIndex.value.isRevoked(owner)) {
+                return format("Certificates %s has been revoked.", asList(chain));
+            }
+        }
+        return null;
+    }
+
+    private Set<String> loadLocalAddresses() {
+        Set<String> addresses = new HashSet<>(16);
+        try {
+            Enumeration<NetworkInterface> interfaces = NetworkInterface.getNetworkInterfaces();
+            while (nonNull(interfaces) && interfaces.hasMoreElements()) {
+                Enumeration<InetAddress> ias = interfaces.nextElement().getInetAddresses();
+                while (ias.hasMoreElements()) {
+                    addresses.add(ias.nextElement().getHostAddress());
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Failed to get local addresses.", e);
+        }
+        return unmodifiableSet(addresses);
+    }
+
+    private Loaded<Set<String>> loadCNWhitelist(@Nullable Loaded<Set<String>> last) {
+        Resource file = config.getCheckCNWhiteFile();
+        if (isNull(file)) {
+            return Loaded.of(emptySet(), 0L);
+        }
+        long lastModified = getLastModified(file);
+        if (nonNull(last) && isNull(last.error) && last.lastModified == lastModified) {
+            return last;
+        }
+        try {
+            String white = Resources.toString(file.getURL(), UTF_8).trim();
+            return Loaded.of(unmodifiableSet(new HashSet<>(asList(white.split("\\s+")))), lastModified);
+        } catch (IOException e) {
+            log.warn(format("Failed to load the CN whitelist file: %s", file), e);
+            return nonNull(last) ? last : Loaded.failed("CN does not match white. can not read file.");
+        }
+    }
+
+    private Loaded<CrlIndex> loadCrlIndex(@Nullable Loaded<CrlIndex> last) {
+        Resource file = config.getCheckCrlFile();
+        if (isNull(file)) {
+            return Loaded.of(CrlIndex.EMPTY, 0L);
+        }
+        long lastModified = getLastModified(file);
+        if (nonNull(last) && isNull(last.error) && last.lastModified == lastModified) {
+            return last;
+        }
+        try (InputStream in = file.getInputStream()) {
+            return Loaded.of(new CrlIndex(KeyStoreUtil.createCRL(in)), lastModified);
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn(format("Failed to load the CRL file: %s", file), e);
+            return nonNull(last) ? last : Loaded.failed("Certificates revocation unknown. can not read crl file.");
+        }
+    }
+
+    private static long getLastModified(Resource file) {
+        try {
+            return file.lastModified();
+        } catch (IOException e) {
+            // e.g. classpath resource in the jar, which never changes.
+            return 0L;
+        }
+    }
+
+    private static String fingerprint(X509Certificate cert) throws CertificateEncodingException {
+        try {
+            return BaseEncoding.base16().encode(MessageDigest.getInstance("SHA-256").digest(cert.getEncoded()));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static class Snapshot {
+        private final long generation;
+        private final Set<String> localAddresses;
+        private final Loaded<Set<String>> cnWhitelist;
+        private final Loaded<CrlIndex> crlIndex;
+
+        Snapshot(long generation, Set<String> localAddresses, Loaded<Set<String>> cnWhitelist, Loaded<CrlIndex> crlIndex) {
+            this.generation = generation;
+            this.localAddresses = localAddresses;
+            this.cnWhitelist = cnWhitelist;
+            this.crlIndex = crlIndex;
+        }
+    }
+
+    /**
+     * The loaded value of the file, when the first loading failed, the
+     * verifications are rejected with the error, and when the reloading
+     * failed, the previous value is kept.
+     */
+    static class Loaded<T> {
+        private final @Nullable T value;
+        private final long lastModified;
+        private final @Nullable String error;
+
+        private Loaded(@Nullable T value, long lastModified, @Nullable String error) {
+            this.value = value;
+            this.lastModified = lastModified;
+            this.error = error;
+        }
+
+        static <T> Loaded<T> of(T value, long lastModified) {
+            return new Loaded<>(value, lastModified, null);
+        }
+
+        static <T> Loaded<T> failed(String error) {
+            return new Loaded<>(null, 0L, error);
+        }
+    }
+
+    /**
+     * The revoked serial numbers indexed by the certificate issuer, the non
+     * X.509 CRLs are still checked one by one.
+     */
+    static class CrlIndex {
+        static final CrlIndex EMPTY = new CrlIndex(emptyMap(), new ArrayList<>(0), 0);
+
+        private final Map<X500Principal, Set<BigInteger>> revokedSerials;
+        private final List<CRL> otherCrls;
+        private final int size;
+
+        CrlIndex(List<CRL> crls) {
+            this.revokedSerials = new HashMap<>(16);
+            this.otherCrls = new ArrayList<>(2);
+            int count = 0;
+            for (CRL crl : crls) {
+                if (!(crl instanceof X509CRL)) {
+                    otherCrls.add(crl);
+                    continue;
+                }
+                X509CRL x509Crl = (X509CRL) crl;
+                Set<? extends X509CRLEntry> entries = x509Crl.getRevokedCertificates();
+                if (isNull(entries)) {
+                    continue;
+                }
+                for (X509CRLEntry entry : entries) {
+                    // The entry of indirect CRL has its own issuer.
+                    X500Principal issuer = nonNull(entry.getCertificateIssuer()) ? entry.getCertificateIssuer()
+                            : x509Crl.getIssuerX500Principal();
+                    if (revokedSerials.computeIfAbsent(issuer, k -> new HashSet<>(64)).add(entry.getSerialNumber())) {
+                        ++count;
+                    }
+                }
+            }
+            this.size = count + otherCrls.size();
+        }
+
+        private CrlIndex(Map<X500Principal, Set<BigInteger>> revokedSerials, List<CRL> otherCrls, int size) {
+            this.revokedSerials = revokedSerials;
+            this.otherCrls = otherCrls;
+            this.size = size;
+        }
+
+        boolean isRevoked(X509Certificate cert) {
+            Set<BigInteger> serials = revokedSerials.get(cert.getIssuerX500Principal());
+            if (nonNull(serials) && serials.contains(cert.getSerialNumber())) {
+                return true;
+            }
+            return otherCrls.stream().anyMatch(crl -> crl.isRevoked(cert));
+        }
+
+        int size() {
+            return size;
+        }
+    }
+
+}
@@ -15,6 +15,8 @@
  */
 package org.springcloud.gateway.core.commons.server;
 
+import static java.util.Objects.nonNull;
+
 import java.net.InetSocketAddress;
 import java.time.Duration;
 import java.util.ArrayList;
@@ -44,7 +46,9 @@ import org.springframework.util.MimeTypeUtils;
 import org.springframework.util.ObjectUtils;
 import org.springframework.util.StringUtils;
 
+import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade;
 import org.springcloud.gateway.core.commons.server.config.GatewayWebServerProperties;
+import org.springcloud.gateway.core.commons.server.config.GatewayWebServerProperties.Http2Properties;
 
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpHeaders;
@@ -69,6 +73,10 @@ public class SecureNettyReactiveWebServerFactory extends AbstractReactiveWebServ
     // ADD feature configuration properties.
     //
     private @Autowired GatewayWebServerProperties gatewayWebServerProperties;
+    private @Autowired SslSessionResumptionManager sslSessionResumptionManager;
+    private @Autowired SniCertificateStore sniCertificateStore;
+    private @Autowired PeerCertificateVerifier peerCertificateVerifier;
+    private @Autowired GatewayMetricsFacade metricsFacade;
 
     private Set<NettyServerCustomizer> serverCustomizers = new LinkedHashSet<>();
     private List<NettyRouteProvider> routeProviders = new ArrayList<>();
@@ -212,8 +220,9 @@ public class SecureNettyReactiveWebServerFactory extends AbstractReactiveWebServ
             // [Begin] ADD for custom.
             //
             // TODO secureWebServerConfig for injection
-            SecureSslServerCustomizer sslServerCustomizer = new SecureSslServerCustomizer(gatewayWebServerProperties, getSsl(),
-                    getHttp2(), getSslStoreProvider());
+            SecureSslServerCustomizer sslServerCustomizer = new SecureSslServerCustomizer(gatewayWebServerProperties,
+                    sslSessionResumptionManager, sniCertificateStore, peerCertificateVerifier, getSsl(), getHttp2(),
+                    getSslStoreProvider());
             server = sslServerCustomizer.apply(server);
             //
             // [End] ADD for custom.
@@ -223,13 +232,51 @@ public class SecureNettyReactiveWebServerFactory extends AbstractReactiveWebServ
             CompressionCustomizer compressionCustomizer = new CompressionCustomizer(getCompression());
             server = compressionCustomizer.apply(server);
         }
-        server = server.protocol(listProtocols()).forwarded(this.useForwardHeaders);
+        HttpProtocol[] protocols = listProtocols();
+        server = server.protocol(protocols).forwarded(this.useForwardHeaders);
+        //
+        // [Begin] ADD for HTTP/2 (h2 and h2c) settings.
+        //
+        if (protocols[0] != HttpProtocol.HTTP11) {
+            Http2Properties http2 = gatewayWebServerProperties.getHttp2();
+            // Only the configured settings are sent, e.g. the h2 listener of
+            // SSL keeps the defaults unless configured.
+            if (nonNull(http2.getMaxConcurrentStreams()) || nonNull(http2.getInitialWindowSize())
+                    || nonNull(http2.getHeaderTableSize()) || nonNull(http2.getMaxFrameSize())) {
+                server = server.http2Settings(settings -> {
+                    if (nonNull(http2.getMaxConcurrentStreams())) {
+                        settings.maxConcurrentStreams(http2.getMaxConcurrentStreams());
+                    }
+                    if (nonNull(http2.getInitialWindowSize())) {
+                        settings.initialWindowSize(http2.getInitialWindowSize());
+                    }
+                    if (nonNull(http2.getHeaderTableSize())) {
+                        settings.headerTableSize(http2.getHeaderTableSize());
+                    }
+                    if (nonNull(http2.getMaxFrameSize())) {
+                        settings.maxFrameSize(http2.getMaxFrameSize());
+                    }
+                });
+            }
+            if (http2.isMetricsEnabled()) {
+                Http2StreamMetricsRecorder recorder = new Http2StreamMetricsRecorder(metricsFacade);
+                server = server.doOnConnection(connection -> recorder.onConnection(connection));
+            }
+        }
+        //
+        // [End] ADD for HTTP/2 (h2 and h2c) settings.
+        //
         return applyCustomizers(server);
     }
 
     private HttpProtocol[] listProtocols() {
-        if (getHttp2() != null && getHttp2().isEnabled() && getSsl() != null && getSsl().isEnabled()) {
-            return new HttpProtocol[] { HttpProtocol.H2, HttpProtocol.HTTP11 };
+        if (getSsl() != null && getSsl().isEnabled()) {
+            if (getHttp2() != null && getHttp2().isEnabled()) {
+                return new HttpProtocol[] { HttpProtocol.H2, HttpProtocol.HTTP11 };
+            }
+        } else if (gatewayWebServerProperties.getHttp2().isH2cEnabled()) {
+            // Both the HTTP/1.1 Upgrade and the prior-knowledge of h2c.
+            return new HttpProtocol[] { HttpProtocol.H2C, HttpProtocol.HTTP11 };
         }
         return new HttpProtocol[] { HttpProtocol.HTTP11 };
     }
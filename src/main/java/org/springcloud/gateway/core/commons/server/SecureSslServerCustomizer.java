@@ -49,6 +49,7 @@ import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 import java.util.Arrays;
 import java.util.Enumeration;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
@@ -57,6 +58,7 @@ import javax.net.ssl.ManagerFactoryParameters;
 import javax.net.ssl.SNIMatcher;
 import javax.net.ssl.SNIServerName;
 import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLException;
 import javax.net.ssl.SSLParameters;
 import javax.net.ssl.SSLSession;
 import javax.net.ssl.SSLSessionContext;
@@ -77,12 +79,20 @@ import com.google.common.io.Resources;
 import org.springcloud.gateway.core.commons.fault.cert.CertificateUtil;
 import org.springcloud.gateway.core.commons.fault.cert.KeyStoreUtil;
 import org.springcloud.gateway.core.commons.server.config.GatewayWebServerProperties;
+import org.springcloud.gateway.core.commons.server.config.GatewayWebServerProperties.SslSessionProperties;
 
+import io.netty.handler.codec.http2.Http2SecurityUtil;
+import io.netty.handler.ssl.ApplicationProtocolConfig;
+import io.netty.handler.ssl.ApplicationProtocolNames;
 import io.netty.handler.ssl.ClientAuth;
+import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.ssl.SupportedCipherSuiteFilter;
 import io.netty.internal.tcnative.CertificateVerifier;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import reactor.netty.NettyPipeline;
 import reactor.netty.http.server.HttpServer;
 import reactor.netty.tcp.SslProvider;
 import reactor.netty.tcp.SslProvider.Builder;
@@ -127,17 +137,27 @@ import reactor.netty.tcp.SslProvider.Builder;
 public class SecureSslServerCustomizer extends org.springcloud.gateway.core.commons.server.SslServerCustomizer {
 
     private final GatewayWebServerProperties secureWebServerConfig;
-
-    public SecureSslServerCustomizer(GatewayWebServerProperties secureWebServerConfig, Ssl ssl, Http2 http2,
-            SslStoreProvider sslStoreProvider) {
+    private final SslSessionResumptionManager resumptionManager;
+    private final SniCertificateStore certificateStore;
+    private final PeerCertificateVerifier peerVerifier;
+    private final Set<String> sniHosts;
+
+    public SecureSslServerCustomizer(GatewayWebServerProperties secureWebServerConfig,
+            SslSessionResumptionManager resumptionManager, SniCertificateStore certificateStore,
+            PeerCertificateVerifier peerVerifier, Ssl ssl, Http2 http2, SslStoreProvider sslStoreProvider) {
         super(ssl, http2, sslStoreProvider);
         this.secureWebServerConfig = notNullOf(secureWebServerConfig, "secureWebServerConfig");
+        this.resumptionManager = notNullOf(resumptionManager, "resumptionManager");
+        this.certificateStore = notNullOf(certificateStore, "certificateStore");
+        this.peerVerifier = notNullOf(peerVerifier, "peerVerifier");
+        this.sniHosts = new HashSet<>(safeList(secureWebServerConfig.getSslVerifier().getSni().getHosts()));
+        this.sniHosts.addAll(LOCAL_ADDRESS);
     }
 
     @Override
     public HttpServer apply(HttpServer server) {
         try {
-            return server.secure((contextSpec) -> {
+            HttpServer secureServer = server.secure((contextSpec) -> {
                 SslContextBuilder contextBuilder = getContextBuilder()
                         /**
                          * see:{@link io.netty.handler.ssl.SslContext#newServerContextInternal()}￬
@@ -149,66 +169,126 @@ public class SecureSslServerCustomizer extends org.springcloud.gateway.core.comm
                         .sslProvider(io.netty.handler.ssl.SslProvider.OPENSSL_REFCNT);
 
                 SslProvider.DefaultConfigurationSpec spec = contextSpec.sslContext(contextBuilder);
-                if (http2 != null && http2.isEnabled()) {
-                    Builder builder = spec.defaultConfiguration(SslProvider.DefaultConfigurationType.H2);
-                    //
-                    // [Begin] ADD for SSL subject verifier.
-                    //
-                    if (secureWebServerConfig.getSslVerifier().getSni().isEnabled()) {
-                        // see:io.netty.handler.ssl.Java8SslUtils#checkSniHostnameMatch()
-                        builder.handlerConfigurator(handler -> {
-                            SSLEngine engine = handler.engine();
-
-                            // TODO
-                            SSLSessionContext sessionContext = engine.getSession().getSessionContext();
-
-                            // see:https://www.saoniuhuo.com/article/detail-374589.html
-                            // see:https://github.com/apache/servicecomb-java-chassis/blob/master/foundations/foundation-ssl/src/main/java/org/apache/servicecomb/foundation/ssl/TrustManagerExt.java#L168
-                            // see:https://hg.openjdk.java.net/jdk8u/jdk8u/jdk/file/7fcf35286d52/src/share/classes/javax/net/ssl/SNIMatcher.java
-                            String peerHost = engine.getPeerHost();
-                            int peerPort = engine.getPeerPort();
-                            SSLSession session = engine.getSession();
-                            SSLSession handshakeSession = engine.getHandshakeSession();
-                            if (nonNull(handshakeSession)) {
-                                String peerHost2 = handshakeSession.getPeerHost();
-                                engine.setNeedClientAuth(true);
-                            }
-
-                            SSLParameters params = new SSLParameters();
-                            List<SNIMatcher> matchers = new LinkedList<>();
-                            matchers.add(new SNIMatcher(0) {
-                                @Override
-                                public boolean matches(SNIServerName serverName) {
-                                    String servname = new String(serverName.getEncoded());
-                                    if (LOCAL_ADDRESS.contains(servname)) {
-                                        return true;
-                                    }
-                                    boolean flag = safeList(secureWebServerConfig.getSslVerifier().getSni().getHosts()).stream()
-                                            .anyMatch(h -> StringUtils.equals(h, servname));
-                                    if (!flag) {
-                                        log.warn("No match SNI server name: {}", servname);
-                                    }
-                                    return flag;
-                                }
-                            });
-                            params.setSNIMatchers(matchers);
-                            engine.setSSLParameters(params);
-                        });
-                        builder.build();
-                    }
-                    //
-                    // [End] ADD for SSL subject verifier.
-                    //
-                }
+                Builder builder = spec.defaultConfiguration(isHttp2Enabled() ? SslProvider.DefaultConfigurationType.H2
+                        : SslProvider.DefaultConfigurationType.TCP);
+                builder.handlerConfigurator(handler -> configureHandler(handler));
             });
+            //
+            // [Begin] ADD for SNI multi certificates.
+            //
+            certificateStore.initialize((certChainFile, keyFile) -> createSniContext(certChainFile, keyFile));
+            if (certificateStore.isEnabled()) {
+                secureServer = secureServer.doOnChannelInit((observer, channel, remoteAddress) -> {
+                    if (nonNull(channel.pipeline().get(NettyPipeline.SslHandler))) {
+                        channel.pipeline().addBefore(NettyPipeline.SslHandler, SniCertificateHandler.NAME,
+                                new SniCertificateHandler(certificateStore, handler -> configureHandler(handler)));
+                    }
+                });
+            }
+            //
+            // [End] ADD for SNI multi certificates.
+            //
+            return secureServer;
         } catch (Exception ex) {
             throw new IllegalStateException(ex);
         }
     }
 
+    /**
+     * Configure the handler of the default context or the SNI certificate
+     * context.
+     *
+     * @param handler
+     */
+    protected void configureHandler(SslHandler handler) {
+        //
+        // [Begin] ADD for SSL session resumption.
+        //
+        // The session context is shared by all the connections of
+        // SslContext, which holds the session cache and ticket keys.
+        SSLSessionContext sessionContext = handler.engine().getSession().getSessionContext();
+        resumptionManager.register(handler.engine());
+        handler.handshakeFuture().addListener(future -> {
+            if (future.isSuccess()) {
+                resumptionManager.onHandshakeCompleted(sessionContext);
+            }
+        });
+        //
+        // [End] ADD for SSL session resumption.
+        //
+        //
+        // [Begin] ADD for SSL subject verifier.
+        //
+        if (isHttp2Enabled() && secureWebServerConfig.getSslVerifier().getSni().isEnabled()) {
+            // see:io.netty.handler.ssl.Java8SslUtils#checkSniHostnameMatch()
+            SSLEngine engine = handler.engine();
+
+            // see:https://www.saoniuhuo.com/article/detail-374589.html
+            // see:https://github.com/apache/servicecomb-java-chassis/blob/master/foundations/foundation-ssl/src/main/java/org/apache/servicecomb/foundation/ssl/TrustManagerExt.java#L168
+            // see:https://hg.openjdk.java.net/jdk8u/jdk8u/jdk/file/7fcf35286d52/src/share/classes/javax/net/ssl/SNIMatcher.java
+            String peerHost = engine.getPeerHost();
+            int peerPort = engine.getPeerPort();
+            SSLSession session = engine.getSession();
+            SSLSession handshakeSession = engine.getHandshakeSession();
+            if (nonNull(handshakeSession)) {
+                String peerHost2 = handshakeSession.getPeerHost();
+                engine.setNeedClientAuth(true);
+            }
+
+            SSLParameters params = new SSLParameters();
+            List<SNIMatcher> matchers = new LinkedList<>();
+            matchers.add(new SNIMatcher(0) {
+                @Override
+                public boolean matches(SNIServerName serverName) {
+                    String servname = new String(serverName.getEncoded());
+                    // The configured hosts and the domains of SNI
+                    // certificates are matched by the hash index.
+                    boolean flag = sniHosts.contains(servname) || nonNull(certificateStore.lookup(servname));
+                    if (!flag) {
+                        log.warn("No match SNI server name: {}", servname);
+                    }
+                    return flag;
+                }
+            });
+            params.setSNIMatchers(matchers);
+            engine.setSSLParameters(params);
+        }
+        //
+        // [End] ADD for SSL subject verifier.
+        //
+    }
+
     protected SslContextBuilder getContextBuilder() {
-        SslContextBuilder builder = SslContextBuilder.forServer(getKeyManagerFactory(this.ssl, this.sslStoreProvider))
-                .trustManager(getTrustManagerFactory(this.ssl, this.sslStoreProvider));
+        return configureContextBuilder(SslContextBuilder.forServer(getKeyManagerFactory(this.ssl, this.sslStoreProvider)));
+    }
+
+    /**
+     * Create the context of the SNI certificate with the same configuration as
+     * the default context, including the ALPN of H2 (which is applied to the
+     * default context by {@link SslProvider.DefaultConfigurationType#H2}).
+     *
+     * @param certChainFile
+     * @param keyFile
+     * @return
+     * @throws SSLException
+     */
+    protected SslContext createSniContext(File certChainFile, File keyFile) throws SSLException {
+        SslContextBuilder builder = configureContextBuilder(SslContextBuilder.forServer(certChainFile, keyFile))
+                .sslProvider(io.netty.handler.ssl.SslProvider.OPENSSL_REFCNT);
+        if (isHttp2Enabled()) {
+            if (this.ssl.getCiphers() == null) {
+                builder.ciphers(Http2SecurityUtil.CIPHERS, SupportedCipherSuiteFilter.INSTANCE);
+            }
+            builder.applicationProtocolConfig(new ApplicationProtocolConfig(ApplicationProtocolConfig.Protocol.ALPN,
+                    ApplicationProtocolConfig.SelectorFailureBehavior.NO_ADVERTISE,
+                    ApplicationProtocolConfig.SelectedListenerFailureBehavior.ACCEPT, ApplicationProtocolNames.HTTP_2,
+                    ApplicationProtocolNames.HTTP_1_1));
+        }
+        return builder.build();
+    }
+
+    protected SslContextBuilder configureContextBuilder(SslContextBuilder builder) {
+        builder.trustManager(getTrustManagerFactory(this.ssl, this.sslStoreProvider));
         if (this.ssl.getEnabledProtocols() != null) {
             builder.protocols(this.ssl.getEnabledProtocols());
         }
@@ -220,13 +300,24 @@ public class SecureSslServerCustomizer extends org.springcloud.gateway.core.comm
         } else if (this.ssl.getClientAuth() == Ssl.ClientAuth.WANT) {
             builder.clientAuth(ClientAuth.OPTIONAL);
         }
+        SslSessionProperties sslSession = secureWebServerConfig.getSslSession();
+        if (sslSession.getSessionCacheSize() > 0) {
+            builder.sessionCacheSize(sslSession.getSessionCacheSize());
+        }
+        if (sslSession.getSessionTimeoutSeconds() > 0) {
+            builder.sessionTimeout(sslSession.getSessionTimeoutSeconds());
+        }
         return builder;
     }
 
+    private boolean isHttp2Enabled() {
+        return http2 != null && http2.isEnabled();
+    }
+
     @Override
     protected TrustManagerFactory getTrustManagerFactory(Ssl ssl, SslStoreProvider sslStoreProvider) {
         TrustManagerFactory tmf = super.getTrustManagerFactory(ssl, sslStoreProvider);
-        return SecureX509TrustManagerFactory.wrap(secureWebServerConfig, tmf);
+        return SecureX509TrustManagerFactory.wrap(secureWebServerConfig, peerVerifier, tmf);
     }
 
     /**
@@ -246,12 +337,14 @@ public class SecureSslServerCustomizer extends org.springcloud.gateway.core.comm
 
         public static SecureX509TrustManagerFactory wrap(
                 GatewayWebServerProperties secureWebServerConfig,
+                PeerCertificateVerifier verifier,
                 TrustManagerFactory tmf) {
             TrustManagerFactorySpi originalFactorySpi = getField(
                     findField(tmf.getClass(), "factorySpi", TrustManagerFactorySpi.class), tmf, true);
 
             SecureTrustManagerFactorySpi factorySpi = new SecureTrustManagerFactorySpi(originalFactorySpi,
-                    new SecureX509TrustManager(secureWebServerConfig, (X509ExtendedTrustManager) tmf.getTrustManagers()[0]));
+                    new SecureX509TrustManager(secureWebServerConfig, verifier,
+                            (X509ExtendedTrustManager) tmf.getTrustManagers()[0]));
 
             Provider provider = getField(findField(tmf.getClass(), "provider", Provider.class), tmf, true);
             String algorithm = getField(findField(tmf.getClass(), "algorithm", String.class), tmf, true);
@@ -334,6 +427,7 @@ public class SecureSslServerCustomizer extends org.springcloud.gateway.core.comm
     @AllArgsConstructor
     public static class SecureX509TrustManager extends X509ExtendedTrustManager {
         private final GatewayWebServerProperties config;
+        private final PeerCertificateVerifier verifier;
         private final X509ExtendedTrustManager tm;
 
         @Override
@@ -420,76 +514,7 @@ public class SecureSslServerCustomizer extends org.springcloud.gateway.core.comm
         }
 
         private void checkTrustedCustom(X509Certificate[] chain, String ip) throws CertificateException {
-            checkCNHost(chain, ip);
-            checkCNWhite(chain);
-            checkCRL(chain);
-        }
-
-        private void checkCNHost(X509Certificate[] chain, String ip) throws CertificateException {
-            if (config.getSslVerifier().getPeer().isCheckCNHost()) {
-                X509Certificate owner = CertificateUtil.findOwner(chain);
-                Set<String> cns = CertificateUtil.getCommonNames(owner);
-                // ip = isBlank(ip) ? custom.getHost() : ip;
-                // The request from the local machine, as long as the CN matches
-                // any IP address of the local machine.
-                if (LOCAL_ADDRESS.contains(ip)) {
-                    try {
-                        Enumeration<NetworkInterface> interfaces = NetworkInterface.getNetworkInterfaces();
-                        if (interfaces != null) {
-                            while (interfaces.hasMoreElements()) {
-                                NetworkInterface nif = interfaces.nextElement();
-                                Enumeration<InetAddress> ias = nif.getInetAddresses();
-                                while (ias.hasMoreElements()) {
-                                    InetAddress ia = ias.nextElement();
-                                    String local = ia.getHostAddress();
-                                    if (cnValid(cns, local)) {
-                                        return;
-                                    }
-                                }
-                            }
-                        }
-                    } catch (SocketException e) {
-                        throw new CertificateException("Failed to get local adrresses.");
-                    }
-                } else if (cnValid(cns, ip)) {
-                    return;
-                }
-                throw new CertificateException(format("Illegal client, IP does not match certificate. CNs=%s, IP=%s", cns, ip));
-            }
-        }
-
-        private boolean cnValid(Set<String> certsCN, String srcCN) {
-            for (String cert : certsCN) {
-                if (StringUtils.equals(cert, srcCN)) {
-                    return true;
-                }
-            }
-            return false;
-        }
-
-        private void checkCNWhite(X509Certificate[] certChain) throws CertificateException {
-            if (nonNull(config.getSslVerifier().getPeer().getCheckCNWhiteFile())) {
-                List<String> cns = config.getSslVerifier().getPeer().loadCheckCNWhitelist();
-                Set<String> certCN = CertificateUtil.getCommonNames(CertificateUtil.findOwner(certChain));
-                for (String cn : cns) {
-                    if (cnValid(certCN, cn)) {
-                        return;
-                    }
-                }
-                throw new CertificateException(format("CN does not match white. CNs=%s", cns));
-            }
-        }
-
-        private void checkCRL(X509Certificate[] certChain) throws CertificateException {
-            if (nonNull(config.getSslVerifier().getPeer().getCheckCrlFile())) {
-                List<CRL> crls = config.getSslVerifier().getPeer().loadCrls();
-                X509Certificate owner = CertificateUtil.findOwner(certChain);
-                for (CRL c : crls) {
-                    if (c.isRevoked(owner)) {
-                        throw new CertificateException(format("Certificates %s has been revoked.", asList(certChain)));
-                    }
-                }
-            }
+            verifier.verify(chain, ip);
         }
     }
 
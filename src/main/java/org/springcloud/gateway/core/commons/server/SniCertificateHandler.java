@@ -0,0 +1,82 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors.<springcloudgateway@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.commons.server;
+
+import static java.util.Objects.nonNull;
+import static org.springcloud.gateway.core.lang.Assert2.notNullOf;
+
+import java.util.function.Consumer;
+
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.DecoderException;
+import io.netty.handler.ssl.AbstractSniHandler;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.util.concurrent.Future;
+import reactor.netty.NettyPipeline;
+
+/**
+ * {@link SniCertificateHandler}, Select the certificate of the SNI host name
+ * from the {@link SniCertificateStore}, which is added in front of the
+ * default {@link SslHandler} of the server pipeline. When a certificate
+ * matched, the default handler is replaced with the handler of the matched
+ * context, otherwise it is kept. The buffered ClientHello is passed to the
+ * remaining handler after this handler removed.
+ *
+ * @author springcloudgateway &lt;springcloudgateway@163.com, springcloudgateway@163.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ * @see {@link io.netty.handler.ssl.SniHandler}
+ */
+class SniCertificateHandler extends AbstractSniHandler<SslContext> {
+
+    private final SniCertificateStore certificateStore;
+    private final Consumer<SslHandler> handlerConfigurator;
+
+    SniCertificateHandler(SniCertificateStore certificateStore, Consumer<SslHandler> handlerConfigurator) {
+        this.certificateStore = notNullOf(certificateStore, "certificateStore");
+        this.handlerConfigurator = notNullOf(handlerConfigurator, "handlerConfigurator");
+    }
+
+    @Override
+    protected Future<SslContext> lookup(ChannelHandlerContext ctx, String hostname) throws Exception {
+        // The index lookup is constant-time, so it is completed in place.
+        return ctx.executor().newSucceededFuture(certificateStore.lookup(hostname));
+    }
+
+    @Override
+    protected void onLookupComplete(ChannelHandlerContext ctx, String hostname, Future<SslContext> future) throws Exception {
+        if (!future.isSuccess()) {
+            throw new DecoderException("Failed to lookup SNI certificate for: " + hostname, future.cause());
+        }
+        SslContext context = future.getNow();
+        ChannelHandler defaultHandler = ctx.pipeline().get(NettyPipeline.SslHandler);
+        if (nonNull(context) && defaultHandler instanceof SslHandler) {
+            SslHandler handler = context.newHandler(ctx.alloc());
+            SslHandler origin = (SslHandler) defaultHandler;
+            handler.setHandshakeTimeoutMillis(origin.getHandshakeTimeoutMillis());
+            handler.setCloseNotifyFlushTimeoutMillis(origin.getCloseNotifyFlushTimeoutMillis());
+            handler.setCloseNotifyReadTimeoutMillis(origin.getCloseNotifyReadTimeoutMillis());
+            handlerConfigurator.accept(handler);
+            ctx.pipeline().replace(NettyPipeline.SslHandler, NettyPipeline.SslHandler, handler);
+        }
+        ctx.pipeline().remove(this);
+    }
+
+    public static final String NAME = "iscg.sniCertificateHandler";
+
+}
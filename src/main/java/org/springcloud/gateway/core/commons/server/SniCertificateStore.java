@@ -0,0 +1,357 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors.<springcloudgateway@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.commons.server;
+
+import static java.util.Collections.singletonList;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.apache.commons.lang3.StringUtils.isBlank;
+import static org.apache.commons.lang3.StringUtils.removeEnd;
+import static org.springcloud.gateway.core.lang.Assert2.notNullOf;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.Nullable;
+import javax.net.ssl.SSLException;
+
+import org.springframework.boot.ApplicationArguments;
+
+import com.google.common.eventbus.Subscribe;
+
+import org.springcloud.gateway.core.commons.fault.cert.CertificateUtil;
+import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade;
+import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade.MetricsName;
+import org.springcloud.gateway.core.commons.server.config.GatewayWebServerProperties;
+import org.springcloud.gateway.core.commons.server.config.GatewayWebServerProperties.SniCertStoreProperties;
+import org.springcloud.gateway.core.io.FileEventWatcher;
+import org.springcloud.gateway.core.io.FileEventWatcher.FileChangedEvent;
+import org.springcloud.gateway.core.task.ApplicationTaskRunner;
+import org.springcloud.gateway.core.task.RunnerProperties;
+import org.springcloud.gateway.core.task.RunnerProperties.StartupMode;
+import org.springcloud.gateway.core.task.SafeScheduledTaskPoolExecutor;
+
+import io.netty.handler.ssl.SslContext;
+import io.netty.util.ReferenceCountUtil;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * {@link SniCertificateStore}, The multi-certificate store of the SNI host
+ * names, which is loaded from the certificate directory (the pairs of
+ * {@code <name>.crt|.pem} certificate chain and {@code <name>.key} PKCS#8
+ * private key). </br>
+ * </br>
+ * The {@link SslContext} is prebuilt once per certificate and indexed by the
+ * exact host names and the wildcard suffixes (e.g. {@code *.example.com} is
+ * indexed as {@code .example.com}), so the lookup is constant-time regardless
+ * of the number of domains. When the directory changes (see
+ * {@link FileEventWatcher}), the index is rebuilt in the background (reusing
+ * the contexts of the unchanged certificates) and replaced atomically, the
+ * established connections keep their own contexts and are never dropped.
+ *
+ * @author springcloudgateway &lt;springcloudgateway@163.com, springcloudgateway@163.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+@Slf4j
+public class SniCertificateStore extends ApplicationTaskRunner<RunnerProperties> {
+
+    private final SniCertStoreProperties storeConfig;
+    private final GatewayMetricsFacade metricsFacade;
+    private final AtomicBoolean reloadPending = new AtomicBoolean(false);
+
+    private volatile Index index = Index.EMPTY;
+    private volatile SslContextFactory contextFactory;
+    private FileEventWatcher fileWatcher;
+
+    public SniCertificateStore(GatewayWebServerProperties webServerConfig, GatewayMetricsFacade metricsFacade) {
+        super(new RunnerProperties(StartupMode.ASYNC, 1));
+        notNullOf(webServerConfig, "webServerConfig");
+        this.storeConfig = webServerConfig.getSniCertStore();
+        this.metricsFacade = notNullOf(metricsFacade, "metricsFacade");
+    }
+
+    /**
+     * Initialize the store with the factory of the server contexts, which is
+     * called when the secure server is created, so the certificates are
+     * available before the first connection.
+     *
+     * @param contextFactory
+     */
+    public void initialize(SslContextFactory contextFactory) {
+        this.contextFactory = notNullOf(contextFactory, "contextFactory");
+        if (isEnabled()) {
+            reload();
+        }
+    }
+
+    @Override
+    protected void onApplicationStarted(ApplicationArguments args, SafeScheduledTaskPoolExecutor worker) throws Exception {
+        if (!isEnabled()) {
+            return;
+        }
+        metricsFacade.gauge(MetricsName.SNI_CERT_DOMAINS, () -> index.size());
+
+        if (storeConfig.isWatch()) {
+            this.fileWatcher = new FileEventWatcher(singletonList(getCertDir()));
+            this.fileWatcher.addListenrs(this).run();
+        }
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (nonNull(fileWatcher)) {
+            fileWatcher.close();
+        }
+        super.destroy();
+    }
+
+    public boolean isEnabled() {
+        return storeConfig.isEnabled() && !isBlank(storeConfig.getCertDir());
+    }
+
+    /**
+     * Lookup the context of the SNI host name, the exact names take precedence
+     * over the wildcard names.
+     *
+     * @param hostname
+     * @return Returns the context, or null if no certificate matched (which
+     *         means to use the default context).
+     */
+    public @Nullable SslContext lookup(@Nullable String hostname) {
+        if (isNull(hostname)) {
+            return null;
+        }
+        Index current = index;
+        String name = removeEnd(hostname.toLowerCase(Locale.ROOT), ".");
+        SslContext context = current.exactContexts.get(name);
+        if (isNull(context)) {
+            int dot = name.indexOf('.');
+            if (dot > 0) {
+                context = current.wildcardContexts.get(name.substring(dot));
+            }
+        }
+        return context;
+    }
+
+    @Subscribe
+    public void onFileChanged(FileChangedEvent event) {
+        if (nonNull(event.getSource()) && isCertOrKeyFile(event.getSource().getFileName().toString())) {
+            scheduleReload();
+        }
+    }
+
+    /**
+     * Schedule reload with delay, the multiple change events within the delay
+     * (e.g. the certificate and key files are replaced one by one) are merged
+     * into one reload.
+     */
+    public void scheduleReload() {
+        if (reloadPending.compareAndSet(false, true)) {
+            getWorker().schedule(() -> {
+                reloadPending.set(false);
+                reload();
+            }, storeConfig.getReloadDelayMs(), MILLISECONDS);
+        }
+    }
+
+    /**
+     * Rebuild the index from the certificate directory, and replace the
+     * current one, the contexts of the unchanged certificates are reused.
+     */
+    public synchronized void reload() {
+        if (isNull(contextFactory)) {
+            log.warn("Skip reload SNI certificates, the store has not been initialized.");
+            return;
+        }
+        long begin = System.nanoTime();
+        Index oldIndex = index;
+        List<SslContext> created = new ArrayList<>(4);
+        try {
+            Index newIndex = new Index();
+            File[] files = getCertDir().listFiles(f -> f.isFile() && isCertFile(f.getName()));
+            if (nonNull(files)) {
+                Arrays.sort(files);
+                for (File certFile : files) {
+                    File keyFile = new File(certFile.getParentFile(),
+                            certFile.getName().substring(0, certFile.getName().lastIndexOf('.')) + KEY_SUFFIX);
+                    if (!keyFile.isFile()) {
+                        log.warn("Skip SNI certificate: {}, no private key file: {}", certFile, keyFile);
+                        continue;
+                    }
+                    CertEntry entry = oldIndex.findEntry(certFile, keyFile);
+                    if (isNull(entry)) {
+                        entry = new CertEntry(certFile, keyFile, readCertificate(certFile),
+                                contextFactory.create(certFile, keyFile));
+                        created.add(entry.context);
+                    }
+                    newIndex.add(entry);
+                }
+            }
+            this.index = newIndex;
+            retire(oldIndex.retiredBy(newIndex));
+
+            metricsFacade.counter(MetricsName.SNI_CERT_RELOAD_TOTAL, 1);
+            log.info("Reloaded SNI certificates: {}, new: {}, domains: {}, cost: {}ms", newIndex.entries.size(),
+                    created.size(), newIndex.size(), (System.nanoTime() - begin) / 1000_000);
+        } catch (Exception e) {
+            created.forEach(context -> ReferenceCountUtil.safeRelease(context));
+            metricsFacade.counter(MetricsName.SNI_CERT_RELOAD_FAIL_TOTAL, 1);
+            log.error("Failed to reload SNI certificates, keep using the previous.", e);
+        }
+    }
+
+    /**
+     * Release the contexts of the removed or changed certificates with delay,
+     * since the handshakes which looked up them just before the replacing may
+     * still be creating the engines.
+     */
+    private void retire(List<SslContext> retired) {
+        if (retired.isEmpty()) {
+            return;
+        }
+        Runnable release = () -> retired.forEach(context -> ReferenceCountUtil.safeRelease(context));
+        if (isStarted()) {
+            getWorker().schedule(release, storeConfig.getRetiredReleaseDelayMs(), MILLISECONDS);
+        } else {
+            release.run();
+        }
+    }
+
+    private File getCertDir() {
+        return new File(storeConfig.getCertDir()).getAbsoluteFile();
+    }
+
+    private static X509Certificate readCertificate(File certFile) throws Exception {
+        try (InputStream in = new FileInputStream(certFile)) {
+            // The first certificate of the chain is the owner.
+            return (X509Certificate) CertificateFactory.getInstance("X.509").generateCertificate(in);
+        }
+    }
+
+    private static boolean isCertFile(String filename) {
+        return filename.endsWith(".crt") || filename.endsWith(".pem");
+    }
+
+    private static boolean isCertOrKeyFile(String filename) {
+        return isCertFile(filename) || filename.endsWith(KEY_SUFFIX);
+    }
+
+    /**
+     * The factory of the server context of the certificate, which applies the
+     * same protocols, ciphers, client auth and ALPN as the default context.
+     */
+    @FunctionalInterface
+    public static interface SslContextFactory {
+        SslContext create(File certChainFile, File keyFile) throws SSLException;
+    }
+
+    static class CertEntry {
+        private final File certFile;
+        private final File keyFile;
+        private final long certLastModified;
+        private final long keyLastModified;
+        private final X509Certificate certificate;
+        private final SslContext context;
+
+        CertEntry(File certFile, File keyFile, X509Certificate certificate, SslContext context) {
+            this.certFile = certFile;
+            this.keyFile = keyFile;
+            this.certLastModified = certFile.lastModified();
+            this.keyLastModified = keyFile.lastModified();
+            this.certificate = certificate;
+            this.context = context;
+        }
+
+        boolean isUnchanged(File certFile, File keyFile) {
+            return this.certFile.equals(certFile) && this.keyFile.equals(keyFile)
+                    && certLastModified == certFile.lastModified() && keyLastModified == keyFile.lastModified();
+        }
+    }
+
+    static class Index {
+        static final Index EMPTY = new Index();
+
+        private final Map<File, CertEntry> entries = new HashMap<>(16);
+        private final Map<String, CertEntry> exactEntries = new HashMap<>(16);
+        private final Map<String, CertEntry> wildcardEntries = new HashMap<>(16);
+        private final Map<String, SslContext> exactContexts = new HashMap<>(16);
+        private final Map<String, SslContext> wildcardContexts = new HashMap<>(16);
+
+        void add(CertEntry entry) {
+            entries.put(entry.certFile, entry);
+            for (String name : CertificateUtil.getCommonNames(entry.certificate)) {
+                name = removeEnd(name.toLowerCase(Locale.ROOT), ".");
+                if (name.startsWith("*.")) {
+                    put(wildcardEntries, wildcardContexts, name.substring(1), entry);
+                } else {
+                    put(exactEntries, exactContexts, name, entry);
+                }
+            }
+        }
+
+        int size() {
+            return exactContexts.size() + wildcardContexts.size();
+        }
+
+        @Nullable
+        CertEntry findEntry(File certFile, File keyFile) {
+            CertEntry entry = entries.get(certFile);
+            return (nonNull(entry) && entry.isUnchanged(certFile, keyFile)) ? entry : null;
+        }
+
+        List<SslContext> retiredBy(Index newIndex) {
+            List<SslContext> retired = new ArrayList<>(4);
+            for (CertEntry entry : entries.values()) {
+                if (newIndex.entries.get(entry.certFile) != entry) {
+                    retired.add(entry.context);
+                }
+            }
+            return retired;
+        }
+
+        /**
+         * When multiple certificates cover the same name (e.g. the renewed
+         * certificate is added before removing the old one), the one expires
+         * latest wins.
+         */
+        private static void put(
+                Map<String, CertEntry> entries,
+                Map<String, SslContext> contexts,
+                String name,
+                CertEntry entry) {
+            CertEntry existing = entries.get(name);
+            if (isNull(existing) || entry.certificate.getNotAfter().after(existing.certificate.getNotAfter())) {
+                entries.put(name, entry);
+                contexts.put(name, entry.context);
+            }
+        }
+    }
+
+    private static final String KEY_SUFFIX = ".key";
+
+}
@@ -0,0 +1,370 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors.<springcloudgateway@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.commons.server;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.springcloud.gateway.core.lang.Assert2.notNullOf;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLSessionContext;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.core.io.Resource;
+import org.springframework.util.StreamUtils;
+
+import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade;
+import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade.MetricsName;
+import org.springcloud.gateway.core.commons.server.config.GatewayWebServerProperties;
+import org.springcloud.gateway.core.commons.server.config.GatewayWebServerProperties.SessionTicketProperties;
+import org.springcloud.gateway.core.task.ApplicationTaskRunner;
+import org.springcloud.gateway.core.task.RunnerProperties;
+import org.springcloud.gateway.core.task.RunnerProperties.StartupMode;
+import org.springcloud.gateway.core.task.SafeScheduledTaskPoolExecutor;
+
+import io.netty.handler.ssl.OpenSslSessionContext;
+import io.netty.handler.ssl.OpenSslSessionStats;
+import io.netty.handler.ssl.OpenSslSessionTicketKey;
+import io.netty.handler.ssl.ReferenceCountedOpenSslEngine;
+import io.netty.internal.tcnative.SSL;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * {@link SslSessionResumptionManager}, The TLS session resumption of the
+ * gateway fleet, which installs the session ticket keys into the OpenSSL
+ * server session contexts, and exports the resumption-hit and full-handshake
+ * counters. </br>
+ * </br>
+ * The ticket keys are derived (HMAC-SHA256) from the secret of the shared key
+ * file and the rotation epoch (current time / rotate interval), so every node
+ * that holds the same key file encrypts with the same key in the same epoch
+ * without any coordination. The keys of the previous and next epochs are also
+ * installed to decrypt the tickets issued before the rotation or by the nodes
+ * with the slightly fast clocks. The key file is re-read when modified, e.g.
+ * generated by: {@code openssl rand 48 > ticket.key} </br>
+ * </br>
+ * <b>Trade-off:</b> the epoch rotation does NOT provide forward secrecy, since
+ * the key of any past (or future) epoch can be derived again from the static
+ * secret, whoever obtains the key file can decrypt all the recorded sessions
+ * resumed by tickets (and the tickets carry the master secrets) issued with
+ * that secret. The exposure is bounded only by replacing the secret of the key
+ * file, so the key file should be regenerated by the deployment periodically
+ * (e.g. daily, the replaced secret invalidates the outstanding tickets, which
+ * just fall back to the full handshakes), and the file should be readable only
+ * by the gateway.
+ *
+ * @author springcloudgateway &lt;springcloudgateway@163.com, springcloudgateway@163.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ * @see {@link io.netty.handler.ssl.OpenSslSessionContext#setTicketKeys(OpenSslSessionTicketKey...)}
+ */
+@Slf4j
+public class SslSessionResumptionManager extends ApplicationTaskRunner<RunnerProperties> {
+
+    private final GatewayWebServerProperties webServerConfig;
+    private final GatewayMetricsFacade metricsFacade;
+    /**
+     * The registered session contexts (usually the default context and a few
+     * SNI contexts), which is copy-on-write, so the lookup of each connection
+     * is a lock-free identity scan.
+     */
+    private volatile RegisteredContext[] sessionContexts = new RegisteredContext[0];
+    private volatile TicketKeys currentKeys;
+
+    public SslSessionResumptionManager(GatewayWebServerProperties webServerConfig, GatewayMetricsFacade metricsFacade) {
+        super(new RunnerProperties(StartupMode.ASYNC, 1));
+        this.webServerConfig = notNullOf(webServerConfig, "webServerConfig");
+        this.metricsFacade = notNullOf(metricsFacade, "metricsFacade");
+    }
+
+    @Override
+    protected void onApplicationStarted(ApplicationArguments args, SafeScheduledTaskPoolExecutor worker) throws Exception {
+        SessionTicketProperties ticket = webServerConfig.getSslSession().getTicket();
+        if (!ticket.isEnabled()) {
+            return;
+        }
+        worker.scheduleWithFixedDelay(() -> {
+            try {
+                rotateTicketKeys(false);
+            } catch (Exception e) {
+                log.warn("Failed to rotate the TLS session ticket keys.", e);
+            }
+        }, ticket.getCheckIntervalMs(), ticket.getCheckIntervalMs(), MILLISECONDS);
+    }
+
+    /**
+     * Register the server session context of the connection (the context is
+     * created by the first connection of SslContext), the current ticket keys
+     * are installed only once when the context is registered, the other
+     * connections of the registered context only pay for the lock-free
+     * lookup.
+     *
+     * @param engine
+     */
+    public void register(SSLEngine engine) {
+        SSLSessionContext sessionContext = engine.getSession().getSessionContext();
+        if (!(sessionContext instanceof OpenSslSessionContext) || nonNull(lookup(sessionContext))) {
+            return;
+        }
+        OpenSslSessionContext context = (OpenSslSessionContext) sessionContext;
+        // Synchronized with the rotating, so the stale keys are never installed.
+        synchronized (this) {
+            if (nonNull(lookup(context))) {
+                return;
+            }
+            List<RegisteredContext> registered = new ArrayList<>(sessionContexts.length + 1);
+            for (RegisteredContext r : sessionContexts) {
+                // Purge the released contexts (e.g. the replaced SNI contexts).
+                if (nonNull(r.get())) {
+                    registered.add(r);
+                }
+            }
+            registered.add(new RegisteredContext(context));
+            if (webServerConfig.getSslSession().getTicket().isEnabled()) {
+                // The SSL_OP_NO_TICKET of the context is also cleared.
+                TicketKeys keys = isNull(currentKeys) ? rotateTicketKeys(true) : currentKeys;
+                context.setTicketKeys(keys.getKeys());
+                // The options of context are copied to the connection when
+                // created, so the connection which registers the context still
+                // has the default SSL_OP_NO_TICKET of netty. (The other
+                // connections created concurrently before the keys installed
+                // just don't issue the tickets.)
+                if (engine instanceof ReferenceCountedOpenSslEngine) {
+                    synchronized (engine) {
+                        long ssl = ((ReferenceCountedOpenSslEngine) engine).sslPointer();
+                        if (ssl != 0L) {
+                            SSL.clearOptions(ssl, SSL.SSL_OP_NO_TICKET);
+                        }
+                    }
+                }
+            }
+            this.sessionContexts = registered.toArray(new RegisteredContext[0]);
+        }
+    }
+
+    /**
+     * Update the resumption-hit and full-handshake counters by the OpenSSL
+     * session statistics, which is called after each handshake is completed.
+     * </br>
+     * Note: BoringSSL does not maintain the session cache statistics (e.g.
+     * {@link OpenSslSessionStats#hits()} and
+     * {@link OpenSslSessionStats#acceptGood()} are always zero), so the
+     * handshakes are counted by the callbacks, and the resumptions by the
+     * ticket key statistics of netty-tcnative. The native SSL of the
+     * connection may be already freed here (e.g. the client closes right
+     * after the abbreviated handshake), so the connection itself is not
+     * checked.
+     *
+     * @param sessionContext
+     */
+    public void onHandshakeCompleted(SSLSessionContext sessionContext) {
+        if (!(sessionContext instanceof OpenSslSessionContext)) {
+            return;
+        }
+        SessionStats stats = lookup(sessionContext);
+        if (nonNull(stats)) {
+            OpenSslSessionStats sslStats = ((OpenSslSessionContext) sessionContext).stats();
+            // OpenSSL counts the ticket resumptions into hits too.
+            long hits = Math.max(sslStats.hits(), sslStats.ticketKeyResume());
+            long resumed = stats.syncHits(hits);
+            long full = stats.syncFullHandshakes(stats.incrementHandshakes() - hits);
+            if (resumed > 0) {
+                metricsFacade.counter(MetricsName.TLS_SESSION_RESUMED_TOTAL, resumed);
+            }
+            if (full > 0) {
+                metricsFacade.counter(MetricsName.TLS_FULL_HANDSHAKE_TOTAL, full);
+            }
+        }
+    }
+
+    /**
+     * Derive the ticket keys of the current epoch, and install them into all
+     * the registered session contexts when the epoch or the secret of key file
+     * changed.
+     *
+     * @param force
+     * @return
+     */
+    synchronized TicketKeys rotateTicketKeys(boolean force) {
+        SessionTicketProperties ticket = webServerConfig.getSslSession().getTicket();
+        TicketKeys keys = currentKeys;
+        long epoch = System.currentTimeMillis() / Math.max(ticket.getRotateIntervalMs(), 1L);
+        long lastModified = getLastModified(ticket.getKeyFile());
+        if (!force && nonNull(keys) && keys.getEpoch() == epoch && keys.getLastModified() == lastModified) {
+            return keys;
+        }
+        byte[] secret = loadSecret(ticket.getKeyFile());
+        if (!force && nonNull(keys) && keys.getEpoch() == epoch && Arrays.equals(keys.getSecretDigest(), digest(secret))) {
+            // The key file is touched but the secret does not change.
+            this.currentKeys = keys = new TicketKeys(epoch, lastModified, keys.getSecretDigest(), keys.getKeys());
+            return keys;
+        }
+        // The first key is used for encryption, and the others for decryption only.
+        OpenSslSessionTicketKey[] ticketKeys = { deriveTicketKey(secret, epoch), deriveTicketKey(secret, epoch - 1),
+                deriveTicketKey(secret, epoch + 1) };
+        this.currentKeys = keys = new TicketKeys(epoch, lastModified, digest(secret), ticketKeys);
+        int contexts = 0;
+        for (RegisteredContext registered : sessionContexts) {
+            OpenSslSessionContext context = registered.get();
+            if (nonNull(context)) {
+                context.setTicketKeys(ticketKeys);
+                ++contexts;
+            }
+        }
+        log.info("Rotated the TLS session ticket keys of epoch: {}, session contexts: {}", epoch, contexts);
+        return keys;
+    }
+
+    private SessionStats lookup(SSLSessionContext sessionContext) {
+        for (RegisteredContext registered : sessionContexts) {
+            if (registered.get() == sessionContext) {
+                return registered.stats;
+            }
+        }
+        return null;
+    }
+
+    private byte[] loadSecret(Resource keyFile) {
+        notNullOf(keyFile, "sslSession.ticket.keyFile");
+        try (InputStream in = keyFile.getInputStream()) {
+            byte[] secret = StreamUtils.copyToByteArray(in);
+            if (secret.length < MIN_SECRET_BYTES) {
+                throw new IllegalStateException(format("The TLS session ticket key file: %s must be at least %s bytes.",
+                        keyFile, MIN_SECRET_BYTES));
+            }
+            return secret;
+        } catch (IOException e) {
+            throw new IllegalStateException(format("Cannot read the TLS session ticket key file: %s", keyFile), e);
+        }
+    }
+
+    private long getLastModified(Resource keyFile) {
+        try {
+            return isNull(keyFile) ? 0L : keyFile.lastModified();
+        } catch (IOException e) {
+            // e.g. classpath resource in the jar.
+            return 0L;
+        }
+    }
+
+    private static OpenSslSessionTicketKey deriveTicketKey(byte[] secret, long epoch) {
+        byte[] name = hmac(secret, TICKET_KEY_NAME_LABEL + epoch);
+        byte[] key = hmac(secret, TICKET_KEY_LABEL + epoch);
+        return new OpenSslSessionTicketKey(Arrays.copyOf(name, OpenSslSessionTicketKey.NAME_SIZE),
+                Arrays.copyOfRange(key, 0, OpenSslSessionTicketKey.HMAC_KEY_SIZE),
+                Arrays.copyOfRange(key, OpenSslSessionTicketKey.HMAC_KEY_SIZE,
+                        OpenSslSessionTicketKey.HMAC_KEY_SIZE + OpenSslSessionTicketKey.AES_KEY_SIZE));
+    }
+
+    private static byte[] digest(byte[] secret) {
+        return hmac(secret, SECRET_DIGEST_LABEL);
+    }
+
+    private static byte[] hmac(byte[] secret, String label) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(new SecretKeySpec(secret, HMAC_ALGORITHM));
+            return mac.doFinal(label.getBytes(UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static class TicketKeys {
+        private final long epoch;
+        private final long lastModified;
+        private final byte[] secretDigest;
+        private final OpenSslSessionTicketKey[] keys;
+
+        TicketKeys(long epoch, long lastModified, byte[] secretDigest, OpenSslSessionTicketKey[] keys) {
+            this.epoch = epoch;
+            this.lastModified = lastModified;
+            this.secretDigest = secretDigest;
+            this.keys = keys;
+        }
+
+        long getEpoch() {
+            return epoch;
+        }
+
+        long getLastModified() {
+            return lastModified;
+        }
+
+        byte[] getSecretDigest() {
+            return secretDigest;
+        }
+
+        OpenSslSessionTicketKey[] getKeys() {
+            return keys;
+        }
+    }
+
+    /**
+     * The weakly referenced session context, the stats is released with it.
+     */
+    static class RegisteredContext extends WeakReference<OpenSslSessionContext> {
+        private final SessionStats stats = new SessionStats();
+
+        RegisteredContext(OpenSslSessionContext context) {
+            super(context);
+        }
+    }
+
+    /**
+     * The completed handshakes and the last synchronized values of the
+     * cumulative OpenSSL session statistics, the handshakes may complete
+     * concurrently, so only the increased part is counted.
+     */
+    static class SessionStats {
+        private final AtomicLong handshakes = new AtomicLong();
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicLong fullHandshakes = new AtomicLong();
+
+        long incrementHandshakes() {
+            return handshakes.incrementAndGet();
+        }
+
+        long syncHits(long current) {
+            return Math.max(current - hits.getAndAccumulate(current, Math::max), 0L);
+        }
+
+        long syncFullHandshakes(long current) {
+            return Math.max(current - fullHandshakes.getAndAccumulate(current, Math::max), 0L);
+        }
+    }
+
+    public static final int MIN_SECRET_BYTES = 32;
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final String TICKET_KEY_NAME_LABEL = "iscg-tls-ticket-key-name:";
+    private static final String TICKET_KEY_LABEL = "iscg-tls-ticket-key:";
+    private static final String SECRET_DIGEST_LABEL = "iscg-tls-ticket-secret";
+
+}
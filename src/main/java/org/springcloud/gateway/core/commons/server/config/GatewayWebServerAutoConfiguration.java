@@ -23,7 +23,11 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.http.client.reactive.ReactorResourceFactory;
 import org.springframework.http.codec.ServerCodecConfigurer;
 
+import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade;
+import org.springcloud.gateway.core.commons.server.PeerCertificateVerifier;
 import org.springcloud.gateway.core.commons.server.SecureNettyReactiveWebServerFactory;
+import org.springcloud.gateway.core.commons.server.SniCertificateStore;
+import org.springcloud.gateway.core.commons.server.SslSessionResumptionManager;
 
 /**
  * {@link GatewayWebServerAutoConfiguration}
@@ -41,6 +45,25 @@ public class GatewayWebServerAutoConfiguration {
         return new GatewayWebServerProperties();
     }
 
+    @Bean
+    public SslSessionResumptionManager sslSessionResumptionManager(
+            GatewayWebServerProperties gatewayWebServerProperties,
+            GatewayMetricsFacade metricsFacade) {
+        return new SslSessionResumptionManager(gatewayWebServerProperties, metricsFacade);
+    }
+
+    @Bean
+    public SniCertificateStore sniCertificateStore(
+            GatewayWebServerProperties gatewayWebServerProperties,
+            GatewayMetricsFacade metricsFacade) {
+        return new SniCertificateStore(gatewayWebServerProperties, metricsFacade);
+    }
+
+    @Bean
+    public PeerCertificateVerifier peerCertificateVerifier(GatewayWebServerProperties gatewayWebServerProperties) {
+        return new PeerCertificateVerifier(gatewayWebServerProperties);
+    }
+
     /**
      * @see {@link org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext#createWebServer()}
      */
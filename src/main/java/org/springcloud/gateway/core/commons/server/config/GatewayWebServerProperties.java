@@ -15,23 +15,11 @@
  */
 package org.springcloud.gateway.core.commons.server.config;
 
-import static com.google.common.base.Charsets.UTF_8;
-import static java.util.Arrays.asList;
-import static java.util.Objects.isNull;
-
-import java.io.FileNotFoundException;
-import java.io.IOException;
-import java.security.cert.CRL;
-import java.security.cert.CertificateException;
 import java.util.ArrayList;
 import java.util.List;
 
-import org.springcloud.gateway.core.commons.fault.cert.KeyStoreUtil;
 import org.springframework.core.io.Resource;
 
-import com.google.common.io.Resources;
-
-import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
@@ -50,6 +38,12 @@ public class GatewayWebServerProperties {
 
     private SslServerVerifier sslVerifier = new SslServerVerifier();
 
+    private SslSessionProperties sslSession = new SslSessionProperties();
+
+    private SniCertStoreProperties sniCertStore = new SniCertStoreProperties();
+
+    private Http2Properties http2 = new Http2Properties();
+
     @Getter
     @Setter
     @ToString
@@ -58,6 +52,127 @@ public class GatewayWebServerProperties {
         private PeerVerifier peer = new PeerVerifier();
     }
 
+    @Getter
+    @Setter
+    @ToString
+    public static class SslSessionProperties {
+
+        /**
+         * The max number of the sessions in the server-side session cache,
+         * 0 means to use the default of OpenSSL.
+         */
+        private long sessionCacheSize = 20480L;
+
+        /**
+         * The timeout seconds of the cached sessions (and the session
+         * tickets), 0 means to use the default of OpenSSL.
+         */
+        private long sessionTimeoutSeconds = 3600L;
+
+        private SessionTicketProperties ticket = new SessionTicketProperties();
+    }
+
+    @Getter
+    @Setter
+    @ToString
+    public static class SessionTicketProperties {
+
+        private boolean enabled = false;
+
+        /**
+         * The shared secret file (at least 32 bytes) of the all gateway nodes,
+         * from which the ticket keys are derived. The derived keys have no
+         * forward secrecy, the file should be regenerated periodically, see:
+         * {@link org.springcloud.gateway.core.commons.server.SslSessionResumptionManager}
+         */
+        private Resource keyFile;
+
+        /**
+         * The interval of rotating the ticket keys.
+         */
+        private long rotateIntervalMs = 3600_000L;
+
+        /**
+         * The interval of checking the rotation and the modification of the
+         * key file.
+         */
+        private long checkIntervalMs = 10_000L;
+    }
+
+    @Getter
+    @Setter
+    @ToString
+    public static class SniCertStoreProperties {
+
+        private boolean enabled = false;
+
+        /**
+         * The directory of the SNI certificates, which contains the pairs of
+         * '{name}.crt' (or '{name}.pem') certificate chain and '{name}.key'
+         * PKCS#8 private key.
+         */
+        private String certDir;
+
+        /**
+         * Whether to watch the changes of the directory and reload.
+         */
+        private boolean watch = true;
+
+        /**
+         * The delay of reload after the changes, the multiple changes within
+         * the delay are merged into one reload.
+         */
+        private long reloadDelayMs = 2_000L;
+
+        /**
+         * The delay of releasing the contexts of the removed or changed
+         * certificates after reload.
+         */
+        private long retiredReleaseDelayMs = 60_000L;
+    }
+
+    @Getter
+    @Setter
+    @ToString
+    public static class Http2Properties {
+
+        /**
+         * Whether to enable the cleartext HTTP/2 (h2c) of the non-SSL
+         * listener, both the HTTP/1.1 Upgrade and the prior-knowledge are
+         * supported, e.g. behind the TLS-terminating sidecar.
+         */
+        private boolean h2cEnabled = false;
+
+        /**
+         * The SETTINGS_MAX_CONCURRENT_STREAMS of the h2 and h2c connections,
+         * null means not to send it (i.e. the default of the reactor-netty).
+         */
+        private Long maxConcurrentStreams;
+
+        /**
+         * The SETTINGS_INITIAL_WINDOW_SIZE of the h2 and h2c connections, null
+         * means not to send it.
+         */
+        private Integer initialWindowSize;
+
+        /**
+         * The SETTINGS_HEADER_TABLE_SIZE of the h2 and h2c connections, null
+         * means not to send it.
+         */
+        private Long headerTableSize;
+
+        /**
+         * The SETTINGS_MAX_FRAME_SIZE of the h2 and h2c connections, null means
+         * not to send it.
+         */
+        private Integer maxFrameSize;
+
+        /**
+         * Whether to record the streams metrics of the HTTP/2 connections.
+         */
+        private boolean metricsEnabled = true;
+    }
+
     @Getter
     @Setter
     @ToString
@@ -82,44 +197,20 @@ public class GatewayWebServerProperties {
         private Resource checkCrlFile;
 
         private boolean allowRenegociate = true;
-        //
-        // Temporary fields.
-        //
-
-        @Getter(AccessLevel.NONE)
-        @Setter(AccessLevel.NONE)
-        private transient List<String> cachedCheckCNWhitelist;
-
-        @Getter(AccessLevel.NONE)
-        @Setter(AccessLevel.NONE)
-        private transient List<CRL> cachedCheckCrls;
-
-        public synchronized List<String> loadCheckCNWhitelist() throws CertificateException {
-            try {
-                if (isNull(cachedCheckCNWhitelist)) {
-                    String white = Resources.toString(getCheckCNWhiteFile().getURL(), UTF_8);
-                    this.cachedCheckCNWhitelist = asList(white.split("\\s+"));
-                }
-                return cachedCheckCNWhitelist;
-            } catch (FileNotFoundException e) {
-                throw new CertificateException("CN does not match white. no white file.");
-            } catch (IOException e) {
-                throw new CertificateException("CN does not match white. can not read file.");
-            }
-        }
-
-        public synchronized List<CRL> loadCrls() throws CertificateException {
-            try {
-                if (isNull(cachedCheckCrls)) {
-                    this.cachedCheckCrls = KeyStoreUtil.createCRL(getCheckCrlFile().getInputStream());
-                }
-                return cachedCheckCrls;
-            } catch (FileNotFoundException e) {
-                throw new CertificateException("CN does not match white. no white file.");
-            } catch (IOException e) {
-                throw new CertificateException("CN does not match white. can not read file.");
-            }
-        }
+
+        /**
+         * The interval of refreshing the local addresses, and reloading the
+         * CN whitelist file and CRL file when modified.
+         */
+        private long reloadIntervalMs = 60_000L;
+
+        /**
+         * The max number of the cached verification results, which are keyed
+         * by the certificate fingerprint and peer address.
+         */
+        private long verifiedCacheSize = 10_000L;
+
+        private long verifiedCacheExpireMs = 600_000L;
 
     }
 
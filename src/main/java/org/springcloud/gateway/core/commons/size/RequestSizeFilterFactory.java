@@ -17,23 +17,42 @@
 package org.springcloud.gateway.core.commons.size;
 
 import static org.springcloud.gateway.core.lang.Assert2.notNullOf;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static org.apache.commons.lang3.StringUtils.isBlank;
 import static org.springframework.cloud.gateway.support.GatewayToStringStyler.filterToStringCreator;
 
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
 import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.PooledDataBuffer;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
 import org.springframework.util.ObjectUtils;
+import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.server.ServerWebExchange;
 import org.springcloud.gateway.core.commons.fault.IamGatewayFault.SafeFilterOrdered;
+import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade;
+import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade.MeterTags;
+import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade.MetricsName;
+import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade.MetricsTag;
 import org.springcloud.gateway.core.commons.size.config.IamRequestSizeProperties;
 import org.springcloud.gateway.core.commons.size.config.IamRequestSizeProperties.RequestSizeProperties;
 import org.springcloud.gateway.core.bean.ConfigBeanUtils;
 
-import lombok.AllArgsConstructor;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Operators;
 
 /**
  * {@link RequestSizeFilterFactory}
@@ -50,10 +69,18 @@ public class RequestSizeFilterFactory extends AbstractGatewayFilterFactory<Reque
             + " Request size is %s where permissible limit is %s";
 
     private final IamRequestSizeProperties requestSizeConfig;
+    private final GatewayMetricsFacade metricsFacade;
+    private final MeterTags contentLengthRejectedTags;
+    private final MeterTags streamingRejectedTags;
+    private final MeterTags throughputRejectedTags;
 
-    public RequestSizeFilterFactory(IamRequestSizeProperties requestSizeConfig) {
+    public RequestSizeFilterFactory(IamRequestSizeProperties requestSizeConfig, GatewayMetricsFacade metricsFacade) {
         super(RequestSizeFilterFactory.Config.class);
         this.requestSizeConfig = notNullOf(requestSizeConfig, "requestSizeConfig");
+        this.metricsFacade = notNullOf(metricsFacade, "metricsFacade");
+        this.contentLengthRejectedTags = metricsFacade.prepareTags(MetricsTag.REQUEST_SIZE_REJECT_REASON, REJECT_CONTENT_LENGTH);
+        this.streamingRejectedTags = metricsFacade.prepareTags(MetricsTag.REQUEST_SIZE_REJECT_REASON, REJECT_STREAMING);
+        this.throughputRejectedTags = metricsFacade.prepareTags(MetricsTag.REQUEST_SIZE_REJECT_REASON, REJECT_THROUGHPUT);
     }
 
     @Override
@@ -93,9 +120,21 @@ public class RequestSizeFilterFactory extends AbstractGatewayFilterFactory<Reque
     public static class Config extends RequestSizeProperties {
     }
 
-    @AllArgsConstructor
     class IamRequestSizeGatewayFilter implements GatewayFilter, Ordered {
         private final Config config;
+        private final long maxBodyBytes;
+        private final Map<String, Long> keyMaxBodyBytes;
+        private final long minThroughputBytes;
+
+        IamRequestSizeGatewayFilter(Config config) {
+            this.config = notNullOf(config, "config");
+            this.maxBodyBytes = config.getMaxBodySize().toBytes();
+            // The limit key is supplied by the client, so that the key limits
+            // can only lower the max body size.
+            this.keyMaxBodyBytes = new HashMap<>(config.getKeyMaxBodySizes().size());
+            config.getKeyMaxBodySizes().forEach((key, size) -> keyMaxBodyBytes.put(key, Math.min(size.toBytes(), maxBodyBytes)));
+            this.minThroughputBytes = isNull(config.getMinThroughput()) ? 0L : config.getMinThroughput().toBytes();
+        }
 
         @Override
         public int getOrder() {
@@ -105,28 +144,176 @@ public class RequestSizeFilterFactory extends AbstractGatewayFilterFactory<Reque
         @Override
         public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
             ServerHttpRequest request = exchange.getRequest();
+            long maxSize = getMaxBodyBytes(request);
             String contentLength = request.getHeaders().getFirst("content-length");
             if (!ObjectUtils.isEmpty(contentLength)) {
                 Long currentRequestSize = Long.valueOf(contentLength);
-                if (currentRequestSize > config.getMaxBodySize().toBytes()) {
+                if (currentRequestSize > maxSize) {
+                    addRejectedMetrics(exchange, contentLengthRejectedTags, currentRequestSize);
                     exchange.getResponse().setStatusCode(HttpStatus.PAYLOAD_TOO_LARGE);
                     if (!exchange.getResponse().isCommitted()) {
                         exchange.getResponse().getHeaders().add("errorMessage",
-                                getErrorMessage(currentRequestSize, config.getMaxBodySize().toBytes()));
+                                getErrorMessage(currentRequestSize, maxSize));
                     }
                     return exchange.getResponse().setComplete();
                 }
             }
-            return chain.filter(exchange);
+            // The declared length is framed by the server codec, so only the
+            // chunked (or header-less) body need to be counted.
+            boolean counting = config.isStreamingEnabled() && ObjectUtils.isEmpty(contentLength);
+            if (!counting && minThroughputBytes <= 0) {
+                return chain.filter(exchange);
+            }
+            ServerHttpRequestDecorator decorator = new ServerHttpRequestDecorator(request) {
+                @Override
+                public Flux<DataBuffer> getBody() {
+                    return enforceBody(exchange, super.getBody(), counting ? maxSize : Long.MAX_VALUE);
+                }
+            };
+            return chain.filter(exchange.mutate().request(decorator).build());
+        }
+
+        /**
+         * Count the body bytes as they arrive, and abort with 413 as soon as
+         * the limit is crossed, or with 408 when the upload is slower than the
+         * minimum throughput.
+         */
+        private Flux<DataBuffer> enforceBody(ServerWebExchange exchange, Flux<DataBuffer> body, long maxSize) {
+            return Flux.defer(() -> {
+                UploadMeter meter = new UploadMeter(config.getMinThroughputGracePeriod().toNanos(), minThroughputBytes);
+                Flux<DataBuffer> counted = body.doOnRequest(meter::onRequest).<DataBuffer> handle((buffer, sink) -> {
+                    long received = meter.onReceived(buffer.readableByteCount());
+                    if (received > maxSize) {
+                        DataBufferUtils.release(buffer);
+                        addRejectedMetrics(exchange, streamingRejectedTags, received);
+                        sink.error(new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                                getErrorMessage(received, maxSize)));
+                    } else {
+                        sink.next(buffer);
+                    }
+                });
+                if (minThroughputBytes > 0) {
+                    // The next chunk must be arrived before the average
+                    // throughput falls below the minimum.
+                    Mono<Long> deadline = throughputDeadline(meter);
+                    counted = counted.timeout(deadline, buffer -> deadline).onErrorMap(TimeoutException.class, ex -> {
+                        addRejectedMetrics(exchange, throughputRejectedTags, meter.getReceived());
+                        return new ResponseStatusException(HttpStatus.REQUEST_TIMEOUT,
+                                "Request body upload is slower than the minimum throughput " + config.getMinThroughput()
+                                        + "/s, received " + getReadableByteCount(meter.getReceived()),
+                                ex);
+                    });
+                }
+                return counted.doOnDiscard(PooledDataBuffer.class, DataBufferUtils::release);
+            });
+        }
+
+        /**
+         * The deadline signal of the throughput guard, which is re-armed (until
+         * the throughput is actually below the minimum) while the clock is
+         * stopped by the backpressure.
+         */
+        private Mono<Long> throughputDeadline(UploadMeter meter) {
+            return Mono.defer(() -> Mono.delay(Duration.ofNanos(meter.getRemainingNanos())))
+                    .repeat()
+                    .filter(tick -> meter.isBelowMinimum())
+                    .next();
+        }
+
+        private long getMaxBodyBytes(ServerHttpRequest request) {
+            if (isBlank(config.getLimitKeyHeader()) || keyMaxBodyBytes.isEmpty()) {
+                return maxBodyBytes;
+            }
+            String limitKey = request.getHeaders().getFirst(config.getLimitKeyHeader());
+            Long keyMaxSize = isBlank(limitKey) ? null : keyMaxBodyBytes.get(limitKey);
+            return nonNull(keyMaxSize) ? keyMaxSize : maxBodyBytes;
+        }
+
+        private void addRejectedMetrics(ServerWebExchange exchange, MeterTags rejectedTags, long rejectedBytes) {
+            metricsFacade.counter(exchange, MetricsName.REQUEST_SIZE_REJECTED_TOTAL, 1, rejectedTags);
+            metricsFacade.counter(exchange, MetricsName.REQUEST_SIZE_REJECTED_BYTES_TOTAL, rejectedBytes, rejectedTags);
         }
 
         @Override
         public String toString() {
-            return filterToStringCreator(RequestSizeFilterFactory.this).append("max", config.getMaxBodySize()).toString();
+            return filterToStringCreator(RequestSizeFilterFactory.this).append("max", config.getMaxBodySize())
+                    .append("streaming", config.isStreamingEnabled())
+                    .append("minThroughput", config.getMinThroughput())
+                    .toString();
+        }
+
+    }
+
+    /**
+     * The meter of the body upload, the clock of the throughput is only
+     * running while there is outstanding demand (i.e. the gateway is reading
+     * the body), so that the slow upstream (backpressure) is not counted as
+     * the slow client. The received bytes are updated on the IO thread and
+     * read on the timer thread.
+     */
+    static class UploadMeter {
+        private final long beginNanoTime = System.nanoTime();
+        private final long gracePeriodNanos;
+        private final long minThroughputBytes;
+        private final AtomicLong received = new AtomicLong(0L);
+        private long demand;
+        private long pausedNanos;
+        private long pausedSinceNanoTime;
+
+        UploadMeter(long gracePeriodNanos, long minThroughputBytes) {
+            this.gracePeriodNanos = gracePeriodNanos;
+            this.minThroughputBytes = minThroughputBytes;
+            this.pausedSinceNanoTime = beginNanoTime;
+        }
+
+        long getReceived() {
+            return received.get();
+        }
+
+        synchronized void onRequest(long n) {
+            if (demand == 0 && pausedSinceNanoTime >= 0) {
+                pausedNanos += System.nanoTime() - pausedSinceNanoTime;
+                pausedSinceNanoTime = -1;
+            }
+            demand = Operators.addCap(demand, n);
+        }
+
+        long onReceived(int bytes) {
+            synchronized (this) {
+                if (demand != Long.MAX_VALUE && demand > 0 && --demand == 0) {
+                    pausedSinceNanoTime = System.nanoTime();
+                }
+            }
+            return received.addAndGet(bytes);
+        }
+
+        synchronized boolean isBelowMinimum() {
+            return getActiveNanos() >= getDeadlineNanos();
+        }
+
+        synchronized long getRemainingNanos() {
+            if (pausedSinceNanoTime >= 0) {
+                return Math.max(gracePeriodNanos, MIN_RECHECK_NANOS);
+            }
+            return Math.max(getDeadlineNanos() - getActiveNanos(), MIN_RECHECK_NANOS);
+        }
+
+        private long getActiveNanos() {
+            long now = System.nanoTime();
+            long paused = pausedNanos + (pausedSinceNanoTime >= 0 ? now - pausedSinceNanoTime : 0L);
+            return now - beginNanoTime - paused;
+        }
+
+        private long getDeadlineNanos() {
+            return Math.max(gracePeriodNanos, (long) (received.get() * 1e9 / minThroughputBytes));
         }
 
+        private static final long MIN_RECHECK_NANOS = 10_000_000L;
     }
 
     public static final String BEAN_NAME = "IamRequestSize";
+    private static final String REJECT_CONTENT_LENGTH = "contentLength";
+    private static final String REJECT_STREAMING = "streaming";
+    private static final String REJECT_THROUGHPUT = "throughput";
 
 }
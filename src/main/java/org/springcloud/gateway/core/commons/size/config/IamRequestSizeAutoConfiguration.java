@@ -19,6 +19,7 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 
 import org.springcloud.gateway.core.common.constant.GatewayIAMConstants;
+import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade;
 import org.springcloud.gateway.core.commons.size.RequestSizeFilterFactory;
 
 /**
@@ -37,8 +38,10 @@ public class IamRequestSizeAutoConfiguration {
     }
 
     @Bean
-    public RequestSizeFilterFactory requestSizeFilterFactory(IamRequestSizeProperties requestSizeConfig) {
-        return new RequestSizeFilterFactory(requestSizeConfig);
+    public RequestSizeFilterFactory requestSizeFilterFactory(
+            IamRequestSizeProperties requestSizeConfig,
+            GatewayMetricsFacade metricsFacade) {
+        return new RequestSizeFilterFactory(requestSizeConfig, metricsFacade);
     }
 
 }
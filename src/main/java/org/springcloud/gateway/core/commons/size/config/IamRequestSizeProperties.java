@@ -17,6 +17,11 @@ package org.springcloud.gateway.core.commons.size.config;
 
 import static org.springcloud.gateway.core.lang.Assert2.isTrue;
 import static org.springcloud.gateway.core.lang.Assert2.notNull;
+import static java.util.Objects.nonNull;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.springframework.util.unit.DataSize;
 import org.springframework.validation.annotation.Validated;
@@ -48,9 +53,49 @@ public class IamRequestSizeProperties {
 
         private DataSize maxBodySize = DataSize.ofBytes(5000000L);
 
+        /**
+         * Whether to count the body bytes as they arrive, which enforces the
+         * limit of the chunked (or without Content-Length) uploads.
+         */
+        private boolean streamingEnabled = true;
+
+        /**
+         * The request header of the limit key (e.g. the appId header), which
+         * is used to match the {@link #keyMaxBodySizes}.
+         */
+        private String limitKeyHeader;
+
+        /**
+         * The max body size of the limit keys, which can only lower the
+         * {@link #maxBodySize}, because the limit key header is supplied by
+         * the client.
+         */
+        private Map<String, DataSize> keyMaxBodySizes = new HashMap<>();
+
+        /**
+         * The minimum throughput (per second) of the body uploads, the slower
+         * uploads are aborted with 408 after the grace period, disabled if
+         * null.
+         */
+        private DataSize minThroughput;
+
+        /**
+         * The grace period of the upload before the minimum throughput is
+         * enforced.
+         */
+        private Duration minThroughputGracePeriod = Duration.ofSeconds(5);
+
         public RequestSizeProperties validate() {
             notNull(getMaxBodySize(), "maxBodySize may not be null");
             isTrue(getMaxBodySize().toBytes() > 0, "maxBodySize must be greater than 0");
+            notNull(getKeyMaxBodySizes(), "keyMaxBodySizes may not be null");
+            getKeyMaxBodySizes().forEach((key, size) -> isTrue(nonNull(size) && size.toBytes() > 0,
+                    "keyMaxBodySizes of '%s' must be greater than 0", key));
+            if (nonNull(getMinThroughput())) {
+                isTrue(getMinThroughput().toBytes() > 0, "minThroughput must be greater than 0");
+                notNull(getMinThroughputGracePeriod(), "minThroughputGracePeriod may not be null");
+                isTrue(!getMinThroughputGracePeriod().isNegative(), "minThroughputGracePeriod must not be negative");
+            }
             return this;
         }
 
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors.<springcloudgateway@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.commons.tc;
+
+import static java.util.Objects.isNull;
+import static org.springcloud.gateway.core.lang.Assert2.notNullOf;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.util.concurrent.RateLimiter;
+
+import org.springcloud.gateway.core.commons.tc.config.TrafficProperties.ReplicationProperties;
+
+/**
+ * {@link MirrorBudget}, The mirror requests budget of a route, which
+ * optionally bounds the in-flight mirror requests, caps the request rate of
+ * each target, and adaptively lowers the sampling percentage when the mirror
+ * latency or error rate rises (AIMD: halve on overload, additive increase on
+ * healthy). The
+ * latency and error rate are evaluated per window, so a burst of the failed
+ * mirrors of the same overload only halves the percentage once.
+ * 
+ * @author springcloudgateway &lt;springcloudgateway@163.com, springcloudgateway@163.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+class MirrorBudget {
+
+    private final ReplicationProperties config;
+    private final AtomicInteger inflight = new AtomicInteger();
+    private final Map<String, RateLimiter> targetLimiters = new ConcurrentHashMap<>(4);
+
+    /** The samples of the current adaptive window. */
+    private long windowBeginTime = System.currentTimeMillis();
+    private int windowSamples;
+    private int windowErrors;
+    private long windowLatencyMsSum;
+
+    /** The adaptive factor (0~1) of the sampling percentage. */
+    private volatile double percentageFactor = 1d;
+
+    MirrorBudget(ReplicationProperties config) {
+        this.config = notNullOf(config, "config");
+    }
+
+    /**
+     * Sampling the request by the configured percentage.
+     * 
+     * @return Returns the sampling decision.
+     */
+    Decision sample() {
+        double r = ThreadLocalRandom.current().nextDouble();
+        if (r >= config.getPercentage()) {
+            return Decision.SKIP;
+        }
+        return r < config.getPercentage() * percentageFactor ? Decision.ACCEPT : Decision.DROP_ADAPTIVE;
+    }
+
+    /**
+     * Try acquire the budget of a mirror request to the target, the
+     * {@link #release(long, boolean)} (or {@link #release()}) must be called
+     * when the acquired mirror request is finished.
+     * 
+     * @param targetUri
+     * @return
+     */
+    Decision tryAcquire(String targetUri) {
+        if (!tryIncrementInflight()) {
+            return Decision.DROP_INFLIGHT;
+        }
+        RateLimiter limiter = getTargetLimiter(targetUri);
+        if (limiter != null && !limiter.tryAcquire()) {
+            inflight.decrementAndGet();
+            return Decision.DROP_RATE;
+        }
+        return Decision.ACCEPT;
+    }
+
+    /**
+     * Release the budget with the sample of the mirror latency and result.
+     */
+    void release(long costMs, boolean success) {
+        inflight.decrementAndGet();
+        if (config.isAdaptive()) {
+            adapt(costMs, success);
+        }
+    }
+
+    /**
+     * Release the budget without the sample, e.g. the mirror is aborted by
+     * the primary request rather than the mirror target.
+     */
+    void release() {
+        inflight.decrementAndGet();
+    }
+
+    int getInflight() {
+        return inflight.get();
+    }
+
+    /**
+     * The in-flight mirror requests are only counted if the maxInflight is
+     * not positive (unlimited).
+     */
+    private boolean tryIncrementInflight() {
+        int max = config.getMaxInflight();
+        for (;;) {
+            int current = inflight.get();
+            if (max > 0 && current >= max) {
+                return false;
+            }
+            if (inflight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    double getPercentageFactor() {
+        return percentageFactor;
+    }
+
+    private synchronized void adapt(long costMs, boolean success) {
+        ++windowSamples;
+        windowLatencyMsSum += costMs;
+        if (!success) {
+            ++windowErrors;
+        }
+        long now = System.currentTimeMillis();
+        if (now - windowBeginTime < config.getAdaptiveWindowMs() || windowSamples < MIN_WINDOW_SAMPLES) {
+            return;
+        }
+        double latencyMsMean = (double) windowLatencyMsSum / windowSamples;
+        double errorRate = (double) windowErrors / windowSamples;
+        if (latencyMsMean > config.getAdaptiveMaxLatencyMs() || errorRate > config.getAdaptiveMaxErrorRate()) {
+            percentageFactor = Math.max(percentageFactor * 0.5d, config.getAdaptiveMinFactor());
+        } else {
+            percentageFactor = Math.min(percentageFactor + ADDITIVE_INCREASE, 1d);
+        }
+        windowBeginTime = now;
+        windowSamples = 0;
+        windowErrors = 0;
+        windowLatencyMsSum = 0L;
+    }
+
+    private RateLimiter getTargetLimiter(String targetUri) {
+        if (config.getMaxTargetRequestsPerSecond() <= 0) {
+            return null;
+        }
+        RateLimiter limiter = targetLimiters.get(targetUri);
+        if (isNull(limiter)) {
+            limiter = targetLimiters.computeIfAbsent(targetUri,
+                    uri -> RateLimiter.create(config.getMaxTargetRequestsPerSecond()));
+        }
+        return limiter;
+    }
+
+    static enum Decision {
+        ACCEPT, SKIP, DROP_ADAPTIVE, DROP_INFLIGHT, DROP_RATE, DROP_OVERFLOW, DROP_INCOMPLETE;
+    }
+
+    private static final int MIN_WINDOW_SAMPLES = 5;
+    private static final double ADDITIVE_INCREASE = 0.02d;
+
+}
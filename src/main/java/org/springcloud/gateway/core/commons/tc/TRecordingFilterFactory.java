@@ -0,0 +1,106 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors.<springcloudgateway@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.commons.tc;
+
+import static org.apache.commons.lang3.StringUtils.equalsAnyIgnoreCase;
+import static org.springcloud.gateway.core.lang.Assert2.notNullOf;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR;
+
+import java.net.URI;
+
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.web.server.ServerWebExchange;
+import org.springcloud.gateway.core.commons.tc.config.TrafficProperties;
+import org.springcloud.gateway.core.commons.tc.config.TrafficProperties.RecordingFilterProperties;
+import org.springcloud.gateway.core.commons.tc.record.TrafficCapture;
+import org.springcloud.gateway.core.commons.tc.record.TrafficRecorder;
+import org.springcloud.gateway.core.bean.ConfigBeanUtils;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link TRecordingFilterFactory}, Record the sampled request/response pairs
+ * of the route by {@link TrafficRecorder}, which is independent of the traffic
+ * replication (mirror targets), see {@link TReplicationFilterFactory}
+ *
+ * @author springcloudgateway &lt;springcloudgateway@163.com, springcloudgateway@163.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+public class TRecordingFilterFactory extends AbstractGatewayFilterFactory<TRecordingFilterFactory.Config> {
+
+    private final TrafficProperties trafficConfig;
+    private final TrafficRecorder trafficRecorder;
+
+    public TRecordingFilterFactory(TrafficProperties trafficConfig, TrafficRecorder trafficRecorder) {
+        super(TRecordingFilterFactory.Config.class);
+        this.trafficConfig = notNullOf(trafficConfig, "trafficConfig");
+        this.trafficRecorder = notNullOf(trafficRecorder, "trafficRecorder");
+    }
+
+    @Override
+    public String name() {
+        return BEAN_NAME;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        applyDefaultToConfig(config);
+        return new TrafficRecordingGatewayFilter(config);
+    }
+
+    private void applyDefaultToConfig(Config config) {
+        try {
+            ConfigBeanUtils.configureWithDefault(new TRecordingFilterFactory.Config(), config,
+                    trafficConfig.getDefaultRecording());
+        } catch (IllegalArgumentException | IllegalAccessException e) {
+            throw new IllegalStateException("Unable apply defaults to traffic recording gateway config", e);
+        }
+    }
+
+    @Getter
+    @Setter
+    @ToString
+    public static class Config extends RecordingFilterProperties {
+    }
+
+    @AllArgsConstructor
+    class TrafficRecordingGatewayFilter implements GatewayFilter {
+        private final Config config;
+
+        @Override
+        public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+            URI requestUrl = exchange.getAttributeOrDefault(GATEWAY_REQUEST_URL_ATTR, exchange.getRequest().getURI());
+            if (!equalsAnyIgnoreCase(requestUrl.getScheme(), "http", "https")
+                    || !trafficRecorder.isSampled(config.getPercentage())) {
+                return chain.filter(exchange);
+            }
+            TrafficCapture capture = new TrafficCapture(trafficRecorder.getMaxBodyBytes(),
+                    trafficRecorder.getRecordingConfig().getMaskHeaders());
+            ServerWebExchange recordingExchange = capture.decorate(exchange);
+            return chain.filter(recordingExchange)
+                    .doFinally(signal -> trafficRecorder.record(capture.toRecord(recordingExchange)));
+        }
+    }
+
+    public static final String BEAN_NAME = "TrafficRecorder";
+}
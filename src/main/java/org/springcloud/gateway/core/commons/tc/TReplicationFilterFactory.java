@@ -15,6 +15,7 @@
  */
 package org.springcloud.gateway.core.commons.tc;
 
+import static java.util.Objects.isNull;
 import static org.springcloud.gateway.core.collection.CollectionUtils2.safeList;
 import static org.springcloud.gateway.core.lang.Assert2.notNullOf;
 import static java.lang.String.format;
@@ -28,12 +29,20 @@ import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.P
 
 import java.net.URI;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
 
+import org.reactivestreams.Publisher;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.cloud.gateway.event.RefreshRoutesResultEvent;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
@@ -43,6 +52,7 @@ import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter.Type;
 import org.springframework.cloud.gateway.route.Route;
 import org.springframework.cloud.gateway.support.BodyInserterContext;
 import org.springframework.cloud.gateway.support.TimeoutException;
+import org.springframework.context.ApplicationListener;
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -59,12 +69,17 @@ import org.springframework.web.server.ServerWebExchange;
 import org.springcloud.gateway.core.commons.fault.IamGatewayFault;
 import org.springcloud.gateway.core.commons.fault.http.ReactiveHttpClientBuilder;
 import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade;
+import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade.MeterTags;
 import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade.MetricsName;
 import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade.MetricsTag;
+import org.springcloud.gateway.core.commons.tc.MirrorBudget.Decision;
 import org.springcloud.gateway.core.commons.tc.config.TrafficProperties;
 import org.springcloud.gateway.core.commons.tc.config.TrafficProperties.ReplicationProperties;
 import org.springcloud.gateway.core.bean.ConfigBeanUtils;
 
+import io.micrometer.core.instrument.Gauge;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelOption;
 import io.netty.handler.codec.http.DefaultHttpHeaders;
 import io.netty.handler.codec.http.HttpMethod;
@@ -87,12 +102,15 @@ import reactor.netty.http.client.HttpClientResponse;
  * @see {@link see:org.springframework.cloud.gateway.filter.NettyRoutingFilter}
  */
 @CustomLog
-public class TReplicationFilterFactory extends AbstractGatewayFilterFactory<TReplicationFilterFactory.Config> {
+public class TReplicationFilterFactory extends AbstractGatewayFilterFactory<TReplicationFilterFactory.Config>
+        implements ApplicationListener<RefreshRoutesResultEvent> {
 
     private final TrafficProperties trafficConfig;
     private final ObjectProvider<List<HttpHeadersFilter>> headersFiltersProvider;
     private final List<HttpClientCustomizer> customizers;
     private final GatewayMetricsFacade metricsFacade;
+    private final Map<String, BudgetGauges> budgetGauges = new ConcurrentHashMap<>(16);
+    private final Map<Decision, MeterTags> droppedMetricsTags = new EnumMap<>(Decision.class);
     private volatile List<HttpHeadersFilter> headersFilters;
 
     public TReplicationFilterFactory(TrafficProperties trafficConfig,
@@ -103,6 +121,9 @@ public class TReplicationFilterFactory extends AbstractGatewayFilterFactory<TRep
         this.headersFiltersProvider = notNullOf(headersFiltersProvider, "headersFiltersProvider");
         this.customizers = notNullOf(customizers, "customizers");
         this.metricsFacade = notNullOf(metricsFacade, "metricsFacade");
+        for (Decision decision : Decision.values()) {
+            droppedMetricsTags.put(decision, metricsFacade.prepareTags(MetricsTag.TRAFFIC_DROP_REASON, decision.name()));
+        }
     }
 
     @Override
@@ -114,7 +135,23 @@ public class TReplicationFilterFactory extends AbstractGatewayFilterFactory<TRep
     public GatewayFilter apply(Config config) {
         applyDefaultToConfig(config);
         return new TrafficReplicationGatewayFilter(config,
-                ReactiveHttpClientBuilder.build(config.toHttpClientProperties(), customizers));
+                ReactiveHttpClientBuilder.build(config.toHttpClientProperties(), customizers), new MirrorBudget(config));
+    }
+
+    /**
+     * The budget gauges are discarded when the routes are refreshed, and
+     * registered again by the rebuilt route filters.
+     */
+    @Override
+    public void onApplicationEvent(RefreshRoutesResultEvent event) {
+        if (!event.isSuccess()) {
+            return;
+        }
+        for (Iterator<BudgetGauges> it = budgetGauges.values().iterator(); it.hasNext();) {
+            BudgetGauges gauges = it.next();
+            it.remove();
+            gauges.remove();
+        }
     }
 
     private void applyDefaultToConfig(Config config) {
@@ -132,10 +169,34 @@ public class TReplicationFilterFactory extends AbstractGatewayFilterFactory<TRep
     public static class Config extends ReplicationProperties {
     }
 
+    /**
+     * The gauges of the route budget, which always read the budget of the
+     * latest route filter (the route may be rebuilt with the new filter).
+     */
+    class BudgetGauges {
+        private volatile MirrorBudget budget;
+        private final Gauge[] gauges;
+
+        BudgetGauges(String routeId) {
+            this.gauges = new Gauge[] {
+                    metricsFacade.gauge(MetricsName.TRAFFIC_REPLICATION_INFLIGHT,
+                            () -> isNull(budget) ? 0 : budget.getInflight(), MetricsTag.ROUTE_ID, routeId),
+                    metricsFacade.gauge(MetricsName.TRAFFIC_REPLICATION_PERCENTAGE_FACTOR,
+                            () -> isNull(budget) ? 0d : budget.getPercentageFactor(), MetricsTag.ROUTE_ID, routeId) };
+        }
+
+        void remove() {
+            for (Gauge gauge : gauges) {
+                metricsFacade.removeMeter(gauge);
+            }
+        }
+    }
+
     @AllArgsConstructor
     class TrafficReplicationGatewayFilter implements GatewayFilter {
         private final Config config;
         private final HttpClient customizedRouteBasedHttpClient;
+        private final MirrorBudget budget;
 
         @Override
         public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
@@ -143,21 +204,41 @@ public class TReplicationFilterFactory extends AbstractGatewayFilterFactory<TRep
             String scheme = requestUrl.getScheme();
 
             // Check if request traffic needs to be replicated.
-            if (!equalsAnyIgnoreCase(scheme, "http", "https") || !isReplicationWithPercentage(config)) {
+            if (!equalsAnyIgnoreCase(scheme, "http", "https")) {
+                return chain.filter(exchange);
+            }
+
+            Decision decision = budget.sample();
+            if (decision == Decision.SKIP) {
                 return chain.filter(exchange);
             }
+            bindBudgetGauges(exchange);
 
             // Add metrics of total.
             metricsFacade.counter(exchange, MetricsName.TRAFFIC_REPLICATION_TOTAL, 1, MetricsTag.ROUTE_ID,
                     IamGatewayFault.getRouteId(exchange));
 
+            // The sampling percentage is lowered due to the mirrors overloaded.
+            if (decision != Decision.ACCEPT) {
+                addDroppedMetrics(exchange, decision);
+                return chain.filter(exchange);
+            }
+
+            if (config.isStreaming()) {
+                return teeRequest(exchange, chain);
+            }
             return decorateRequest(exchange, chain, body -> {
                 // Replication image requests.
                 try {
                     safeList(config.getTargetUris()).forEach(targetUri -> {
+                        if (!tryAcquireMirror(exchange, targetUri)) {
+                            return;
+                        }
                         try {
-                            doAsyncReplicationRequest(exchange, body, targetUri);
+                            doAsyncReplicationRequest(exchange, Mono.fromSupplier(() -> Unpooled.wrappedBuffer(body)),
+                                    targetUri, (success, costMs) -> releaseMirror(exchange, success, costMs));
                         } catch (Exception e) {
+                            releaseMirror(exchange, false, 0L);
                             log.warn(format("Failed to replication traffic mirror for request uri: '{}' to target uri: '{}'",
                                     exchange.getRequest().getURI(), targetUri), e);
                         }
@@ -170,10 +251,97 @@ public class TReplicationFilterFactory extends AbstractGatewayFilterFactory<TRep
             });
         }
 
-        private boolean isReplicationWithPercentage(Config config) {
-            // if fault injection is required based on random percentage.
-            double per = ThreadLocalRandom.current().nextDouble();
-            return per < config.getPercentage();
+        /**
+         * The streaming tee of the request body, the data buffers are
+         * forwarded to the primary upstream as they arrive, and the retained
+         * duplicates are sent to the mirror targets, see
+         * {@link TeeMirrorBody}
+         * 
+         * @param exchange
+         * @param chain
+         * @return
+         */
+        private Mono<Void> teeRequest(ServerWebExchange exchange, GatewayFilterChain chain) {
+            List<TeeMirrorBody> mirrors = new ArrayList<>(safeList(config.getTargetUris()).size());
+            for (String targetUri : safeList(config.getTargetUris())) {
+                if (!tryAcquireMirror(exchange, targetUri)) {
+                    continue;
+                }
+                TeeMirrorBody mirror = new TeeMirrorBody(targetUri, config.getMirrorMaxPendingBuffers());
+                try {
+                    doAsyncReplicationRequest(exchange, mirror.asFlux(), targetUri, (success, costMs) -> {
+                        mirror.dispose();
+                        if (mirror.isIncomplete()) {
+                            // Not the failure of the mirror target, which is
+                            // neither counted as failed nor sampled.
+                            log.debug("Replication request dropped of incomplete primary body, target uri: {}", targetUri);
+                            addDroppedMetrics(exchange, Decision.DROP_INCOMPLETE);
+                            budget.release();
+                            return;
+                        }
+                        if (mirror.isOverflowed()) {
+                            log.debug("Replication request dropped of slow target uri: {}", targetUri);
+                            addDroppedMetrics(exchange, Decision.DROP_OVERFLOW);
+                        }
+                        releaseMirror(exchange, success && !mirror.isOverflowed(), costMs);
+                    });
+                    mirrors.add(mirror);
+                } catch (Exception e) {
+                    mirror.dispose();
+                    releaseMirror(exchange, false, 0L);
+                    log.warn(format("Failed to replication traffic mirror for request uri: '%s' to target uri: '%s'",
+                            exchange.getRequest().getURI(), targetUri), e);
+                }
+            }
+            if (mirrors.isEmpty()) {
+                return chain.filter(exchange);
+            }
+
+            ServerHttpRequestDecorator decorator = new ServerHttpRequestDecorator(exchange.getRequest()) {
+                @Override
+                public Flux<DataBuffer> getBody() {
+                    return super.getBody().doOnNext(buffer -> {
+                        for (TeeMirrorBody mirror : mirrors) {
+                            mirror.next(buffer);
+                        }
+                    }).doOnComplete(() -> mirrors.forEach(TeeMirrorBody::complete));
+                }
+            };
+            // The primary request is finished (or failed) before the body is
+            // completely read, the incomplete mirrors are aborted.
+            return chain.filter(exchange.mutate().request(decorator).build())
+                    .doFinally(signal -> mirrors.forEach(TeeMirrorBody::abortIncomplete));
+        }
+
+        private boolean tryAcquireMirror(ServerWebExchange exchange, String targetUri) {
+            Decision decision = budget.tryAcquire(targetUri);
+            if (decision != Decision.ACCEPT) {
+                addDroppedMetrics(exchange, decision);
+                return false;
+            }
+            return true;
+        }
+
+        private void releaseMirror(ServerWebExchange exchange, boolean success, long costMs) {
+            budget.release(costMs, success);
+            if (!success) {
+                metricsFacade.counter(exchange, MetricsName.TRAFFIC_REPLICATION_FAIL_TOTAL, 1);
+            }
+        }
+
+        private void addDroppedMetrics(ServerWebExchange exchange, Decision decision) {
+            metricsFacade.counter(exchange, MetricsName.TRAFFIC_REPLICATION_DROPPED_TOTAL, 1, droppedMetricsTags.get(decision));
+        }
+
+        private void bindBudgetGauges(ServerWebExchange exchange) {
+            String routeId = IamGatewayFault.getRouteId(exchange);
+            BudgetGauges gauges = budgetGauges.get(routeId);
+            if (isNull(gauges)) {
+                gauges = budgetGauges.computeIfAbsent(routeId, BudgetGauges::new);
+            }
+            if (gauges.budget != budget) {
+                gauges.budget = budget;
+            }
         }
 
         /**
@@ -182,7 +350,13 @@ public class TReplicationFilterFactory extends AbstractGatewayFilterFactory<TRep
          * the request forwarding logic of mirror traffic should be consistent
          * with it.
          */
-        private void doAsyncReplicationRequest(ServerWebExchange exchange, byte[] body, String targetUri) {
+        private void doAsyncReplicationRequest(
+                ServerWebExchange exchange,
+                Publisher<ByteBuf> body,
+                String targetUri,
+                BiConsumer<Boolean, Long> onFinally) {
+            long beginTime = System.currentTimeMillis();
+            AtomicBoolean success = new AtomicBoolean(false);
             ServerHttpRequest request = exchange.getRequest();
             HttpMethod method = HttpMethod.valueOf(request.getMethodValue());
 
@@ -212,7 +386,7 @@ public class TReplicationFilterFactory extends AbstractGatewayFilterFactory<TRep
                 //
                 // return
                 // nettyOutbound.send(request.getBody().map(this::getByteBuf));
-                return nettyOutbound.sendByteArray(Mono.just(body));
+                return nettyOutbound.send(body);
             }).responseConnection((res, connection) -> {
                 //
                 // Note: Non actual forwarding requests, no need to set response
@@ -263,7 +437,10 @@ public class TReplicationFilterFactory extends AbstractGatewayFilterFactory<TRep
                 // exchange.getAttributes().put(CLIENT_RESPONSE_HEADER_NAMES,filteredResponseHeaders.keySet());
                 // // response.getHeaders().putAll(filteredResponseHeaders);
 
-                return Mono.just(res);
+                // The mirror response body is discarded, but it must be
+                // consumed (the received buffers are released), otherwise the
+                // connection is never returned to the pool.
+                return connection.inbound().receive().then(Mono.just(res));
             });
 
             Duration responseTimeout = getResponseTimeout(route);
@@ -276,13 +453,15 @@ public class TReplicationFilterFactory extends AbstractGatewayFilterFactory<TRep
                                 th -> new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT, th.getMessage(), th));
             }
 
-            responseFlux.subscribe(response -> {
-                log.debug("Replication request success for URI: {}, response: {}", request.getURI(), response);
-            }, ex -> {
-                log.debug("Replication request error for URI: {}", request.getURI());
-            }, () -> {
-                log.debug("Replication request completion for URI: {}", request.getURI());
-            });
+            responseFlux.doFinally(signal -> onFinally.accept(success.get(), System.currentTimeMillis() - beginTime))
+                    .subscribe(response -> {
+                        success.set(response.status().code() < 500);
+                        log.debug("Replication request success for URI: {}, response: {}", request.getURI(), response);
+                    }, ex -> {
+                        log.debug("Replication request error for URI: {}", request.getURI());
+                    }, () -> {
+                        log.debug("Replication request completion for URI: {}", request.getURI());
+                    });
         }
 
         /**
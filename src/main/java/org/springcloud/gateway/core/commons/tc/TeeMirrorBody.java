@@ -0,0 +1,126 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors.<springcloudgateway@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.commons.tc;
+
+import static org.springcloud.gateway.core.lang.Assert2.hasTextOf;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.NettyDataBuffer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.ReferenceCountUtil;
+import lombok.Getter;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.util.concurrent.Queues;
+
+/**
+ * {@link TeeMirrorBody}, The request body of a mirror in streaming tee mode.
+ * The data buffers of the primary request are duplicated (retained, sharing
+ * the memory) into the bounded queue of each mirror as they arrive, and the
+ * mirror request consumes them with its own backpressure. </br>
+ * </br>
+ * When the queue is full (the mirror target is slower than the primary), the
+ * mirror is aborted and all the pending buffers are released (the partial body
+ * cannot be mirrored), so that a slow mirror never slows down or exhausts the
+ * memory of the primary request.
+ * 
+ * @author springcloudgateway &lt;springcloudgateway@163.com, springcloudgateway@163.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+@Getter
+class TeeMirrorBody {
+
+    private final String targetUri;
+    private final Sinks.Many<ByteBuf> sink;
+    private boolean terminated;
+    private volatile boolean overflowed;
+    private volatile boolean incomplete;
+
+    TeeMirrorBody(String targetUri, int maxPendingBuffers) {
+        this.targetUri = hasTextOf(targetUri, "targetUri");
+        this.sink = Sinks.many().unicast().onBackpressureBuffer(Queues.<ByteBuf> get(Math.max(maxPendingBuffers, 1)).get());
+    }
+
+    Flux<ByteBuf> asFlux() {
+        return sink.asFlux().doOnDiscard(ByteBuf.class, ReferenceCountUtil::safeRelease);
+    }
+
+    /**
+     * Duplicate the primary data buffer into the mirror queue.
+     */
+    synchronized void next(DataBuffer buffer) {
+        if (terminated) {
+            return;
+        }
+        ByteBuf duplicate = retainedDuplicate(buffer);
+        if (sink.tryEmitNext(duplicate).isFailure()) {
+            ReferenceCountUtil.safeRelease(duplicate);
+            this.overflowed = true;
+            abort(new IllegalStateException("The mirror pending body buffers overflowed."));
+        }
+    }
+
+    synchronized void complete() {
+        if (!terminated) {
+            this.terminated = true;
+            sink.tryEmitComplete();
+        }
+    }
+
+    /**
+     * Abort the mirror because the primary request is finished (or failed)
+     * before its body is completely read, which is not the failure of the
+     * mirror target.
+     */
+    synchronized void abortIncomplete() {
+        if (!terminated) {
+            this.incomplete = true;
+            abort(new IllegalStateException("The primary request body is incomplete."));
+        }
+    }
+
+    synchronized void abort(Throwable reason) {
+        if (!terminated) {
+            this.terminated = true;
+            sink.tryEmitError(reason);
+        }
+    }
+
+    /**
+     * Release the pending buffers that were not consumed, e.g. the mirror
+     * request failed before sending the body.
+     */
+    void dispose() {
+        abort(new IllegalStateException("The mirror request has been finished."));
+        // The unicast sink only allows one subscriber, if the mirror request
+        // has subscribed, this subscription will be rejected immediately.
+        asFlux().subscribe(ReferenceCountUtil::safeRelease, ex -> {
+        });
+    }
+
+    static ByteBuf retainedDuplicate(DataBuffer buffer) {
+        if (buffer instanceof NettyDataBuffer) {
+            return ((NettyDataBuffer) buffer).getNativeBuffer().retainedDuplicate();
+        }
+        byte[] bytes = new byte[buffer.readableByteCount()];
+        buffer.asByteBuffer().get(bytes);
+        return Unpooled.wrappedBuffer(bytes);
+    }
+
+}
@@ -25,7 +25,9 @@ import org.springframework.context.annotation.Bean;
 
 import org.springcloud.gateway.core.common.constant.GatewayIAMConstants;
 import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade;
+import org.springcloud.gateway.core.commons.tc.TRecordingFilterFactory;
 import org.springcloud.gateway.core.commons.tc.TReplicationFilterFactory;
+import org.springcloud.gateway.core.commons.tc.record.TrafficRecorder;
 
 /**
  * {@link TrafficAutoConfiguration}
@@ -51,4 +53,14 @@ public class TrafficAutoConfiguration {
         return new TReplicationFilterFactory(trafficConfig, headersFilters, customizers, metricsFacade);
     }
 
+    @Bean
+    public TRecordingFilterFactory tRecordingFilterFactory(TrafficProperties trafficConfig, TrafficRecorder trafficRecorder) {
+        return new TRecordingFilterFactory(trafficConfig, trafficRecorder);
+    }
+
+    @Bean
+    public TrafficRecorder trafficRecorder(TrafficProperties trafficConfig, GatewayMetricsFacade metricsFacade) {
+        return new TrafficRecorder(trafficConfig.getRecording(), metricsFacade);
+    }
+
 }
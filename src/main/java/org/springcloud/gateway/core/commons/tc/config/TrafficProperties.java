@@ -17,6 +17,7 @@ package org.springcloud.gateway.core.commons.tc.config;
 
 import static java.util.Arrays.asList;
 
+import java.io.File;
 import java.time.Duration;
 import java.util.List;
 
@@ -24,6 +25,7 @@ import org.springframework.cloud.gateway.config.HttpClientProperties;
 import org.springframework.cloud.gateway.config.HttpClientProperties.Pool;
 import org.springframework.cloud.gateway.config.HttpClientProperties.Proxy;
 import org.springframework.cloud.gateway.config.HttpClientProperties.Ssl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.util.unit.DataSize;
 import org.springframework.validation.annotation.Validated;
 
@@ -46,6 +48,10 @@ public class TrafficProperties {
 
     private ReplicationProperties defaultReplication = new ReplicationProperties();
 
+    private RecordingFilterProperties defaultRecording = new RecordingFilterProperties();
+
+    private RecordingProperties recording = new RecordingProperties();
+
     @Getter
     @Setter
     @ToString
@@ -62,6 +68,62 @@ public class TrafficProperties {
          */
         private double percentage = 1d;
 
+        /**
+         * Whether to tee the request body to the mirror targets as it arrives
+         * (streaming), otherwise the whole request body is buffered before
+         * forwarding to the primary upstream and mirror targets.
+         */
+        private boolean streaming = false;
+
+        /**
+         * The max number of pending request body buffers of each mirror in
+         * streaming mode, when exceeded (the mirror target is slower than the
+         * primary), the mirror request is dropped.
+         */
+        private int mirrorMaxPendingBuffers = 256;
+
+        /**
+         * The max number of in-flight mirror requests of the route, the new
+         * mirror requests are dropped when exceeded, 0 means unlimited.
+         */
+        private int maxInflight = 0;
+
+        /**
+         * The max mirror requests per second of each target, 0 means
+         * unlimited.
+         */
+        private double maxTargetRequestsPerSecond = 0d;
+
+        /**
+         * Whether to lower the sampling percentage adaptively when the mirror
+         * latency or error rate rises.
+         */
+        private boolean adaptive = false;
+
+        /**
+         * The window of evaluating the mirror latency and error rate, the
+         * sampling percentage is adjusted at most once per window.
+         */
+        private long adaptiveWindowMs = 1_000L;
+
+        /**
+         * The mean mirror latency of the window above which the sampling
+         * percentage is lowered.
+         */
+        private long adaptiveMaxLatencyMs = 1_000L;
+
+        /**
+         * The mirror error rate (0~1) of the window above which the sampling
+         * percentage is lowered.
+         */
+        private double adaptiveMaxErrorRate = 0.1d;
+
+        /**
+         * The min factor of the sampling percentage, a little traffic is
+         * still mirrored to probe the recovery of the targets.
+         */
+        private double adaptiveMinFactor = 0.01d;
+
         /** Enables wiretap debugging for Netty HttpClient. */
         private boolean wiretap = false;
 
@@ -100,4 +162,69 @@ public class TrafficProperties {
         }
     }
 
+    @Getter
+    @Setter
+    @ToString
+    @Validated
+    public static class RecordingFilterProperties {
+
+        /**
+         * The sampling percentage rate of traffic that needs to be recorded
+         * to the local segment files, 0 means disabled, see
+         * {@link RecordingProperties}
+         */
+        private double percentage = 0d;
+    }
+
+    @Getter
+    @Setter
+    @ToString
+    @Validated
+    public static class RecordingProperties {
+
+        /**
+         * Whether to enable the traffic recorder, the routes are recorded
+         * according to the percentage of their recording filters.
+         */
+        private boolean enabled = false;
+
+        /**
+         * The directory of the recorded segment files.
+         */
+        private String directory = new File(System.getProperty("java.io.tmpdir"), "iscg-traffic-records").getAbsolutePath();
+
+        /**
+         * The size of the each (memory-mapped) segment file.
+         */
+        private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+        /**
+         * The max number of the segment files retained, the oldest are
+         * deleted when exceeded.
+         */
+        private int maxSegments = 16;
+
+        /**
+         * The max recorded bytes of each request and response body, the
+         * exceeded part is truncated.
+         */
+        private DataSize maxBodySize = DataSize.ofKilobytes(64);
+
+        /**
+         * The headers whose values are masked in the records.
+         */
+        private List<String> maskHeaders = asList(HttpHeaders.AUTHORIZATION, HttpHeaders.COOKIE, HttpHeaders.SET_COOKIE);
+
+        /**
+         * The capacity of the pending records buffer, the new records are
+         * dropped when the buffer is full.
+         */
+        private int bufferCapacity = 4096;
+
+        /**
+         * The interval of draining the pending records to the segment files.
+         */
+        private long drainIntervalMs = 20L;
+    }
+
 }
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors.<springcloudgateway@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.commons.tc.record;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static org.springcloud.gateway.core.collection.CollectionUtils2.safeList;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.web.server.ServerWebExchange;
+
+import org.springcloud.gateway.core.commons.fault.IamGatewayFault;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link TrafficCapture}, Capture the headers and the head bytes (at most the
+ * max body size) of the request and response bodies of an exchange, the body
+ * buffers are copied without changing the read positions as they pass through,
+ * so the forwarding is still streaming.
+ *
+ * @author springcloudgateway &lt;springcloudgateway@163.com, springcloudgateway@163.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+public class TrafficCapture {
+
+    private final int maxBodyBytes;
+    private final List<String> maskHeaders;
+    private final long timestamp = System.currentTimeMillis();
+    private final BodyCopier requestBody;
+    private final BodyCopier responseBody;
+
+    public TrafficCapture(int maxBodyBytes, List<String> maskHeaders) {
+        this.maxBodyBytes = Math.max(maxBodyBytes, 0);
+        this.maskHeaders = safeList(maskHeaders);
+        this.requestBody = new BodyCopier();
+        this.responseBody = new BodyCopier();
+    }
+
+    public ServerWebExchange decorate(ServerWebExchange exchange) {
+        ServerHttpRequestDecorator request = new ServerHttpRequestDecorator(exchange.getRequest()) {
+            @Override
+            public Flux<DataBuffer> getBody() {
+                return super.getBody().doOnNext(buffer -> requestBody.copy(buffer));
+            }
+        };
+        ServerHttpResponseDecorator response = new ServerHttpResponseDecorator(exchange.getResponse()) {
+            @Override
+            public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                return super.writeWith(Flux.from(body).doOnNext(buffer -> responseBody.copy(buffer)));
+            }
+
+            @Override
+            public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+                return super.writeAndFlushWith(
+                        Flux.from(body).map(inner -> Flux.from(inner).doOnNext(buffer -> responseBody.copy(buffer))));
+            }
+        };
+        return exchange.mutate().request(request).response(response).build();
+    }
+
+    /**
+     * Build the record after the exchange is completed.
+     *
+     * @param exchange
+     * @return
+     */
+    public TrafficRecord toRecord(ServerWebExchange exchange) {
+        ServerHttpRequest request = exchange.getRequest();
+        ServerHttpResponse response = exchange.getResponse();
+        URI uri = request.getURI();
+        String pathAndQuery = isNull(uri.getRawQuery()) ? uri.getRawPath() : uri.getRawPath() + "?" + uri.getRawQuery();
+        Integer statusCode = response.getRawStatusCode();
+        return new TrafficRecord(timestamp, System.currentTimeMillis() - timestamp, IamGatewayFault.getRouteId(exchange),
+                request.getMethodValue(), pathAndQuery, maskHeaders(request.getHeaders()), requestBody.toBytes(),
+                nonNull(statusCode) ? statusCode : 0, maskHeaders(response.getHeaders()), responseBody.toBytes(),
+                requestBody.isTruncated(), responseBody.isTruncated());
+    }
+
+    private HttpHeaders maskHeaders(HttpHeaders headers) {
+        HttpHeaders masked = new HttpHeaders();
+        headers.forEach((name, values) -> {
+            if (maskHeaders.stream().anyMatch(h -> h.equalsIgnoreCase(name))) {
+                masked.add(name, MASKED_VALUE);
+            } else {
+                masked.addAll(name, values);
+            }
+        });
+        return masked;
+    }
+
+    class BodyCopier {
+        private byte[] copied;
+        private int size;
+        private boolean truncated;
+
+        synchronized void copy(DataBuffer buffer) {
+            int length = Math.min(maxBodyBytes - size, buffer.readableByteCount());
+            if (length < buffer.readableByteCount()) {
+                truncated = true;
+            }
+            if (length <= 0) {
+                return;
+            }
+            if (isNull(copied)) {
+                copied = new byte[Math.min(maxBodyBytes, Math.max(buffer.readableByteCount(), 1024))];
+            } else if (size + length > copied.length) {
+                copied = Arrays.copyOf(copied, Math.min(maxBodyBytes, Math.max(copied.length << 1, size + length)));
+            }
+            // Copy without moving the read position of the buffer.
+            buffer.asByteBuffer(buffer.readPosition(), length).get(copied, size, length);
+            size += length;
+        }
+
+        synchronized boolean isTruncated() {
+            return truncated;
+        }
+
+        synchronized byte[] toBytes() {
+            return isNull(copied) ? new byte[0] : Arrays.copyOf(copied, size);
+        }
+    }
+
+    public static final String MASKED_VALUE = "******";
+
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors.<springcloudgateway@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.commons.tc.record;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.isNull;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.springframework.http.HttpHeaders;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * {@link TrafficRecord}, The captured request/response pair, which is encoded
+ * into the compact binary form of the segment file, see
+ * {@link TrafficSegmentStore}. </br>
+ * </br>
+ * Encoding: the strings are (int length + UTF-8 bytes), the bytes are (int
+ * length + bytes), the headers are (int count + name/value strings pairs), the truncated flags
+ * are (int bits) at the end.
+ *
+ * @author springcloudgateway &lt;springcloudgateway@163.com, springcloudgateway@163.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+@Getter
+@ToString(exclude = { "requestBody", "responseBody" })
+@AllArgsConstructor
+public class TrafficRecord {
+
+    /** The start time of the request. */
+    private final long timestamp;
+    /** The time cost of the original request. */
+    private final long costMs;
+    private final String routeId;
+    private final String method;
+    /** The raw path and query of the original request URI. */
+    private final String pathAndQuery;
+    private final HttpHeaders requestHeaders;
+    private final byte[] requestBody;
+    private final int statusCode;
+    private final HttpHeaders responseHeaders;
+    private final byte[] responseBody;
+    /** Whether the request body exceeded the max body size is truncated. */
+    private final boolean requestTruncated;
+    /** Whether the response body exceeded the max body size is truncated. */
+    private final boolean responseTruncated;
+
+    public int encodedSize() {
+        return 8 + 8 + sizeOf(routeId) + sizeOf(method) + sizeOf(pathAndQuery) + sizeOf(requestHeaders)
+                + sizeOf(requestBody) + 4 + sizeOf(responseHeaders) + sizeOf(responseBody) + 4;
+    }
+
+    public void encode(ByteBuffer buffer) {
+        buffer.putLong(timestamp);
+        buffer.putLong(costMs);
+        putString(buffer, routeId);
+        putString(buffer, method);
+        putString(buffer, pathAndQuery);
+        putHeaders(buffer, requestHeaders);
+        putBytes(buffer, requestBody);
+        buffer.putInt(statusCode);
+        putHeaders(buffer, responseHeaders);
+        putBytes(buffer, responseBody);
+        buffer.putInt((requestTruncated ? FLAG_REQUEST_TRUNCATED : 0) | (responseTruncated ? FLAG_RESPONSE_TRUNCATED : 0));
+    }
+
+    public static TrafficRecord decode(ByteBuffer buffer) {
+        long timestamp = buffer.getLong();
+        long costMs = buffer.getLong();
+        String routeId = getString(buffer);
+        String method = getString(buffer);
+        String pathAndQuery = getString(buffer);
+        HttpHeaders requestHeaders = getHeaders(buffer);
+        byte[] requestBody = getBytes(buffer);
+        int statusCode = buffer.getInt();
+        HttpHeaders responseHeaders = getHeaders(buffer);
+        byte[] responseBody = getBytes(buffer);
+        int flags = buffer.getInt();
+        return new TrafficRecord(timestamp, costMs, routeId, method, pathAndQuery, requestHeaders, requestBody, statusCode,
+                responseHeaders, responseBody, (flags & FLAG_REQUEST_TRUNCATED) != 0, (flags & FLAG_RESPONSE_TRUNCATED) != 0);
+    }
+
+    private static int sizeOf(String value) {
+        return 4 + (isNull(value) ? 0 : value.getBytes(UTF_8).length);
+    }
+
+    private static int sizeOf(byte[] value) {
+        return 4 + (isNull(value) ? 0 : value.length);
+    }
+
+    private static int sizeOf(HttpHeaders headers) {
+        int size = 4;
+        if (!isNull(headers)) {
+            for (Entry<String, List<String>> entry : headers.entrySet()) {
+                for (String value : entry.getValue()) {
+                    size += sizeOf(entry.getKey()) + sizeOf(value);
+                }
+            }
+        }
+        return size;
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        putBytes(buffer, isNull(value) ? null : value.getBytes(UTF_8));
+    }
+
+    private static void putBytes(ByteBuffer buffer, byte[] value) {
+        if (isNull(value)) {
+            buffer.putInt(0);
+        } else {
+            buffer.putInt(value.length);
+            buffer.put(value);
+        }
+    }
+
+    private static void putHeaders(ByteBuffer buffer, HttpHeaders headers) {
+        int count = 0;
+        if (!isNull(headers)) {
+            for (List<String> values : headers.values()) {
+                count += values.size();
+            }
+        }
+        buffer.putInt(count);
+        if (count > 0) {
+            for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+                for (String value : entry.getValue()) {
+                    putString(buffer, entry.getKey());
+                    putString(buffer, value);
+                }
+            }
+        }
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        return new String(getBytes(buffer), UTF_8);
+    }
+
+    private static byte[] getBytes(ByteBuffer buffer) {
+        byte[] value = new byte[buffer.getInt()];
+        buffer.get(value);
+        return value;
+    }
+
+    private static HttpHeaders getHeaders(ByteBuffer buffer) {
+        HttpHeaders headers = new HttpHeaders();
+        for (int i = 0, count = buffer.getInt(); i < count; i++) {
+            headers.add(getString(buffer), getString(buffer));
+        }
+        return headers;
+    }
+
+    private static final int FLAG_REQUEST_TRUNCATED = 1;
+    private static final int FLAG_RESPONSE_TRUNCATED = 1 << 1;
+
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors.<springcloudgateway@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.commons.tc.record;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.springcloud.gateway.core.lang.Assert2.notNullOf;
+
+import java.io.File;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.boot.ApplicationArguments;
+
+import org.springcloud.gateway.core.collection.MpscRingBuffer;
+import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade;
+import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade.MetricsName;
+import org.springcloud.gateway.core.commons.tc.config.TrafficProperties.RecordingProperties;
+import org.springcloud.gateway.core.task.ApplicationTaskRunner;
+import org.springcloud.gateway.core.task.RunnerProperties;
+import org.springcloud.gateway.core.task.RunnerProperties.StartupMode;
+import org.springcloud.gateway.core.task.SafeScheduledTaskPoolExecutor;
+
+import lombok.CustomLog;
+
+/**
+ * {@link TrafficRecorder}, The recorder of the sampled request/response pairs,
+ * the records are published into the bounded {@link MpscRingBuffer} by the
+ * event loop threads, and are appended to the {@link TrafficSegmentStore} by
+ * the dedicated writer thread. When the buffer is full the record is dropped
+ * and counted. The recorded traffic can be replayed offline by
+ * {@link TrafficReplayer}.
+ *
+ * @author springcloudgateway &lt;springcloudgateway@163.com, springcloudgateway@163.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+@CustomLog
+public class TrafficRecorder extends ApplicationTaskRunner<RunnerProperties> {
+
+    private final RecordingProperties recordingConfig;
+    private final GatewayMetricsFacade metricsFacade;
+    private final MpscRingBuffer<TrafficRecord> ringBuffer;
+    private TrafficSegmentStore store;
+    private volatile boolean started;
+
+    public TrafficRecorder(RecordingProperties recordingConfig, GatewayMetricsFacade metricsFacade) {
+        super(new RunnerProperties(StartupMode.ASYNC, 1));
+        this.recordingConfig = notNullOf(recordingConfig, "recordingConfig");
+        this.metricsFacade = notNullOf(metricsFacade, "metricsFacade");
+        this.ringBuffer = new MpscRingBuffer<>(recordingConfig.getBufferCapacity());
+    }
+
+    @Override
+    protected void onApplicationStarted(ApplicationArguments args, SafeScheduledTaskPoolExecutor worker) throws Exception {
+        if (!recordingConfig.isEnabled()) {
+            return;
+        }
+        this.store = new TrafficSegmentStore(new File(recordingConfig.getDirectory()),
+                (int) recordingConfig.getSegmentSize().toBytes(), recordingConfig.getMaxSegments());
+        worker.scheduleWithFixedDelay(() -> drain(), recordingConfig.getDrainIntervalMs(),
+                recordingConfig.getDrainIntervalMs(), MILLISECONDS);
+        this.started = true;
+        log.info("Started traffic recorder of directory: {}", recordingConfig.getDirectory());
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        this.started = false;
+        super.destroy();
+        // Flush the remaining records.
+        drain();
+        synchronized (this) {
+            if (store != null) {
+                store.close();
+            }
+        }
+    }
+
+    /**
+     * Check whether the request should be recorded.
+     *
+     * @param percentage
+     *            The recording sampling percentage of the route.
+     * @return
+     */
+    public boolean isSampled(double percentage) {
+        return started && percentage > 0 && ThreadLocalRandom.current().nextDouble() < percentage;
+    }
+
+    public int getMaxBodyBytes() {
+        return (int) recordingConfig.getMaxBodySize().toBytes();
+    }
+
+    public RecordingProperties getRecordingConfig() {
+        return recordingConfig;
+    }
+
+    public void record(TrafficRecord record) {
+        metricsFacade.counter(MetricsName.TRAFFIC_RECORD_TOTAL, 1);
+        if (!started || !ringBuffer.offer(record)) {
+            metricsFacade.counter(MetricsName.TRAFFIC_RECORD_DROPPED_TOTAL, 1);
+        }
+    }
+
+    private synchronized void drain() {
+        if (store == null) {
+            return;
+        }
+        try {
+            while (ringBuffer.drain(record -> append(record), DRAIN_BATCH_SIZE) > 0) {
+            }
+            store.flush();
+        } catch (Exception e) {
+            log.warn("Failed to write traffic records.", e);
+        }
+    }
+
+    private void append(TrafficRecord record) {
+        try {
+            if (!store.append(record)) {
+                log.debug("Dropped traffic record larger than segment size: {}", record);
+                metricsFacade.counter(MetricsName.TRAFFIC_RECORD_DROPPED_TOTAL, 1);
+            }
+        } catch (Exception e) {
+            metricsFacade.counter(MetricsName.TRAFFIC_RECORD_DROPPED_TOTAL, 1);
+            log.warn("Failed to append traffic record.", e);
+        }
+    }
+
+    private static final int DRAIN_BATCH_SIZE = 1024;
+
+}
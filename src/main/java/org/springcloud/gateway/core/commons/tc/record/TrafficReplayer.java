@@ -0,0 +1,271 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors.<springcloudgateway@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.commons.tc.record;
+
+import static java.util.Collections.emptyMap;
+import static java.util.Objects.isNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.apache.commons.lang3.StringUtils.isBlank;
+import static org.apache.commons.lang3.StringUtils.removeEnd;
+import static org.springcloud.gateway.core.lang.Assert2.hasTextOf;
+import static org.springcloud.gateway.core.lang.Assert2.notNullOf;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.http.HttpHeaders;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.HttpMethod;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * {@link TrafficReplayer}, The offline replay tool of the traffic recorded by
+ * {@link TrafficRecorder}, which re-drives the captured requests against the
+ * target (e.g. a local gateway or backend) at the original pace multiplied by
+ * the speed, and reports the latency histograms and the status mismatches
+ * compared with the recorded responses. </br>
+ * </br>
+ * Usage:
+ *
+ * <pre>
+ * java -cp ... org.springcloud.gateway.core.commons.tc.record.TrafficReplayer \
+ *     --dir=/tmp/iscg-traffic-records --target=http://localhost:18085 [--speed=1] [--concurrency=256] [--routeId=] \
+ *     [--masked.Authorization='Bearer test-token']
+ * </pre>
+ *
+ * The speed of 0 means replaying as fast as possible (bounded by the
+ * concurrency). The records of the truncated request body (exceeded the
+ * recording max body size) are skipped and counted, since they are not the
+ * same requests anymore. </br>
+ * </br>
+ * The request headers are replayed as recorded, except:
+ * <ul>
+ * <li>Host, Content-Length and Transfer-Encoding, which are set by the client
+ * for the target and the replayed body.</li>
+ * <li>The masked headers (e.g. Authorization, Cookie, see the recording
+ * 'maskHeaders'), whose real values were never recorded. They are replayed
+ * with the placeholder value, i.e. the '--masked.&lt;header&gt;' option (e.g.
+ * the token of the test account), otherwise the recorded
+ * {@link TrafficCapture#MASKED_VALUE}, so the target still goes through its
+ * authentication path (expect the 401 mismatches without the option).</li>
+ * </ul>
+ *
+ * @author springcloudgateway &lt;springcloudgateway@163.com, springcloudgateway@163.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+public class TrafficReplayer {
+
+    private final File directory;
+    private final String target;
+    private final double speed;
+    private final int concurrency;
+    private final String routeId;
+    private final HttpHeaders maskedPlaceholders;
+    private final HttpClient httpClient;
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final Map<String, Timer> latencyTimers = new ConcurrentHashMap<>(8);
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder mismatches = new LongAdder();
+    private final LongAdder truncatedSkips = new LongAdder();
+
+    public TrafficReplayer(File directory, String target, double speed, int concurrency, String routeId) {
+        this(directory, target, speed, concurrency, routeId, emptyMap());
+    }
+
+    /**
+     * @param directory
+     * @param target
+     * @param speed
+     * @param concurrency
+     * @param routeId
+     * @param maskedPlaceholders
+     *            The replayed values of the masked headers, keyed by the header
+     *            name (case insensitive).
+     */
+    public TrafficReplayer(File directory, String target, double speed, int concurrency, String routeId,
+            Map<String, String> maskedPlaceholders) {
+        this.directory = notNullOf(directory, "directory");
+        this.target = removeEnd(hasTextOf(target, "target"), "/");
+        this.speed = Math.max(speed, 0d);
+        this.concurrency = Math.max(concurrency, 1);
+        this.routeId = routeId;
+        this.maskedPlaceholders = new HttpHeaders();
+        notNullOf(maskedPlaceholders, "maskedPlaceholders");
+        maskedPlaceholders.forEach((name, value) -> this.maskedPlaceholders.set(name, value));
+        this.httpClient = HttpClient.create(ConnectionProvider.create("traffic-replayer", this.concurrency));
+    }
+
+    /**
+     * Replay all the recorded traffic and wait for the completion.
+     *
+     * @return Returns the number of the replayed requests.
+     * @throws IOException
+     */
+    public long replay() throws IOException {
+        Semaphore permits = new Semaphore(concurrency);
+        long replayBegin = System.nanoTime();
+        long[] firstTimestamp = { -1L };
+        long[] count = { 0L };
+        TrafficSegmentStore.readAll(directory, record -> {
+            if (!isBlank(routeId) && !routeId.equals(record.getRouteId())) {
+                return;
+            }
+            if (record.isRequestTruncated()) {
+                truncatedSkips.increment();
+                return;
+            }
+            if (firstTimestamp[0] < 0) {
+                firstTimestamp[0] = record.getTimestamp();
+            }
+            pace(replayBegin, record.getTimestamp() - firstTimestamp[0]);
+            permits.acquireUninterruptibly();
+            send(record).doFinally(signal -> permits.release()).subscribe();
+            ++count[0];
+        });
+        // Wait for all in-flight requests.
+        permits.acquireUninterruptibly(concurrency);
+        return count[0];
+    }
+
+    public void printReport(PrintStream out) {
+        out.printf("Replayed requests errors: %s, status mismatches: %s, skipped truncated: %s%n", errors.sum(),
+                mismatches.sum(), truncatedSkips.sum());
+        out.printf("%-32s %10s %10s %10s %10s %10s %10s %10s%n", "routeId", "count", "mean(ms)", "p50", "p90", "p99",
+                "p999", "max");
+        latencyTimers.forEach((routeId, timer) -> {
+            HistogramSnapshot snapshot = timer.takeSnapshot();
+            Map<Double, Double> percentiles = new HashMap<>(8);
+            for (ValueAtPercentile value : snapshot.percentileValues()) {
+                percentiles.put(value.percentile(), value.value(MILLISECONDS));
+            }
+            out.printf("%-32s %10d %10.2f %10.2f %10.2f %10.2f %10.2f %10.2f%n", routeId, snapshot.count(),
+                    snapshot.mean(MILLISECONDS), percentiles.get(0.5), percentiles.get(0.9), percentiles.get(0.99),
+                    percentiles.get(0.999), snapshot.max(MILLISECONDS));
+        });
+    }
+
+    private void pace(long replayBegin, long offsetMs) {
+        if (speed <= 0 || offsetMs <= 0) {
+            return;
+        }
+        long delayNanos = (long) (MILLISECONDS.toNanos(offsetMs) / speed) - (System.nanoTime() - replayBegin);
+        if (delayNanos > 0) {
+            try {
+                NANOSECONDS.sleep(delayNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private Mono<Integer> send(TrafficRecord record) {
+        long begin = System.nanoTime();
+        byte[] body = record.getRequestBody();
+        return httpClient.headers(headers -> {
+            record.getRequestHeaders().forEach((name, values) -> {
+                if (!isSkipHeader(name)) {
+                    values.forEach(
+                            v -> headers.add(name, TrafficCapture.MASKED_VALUE.equals(v) ? getMaskedPlaceholder(name) : v));
+                }
+            });
+            headers.set(HttpHeaders.CONTENT_LENGTH, body.length);
+        })
+                .request(HttpMethod.valueOf(record.getMethod()))
+                .uri(target + record.getPathAndQuery())
+                .send(Mono.fromSupplier(() -> Unpooled.wrappedBuffer(body)))
+                .responseSingle((response, content) -> content.then(Mono.just(response.status().code())))
+                .doOnNext(statusCode -> {
+                    getLatencyTimer(record.getRouteId()).record(System.nanoTime() - begin, NANOSECONDS);
+                    if (statusCode != record.getStatusCode()) {
+                        mismatches.increment();
+                    }
+                })
+                .doOnError(ex -> errors.increment())
+                .onErrorResume(ex -> Mono.empty());
+    }
+
+    private String getMaskedPlaceholder(String name) {
+        String placeholder = maskedPlaceholders.getFirst(name);
+        return isNull(placeholder) ? TrafficCapture.MASKED_VALUE : placeholder;
+    }
+
+    private Timer getLatencyTimer(String routeId) {
+        String key = isNull(routeId) ? "" : routeId;
+        return latencyTimers.computeIfAbsent(key, k -> Timer.builder("traffic.replay.latency")
+                .tag("routeId", k)
+                .publishPercentiles(0.5, 0.9, 0.99, 0.999)
+                .register(registry));
+    }
+
+    private static boolean isSkipHeader(String name) {
+        return HttpHeaders.HOST.equalsIgnoreCase(name) || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)
+                || HttpHeaders.TRANSFER_ENCODING.equalsIgnoreCase(name);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>(8);
+        Map<String, String> maskedPlaceholders = new HashMap<>(4);
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.indexOf('=') > 2) {
+                String name = arg.substring(2, arg.indexOf('='));
+                String value = arg.substring(arg.indexOf('=') + 1);
+                if (name.startsWith(MASKED_OPTION_PREFIX) && name.length() > MASKED_OPTION_PREFIX.length()) {
+                    maskedPlaceholders.put(name.substring(MASKED_OPTION_PREFIX.length()), value);
+                } else {
+                    options.put(name, value);
+                }
+            }
+        }
+        if (!options.containsKey("dir") || !options.containsKey("target")) {
+            System.err.printf("Usage: java [-options] %s --dir=<directory> --target=<url> [--speed=1] "
+                    + "[--concurrency=256] [--routeId=<routeId>] [--masked.<header>=<placeholder>]%n",
+                    TrafficReplayer.class.getName());
+            return;
+        }
+        File dir = new File(options.get("dir"));
+        if (!dir.canRead()) {
+            throw new FileNotFoundException(dir.getAbsolutePath());
+        }
+        TrafficReplayer replayer = new TrafficReplayer(dir, options.get("target"),
+                Double.parseDouble(options.getOrDefault("speed", "1")),
+                Integer.parseInt(options.getOrDefault("concurrency", "256")), options.get("routeId"), maskedPlaceholders);
+
+        long begin = System.currentTimeMillis();
+        long count = replayer.replay();
+        System.out.printf("Replayed %s requests in %sms%n", count, System.currentTimeMillis() - begin);
+        replayer.printReport(System.out);
+        System.exit(0);
+    }
+
+    private static final String MASKED_OPTION_PREFIX = "masked.";
+
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors.<springcloudgateway@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.commons.tc.record;
+
+import static java.lang.String.format;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static org.springcloud.gateway.core.lang.Assert2.isTrueOf;
+import static org.springcloud.gateway.core.lang.Assert2.notNullOf;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import io.netty.util.internal.PlatformDependent;
+import lombok.CustomLog;
+
+/**
+ * {@link TrafficSegmentStore}, The append-only store of the captured traffic
+ * records, which consists of the rolling pairs of segment files: </br>
+ * </br>
+ * <ul>
+ * <li>{@code traffic-<seq>.seg}: The memory-mapped (pre-allocated) data file,
+ * which starts with the magic and version, and then the records of (int length
+ * + encoded {@link TrafficRecord}).</li>
+ * <li>{@code traffic-<seq>.idx}: The index file of fixed 16 bytes entries
+ * (long timestamp, int offset, int length), an entry is appended only after
+ * the record is completely written, so the replayer never reads the partial
+ * records.</li>
+ * </ul>
+ * The mapped buffers are unmapped as soon as the segment is rolled, closed or
+ * read, rather than when they are collected by the GC, so the rolled and
+ * deleted segments do not keep holding the address space and the disk space.
+ * </br>
+ * The writing methods are not thread-safe, and should be called by the single
+ * writer thread, see {@link TrafficRecorder}
+ *
+ * @author springcloudgateway &lt;springcloudgateway@163.com, springcloudgateway@163.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+@CustomLog
+public class TrafficSegmentStore implements Closeable {
+
+    private final File directory;
+    private final int segmentSize;
+    private final int maxSegments;
+
+    private long sequence;
+    private MappedByteBuffer dataBuffer;
+    private DataOutputStream indexOutput;
+
+    public TrafficSegmentStore(File directory, int segmentSize, int maxSegments) {
+        this.directory = notNullOf(directory, "directory");
+        isTrueOf(segmentSize > SEGMENT_HEADER_SIZE, "segmentSize > SEGMENT_HEADER_SIZE");
+        this.segmentSize = segmentSize;
+        this.maxSegments = Math.max(maxSegments, 1);
+    }
+
+    /**
+     * Append the record to the current segment, and roll to the new segment if
+     * the remaining capacity is insufficient.
+     *
+     * @param record
+     * @return Returns false if the record is larger than the segment capacity.
+     * @throws IOException
+     */
+    public boolean append(TrafficRecord record) throws IOException {
+        int length = record.encodedSize();
+        if (length + 4 > segmentSize - SEGMENT_HEADER_SIZE) {
+            return false;
+        }
+        if (isNull(dataBuffer) || dataBuffer.remaining() < length + 4) {
+            roll();
+        }
+        int offset = dataBuffer.position();
+        dataBuffer.putInt(length);
+        record.encode(dataBuffer);
+
+        indexOutput.writeLong(record.getTimestamp());
+        indexOutput.writeInt(offset);
+        indexOutput.writeInt(length + 4);
+        return true;
+    }
+
+    /**
+     * Flush the index entries, the data is written to the page cache via the
+     * mapped buffer directly, which is synchronized to the disk by the OS.
+     *
+     * @throws IOException
+     */
+    public void flush() throws IOException {
+        if (nonNull(indexOutput)) {
+            indexOutput.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (nonNull(dataBuffer)) {
+            try {
+                dataBuffer.force();
+            } finally {
+                unmap(dataBuffer);
+                this.dataBuffer = null;
+            }
+        }
+        if (nonNull(indexOutput)) {
+            indexOutput.close();
+            this.indexOutput = null;
+        }
+    }
+
+    private void roll() throws IOException {
+        close();
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException(format("Failed to create traffic records directory: %s", directory));
+        }
+        if (sequence == 0) {
+            List<File> segments = listSegments(directory);
+            sequence = segments.isEmpty() ? 0 : parseSequence(segments.get(segments.size() - 1));
+        }
+        ++sequence;
+
+        File dataFile = new File(directory, format(SEGMENT_NAME_PATTERN, sequence, DATA_SUFFIX));
+        try (RandomAccessFile raf = new RandomAccessFile(dataFile, "rw")) {
+            // The mapping remains valid after the file is closed.
+            this.dataBuffer = raf.getChannel().map(MapMode.READ_WRITE, 0, segmentSize);
+        }
+        dataBuffer.putInt(SEGMENT_MAGIC);
+        dataBuffer.putInt(SEGMENT_VERSION);
+        this.indexOutput = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(new File(directory, format(SEGMENT_NAME_PATTERN, sequence, INDEX_SUFFIX)))));
+        log.info("Rolled traffic records segment: {}", dataFile);
+
+        deleteExpiredSegments();
+    }
+
+    private void deleteExpiredSegments() {
+        List<File> segments = listSegments(directory);
+        for (int i = 0, expired = segments.size() - maxSegments; i < expired; i++) {
+            File dataFile = segments.get(i);
+            File indexFile = new File(directory, dataFile.getName().replace(DATA_SUFFIX, INDEX_SUFFIX));
+            if (!indexFile.delete() || !dataFile.delete()) {
+                log.warn("Failed to delete expired traffic records segment: {}", dataFile);
+            }
+        }
+    }
+
+    /**
+     * Read all the records of the segments in the directory in order.
+     *
+     * @param directory
+     * @param consumer
+     * @return Returns the number of the records read.
+     * @throws IOException
+     */
+    public static long readAll(File directory, Consumer<TrafficRecord> consumer) throws IOException {
+        long count = 0;
+        for (File dataFile : listSegments(directory)) {
+            File indexFile = new File(directory, dataFile.getName().replace(DATA_SUFFIX, INDEX_SUFFIX));
+            if (!indexFile.exists()) {
+                continue;
+            }
+            try (RandomAccessFile raf = new RandomAccessFile(dataFile, "r");
+                    DataInputStream index = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)));) {
+                MappedByteBuffer data = raf.getChannel().map(MapMode.READ_ONLY, 0, raf.length());
+                try {
+                    count += readSegment(dataFile, data, index, consumer);
+                } finally {
+                    // The decoded records are copied, nothing refers to the
+                    // mapping anymore.
+                    unmap(data);
+                }
+            }
+        }
+        return count;
+    }
+
+    private static long readSegment(File dataFile, MappedByteBuffer data, DataInputStream index,
+            Consumer<TrafficRecord> consumer) throws IOException {
+        if (data.getInt(0) != SEGMENT_MAGIC) {
+            log.warn("Skip invalid traffic records segment: {}", dataFile);
+            return 0;
+        }
+        if (data.getInt(4) != SEGMENT_VERSION) {
+            log.warn("Skip unsupported version {} of traffic records segment: {}", data.getInt(4), dataFile);
+            return 0;
+        }
+        long count = 0;
+        while (true) {
+            int offset, length;
+            try {
+                index.readLong();
+                offset = index.readInt();
+                length = index.readInt();
+            } catch (EOFException e) {
+                break;
+            }
+            ByteBuffer slice = data.duplicate();
+            slice.position(offset + 4).limit(offset + length);
+            consumer.accept(TrafficRecord.decode(slice));
+            ++count;
+        }
+        return count;
+    }
+
+    /**
+     * Release the mapping immediately, falls back to waiting for the GC when
+     * the cleaner is inaccessible. The buffer (and its duplicates) must not be
+     * accessed after.
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        PlatformDependent.freeDirectBuffer(buffer);
+    }
+
+    static List<File> listSegments(File directory) {
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(DATA_SUFFIX));
+        if (isNull(files)) {
+            return Arrays.asList();
+        }
+        return Arrays.stream(files)
+                .sorted((f1, f2) -> Long.compare(parseSequence(f1), parseSequence(f2)))
+                .collect(Collectors.toList());
+    }
+
+    static long parseSequence(File segmentFile) {
+        String name = segmentFile.getName();
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - DATA_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    public static final String SEGMENT_PREFIX = "traffic-";
+    public static final String DATA_SUFFIX = ".seg";
+    public static final String INDEX_SUFFIX = ".idx";
+    private static final String SEGMENT_NAME_PATTERN = SEGMENT_PREFIX + "%016d%s";
+    private static final int SEGMENT_MAGIC = 0x49534752; // "ISGR"
+    private static final int SEGMENT_VERSION = 2;
+    private static final int SEGMENT_HEADER_SIZE = 8;
+
+}
@@ -31,6 +31,18 @@ public interface IRouteCacheRefresher {
      * 
      * @return
      */
-    Mono<Void> refreshRoutes();
+    default Mono<Void> refreshRoutes() {
+        return refreshRoutes(false);
+    }
+
+    /**
+     * Refresh routing information in memory configuration.
+     * 
+     * @param fullSync
+     *            Whether to compare all the routes instead of only the changed
+     *            routes since the last refreshing.
+     * @return
+     */
+    Mono<Void> refreshRoutes(boolean fullSync);
 
 }
\ No newline at end of file
@@ -23,4 +23,12 @@ public class RouteProperties {
 
     private Long refreshDelayMs = 30_000L;
 
+    /**
+     * The interval of the full routes synchronization (comparing all the route
+     * definitions), between which only the changed routes are synchronized
+     * according to the routes revision and versions, it also picks up the
+     * changes written by the writers which don't bump the revision.
+     */
+    private Long fullSyncIntervalMs = 600_000L;
+
 }
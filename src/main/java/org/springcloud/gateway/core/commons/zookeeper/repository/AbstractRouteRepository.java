@@ -16,7 +16,14 @@
 package org.springcloud.gateway.core.commons.zookeeper.repository;
 
 import static org.springcloud.gateway.core.log.SmartLoggerFactory.getLogger;
-
+import static java.lang.System.currentTimeMillis;
+import static java.util.Collections.emptyMap;
+import static java.util.stream.Collectors.toCollection;
+import static java.util.stream.Collectors.toList;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
 import javax.annotation.PostConstruct;
@@ -31,6 +38,7 @@ import com.google.common.collect.Maps;
 
 import org.springcloud.gateway.core.commons.zookeeper.IRouteCacheRefresher;
 import org.springcloud.gateway.core.commons.zookeeper.RefreshRouteApplicationListener.RefreshType;
+import org.springcloud.gateway.core.commons.zookeeper.config.RouteProperties;
 import org.springcloud.gateway.core.log.SmartLogger;
 
 import reactor.core.publisher.Flux;
@@ -38,6 +46,13 @@ import reactor.core.publisher.Mono;
 
 /**
  * Abstract routes configuration repository. </br>
+ * </br>
+ * The routes are synchronized incrementally if the persistent store supports
+ * the revision (a counter bumped on every change) and the per route versions:
+ * nothing is loaded when the revision is unchanged, otherwise only the routes
+ * whose versions changed are loaded. The full synchronization (comparing all
+ * the route definitions) is still done every fullSyncIntervalMs, and the
+ * {@link RefreshRoutesEvent} is published only when the routes really changed.
  *
  * @author springcloudgateway<springcloudgateway@163.com>
  * @version v1.0.0
@@ -47,10 +62,19 @@ public abstract class AbstractRouteRepository extends InMemoryRouteDefinitionRep
 
     protected final SmartLogger log = getLogger(getClass());
     protected @Autowired ApplicationEventPublisher publisher;
+    protected @Autowired RouteProperties routeConfig;
+
+    /**
+     * The synchronized routes snapshot (same as in memory) by route id.
+     */
+    private final Map<String, RouteDefinition> syncedRoutes = Maps.newHashMap();
+    private Map<String, String> syncedVersions = emptyMap();
+    private long syncedRevision = UNSUPPORTED_REVISION;
+    private long lastFullSyncTime = 0L;
 
     @PostConstruct
     public synchronized Mono<Void> init() {
-        return refreshRoutes();
+        return refreshRoutes(true);
     }
 
     /**
@@ -58,30 +82,96 @@ public abstract class AbstractRouteRepository extends InMemoryRouteDefinitionRep
      * routing differences in memory and persistent storage.
      */
     @Override
-    public synchronized Mono<Void> refreshRoutes() {
-        Flux<RouteDefinition> memeryRoutes = getRouteDefinitions();
-        Flux<RouteDefinition> permanentRoutes = loadPermanentRouteDefinitions();
-
-        Map<RouteDefinition, Boolean> newMemRoutes = Maps.newHashMap();
-        memeryRoutes.subscribe(route -> newMemRoutes.put(route, false));
-
-        Map<RouteDefinition, Boolean> newPermanentRoutes = Maps.newHashMap();
-        permanentRoutes.subscribe(route -> newPermanentRoutes.put(route, false));
+    public synchronized Mono<Void> refreshRoutes(boolean fullSync) {
+        long now = currentTimeMillis();
+        boolean changed;
+        if (fullSync || now - lastFullSyncTime >= routeConfig.getFullSyncIntervalMs()) {
+            changed = doFullSync();
+            lastFullSyncTime = now;
+        } else {
+            changed = doIncrementalSync();
+        }
+        if (changed) {
+            publisher.publishEvent(new RefreshRoutesEvent(RefreshType.STATE));
+        }
+        return Mono.empty();
+    }
 
-        // ADD routes.
-        Flux.fromIterable(newPermanentRoutes.keySet())
-                .filter(perRoute -> !newMemRoutes.containsKey(perRoute))
-                .flatMap(route -> super.save(Mono.just(route)))
-                .subscribe();
+    private boolean doFullSync() {
+        long revision = loadPermanentRevision();
+        Map<String, String> versions = revision == UNSUPPORTED_REVISION ? emptyMap() : loadPermanentRouteVersions();
+
+        Map<String, RouteDefinition> permanentRoutes = Maps.newHashMap();
+        loadPermanentRouteDefinitions().subscribe(route -> permanentRoutes.put(route.getId(), route));
+        List<String> removedRouteIds = syncedRoutes.keySet()
+                .stream()
+                .filter(routeId -> !permanentRoutes.containsKey(routeId))
+                .collect(toList());
+
+        boolean changed = applyChanges(permanentRoutes.values(), removedRouteIds);
+        this.syncedVersions = versions;
+        this.syncedRevision = revision;
+        log.debug("Full synchronized routes. revision: {}, changed: {}", revision, changed);
+        return changed;
+    }
 
-        // REMOVE routes.
-        Flux.fromIterable(newMemRoutes.keySet())
-                .filter(perRoute -> !newPermanentRoutes.containsKey(perRoute))
-                .flatMap(route -> super.delete(Mono.just(route.getId())))
-                .subscribe();
+    private boolean doIncrementalSync() {
+        long revision = loadPermanentRevision();
+        if (revision == UNSUPPORTED_REVISION) {
+            return doFullSync();
+        }
+        if (revision == syncedRevision) {
+            return false;
+        }
+        Map<String, String> versions = loadPermanentRouteVersions();
+        List<String> changedRouteIds = versions.entrySet()
+                .stream()
+                .filter(e -> !e.getValue().equals(syncedVersions.get(e.getKey())))
+                .map(e -> e.getKey())
+                .collect(toList());
+        List<String> removedRouteIds = syncedRoutes.keySet()
+                .stream()
+                .filter(routeId -> !versions.containsKey(routeId))
+                .collect(toCollection(ArrayList::new));
+
+        List<RouteDefinition> changedRoutes = new ArrayList<>(changedRouteIds.size());
+        if (!changedRouteIds.isEmpty()) {
+            loadPermanentRouteDefinitions(changedRouteIds).subscribe(route -> changedRoutes.add(route));
+        }
+        // The route deleted after the versions loaded.
+        changedRouteIds.stream()
+                .filter(routeId -> changedRoutes.stream().noneMatch(route -> routeId.equals(route.getId())))
+                .filter(routeId -> syncedRoutes.containsKey(routeId))
+                .forEach(routeId -> removedRouteIds.add(routeId));
+
+        boolean changed = applyChanges(changedRoutes, removedRouteIds);
+        this.syncedVersions = versions;
+        this.syncedRevision = revision;
+        log.debug("Incremental synchronized routes. revision: {}, changedRouteIds: {}, removedRouteIds: {}, changed: {}",
+                revision, changedRouteIds, removedRouteIds, changed);
+        return changed;
+    }
 
-        publisher.publishEvent(new RefreshRoutesEvent(RefreshType.STATE));
-        return Mono.empty();
+    /**
+     * Apply the changed routes to memory, the route is saved only if its
+     * definition is really different.
+     */
+    private boolean applyChanges(Collection<RouteDefinition> updatedRoutes, Collection<String> removedRouteIds) {
+        boolean changed = false;
+        for (RouteDefinition route : updatedRoutes) {
+            if (!route.equals(syncedRoutes.get(route.getId()))) {
+                super.save(Mono.just(route)).subscribe();
+                syncedRoutes.put(route.getId(), route);
+                changed = true;
+            }
+        }
+        for (String routeId : removedRouteIds) {
+            if (syncedRoutes.remove(routeId) != null) {
+                super.delete(Mono.just(routeId)).subscribe();
+                changed = true;
+            }
+        }
+        return changed;
     }
 
     /**
@@ -89,4 +179,35 @@ public abstract class AbstractRouteRepository extends InMemoryRouteDefinitionRep
      */
     protected abstract Flux<RouteDefinition> loadPermanentRouteDefinitions();
 
+    /**
+     * DO load the routes configuration of the route ids from persistent store,
+     * the deleted routes are absent.
+     */
+    protected Flux<RouteDefinition> loadPermanentRouteDefinitions(Collection<String> routeIds) {
+        return loadPermanentRouteDefinitions().filter(route -> routeIds.contains(route.getId()));
+    }
+
+    /**
+     * DO load the routes revision from persistent store, which must be
+     * increased on every change of the routes.
+     * 
+     * @return Returns {@link #UNSUPPORTED_REVISION} if not supported, and then
+     *         the routes are always full synchronized.
+     */
+    protected long loadPermanentRevision() {
+        return UNSUPPORTED_REVISION;
+    }
+
+    /**
+     * DO load the versions (e.g. the revision of the last change) of all routes
+     * from persistent store.
+     * 
+     * @return The versions by route id.
+     */
+    protected Map<String, String> loadPermanentRouteVersions() {
+        return emptyMap();
+    }
+
+    public static final long UNSUPPORTED_REVISION = -1L;
+
 }
\ No newline at end of file
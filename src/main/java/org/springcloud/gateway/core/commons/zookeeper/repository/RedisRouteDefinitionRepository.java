@@ -16,20 +16,40 @@
 package org.springcloud.gateway.core.commons.zookeeper.repository;
 
 import static org.springcloud.gateway.core.common.constant.GatewayIAMConstants.CACHE_PREFIX_IAM_GWTEWAY_ROUTES;
+import static org.springcloud.gateway.core.common.constant.GatewayIAMConstants.CACHE_PREFIX_IAM_GWTEWAY_ROUTES_REVISION;
+import static org.springcloud.gateway.core.common.constant.GatewayIAMConstants.CACHE_PREFIX_IAM_GWTEWAY_ROUTES_VERSIONS;
 import static org.springcloud.gateway.core.modelseri.JacksonUtils.parseJSON;
 import static org.springcloud.gateway.core.modelseri.JacksonUtils.toJSONString;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
 import static java.util.stream.Collectors.toList;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cloud.gateway.route.RouteDefinition;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
 
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 /**
  * Redis routes information persistence class This class contains route
- * persistence and route refresh of distributed cluster.
+ * persistence and route refresh of distributed cluster. </br>
+ * </br>
+ * Besides the routes hash, every change bumps the routes revision counter and
+ * records it as the version of the changed route (atomically by lua scripts),
+ * so that the refreshing only reads the revision in the steady state. The
+ * versions of the routes written by others (without bumping the revision) are
+ * backfilled when the number of routes and versions are different. The
+ * versions and revision keys are hash tagged by the routes key, so the scripts
+ * are also runnable on the redis cluster (without CROSSSLOT).
  *
  * @author springcloudgateway<springcloudgateway@163.com>
  * @version v1.0.0
@@ -48,11 +68,41 @@ public class RedisRouteDefinitionRepository extends AbstractRouteRepository {
                 .collect(toList()));
     }
 
+    @Override
+    protected Flux<RouteDefinition> loadPermanentRouteDefinitions(Collection<String> routeIds) {
+        List<Object> routeDefinitions = stringTemplate.opsForHash()
+                .multiGet(CACHE_PREFIX_IAM_GWTEWAY_ROUTES, new ArrayList<>(routeIds));
+        return Flux.fromIterable(routeDefinitions.stream()
+                .filter(routeDefinition -> nonNull(routeDefinition))
+                .map(routeDefinition -> parseJSON(routeDefinition.toString(), RouteDefinition.class))
+                .collect(toList()));
+    }
+
+    @Override
+    protected long loadPermanentRevision() {
+        String revision = stringTemplate.opsForValue().get(CACHE_PREFIX_IAM_GWTEWAY_ROUTES_REVISION);
+        return isNull(revision) ? 0L : Long.parseLong(revision);
+    }
+
+    @Override
+    protected Map<String, String> loadPermanentRouteVersions() {
+        Map<Object, Object> versions = stringTemplate.opsForHash().entries(CACHE_PREFIX_IAM_GWTEWAY_ROUTES_VERSIONS);
+        Long routesSize = stringTemplate.opsForHash().size(CACHE_PREFIX_IAM_GWTEWAY_ROUTES);
+        if (nonNull(routesSize) && routesSize != versions.size()) {
+            Long revision = stringTemplate.execute(BACKFILL_VERSIONS_SCRIPT, ROUTES_KEYS);
+            log.info("Backfilled the routes versions, routes: {}, versions: {}, revision: {}", routesSize, versions.size(),
+                    revision);
+            versions = stringTemplate.opsForHash().entries(CACHE_PREFIX_IAM_GWTEWAY_ROUTES_VERSIONS);
+        }
+        Map<String, String> result = new HashMap<>(versions.size());
+        versions.forEach((routeId, version) -> result.put(routeId.toString(), version.toString()));
+        return result;
+    }
+
     @Override
     public Mono<Void> save(Mono<RouteDefinition> route) {
         return route.flatMap(routeDefinition -> {
-            stringTemplate.opsForHash().put(CACHE_PREFIX_IAM_GWTEWAY_ROUTES, routeDefinition.getId(),
-                    toJSONString(routeDefinition));
+            stringTemplate.execute(SAVE_SCRIPT, ROUTES_KEYS, routeDefinition.getId(), toJSONString(routeDefinition));
             return Mono.empty();
         });
     }
@@ -60,9 +110,50 @@ public class RedisRouteDefinitionRepository extends AbstractRouteRepository {
     @Override
     public Mono<Void> delete(Mono<String> routeId) {
         return routeId.flatMap(id -> {
-            stringTemplate.opsForHash().delete(CACHE_PREFIX_IAM_GWTEWAY_ROUTES, id);
+            stringTemplate.execute(DELETE_SCRIPT, ROUTES_KEYS, id);
             return Mono.empty();
         });
     }
 
+    private static final List<String> ROUTES_KEYS = Arrays.asList(CACHE_PREFIX_IAM_GWTEWAY_ROUTES,
+            CACHE_PREFIX_IAM_GWTEWAY_ROUTES_VERSIONS, CACHE_PREFIX_IAM_GWTEWAY_ROUTES_REVISION);
+
+    /**
+     * KEYS: [routes, versions, revision], ARGV: [routeId, routeDefinition]
+     */
+    private static final RedisScript<Long> SAVE_SCRIPT = RedisScript.of(""
+            + "redis.call('HSET', KEYS[1], ARGV[1], ARGV[2]) "
+            + "local revision = redis.call('INCR', KEYS[3]) "
+            + "redis.call('HSET', KEYS[2], ARGV[1], revision) "
+            + "return revision", Long.class);
+
+    /**
+     * KEYS: [routes, versions, revision], ARGV: [routeId]
+     */
+    private static final RedisScript<Long> DELETE_SCRIPT = RedisScript.of(""
+            + "redis.call('HDEL', KEYS[2], ARGV[1]) "
+            + "if redis.call('HDEL', KEYS[1], ARGV[1]) > 0 then "
+            + "  return redis.call('INCR', KEYS[3]) "
+            + "end "
+            + "return 0", Long.class);
+
+    /**
+     * KEYS: [routes, versions, revision]
+     */
+    private static final RedisScript<Long> BACKFILL_VERSIONS_SCRIPT = RedisScript.of(""
+            + "local revision = nil "
+            + "for _, id in ipairs(redis.call('HKEYS', KEYS[1])) do "
+            + "  if redis.call('HEXISTS', KEYS[2], id) == 0 then "
+            + "    revision = revision or redis.call('INCR', KEYS[3]) "
+            + "    redis.call('HSET', KEYS[2], id, revision) "
+            + "  end "
+            + "end "
+            + "for _, id in ipairs(redis.call('HKEYS', KEYS[2])) do "
+            + "  if redis.call('HEXISTS', KEYS[1], id) == 0 then "
+            + "    redis.call('HDEL', KEYS[2], id) "
+            + "    revision = revision or redis.call('INCR', KEYS[3]) "
+            + "  end "
+            + "end "
+            + "return revision or 0", Long.class);
+
 }
\ No newline at end of file
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors. <springcloudgateway@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.eventbus;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * The snapshot of the statistics of the {@link EventBusSupport}, which can be
+ * exported as the queue depth, dropped events and publish latency metrics.
+ *
+ * @author springcloudgateway &lt;springcloudgateway@gmail.com&gt;
+ * @version v1.0.0
+ * @see EventBusSupport#getStats()
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class EventBusStats {
+
+    /**
+     * The name (thread prefix) of the event bus.
+     */
+    private final String name;
+
+    /**
+     * The number of the topics (event classes).
+     */
+    private final int topics;
+
+    /**
+     * The number of the events waiting in the ring buffers.
+     */
+    private final int queueDepth;
+
+    /**
+     * The total number of the published events.
+     */
+    private final long publishedEvents;
+
+    /**
+     * The total number of the events delivered to the subscribers.
+     */
+    private final long deliveredEvents;
+
+    /**
+     * The total number of the events dropped by the overflow policy.
+     */
+    private final long droppedEvents;
+
+    /**
+     * The total time of publishing (in nanoseconds).
+     */
+    private final long totalPublishNanos;
+
+    /**
+     * The maximum time of publishing (in nanoseconds).
+     */
+    private final long maxPublishNanos;
+
+    /**
+     * @return The average time of publishing (in nanoseconds).
+     */
+    public double getAvgPublishNanos() {
+        long total = publishedEvents + droppedEvents;
+        return total == 0 ? 0d : (double) totalPublishNanos / total;
+    }
+
+}
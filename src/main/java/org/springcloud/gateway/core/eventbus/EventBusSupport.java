@@ -16,6 +16,7 @@
 package org.springcloud.gateway.core.eventbus;
 
 import static org.springcloud.gateway.core.lang.Assert2.isTrueOf;
+import static org.springcloud.gateway.core.lang.Assert2.notNullOf;
 import static java.lang.String.valueOf;
 import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
@@ -24,15 +25,33 @@ import static org.apache.commons.lang3.StringUtils.isBlank;
 
 import java.io.Closeable;
 import java.io.IOException;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springcloud.gateway.core.collection.MpscRingBuffer;
 
-import com.google.common.eventbus.AsyncEventBus;
 import com.google.common.eventbus.EventBus;
 
 /**
- * {@link EventBusSupport}
+ * {@link EventBusSupport}, The bounded batching event bus, each topic (the
+ * event class) has a bounded lock-free {@link MpscRingBuffer}, the events are
+ * published without locking, and are drained in batches by the bus threads
+ * and dispatched to the subscribers (see
+ * {@link com.google.common.eventbus.Subscribe}) of the {@link EventBus}. Each
+ * topic is consumed by only one bus thread, so the events of a topic are
+ * delivered in the published order.
+ * <p>
+ * When the ring buffer of the topic is full, the event is handled by the
+ * {@link OverflowPolicy}, the default {@link OverflowPolicy#DROP_NEWEST} never
+ * touches the consumer side of the ring buffer.
  *
  * @author springcloudgateway <springcloudgateway@gmail.com>
  * @version v1.0.0
@@ -43,21 +62,46 @@ public class EventBusSupport implements Closeable {
     /** {@link EventBus} */
     protected final EventBus bus;
 
-    /** {@link ThreadPoolExecutor} */
-    protected ThreadPoolExecutor executor;
+    private final String prefix;
+    private final int bufferSize;
+    private final int batchSize;
+    private final OverflowPolicy overflowPolicy;
+    private final int sampleRate;
+    private final ConcurrentMap<Class<?>, Topic> topics = new ConcurrentHashMap<>(8);
+    private final List<Worker> workers;
+    private final AtomicInteger topicIncr = new AtomicInteger(0);
+    private volatile boolean running = true;
 
     public EventBusSupport(int eventThreads) {
         this(null, eventThreads);
     }
 
     public EventBusSupport(String prefix, int eventThreads) {
+        this(prefix, eventThreads, DEFAULT_BUFFER_SIZE, DEFAULT_OVERFLOW_POLICY);
+    }
+
+    public EventBusSupport(String prefix, int eventThreads, int bufferSize, OverflowPolicy overflowPolicy) {
+        this(prefix, eventThreads, bufferSize, DEFAULT_BATCH_SIZE, overflowPolicy, DEFAULT_SAMPLE_RATE);
+    }
+
+    public EventBusSupport(String prefix, int eventThreads, int bufferSize, int batchSize, OverflowPolicy overflowPolicy,
+            int sampleRate) {
         isTrueOf(eventThreads > 0, "eventThreads >0");
-        this.bus = initEventBus(prefix, eventThreads);
+        isTrueOf(bufferSize > 0, "bufferSize >0");
+        isTrueOf(batchSize > 0, "batchSize >0");
+        isTrueOf(sampleRate > 0, "sampleRate >0");
+        this.prefix = isBlank(prefix) ? "eventbus" : prefix;
+        this.bufferSize = bufferSize;
+        this.batchSize = batchSize;
+        this.overflowPolicy = notNullOf(overflowPolicy, "overflowPolicy");
+        this.sampleRate = sampleRate;
+        this.bus = new EventBus(getClass().getSimpleName());
+        this.workers = initWorkers(eventThreads);
     }
 
     /**
      * Gets or create default singleton instance of {@link EventBusSupport}.
-     * 
+     *
      * @param config
      * @return
      */
@@ -73,8 +117,10 @@ public class EventBusSupport implements Closeable {
     }
 
     /**
-     * Gets {@link EventBus} instance.
-     * 
+     * Gets {@link EventBus} instance, which dispatches the events to the
+     * subscribers synchronously, the events posted directly to it bypass the
+     * ring buffers.
+     *
      * @return
      */
     public EventBus getBus() {
@@ -84,7 +130,7 @@ public class EventBusSupport implements Closeable {
     /**
      * Registers all subscriber methods. </br>
      * see {@link EventBus#register(Object)}
-     * 
+     *
      * @param objects
      *            object whose subscriber methods should be registered.
      */
@@ -99,7 +145,7 @@ public class EventBusSupport implements Closeable {
     /**
      * Unregisters all subscriber methods. </br>
      * see {@link EventBus#unregister(Object)}
-     * 
+     *
      * @param objects
      *            object whose subscriber methods should be registered.
      */
@@ -112,56 +158,312 @@ public class EventBusSupport implements Closeable {
     }
 
     /**
-     * Post events to bus. </br>
+     * Post events to the ring buffers of the topics, which never blocks.
+     * </br>
      * see {@link EventBus#post(Object)}
-     * 
+     *
      * @param events
      */
     public void post(Object... events) {
         if (isActive()) {
             for (Object event : events) {
-                getBus().post(event);
+                if (nonNull(event)) {
+                    obtainTopic(event.getClass()).publish(event);
+                }
             }
         }
     }
 
     /**
      * Check {@link EventBus} worker is active?
-     * 
+     *
      * @return
      */
     public boolean isActive() {
-        return nonNull(executor) && !executor.isShutdown();
+        return running;
+    }
+
+    public String getName() {
+        return prefix;
+    }
+
+    /**
+     * @return The number of the events waiting in the ring buffers.
+     */
+    public int getQueueDepth() {
+        int queueDepth = 0;
+        for (Topic topic : topics.values()) {
+            queueDepth += topic.ringBuffer.size();
+        }
+        return queueDepth;
+    }
+
+    /**
+     * @return The total number of the published events.
+     */
+    public long getPublishedEvents() {
+        long publishedEvents = 0;
+        for (Topic topic : topics.values()) {
+            publishedEvents += topic.publishedEvents.sum();
+        }
+        return publishedEvents;
+    }
+
+    /**
+     * @return The total number of the events dropped by the overflow policy.
+     */
+    public long getDroppedEvents() {
+        long droppedEvents = 0;
+        for (Topic topic : topics.values()) {
+            droppedEvents += topic.droppedEvents.sum();
+        }
+        return droppedEvents;
+    }
+
+    /**
+     * @return The total time of publishing (in nanoseconds), including the
+     *         dropped events.
+     */
+    public long getTotalPublishNanos() {
+        long totalPublishNanos = 0;
+        for (Topic topic : topics.values()) {
+            totalPublishNanos += topic.totalPublishNanos.sum();
+        }
+        return totalPublishNanos;
+    }
+
+    /**
+     * Gets the statistics snapshot of all topics.
+     *
+     * @return
+     */
+    public EventBusStats getStats() {
+        int queueDepth = 0;
+        long publishedEvents = 0, deliveredEvents = 0, droppedEvents = 0, totalPublishNanos = 0, maxPublishNanos = 0;
+        for (Topic topic : topics.values()) {
+            queueDepth += topic.ringBuffer.size();
+            publishedEvents += topic.publishedEvents.sum();
+            deliveredEvents += topic.deliveredEvents.sum();
+            droppedEvents += topic.droppedEvents.sum();
+            totalPublishNanos += topic.totalPublishNanos.sum();
+            maxPublishNanos = Math.max(maxPublishNanos, topic.maxPublishNanos.get());
+        }
+        return new EventBusStats(prefix, topics.size(), queueDepth, publishedEvents, deliveredEvents, droppedEvents,
+                totalPublishNanos, maxPublishNanos);
     }
 
     @Override
     public void close() throws IOException {
         if (isActive()) {
-            executor.shutdown();
+            this.running = false;
+            for (Worker worker : workers) {
+                LockSupport.unpark(worker);
+            }
+        }
+    }
+
+    private Topic obtainTopic(Class<?> eventClass) {
+        Topic topic = topics.get(eventClass);
+        if (isNull(topic)) {
+            topic = topics.computeIfAbsent(eventClass, key -> {
+                Worker worker = workers.get(Math.floorMod(topicIncr.getAndIncrement(), workers.size()));
+                Topic newTopic = new Topic(worker);
+                worker.topics.add(newTopic);
+                return newTopic;
+            });
         }
+        return topic;
     }
 
     /**
-     * Init create {@link EventBus}
-     * 
-     * @param prefix
+     * Init create the bus threads.
+     *
      * @param eventThreads
      * @return
      */
-    private final EventBus initEventBus(String prefix, int eventThreads) {
-        String _prefix = isBlank(prefix) ? "eventbus" : prefix;
-        final AtomicInteger incr = new AtomicInteger(0);
-        this.executor = new ThreadPoolExecutor(eventThreads, eventThreads, 0, MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
-            Thread t = new Thread(r, _prefix.concat("-").concat(valueOf(incr.getAndIncrement())));
-            if (t.isDaemon())
-                t.setDaemon(false);
-            if (t.getPriority() != Thread.NORM_PRIORITY)
-                t.setPriority(Thread.NORM_PRIORITY);
-            return t;
-        });
-        return new AsyncEventBus(getClass().getSimpleName(), executor);
+    private final List<Worker> initWorkers(int eventThreads) {
+        List<Worker> workers = new ArrayList<>(eventThreads);
+        for (int i = 0; i < eventThreads; i++) {
+            Worker worker = new Worker(prefix.concat("-").concat(valueOf(i)));
+            workers.add(worker);
+            worker.start();
+        }
+        return workers;
     }
 
+    /**
+     * The ring buffer and statistics of a topic.
+     */
+    class Topic {
+        private final Worker worker;
+        private final MpscRingBuffer<Object> ringBuffer = new MpscRingBuffer<>(bufferSize);
+        // Guards the consumer side of the ring buffer, which is only needed
+        // when the producers drop the oldest events.
+        private final ReentrantLock consumerLock = new ReentrantLock();
+        private final boolean consumerLocking = overflowPolicy != OverflowPolicy.DROP_NEWEST;
+        private final LongAdder publishedEvents = new LongAdder();
+        private final LongAdder deliveredEvents = new LongAdder();
+        private final LongAdder droppedEvents = new LongAdder();
+        private final LongAdder totalPublishNanos = new LongAdder();
+        private final AtomicLong maxPublishNanos = new AtomicLong(0);
+        private final AtomicLong overflowCount = new AtomicLong(0);
+
+        Topic(Worker worker) {
+            this.worker = worker;
+        }
+
+        void publish(Object event) {
+            long begin = System.nanoTime();
+            if (ringBuffer.offer(event) || offerOnOverflow(event)) {
+                publishedEvents.increment();
+                worker.wakeup();
+            } else {
+                droppedEvents.increment();
+            }
+            long costNanos = System.nanoTime() - begin;
+            totalPublishNanos.add(costNanos);
+            if (costNanos > maxPublishNanos.get()) {
+                maxPublishNanos.accumulateAndGet(costNanos, Math::max);
+            }
+        }
+
+        private boolean offerOnOverflow(Object event) {
+            switch (overflowPolicy) {
+            case DROP_OLDEST:
+                return replaceOldest(event);
+            case SAMPLE:
+                // Keeps one of the sample rate overflowed events.
+                if (overflowCount.getAndIncrement() % sampleRate == 0) {
+                    return replaceOldest(event);
+                }
+                return false;
+            case DROP_NEWEST:
+            default:
+                return false;
+            }
+        }
+
+        /**
+         * The producer never waits for the lock, if the bus thread (or the
+         * other producer) is holding it, the ring buffer is being drained, so
+         * only retry to offer the new event.
+         */
+        private boolean replaceOldest(Object event) {
+            if (!consumerLock.tryLock()) {
+                return ringBuffer.offer(event);
+            }
+            try {
+                if (nonNull(ringBuffer.poll())) {
+                    droppedEvents.increment();
+                }
+                return ringBuffer.offer(event);
+            } finally {
+                consumerLock.unlock();
+            }
+        }
+
+        int drainTo(List<Object> batch) {
+            if (!consumerLocking) {
+                return ringBuffer.drain(batch::add, batchSize);
+            }
+            consumerLock.lock();
+            try {
+                return ringBuffer.drain(batch::add, batchSize);
+            } finally {
+                consumerLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * The bus thread, which drains the assigned topics in batches, and parks
+     * when all of them are empty.
+     */
+    class Worker extends Thread {
+        private final List<Topic> topics = new CopyOnWriteArrayList<>();
+        private final List<Object> batch = new ArrayList<>(batchSize);
+        private volatile boolean parking;
+
+        Worker(String name) {
+            super(name);
+            if (isDaemon())
+                setDaemon(false);
+            if (getPriority() != Thread.NORM_PRIORITY)
+                setPriority(Thread.NORM_PRIORITY);
+        }
+
+        void wakeup() {
+            if (parking) {
+                parking = false;
+                LockSupport.unpark(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                if (drainOnce() > 0) {
+                    continue;
+                }
+                parking = true;
+                // Re-check for the events published before parking flagged.
+                if (drainOnce() == 0 && running) {
+                    LockSupport.parkNanos(this, MILLISECONDS.toNanos(PARK_TIMEOUT_MS));
+                }
+                parking = false;
+            }
+            // Deliver the remaining events when closing.
+            while (drainOnce() > 0) {
+            }
+        }
+
+        private int drainOnce() {
+            int total = 0;
+            for (Topic topic : topics) {
+                int count = topic.drainTo(batch);
+                if (count > 0) {
+                    for (Object event : batch) {
+                        bus.post(event);
+                    }
+                    batch.clear();
+                    topic.deliveredEvents.add(count);
+                    total += count;
+                }
+            }
+            return total;
+        }
+    }
+
+    /**
+     * The policy of publishing event when the ring buffer of topic is full.
+     */
+    public static enum OverflowPolicy {
+
+        /**
+         * Drop the oldest event in the ring buffer to publish the new event,
+         * the new event is dropped instead if the ring buffer is being drained
+         * concurrently.
+         */
+        DROP_OLDEST,
+
+        /**
+         * Drop the new event.
+         */
+        DROP_NEWEST,
+
+        /**
+         * Publish one of the sample rate new events by dropping the oldest,
+         * and drop the others.
+         */
+        SAMPLE;
+    }
+
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+    public static final int DEFAULT_BATCH_SIZE = 256;
+    public static final int DEFAULT_SAMPLE_RATE = 100;
+    public static final OverflowPolicy DEFAULT_OVERFLOW_POLICY = OverflowPolicy.DROP_NEWEST;
+    private static final long PARK_TIMEOUT_MS = 100;
+
     /** Single default instance of {@link EventBusSupport} */
     private static volatile EventBusSupport DEFAULT;
 
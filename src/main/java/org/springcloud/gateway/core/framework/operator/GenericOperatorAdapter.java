@@ -24,6 +24,7 @@ import static org.springcloud.gateway.core.reflect.ReflectionUtils2.findField;
 import static org.springcloud.gateway.core.reflect.ReflectionUtils2.getField;
 import static java.lang.String.format;
 import static java.util.Collections.synchronizedMap;
+import static java.util.Collections.unmodifiableMap;
 import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
 import static java.util.stream.Collectors.toMap;
@@ -32,12 +33,14 @@ import static org.springframework.util.CollectionUtils.isEmpty;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Proxy;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Supplier;
 
 import javax.validation.constraints.NotNull;
 
@@ -68,6 +71,12 @@ public abstract class GenericOperatorAdapter<K extends Enum<?>, O extends Operat
     protected final Map<Class<? extends Operator<Enum<?>>>, O> operatorClassRegistry = synchronizedMap(
             new OnceUnmodifiableMap<>(new HashMap<>()));
 
+    /**
+     * The frozen dispatch table of kind to operator, which is looked up by
+     * enum ordinal without locking on the request paths.
+     */
+    private final Map<K, O> dispatchTable;
+
     /**
      * Kind type class of operator provider.
      */
@@ -124,6 +133,10 @@ public abstract class GenericOperatorAdapter<K extends Enum<?>, O extends Operat
             log.warn("Skip '{}' composite adapter registered, because inject operators is empty.", adapterInterfaceClass);
         }
 
+        // The registries are once modifiable, so the dispatch table can be
+        // frozen as soon as registered.
+        this.dispatchTable = freezeDispatchTable();
+
     }
 
     @Override
@@ -141,7 +154,7 @@ public abstract class GenericOperatorAdapter<K extends Enum<?>, O extends Operat
      */
     public <T> O forOperator(@NotNull Class<T> operatorClass) throws NoSuchOperatorException {
         O operator = ensureOperator(operatorClassRegistry.get(operatorClass),
-                format("No such operator instance of class: '%s'", operatorClass));
+                () -> format("No such operator instance of class: '%s'", operatorClass));
         return operator;
     }
 
@@ -152,7 +165,8 @@ public abstract class GenericOperatorAdapter<K extends Enum<?>, O extends Operat
      * @return
      */
     public O forOperator(@NotNull K k) throws NoSuchOperatorException {
-        return forOperator(k.name());
+        notNullOf(k, "kind");
+        return ensureOperator(dispatchTable.get(k), () -> format("No such operator bean instance for kind name: '%s'", k));
     }
 
     /**
@@ -163,10 +177,26 @@ public abstract class GenericOperatorAdapter<K extends Enum<?>, O extends Operat
      * @throws NoSuchOperatorException
      */
     public O forOperator(@NotNull String kindName) throws NoSuchOperatorException {
-        K kind = parseKind(kindName);
-        O operator = ensureOperator(operatorAliasRegistry.get(kind),
-                format("No such operator bean instance for kind name: '%s'", kind));
-        return operator;
+        return forOperator(parseKind(kindName));
+    }
+
+    /**
+     * Resolve the operator handle of the kind, which is used to capture the
+     * operator once (e.g. when the gateway filter is applied) instead of
+     * looking up per request. If no such operator and no fallback, the
+     * {@link NoSuchOperatorException} is thrown when the handle is used.
+     *
+     * @param k
+     * @return
+     */
+    public ResolvedOperator<K, O> resolve(@NotNull K k) {
+        notNullOf(k, "kind");
+        O operator = dispatchTable.get(k);
+        if (isNull(operator) && nonNull(fallbackNoOp)) {
+            log.warn("Using default fallbackNoOp for the resolved kind: {}", k);
+            operator = fallbackNoOp;
+        }
+        return new ResolvedOperator<>(k, operator);
     }
 
     /**
@@ -175,7 +205,7 @@ public abstract class GenericOperatorAdapter<K extends Enum<?>, O extends Operat
      * @return
      */
     public Set<K> getRunningKinds() {
-        return operatorAliasRegistry.keySet();
+        return dispatchTable.keySet();
     }
 
     /**
@@ -185,18 +215,31 @@ public abstract class GenericOperatorAdapter<K extends Enum<?>, O extends Operat
      * @param assertMsg
      * @return
      */
-    private O ensureOperator(O operator, String assertMsg) {
+    private O ensureOperator(O operator, Supplier<String> assertMsg) {
         if (isNull(operator)) {
             if (isNull(fallbackNoOp)) {
                 notNull(operator, NoSuchOperatorException.class, assertMsg);
             } else {
-                log.warn("Using default fallbackNoOp, caused by: {}", assertMsg);
+                log.warn("Using default fallbackNoOp, caused by: {}", assertMsg.get());
                 operator = fallbackNoOp;
             }
         }
         return operator;
     }
 
+    /**
+     * Build the immutable {@link EnumMap} dispatch table of the registered
+     * operators.
+     * 
+     * @return
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private Map<K, O> freezeDispatchTable() {
+        Map<K, O> table = new EnumMap(kindClass);
+        table.putAll(operatorAliasRegistry);
+        return unmodifiableMap(table);
+    }
+
     /**
      * Parse kind instance of kind name.
      * 
@@ -237,6 +280,46 @@ public abstract class GenericOperatorAdapter<K extends Enum<?>, O extends Operat
         }
     }
 
+    /**
+     * The operator resolved of the kind, which is immutable and can be safely
+     * captured by the filters.
+     */
+    public static final class ResolvedOperator<K extends Enum<?>, O extends Operator<K>> {
+        private final K kind;
+        private final O operator;
+
+        ResolvedOperator(K kind, O operator) {
+            this.kind = kind;
+            this.operator = operator;
+        }
+
+        public K getKind() {
+            return kind;
+        }
+
+        public boolean isPresent() {
+            return nonNull(operator);
+        }
+
+        /**
+         * Gets the resolved operator.
+         * 
+         * @return
+         * @throws NoSuchOperatorException
+         */
+        public O get() throws NoSuchOperatorException {
+            if (isNull(operator)) {
+                throw new NoSuchOperatorException(format("No such operator bean instance for kind name: '%s'", kind));
+            }
+            return operator;
+        }
+
+        @Override
+        public String toString() {
+            return getClass().getSimpleName().concat("[kind=") + kind + ", operator=" + operator + "]";
+        }
+    }
+
     public static final Field jdkProxyHandlerField = findField(Proxy.class, "h", InvocationHandler.class);
     public static final Class<?> mapperProxyClass = resolveClassNameNullable("org.apache.ibatis.binding.MapperProxy");
 
@@ -386,7 +386,10 @@ public abstract class Assert2 {
      */
     @SuppressWarnings("unchecked")
     public static <T> T notNullOf(Object object, String argName) {
-        notNull(object, argName + " is required");
+        // The message is built only on failure, as it is on the hot paths.
+        if (object == null) {
+            notNull(object, argName + " is required");
+        }
         return (T) object;
     }
 
@@ -400,7 +403,9 @@ public abstract class Assert2 {
      */
     @SuppressWarnings("unchecked")
     public static <T> T notNullOf(Object object, Class<? extends RuntimeException> exceptionClass, String argName) {
-        notNull(object, exceptionClass, argName + " is required");
+        if (object == null) {
+            notNull(object, exceptionClass, argName + " is required");
+        }
         return (T) object;
     }
 
@@ -0,0 +1,331 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors. <springcloudgateway@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.net;
+
+import static java.lang.String.format;
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+import java.net.UnknownHostException;
+import java.util.Arrays;
+
+import javax.annotation.Nullable;
+import javax.validation.constraints.NotNull;
+
+import io.netty.util.NetUtil;
+
+/**
+ * {@link IpIntervalSet}, The compact immutable set of IPv4 and IPv6 address
+ * intervals, which is suitable for the large scale (hundreds of thousands)
+ * CIDRs/IPs, e.g the IP reputation blocklist. </br>
+ * </br>
+ * The intervals are merged and sorted into primitive arrays (4 bytes per IPv4
+ * bound, 16 bytes per IPv6 bound), so that it has only a few objects for the
+ * GC to trace, and the lookup is a binary search on the raw address bytes
+ * without allocation.
+ *
+ * @author springcloudgateway &lt;springcloudgateway@gmail.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+public final class IpIntervalSet {
+
+    public static final IpIntervalSet EMPTY = new Builder().build();
+
+    /**
+     * The sorted and non-overlapping IPv4 intervals bounds, the sign bit is
+     * flipped so that the signed comparison is the unsigned order.
+     */
+    private final int[] v4Starts;
+    private final int[] v4Ends;
+
+    /**
+     * The sorted and non-overlapping IPv6 intervals bounds, with the high and
+     * low 64 bits of each bound, the sign bit is flipped as the same as IPv4.
+     */
+    private final long[] v6StartsHi;
+    private final long[] v6StartsLo;
+    private final long[] v6EndsHi;
+    private final long[] v6EndsLo;
+
+    private IpIntervalSet(int[] v4Starts, int[] v4Ends, long[] v6StartsHi, long[] v6StartsLo, long[] v6EndsHi,
+            long[] v6EndsLo) {
+        this.v4Starts = v4Starts;
+        this.v4Ends = v4Ends;
+        this.v6StartsHi = v6StartsHi;
+        this.v6StartsLo = v6StartsLo;
+        this.v6EndsHi = v6EndsHi;
+        this.v6EndsLo = v6EndsLo;
+    }
+
+    /**
+     * Check whether the address is contained in any interval.
+     *
+     * @param address
+     *            The IPv4(4 bytes) or IPv6(16 bytes) address.
+     * @return
+     */
+    public boolean contains(@Nullable byte[] address) {
+        if (address == null) {
+            return false;
+        }
+        if (address.length == 4) {
+            return containsV4(toInt(address, 0) ^ Integer.MIN_VALUE);
+        } else if (address.length == 16) {
+            return containsV6(toLong(address, 0) ^ Long.MIN_VALUE, toLong(address, 8) ^ Long.MIN_VALUE);
+        }
+        return false;
+    }
+
+    /**
+     * @return The number of the merged IPv4 intervals.
+     */
+    public int getV4IntervalCount() {
+        return v4Starts.length;
+    }
+
+    /**
+     * @return The number of the merged IPv6 intervals.
+     */
+    public int getV6IntervalCount() {
+        return v6StartsHi.length;
+    }
+
+    public int size() {
+        return v4Starts.length + v6StartsHi.length;
+    }
+
+    private boolean containsV4(int addr) {
+        // Find the last interval which start <= addr.
+        int low = 0, high = v4Starts.length - 1, found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (v4Starts[mid] <= addr) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found >= 0 && addr <= v4Ends[found];
+    }
+
+    private boolean containsV6(long hi, long lo) {
+        int low = 0, high = v6StartsHi.length - 1, found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (compare(v6StartsHi[mid], v6StartsLo[mid], hi, lo) <= 0) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found >= 0 && compare(hi, lo, v6EndsHi[found], v6EndsLo[found]) <= 0;
+    }
+
+    private static int compare(long hi1, long lo1, long hi2, long lo2) {
+        return hi1 != hi2 ? Long.compare(hi1, hi2) : Long.compare(lo1, lo2);
+    }
+
+    private static int toInt(byte[] b, int off) {
+        return ((b[off] & 0xFF) << 24) | ((b[off + 1] & 0xFF) << 16) | ((b[off + 2] & 0xFF) << 8) | (b[off + 3] & 0xFF);
+    }
+
+    private static long toLong(byte[] b, int off) {
+        return ((long) toInt(b, off) << 32) | (toInt(b, off + 4) & 0xFFFFFFFFL);
+    }
+
+    /**
+     * The builder of {@link IpIntervalSet}, which is not thread-safe.
+     */
+    public static class Builder {
+
+        /** The packed IPv4 intervals, high 32 bits is start, low is end. */
+        private long[] v4 = new long[64];
+        private int v4Size;
+
+        /** The IPv6 intervals, 4 longs per interval(startHi,startLo,endHi,endLo). */
+        private long[] v6 = new long[64];
+        private int v6Size;
+
+        /**
+         * Add the CIDR(e.g: 10.0.0.0/8) or single IP address(e.g: 10.0.0.1),
+         * the blank line or comment line(starts with '#') is ignored.
+         *
+         * @param cidrOrIp
+         * @return
+         */
+        public Builder add(@Nullable String cidrOrIp) {
+            if (isBlank(cidrOrIp)) {
+                return this;
+            }
+            String value = cidrOrIp.trim();
+            if (value.charAt(0) == '#') {
+                return this;
+            }
+            if (value.indexOf('/') < 0) {
+                byte[] address = NetUtil.createByteArrayFromIpAddressString(value);
+                if (address == null) {
+                    throw new IllegalArgumentException(format("Invalid ip address for '%s'", value));
+                }
+                return add(address, address.length * 8);
+            }
+            try {
+                CIDR cidr = CIDR.newCIDR(value);
+                return add(cidr.getBaseAddress().getAddress(), cidr.getMask());
+            } catch (UnknownHostException e) {
+                throw new IllegalArgumentException(format("Failed to parse cidr for '%s'", value), e);
+            }
+        }
+
+        /**
+         * Add the prefix of the raw address.
+         *
+         * @param address
+         *            The IPv4(4 bytes) or IPv6(16 bytes) address.
+         * @param prefixLength
+         * @return
+         */
+        public Builder add(@NotNull byte[] address, int prefixLength) {
+            if (address.length == 4 && prefixLength >= 0 && prefixLength <= 32) {
+                int mask = prefixLength == 0 ? 0 : (-1 << (32 - prefixLength));
+                int base = toInt(address, 0) & mask;
+                int start = base ^ Integer.MIN_VALUE;
+                int end = (base | ~mask) ^ Integer.MIN_VALUE;
+                if (v4Size == v4.length) {
+                    v4 = Arrays.copyOf(v4, v4Size << 1);
+                }
+                v4[v4Size++] = ((long) start << 32) | (end & 0xFFFFFFFFL);
+            } else if (address.length == 16 && prefixLength >= 0 && prefixLength <= 128) {
+                long hi = toLong(address, 0), lo = toLong(address, 8);
+                long maskHi = prefixLength == 0 ? 0 : (prefixLength >= 64 ? -1L : (-1L << (64 - prefixLength)));
+                long maskLo = prefixLength <= 64 ? 0 : (prefixLength == 128 ? -1L : (-1L << (128 - prefixLength)));
+                if ((v6Size + 1) * 4 > v6.length) {
+                    v6 = Arrays.copyOf(v6, v6.length << 1);
+                }
+                int off = v6Size * 4;
+                v6[off] = (hi & maskHi) ^ Long.MIN_VALUE;
+                v6[off + 1] = (lo & maskLo) ^ Long.MIN_VALUE;
+                v6[off + 2] = (hi | ~maskHi) ^ Long.MIN_VALUE;
+                v6[off + 3] = (lo | ~maskLo) ^ Long.MIN_VALUE;
+                ++v6Size;
+            } else {
+                throw new IllegalArgumentException(
+                        format("Invalid address length: %s or prefix length: %s", address.length, prefixLength));
+            }
+            return this;
+        }
+
+        public IpIntervalSet build() {
+            // Merge IPv4 intervals.
+            long[] packed = Arrays.copyOf(v4, v4Size);
+            Arrays.sort(packed);
+            int[] v4Starts = new int[v4Size], v4Ends = new int[v4Size];
+            int n4 = 0;
+            for (long p : packed) {
+                int start = (int) (p >> 32), end = (int) p;
+                if (n4 > 0 && (long) start <= (long) v4Ends[n4 - 1] + 1) {
+                    if (end > v4Ends[n4 - 1]) {
+                        v4Ends[n4 - 1] = end;
+                    }
+                } else {
+                    v4Starts[n4] = start;
+                    v4Ends[n4] = end;
+                    ++n4;
+                }
+            }
+
+            // Merge IPv6 intervals.
+            sortV6(v6, 0, v6Size - 1);
+            long[] sHi = new long[v6Size], sLo = new long[v6Size], eHi = new long[v6Size], eLo = new long[v6Size];
+            int n6 = 0;
+            for (int i = 0; i < v6Size; i++) {
+                int off = i * 4;
+                if (n6 > 0 && isAdjacentOrOverlap(eHi[n6 - 1], eLo[n6 - 1], v6[off], v6[off + 1])) {
+                    if (compare(v6[off + 2], v6[off + 3], eHi[n6 - 1], eLo[n6 - 1]) > 0) {
+                        eHi[n6 - 1] = v6[off + 2];
+                        eLo[n6 - 1] = v6[off + 3];
+                    }
+                } else {
+                    sHi[n6] = v6[off];
+                    sLo[n6] = v6[off + 1];
+                    eHi[n6] = v6[off + 2];
+                    eLo[n6] = v6[off + 3];
+                    ++n6;
+                }
+            }
+
+            return new IpIntervalSet(Arrays.copyOf(v4Starts, n4), Arrays.copyOf(v4Ends, n4), Arrays.copyOf(sHi, n6),
+                    Arrays.copyOf(sLo, n6), Arrays.copyOf(eHi, n6), Arrays.copyOf(eLo, n6));
+        }
+
+        /**
+         * Check whether the start is less than or equal the previous end + 1.
+         */
+        private static boolean isAdjacentOrOverlap(long endHi, long endLo, long startHi, long startLo) {
+            if (compare(startHi, startLo, endHi, endLo) <= 0) {
+                return true;
+            }
+            // end + 1 (with the flipped sign bit, the max value is
+            // Long.MAX_VALUE)
+            long nextLo = endLo + 1, nextHi = endHi;
+            if (endLo == Long.MAX_VALUE) {
+                if (endHi == Long.MAX_VALUE) {
+                    return true;
+                }
+                nextLo = Long.MIN_VALUE;
+                nextHi = endHi + 1;
+            }
+            return compare(startHi, startLo, nextHi, nextLo) <= 0;
+        }
+
+        /**
+         * In-place quick sort of the IPv6 intervals by start.
+         */
+        private static void sortV6(long[] a, int low, int high) {
+            while (low < high) {
+                int mid = (low + high) >>> 1, i = low, j = high;
+                long pivotHi = a[mid * 4], pivotLo = a[mid * 4 + 1];
+                while (i <= j) {
+                    while (compare(a[i * 4], a[i * 4 + 1], pivotHi, pivotLo) < 0) {
+                        ++i;
+                    }
+                    while (compare(a[j * 4], a[j * 4 + 1], pivotHi, pivotLo) > 0) {
+                        --j;
+                    }
+                    if (i <= j) {
+                        for (int k = 0; k < 4; k++) {
+                            long t = a[i * 4 + k];
+                            a[i * 4 + k] = a[j * 4 + k];
+                            a[j * 4 + k] = t;
+                        }
+                        ++i;
+                        --j;
+                    }
+                }
+                // Recurse into the smaller part to bound the stack depth.
+                if (j - low < high - i) {
+                    sortV6(a, low, j);
+                    low = i;
+                } else {
+                    sortV6(a, i, high);
+                    high = j;
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors. <springcloudgateway@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.net;
+
+import static java.lang.String.format;
+
+import java.net.UnknownHostException;
+import java.util.Arrays;
+
+import javax.annotation.Nullable;
+import javax.validation.constraints.NotBlank;
+
+/**
+ * {@link IpPrefixTrie}, The binary prefix trie of IPv4 and IPv6 CIDRs, which
+ * stores the nodes in primitive arrays. </br>
+ * </br>
+ * Each CIDR is associated with an int flag value (non zero), the lookup walks
+ * at most 32/128 nodes by the raw address bytes and does not allocate. The
+ * trie must be fully built before it is published to the readers, it is
+ * read-only (and thread-safe) after {@link #build()}.
+ *
+ * @author springcloudgateway &lt;springcloudgateway@gmail.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+public class IpPrefixTrie {
+
+    /** The children node index of each node, {@code [node*2+bit]} */
+    private int[] children;
+
+    /** The flag value of each node, 0 means no CIDR ends at this node. */
+    private int[] values;
+
+    /** The number of used nodes. */
+    private int size;
+
+    /** The number of added CIDRs. */
+    private int cidrCount;
+
+    private boolean built;
+
+    public IpPrefixTrie() {
+        this(64);
+    }
+
+    public IpPrefixTrie(int initialNodes) {
+        int capacity = Math.max(initialNodes, 4);
+        this.children = new int[capacity * 2];
+        this.values = new int[capacity];
+        this.size = 2; // Node 0 is the IPv4 root, node 1 is the IPv6 root.
+    }
+
+    /**
+     * Add CIDR, e.g: 10.0.0.0/8, 10.0.0.0/255.0.0.0, fe80::/10
+     *
+     * @param cidr
+     * @param value
+     *            The non zero flag value, the values of the same CIDR are
+     *            merged by bitwise OR.
+     * @return
+     */
+    public IpPrefixTrie add(@NotBlank String cidr, int value) {
+        try {
+            CIDR _cidr = CIDR.newCIDR(cidr.trim());
+            return add(_cidr.getBaseAddress().getAddress(), _cidr.getMask(), value);
+        } catch (UnknownHostException e) {
+            throw new IllegalArgumentException(format("Failed to parse cidr for '%s'", cidr), e);
+        }
+    }
+
+    /**
+     * Add prefix of raw address bytes.
+     *
+     * @param address
+     *            The IPv4(4 bytes) or IPv6(16 bytes) address.
+     * @param prefixLength
+     * @param value
+     *            The non zero flag value, the values of the same prefix are
+     *            merged by bitwise OR.
+     * @return
+     */
+    public IpPrefixTrie add(byte[] address, int prefixLength, int value) {
+        if (built) {
+            throw new IllegalStateException("The prefix trie has been built and is read-only.");
+        }
+        if (value == 0) {
+            throw new IllegalArgumentException("The value must be non zero.");
+        }
+        int node = rootOf(address);
+        if (node < 0 || prefixLength < 0 || prefixLength > address.length * 8) {
+            throw new IllegalArgumentException(
+                    format("Invalid address length: %s or prefix length: %s", address.length, prefixLength));
+        }
+        for (int i = 0; i < prefixLength; i++) {
+            int slot = node * 2 + bit(address, i);
+            int next = children[slot];
+            if (next == 0) {
+                next = newNode();
+                children[slot] = next;
+            }
+            node = next;
+        }
+        values[node] |= value;
+        ++cidrCount;
+        return this;
+    }
+
+    /**
+     * Trim the arrays and mark the trie as read-only.
+     *
+     * @return
+     */
+    public IpPrefixTrie build() {
+        if (!built) {
+            this.children = Arrays.copyOf(children, size * 2);
+            this.values = Arrays.copyOf(values, size);
+            this.built = true;
+        }
+        return this;
+    }
+
+    /**
+     * Gets the bitwise OR of the values of all the CIDRs that contains the
+     * address.
+     *
+     * @param address
+     *            The IPv4(4 bytes) or IPv6(16 bytes) address.
+     * @return Returns 0 if no CIDR matched.
+     */
+    public int matchAll(@Nullable byte[] address) {
+        int node = rootOf(address);
+        if (node < 0) {
+            return 0;
+        }
+        int result = values[node];
+        for (int i = 0, bits = address.length * 8; i < bits; i++) {
+            node = children[node * 2 + bit(address, i)];
+            if (node == 0) {
+                break;
+            }
+            result |= values[node];
+        }
+        return result;
+    }
+
+    /**
+     * Gets the value of the longest prefix CIDR that contains the address.
+     *
+     * @param address
+     *            The IPv4(4 bytes) or IPv6(16 bytes) address.
+     * @return Returns 0 if no CIDR matched.
+     */
+    public int longestMatch(@Nullable byte[] address) {
+        int node = rootOf(address);
+        if (node < 0) {
+            return 0;
+        }
+        int result = values[node];
+        for (int i = 0, bits = address.length * 8; i < bits; i++) {
+            node = children[node * 2 + bit(address, i)];
+            if (node == 0) {
+                break;
+            }
+            if (values[node] != 0) {
+                result = values[node];
+            }
+        }
+        return result;
+    }
+
+    public int getCidrCount() {
+        return cidrCount;
+    }
+
+    public int getNodeCount() {
+        return size;
+    }
+
+    private int newNode() {
+        if (size == values.length) {
+            int capacity = values.length << 1;
+            this.children = Arrays.copyOf(children, capacity * 2);
+            this.values = Arrays.copyOf(values, capacity);
+        }
+        return size++;
+    }
+
+    private static int rootOf(@Nullable byte[] address) {
+        if (address == null) {
+            return -1;
+        }
+        return address.length == 4 ? ROOT_IPV4 : (address.length == 16 ? ROOT_IPV6 : -1);
+    }
+
+    private static int bit(byte[] address, int index) {
+        return (address[index >>> 3] >>> (7 - (index & 7))) & 1;
+    }
+
+    private static final int ROOT_IPV4 = 0;
+    private static final int ROOT_IPV6 = 1;
+
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors. <springcloudgateway@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.remoting;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * The snapshot of the per-host connection pool statistics of the
+ * {@link Netty4ClientHttpRequestFactory}, which can be exported as the pool
+ * occupancy and acquire wait-time metrics.
+ *
+ * @author springcloudgateway &lt;springcloudgateway@gmail.com&gt;
+ * @version v1.0.0
+ * @see Netty4ClientHttpRequestFactory#getPoolStats()
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class ConnectionPoolStats {
+
+    /**
+     * The destination of the pool, e.g. https://localhost:8443
+     */
+    private final String destination;
+
+    /**
+     * Whether the connections of the pool are multiplexed by HTTP/2 streams.
+     */
+    private final boolean http2;
+
+    /**
+     * The number of the opened connections.
+     */
+    private final int openConnections;
+
+    /**
+     * The number of the acquired connections (or the active HTTP/2 streams).
+     */
+    private final int acquiredConnections;
+
+    /**
+     * The number of the acquires waiting for a connection.
+     */
+    private final int pendingAcquires;
+
+    /**
+     * The total number of the acquires.
+     */
+    private final long totalAcquires;
+
+    /**
+     * The total number of the failed acquires, e.g. acquire timeout.
+     */
+    private final long failedAcquires;
+
+    /**
+     * The total wait time of the acquires (in nanoseconds).
+     */
+    private final long totalAcquireWaitNanos;
+
+    /**
+     * The maximum wait time of the acquires (in nanoseconds).
+     */
+    private final long maxAcquireWaitNanos;
+
+}
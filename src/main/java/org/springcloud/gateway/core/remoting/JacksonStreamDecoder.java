@@ -0,0 +1,195 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors. <springcloudgateway@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.remoting;
+
+import static java.util.Collections.emptyList;
+import static java.util.Objects.isNull;
+import static org.springcloud.gateway.core.lang.Assert2.notNullOf;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.core.io.buffer.DataBufferLimitException;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+
+/**
+ * The incremental JSON decoder of the response body chunks, which is based on
+ * the Jackson non-blocking parser, the tokens of each value are buffered until
+ * the value completed, so the whole body is never buffered. When
+ * {@link #tokenizeArray} the elements of the top level array are decoded one
+ * by one, otherwise each top level value (e.g. newline delimited JSON) is
+ * decoded.
+ * <p>
+ * The bytes of the value in progress are limited by the
+ * {@link #maxInMemorySize}, i.e. a single huge value (or an unterminated one)
+ * fails with {@link DataBufferLimitException} instead of being buffered
+ * without bound.
+ * <p>
+ * Not thread-safe, the chunks must be fed sequentially.
+ *
+ * @author springcloudgateway &lt;springcloudgateway@gmail.com&gt;
+ * @version v1.0.0
+ * @see org.springframework.http.codec.json.Jackson2Tokenizer
+ */
+class JacksonStreamDecoder<T> {
+
+    private final ObjectMapper objectMapper;
+    private final JavaType valueType;
+    private final boolean tokenizeArray;
+    private final int maxInMemorySize;
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+    private TokenBuffer tokenBuffer;
+    private int objectDepth;
+    private int arrayDepth;
+    private long inputBytes;
+    private long valueStartOffset;
+
+    JacksonStreamDecoder(ObjectMapper objectMapper, JavaType valueType, boolean tokenizeArray) {
+        this(objectMapper, valueType, tokenizeArray, -1);
+    }
+
+    /**
+     * @param objectMapper
+     * @param valueType
+     * @param tokenizeArray
+     * @param maxInMemorySize
+     *            The max bytes of the value in progress, -1 means unlimited.
+     */
+    JacksonStreamDecoder(ObjectMapper objectMapper, JavaType valueType, boolean tokenizeArray, int maxInMemorySize) {
+        this.objectMapper = notNullOf(objectMapper, "objectMapper");
+        this.valueType = notNullOf(valueType, "valueType");
+        this.tokenizeArray = tokenizeArray;
+        this.maxInMemorySize = maxInMemorySize;
+        try {
+            this.parser = objectMapper.getFactory().createNonBlockingByteArrayParser();
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot create the non-blocking JSON parser", e);
+        }
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+        this.tokenBuffer = new TokenBuffer(parser);
+    }
+
+    /**
+     * Feed the chunk and decode the values completed so far, the chunk is
+     * copied, so it can be released after returned.
+     *
+     * @param chunk
+     * @return
+     * @throws IOException
+     */
+    List<T> decode(ByteBuf chunk) throws IOException {
+        if (!chunk.isReadable()) {
+            return emptyList();
+        }
+        byte[] bytes = ByteBufUtil.getBytes(chunk);
+        feeder.feedInput(bytes, 0, bytes.length);
+        inputBytes += bytes.length;
+        List<T> result = parseTokens();
+        assertInMemorySize();
+        return result;
+    }
+
+    /**
+     * Signal the end of the input, and decode the remaining values.
+     *
+     * @return
+     * @throws IOException
+     */
+    List<T> endOfInput() throws IOException {
+        feeder.endOfInput();
+        List<T> result = parseTokens();
+        if (objectDepth != 0 || arrayDepth != 0) {
+            throw new IOException("Unexpected end of the JSON input");
+        }
+        return result;
+    }
+
+    private List<T> parseTokens() throws IOException {
+        List<T> result = null;
+        JsonToken token;
+        while (!isNull(token = parser.nextToken()) && token != JsonToken.NOT_AVAILABLE) {
+            updateDepth(token);
+            boolean completed = tokenizeArray ? processTokenArray(token) : processTokenNormal(token);
+            if (completed) {
+                if (isNull(result)) {
+                    result = new ArrayList<>(4);
+                }
+                result.add(objectMapper.readValue(tokenBuffer.asParser(objectMapper), valueType));
+                tokenBuffer = new TokenBuffer(parser);
+                valueStartOffset = parser.getCurrentLocation().getByteOffset();
+            }
+        }
+        return isNull(result) ? emptyList() : result;
+    }
+
+    /**
+     * The bytes fed after the last completed value are either in the token
+     * buffer or in the parser (the partial token), both are limited.
+     */
+    private void assertInMemorySize() {
+        if (maxInMemorySize >= 0 && inputBytes - valueStartOffset > maxInMemorySize) {
+            throw new DataBufferLimitException(
+                    "Exceeded limit on max bytes per JSON value: " + maxInMemorySize + " of the response body");
+        }
+    }
+
+    private void updateDepth(JsonToken token) {
+        switch (token) {
+        case START_OBJECT:
+            objectDepth++;
+            break;
+        case END_OBJECT:
+            objectDepth--;
+            break;
+        case START_ARRAY:
+            arrayDepth++;
+            break;
+        case END_ARRAY:
+            arrayDepth--;
+            break;
+        default:
+            break;
+        }
+    }
+
+    private boolean processTokenNormal(JsonToken token) throws IOException {
+        tokenBuffer.copyCurrentEvent(parser);
+        return (token.isStructEnd() || token.isScalarValue()) && objectDepth == 0 && arrayDepth == 0;
+    }
+
+    private boolean processTokenArray(JsonToken token) throws IOException {
+        boolean topLevelArrayToken = objectDepth == 0
+                && ((token == JsonToken.START_ARRAY && arrayDepth == 1) || (token == JsonToken.END_ARRAY && arrayDepth == 0));
+        if (topLevelArrayToken) {
+            return false;
+        }
+        tokenBuffer.copyCurrentEvent(parser);
+        return objectDepth == 0 && (arrayDepth == 0 || arrayDepth == 1)
+                && (token == JsonToken.END_OBJECT || token == JsonToken.END_ARRAY || token.isScalarValue());
+    }
+
+}
@@ -27,20 +27,26 @@ import java.util.concurrent.ExecutionException;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
 import org.springcloud.gateway.core.lang.Assert2;
+import org.springcloud.gateway.core.remoting.Netty4ConnectionPool.ChannelLease;
+import org.springcloud.gateway.core.remoting.Netty4StreamingClientHttpResponse.StreamingResponseHandler;
 import org.springcloud.gateway.core.remoting.standard.HttpHeaders;
 
-import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.ByteBufOutputStream;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
-import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.handler.codec.http.DefaultFullHttpRequest;
 import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.FullHttpResponse;
 import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpUtil;
 import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http2.HttpConversionUtil.ExtensionHeaderNames;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.FutureListener;
 
 /**
  * {@link ClientHttpRequest} implementation based on Netty 4.
@@ -50,20 +56,29 @@ import io.netty.handler.codec.http.HttpVersion;
  */
 class Netty4ClientHttpRequest extends AbstractAsyncClientHttpRequest implements ClientHttpRequest {
 
-    private final Bootstrap bootstrap;
+    private final Netty4ConnectionPool pool;
+    private final ByteBufAllocator allocator;
     private final URI uri;
     private final HttpMethod method;
-    private final ByteBufOutputStream body;
+    private final boolean streaming;
+    private final boolean inflate;
+    private final boolean http2;
+    private ByteBufOutputStream body;
     private boolean executed = false;
 
-    public Netty4ClientHttpRequest(Bootstrap bootstrap, URI uri, HttpMethod method) {
-        notNullOf(bootstrap, "bootstrap");
+    public Netty4ClientHttpRequest(Netty4ConnectionPool pool, ByteBufAllocator allocator, URI uri, HttpMethod method,
+            boolean streaming, boolean inflate, boolean http2) {
+        notNullOf(pool, "pool");
+        notNullOf(allocator, "allocator");
         notNullOf(uri, "uri");
         notNullOf(method, "method");
-        this.bootstrap = bootstrap;
+        this.pool = pool;
+        this.allocator = allocator;
         this.uri = uri;
         this.method = method;
-        this.body = new ByteBufOutputStream(Unpooled.buffer(1024));
+        this.streaming = streaming;
+        this.inflate = inflate;
+        this.http2 = http2;
     }
 
     /**
@@ -148,6 +163,10 @@ class Netty4ClientHttpRequest extends AbstractAsyncClientHttpRequest implements
      * @return the body output stream
      */
     protected OutputStream getBodyInternal(HttpHeaders headers) throws IOException {
+        // The pooled buffer is allocated when the body is written actually.
+        if (this.body == null) {
+            this.body = new ByteBufOutputStream(allocator.buffer(1024));
+        }
         return this.body;
     }
 
@@ -161,18 +180,25 @@ class Netty4ClientHttpRequest extends AbstractAsyncClientHttpRequest implements
      */
     protected ListenableFuture<ClientHttpResponse> executeInternal(final HttpHeaders headers) throws IOException {
         final SettableFuture<ClientHttpResponse> responseFuture = SettableFuture.create();
+        final FullHttpRequest nettyRequest = createFullHttpRequest(headers);
 
-        ChannelFutureListener connectionListener = future -> {
-            if (future.isSuccess()) {
-                Channel channel = future.channel();
-                channel.pipeline().addLast(new RequestExecuteHandler(responseFuture));
-                channel.writeAndFlush(createFullHttpRequest(headers));
-            } else {
+        this.pool.acquire().addListener((FutureListener<Channel>) future -> {
+            if (!future.isSuccess()) {
+                ReferenceCountUtil.safeRelease(nettyRequest);
                 responseFuture.setException(future.cause());
+                return;
             }
-        };
-
-        this.bootstrap.connect(uri.getHost(), getPort(uri)).addListener(connectionListener);
+            ChannelLease lease = new ChannelLease(pool, future.getNow());
+            pool.addRequestHandlers(lease.getChannel(), streaming, inflate,
+                    streaming ? new StreamingResponseHandler(responseFuture, lease)
+                            : new RequestExecuteHandler(responseFuture, lease));
+            lease.getChannel().writeAndFlush(nettyRequest).addListener(wf -> {
+                if (!wf.isSuccess()) {
+                    responseFuture.setException(wf.cause());
+                    lease.release(false);
+                }
+            });
+        });
         return responseFuture;
     }
 
@@ -181,21 +207,25 @@ class Netty4ClientHttpRequest extends AbstractAsyncClientHttpRequest implements
 
         String authority = uri.getRawAuthority();
         String path = uri.toString().substring(uri.toString().indexOf(authority) + authority.length());
-        FullHttpRequest nettyRequest = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, nettyMethod, path, body.buffer());
+        ByteBuf content = (body != null) ? body.buffer() : Unpooled.EMPTY_BUFFER;
+        FullHttpRequest nettyRequest = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, nettyMethod, path, content);
 
+        // The connection is kept alive and reused by the pool.
         nettyRequest.headers().set(HttpHeaders.HOST, uri.getHost() + ":" + getPort(uri));
-        nettyRequest.headers().set(HttpHeaders.CONNECTION, "close");
+        if (http2) {
+            nettyRequest.headers().set(ExtensionHeaderNames.SCHEME.text(), uri.getScheme());
+        }
         for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
             nettyRequest.headers().add(entry.getKey(), entry.getValue());
         }
-        if (!nettyRequest.headers().contains(HttpHeaders.CONTENT_LENGTH) && body.buffer().readableBytes() > 0) {
-            nettyRequest.headers().set(HttpHeaders.CONTENT_LENGTH, body.buffer().readableBytes());
+        if (!nettyRequest.headers().contains(HttpHeaders.CONTENT_LENGTH) && content.readableBytes() > 0) {
+            nettyRequest.headers().set(HttpHeaders.CONTENT_LENGTH, content.readableBytes());
         }
 
         return nettyRequest;
     }
 
-    private static int getPort(URI uri) {
+    static int getPort(URI uri) {
         int port = uri.getPort();
         if (port == -1) {
             if ("http".equalsIgnoreCase(uri.getScheme())) {
@@ -209,24 +239,38 @@ class Netty4ClientHttpRequest extends AbstractAsyncClientHttpRequest implements
 
     /**
      * A SimpleChannelInboundHandler to update the given
-     * SettableListenableFuture.
+     * SettableListenableFuture, and release the connection back to the pool
+     * when the response aggregated.
      */
     private static class RequestExecuteHandler extends SimpleChannelInboundHandler<FullHttpResponse> {
 
         private final SettableFuture<ClientHttpResponse> responseFuture;
+        private final ChannelLease lease;
 
-        public RequestExecuteHandler(SettableFuture<ClientHttpResponse> responseFuture) {
+        public RequestExecuteHandler(SettableFuture<ClientHttpResponse> responseFuture, ChannelLease lease) {
             this.responseFuture = responseFuture;
+            this.lease = lease;
         }
 
         @Override
         protected void channelRead0(ChannelHandlerContext context, FullHttpResponse response) throws Exception {
-            this.responseFuture.set(new Netty4ClientHttpResponse(context, response));
+            this.responseFuture.set(new Netty4ClientHttpResponse(response));
+            this.lease.release(HttpUtil.isKeepAlive(response));
         }
 
         @Override
         public void exceptionCaught(ChannelHandlerContext context, Throwable cause) throws Exception {
             this.responseFuture.setException(cause);
+            this.lease.release(false);
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext context) throws Exception {
+            if (!this.lease.isReleased()) {
+                this.responseFuture.setException(new IOException("Connection closed before the response completed"));
+                this.lease.release(false);
+            }
+            context.fireChannelInactive();
         }
     }
 
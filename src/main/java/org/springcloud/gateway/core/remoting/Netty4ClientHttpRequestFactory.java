@@ -17,7 +17,7 @@ package org.springcloud.gateway.core.remoting;
 
 import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
-import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.stream.Collectors.toList;
 import static org.springcloud.gateway.core.lang.Assert2.*;
 import static org.springcloud.gateway.core.lang.TypeConverts.safeLongToInt;
 import static java.lang.Runtime.getRuntime;
@@ -25,6 +25,10 @@ import static java.lang.Runtime.getRuntime;
 import java.io.Closeable;
 import java.io.IOException;
 import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.net.ssl.SSLException;
 
@@ -32,24 +36,25 @@ import javax.annotation.Nullable;
 import org.springcloud.gateway.core.remoting.standard.HttpHeaders;
 import static org.springcloud.gateway.core.remoting.standard.HttpMediaType.MULTIPART_FORM_DATA;
 
-import io.netty.bootstrap.Bootstrap;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.ChannelConfig;
-import io.netty.channel.ChannelInitializer;
-import io.netty.channel.ChannelPipeline;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.SocketChannelConfig;
-import io.netty.channel.socket.nio.NioSocketChannel;
-import io.netty.handler.codec.http.HttpClientCodec;
-import io.netty.handler.codec.http.HttpContentDecompressor;
 import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpObjectAggregator;
-import io.netty.handler.logging.LogLevel;
-import io.netty.handler.logging.LoggingHandler;
+import io.netty.handler.ssl.ApplicationProtocolConfig;
+import io.netty.handler.ssl.ApplicationProtocolConfig.Protocol;
+import io.netty.handler.ssl.ApplicationProtocolConfig.SelectedListenerFailureBehavior;
+import io.netty.handler.ssl.ApplicationProtocolConfig.SelectorFailureBehavior;
+import io.netty.handler.ssl.ApplicationProtocolNames;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslContextBuilder;
-import io.netty.handler.stream.ChunkedWriteHandler;
 import io.netty.handler.timeout.ReadTimeoutHandler;
 
 /**
@@ -59,14 +64,23 @@ import io.netty.handler.timeout.ReadTimeoutHandler;
  * Allows to use a pre-configured {@link EventLoopGroup} instance: useful for
  * sharing across multiple clients.
  * <p>
- * Note that this implementation consistently closes the HTTP connection on each
- * request.
+ * The connections are pooled per destination (scheme, host and port): the
+ * HTTP/1.1 keep-alive connections are bounded by
+ * {@link #setMaxConnectionsPerHost(int)} and closed after
+ * {@link #setMaxIdleTime(long)}, or the requests are multiplexed as the
+ * streams of one HTTP/2 connection when {@link #setHttp2Enabled(boolean)}.
+ * The request bodies are written into the pooled buffers of
+ * {@link #setAllocator(ByteBufAllocator)}. The settings of the pool should be
+ * configured before the first request, because the pools are created lazily
+ * with the settings at that time. The pending acquires, active and idle
+ * connections of each pool are exported as the gauges once bound to the
+ * registry by {@link #bindTo(MeterRegistry)}.
  * 
  * @author springcloudgateway &lt;springcloudgateway@gmail.com&gt;
  * @version v1.0.0
  * @see
  */
-public class Netty4ClientHttpRequestFactory implements ClientHttpRequestFactory, Closeable {
+public class Netty4ClientHttpRequestFactory implements ClientHttpRequestFactory, MeterBinder, Closeable {
 
     private final boolean defaultEventLoopGroup;
     private final EventLoopGroup eventLoopGroup;
@@ -77,9 +91,17 @@ public class Netty4ClientHttpRequestFactory implements ClientHttpRequestFactory,
     private long connectTimeout;
     private long readTimeout;
     private int maxResponseSize;
-
-    @Nullable
-    private volatile Bootstrap bootstrap;
+    private ByteBufAllocator allocator = PooledByteBufAllocator.DEFAULT;
+    private int maxConnectionsPerHost = DEFAULT_MAX_CONNECTIONS_PER_HOST;
+    private int maxPendingAcquires = DEFAULT_MAX_PENDING_ACQUIRES;
+    private long acquireTimeout = DEFAULT_ACQUIRE_TIMEOUT;
+    private long maxIdleTime = DEFAULT_MAX_IDLE_TIME;
+    private boolean http2Enabled = false;
+    private boolean streaming = false;
+
+    private final ConcurrentMap<String, Netty4ConnectionPool> connectionPools = new ConcurrentHashMap<>(8);
+    private final ConcurrentMap<String, List<Meter>> poolMeters = new ConcurrentHashMap<>(8);
+    private volatile MeterRegistry meterRegistry;
 
     /**
      * Create a new {@code Netty4ClientHttpRequestFactory} with a default
@@ -169,6 +191,115 @@ public class Netty4ClientHttpRequestFactory implements ClientHttpRequestFactory,
         this.readTimeout = readTimeout;
     }
 
+    /**
+     * Set the allocator of the request body buffers and the connections.
+     * <p>
+     * By default this is set to {@link PooledByteBufAllocator#DEFAULT}.
+     */
+    public void setAllocator(ByteBufAllocator allocator) {
+        this.allocator = notNullOf(allocator, "allocator");
+    }
+
+    /**
+     * Set the maximum number of the connections per destination.
+     * <p>
+     * By default this is set to {@link #DEFAULT_MAX_CONNECTIONS_PER_HOST}.
+     */
+    public void setMaxConnectionsPerHost(int maxConnectionsPerHost) {
+        isTrueOf(maxConnectionsPerHost > 0, "maxConnectionsPerHost > 0");
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+    }
+
+    /**
+     * Set the maximum number of the acquires waiting for a connection per
+     * destination, the acquires over the limit are failed immediately.
+     * <p>
+     * By default this is set to {@link #DEFAULT_MAX_PENDING_ACQUIRES}.
+     */
+    public void setMaxPendingAcquires(int maxPendingAcquires) {
+        isTrueOf(maxPendingAcquires > 0, "maxPendingAcquires > 0");
+        this.maxPendingAcquires = maxPendingAcquires;
+    }
+
+    /**
+     * Set the timeout (in milliseconds) of waiting for a connection. A timeout
+     * value of 0 specifies an infinite timeout.
+     * <p>
+     * By default this is set to {@link #DEFAULT_ACQUIRE_TIMEOUT}.
+     */
+    public void setAcquireTimeout(long acquireTimeout) {
+        this.acquireTimeout = acquireTimeout;
+    }
+
+    /**
+     * Set the maximum idle time (in milliseconds) of the pooled connections,
+     * the idle connections are closed. A value of 0 specifies never closed.
+     * <p>
+     * By default this is set to {@link #DEFAULT_MAX_IDLE_TIME}.
+     */
+    public void setMaxIdleTime(long maxIdleTime) {
+        this.maxIdleTime = maxIdleTime;
+    }
+
+    /**
+     * Set whether to multiplex the requests as the HTTP/2 streams, negotiated
+     * by ALPN 'h2' over TLS, or by prior knowledge over cleartext, so the
+     * destinations must support HTTP/2. When a custom
+     * {@link #setSslContext(SslContext)} is used, it must be configured with
+     * the ALPN 'h2' protocol.
+     */
+    public void setHttp2Enabled(boolean http2Enabled) {
+        this.http2Enabled = http2Enabled;
+    }
+
+    /**
+     * Set whether to respond as soon as the response headers received, and
+     * read the body from the content chunks without the full aggregation, so
+     * the {@link #setMaxResponseSize(int)} is not applied. The response must
+     * be closed to release the connection.
+     */
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
+    /**
+     * Gets the statistics of the connection pools, e.g. exported as the pool
+     * occupancy and acquire wait-time metrics.
+     */
+    public List<ConnectionPoolStats> getPoolStats() {
+        return connectionPools.values().stream().map(Netty4ConnectionPool::getStats).collect(toList());
+    }
+
+    /**
+     * Bind the gauges of the existing and the later created connection pools
+     * to the registry, which are tagged by the destination of the pool.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.meterRegistry = notNullOf(registry, "registry");
+        connectionPools.forEach((destination, pool) -> bindPoolGauges(destination, pool));
+    }
+
+    private void bindPoolGauges(String destination, Netty4ConnectionPool pool) {
+        MeterRegistry registry = meterRegistry;
+        if (isNull(registry)) {
+            return;
+        }
+        poolMeters.computeIfAbsent(destination, d -> Arrays.asList(
+                Gauge.builder(METRICS_POOL_PENDING_ACQUIRES, pool, Netty4ConnectionPool::getPendingAcquires)
+                        .tag(METRICS_TAG_DESTINATION, d)
+                        .description("The number of the acquires waiting for a connection")
+                        .register(registry),
+                Gauge.builder(METRICS_POOL_ACTIVE_CONNECTIONS, pool, Netty4ConnectionPool::getAcquiredConnections)
+                        .tag(METRICS_TAG_DESTINATION, d)
+                        .description("The number of the acquired connections (or the active HTTP/2 streams)")
+                        .register(registry),
+                Gauge.builder(METRICS_POOL_IDLE_CONNECTIONS, pool, Netty4ConnectionPool::getIdleConnections)
+                        .tag(METRICS_TAG_DESTINATION, d)
+                        .description("The number of the opened and idle connections")
+                        .register(registry)));
+    }
+
     /**
      * Create nttp request of netty.
      * 
@@ -179,7 +310,12 @@ public class Netty4ClientHttpRequestFactory implements ClientHttpRequestFactory,
      * @throws IOException
      */
     public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod, HttpHeaders requestHeaders) throws IOException {
-        return new Netty4ClientHttpRequest(getBootstrap(uri, requestHeaders), uri, httpMethod);
+        boolean isSecure = (uri.getPort() == 443 || "https".equalsIgnoreCase(uri.getScheme()));
+        // The multipart response is always streaming and decompressed, since
+        // huge file transfer.
+        boolean multipart = nonNull(requestHeaders) && MULTIPART_FORM_DATA.isCompatibleWith(requestHeaders.getContentType());
+        return new Netty4ClientHttpRequest(getConnectionPool(uri, isSecure), allocator, uri, httpMethod,
+                streaming || multipart, multipart, http2Enabled);
     }
 
     /**
@@ -198,7 +334,7 @@ public class Netty4ClientHttpRequestFactory implements ClientHttpRequestFactory,
         }
     }
 
-    private SslContext getSslContext() {
+    SslContext getSslContext() {
         if (sslContext == null) {
             sslContext = buildClientSslContext();
         }
@@ -207,32 +343,75 @@ public class Netty4ClientHttpRequestFactory implements ClientHttpRequestFactory,
 
     private SslContext buildClientSslContext() {
         try {
-            return SslContextBuilder.forClient().build();
+            SslContextBuilder builder = SslContextBuilder.forClient();
+            if (http2Enabled) {
+                builder.applicationProtocolConfig(new ApplicationProtocolConfig(Protocol.ALPN,
+                        SelectorFailureBehavior.NO_ADVERTISE, SelectedListenerFailureBehavior.ACCEPT,
+                        ApplicationProtocolNames.HTTP_2));
+            }
+            return builder.build();
         } catch (SSLException ex) {
             throw new IllegalStateException("Could not create default client SslContext", ex);
         }
     }
 
-    private Bootstrap getBootstrap(URI uri, HttpHeaders requestHeaders) {
-        boolean isSecure = (uri.getPort() == 443 || "https".equalsIgnoreCase(uri.getScheme()));
-        // if (isSecure) {
-        // return createBootstrap(uri, true, requestHeaders);
-        // } else if (isNull(bootstrap)) {
-        // this.bootstrap = createBootstrap(uri, false, requestHeaders);
-        // }
-        // return bootstrap;
-        return createBootstrap(uri, isSecure, requestHeaders);
+    private Netty4ConnectionPool getConnectionPool(URI uri, boolean isSecure) {
+        int port = Netty4ClientHttpRequest.getPort(uri);
+        String key = (isSecure ? "https://" : "http://").concat(uri.getHost()).concat(":").concat(String.valueOf(port));
+        Netty4ConnectionPool pool = connectionPools.get(key);
+        if (isNull(pool)) {
+            pool = connectionPools.computeIfAbsent(key, k -> new Netty4ConnectionPool(this, eventLoopGroup, uri.getHost(), port,
+                    isSecure));
+            bindPoolGauges(key, pool);
+        }
+        return pool;
+    }
+
+    boolean isDebug() {
+        return debug;
+    }
+
+    long getReadTimeout() {
+        return readTimeout;
+    }
+
+    int getMaxResponseSize() {
+        return maxResponseSize;
+    }
+
+    ByteBufAllocator getAllocator() {
+        return allocator;
+    }
+
+    int getMaxConnectionsPerHost() {
+        return maxConnectionsPerHost;
+    }
+
+    int getMaxPendingAcquires() {
+        return maxPendingAcquires;
     }
 
-    private Bootstrap createBootstrap(final URI uri, final boolean isSecure, final HttpHeaders requestHeaders) {
-        Bootstrap bootstrap = new Bootstrap();
-        bootstrap.group(eventLoopGroup).channel(NioSocketChannel.class).handler(
-                new HttpChannelInitializer(uri, isSecure, requestHeaders));
-        return bootstrap;
+    long getAcquireTimeout() {
+        return acquireTimeout;
+    }
+
+    long getMaxIdleTime() {
+        return maxIdleTime;
+    }
+
+    boolean isHttp2Enabled() {
+        return http2Enabled;
     }
 
     @Override
     public void close() throws IOException {
+        connectionPools.values().forEach(Netty4ConnectionPool::close);
+        connectionPools.clear();
+        MeterRegistry registry = meterRegistry;
+        if (nonNull(registry)) {
+            poolMeters.values().forEach(meters -> meters.forEach(registry::remove));
+        }
+        poolMeters.clear();
         if (defaultEventLoopGroup) {
             // Clean up the EventLoopGroup if we created it in the constructor
             try {
@@ -243,51 +422,6 @@ public class Netty4ClientHttpRequestFactory implements ClientHttpRequestFactory,
         }
     }
 
-    /**
-     * {@link HttpChannelInitializer}
-     */
-    private class HttpChannelInitializer extends ChannelInitializer<SocketChannel> {
-        final private URI uri;
-        final private boolean isSecure;
-        final private HttpHeaders requestHeaders;
-
-        HttpChannelInitializer(final URI uri, final boolean isSecure, final HttpHeaders requestHeaders) {
-            this.uri = uri;
-            this.isSecure = isSecure;
-            this.requestHeaders = requestHeaders;
-        }
-
-        @Override
-        protected void initChannel(SocketChannel ch) throws Exception {
-            configureChannel(ch.config());
-
-            ChannelPipeline pipe = ch.pipeline();
-            if (debug) {
-                pipe.addLast(new LoggingHandler(LogLevel.INFO));
-            }
-            if (isSecure) {
-                notNull(getSslContext(), "sslContext should not be null");
-                pipe.addLast(getSslContext().newHandler(ch.alloc(), uri.getHost(), uri.getPort()));
-            }
-            pipe.addLast(new HttpClientCodec());
-
-            if (nonNull(requestHeaders) && MULTIPART_FORM_DATA.isCompatibleWith(requestHeaders.getContentType())) {
-                // Remove the following line if you don't want automatic
-                // content decompression.
-                pipe.addLast("inflater", new HttpContentDecompressor());
-                // to be used since huge file transfer
-                pipe.addLast("chunkedWriter", new ChunkedWriteHandler());
-            } else {
-                pipe.addLast(new HttpObjectAggregator(maxResponseSize));
-            }
-
-            if (readTimeout > 0) {
-                pipe.addLast(new ReadTimeoutHandler(safeLongToInt(readTimeout), MILLISECONDS));
-            }
-        }
-
-    }
-
     /**
      * The default maximum response size.
      * 
@@ -295,4 +429,14 @@ public class Netty4ClientHttpRequestFactory implements ClientHttpRequestFactory,
      */
     public static final int DEFAULT_MAX_RESPONSE_SIZE = 1024 * 1024 * 10;
 
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 32;
+    public static final int DEFAULT_MAX_PENDING_ACQUIRES = 1024;
+    public static final long DEFAULT_ACQUIRE_TIMEOUT = 10_000L;
+    public static final long DEFAULT_MAX_IDLE_TIME = 60_000L;
+
+    public static final String METRICS_POOL_PENDING_ACQUIRES = "http.client.pool.pending.acquires";
+    public static final String METRICS_POOL_ACTIVE_CONNECTIONS = "http.client.pool.active.connections";
+    public static final String METRICS_POOL_IDLE_CONNECTIONS = "http.client.pool.idle.connections";
+    public static final String METRICS_TAG_DESTINATION = "destination";
+
 }
\ No newline at end of file
@@ -24,7 +24,6 @@ import org.springcloud.gateway.core.remoting.standard.HttpHeaders;
 import org.springcloud.gateway.core.remoting.standard.HttpStatus;
 
 import io.netty.buffer.ByteBufInputStream;
-import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.http.FullHttpResponse;
 
 /**
@@ -32,15 +31,12 @@ import io.netty.handler.codec.http.FullHttpResponse;
  */
 class Netty4ClientHttpResponse extends AbstractClientHttpResponse {
 
-    private final ChannelHandlerContext context;
     private final FullHttpResponse nettyResponse;
     private final ByteBufInputStream body;
     private volatile HttpHeaders headers;
 
-    public Netty4ClientHttpResponse(ChannelHandlerContext context, FullHttpResponse nettyResponse) {
-        Assert2.notNull(context, "ChannelHandlerContext must not be null");
+    public Netty4ClientHttpResponse(FullHttpResponse nettyResponse) {
         Assert2.notNull(nettyResponse, "FullHttpResponse must not be null");
-        this.context = context;
         this.nettyResponse = nettyResponse;
         this.body = new ByteBufInputStream(nettyResponse.content());
         this.nettyResponse.retain();
@@ -116,8 +112,9 @@ class Netty4ClientHttpResponse extends AbstractClientHttpResponse {
 
     @Override
     public void close() {
+        // The connection has been released back to the pool when the
+        // response aggregated, so only the content is released here.
         nettyResponse.release();
-        context.close();
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,393 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors. <springcloudgateway@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.remoting;
+
+import static java.lang.String.format;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.springcloud.gateway.core.lang.Assert2.notNullOf;
+import static org.springcloud.gateway.core.lang.TypeConverts.safeLongToInt;
+
+import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.pool.AbstractChannelPoolHandler;
+import io.netty.channel.pool.ChannelHealthChecker;
+import io.netty.channel.pool.FixedChannelPool;
+import io.netty.channel.pool.FixedChannelPool.AcquireTimeoutAction;
+import io.netty.channel.socket.SocketChannelConfig;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.codec.http.HttpContentDecompressor;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http2.Http2FrameCodecBuilder;
+import io.netty.handler.codec.http2.Http2MultiplexHandler;
+import io.netty.handler.codec.http2.Http2Settings;
+import io.netty.handler.codec.http2.Http2StreamChannelBootstrap;
+import io.netty.handler.codec.http2.Http2StreamFrameToHttpObjectCodec;
+import io.netty.handler.logging.LogLevel;
+import io.netty.handler.logging.LoggingHandler;
+import io.netty.handler.ssl.ApplicationProtocolNames;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.handler.timeout.IdleStateHandler;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.FutureListener;
+import io.netty.util.concurrent.Promise;
+
+/**
+ * The connection pool of one destination (scheme, host and port) of the
+ * {@link Netty4ClientHttpRequestFactory}.
+ * <p>
+ * For HTTP/1.1 the keep-alive connections are bounded by a
+ * {@link FixedChannelPool}, and closed when idle. For HTTP/2 the requests are
+ * multiplexed as the streams of a single connection (ALPN 'h2' over TLS, or
+ * prior knowledge over cleartext), the streams over the peer's max concurrent
+ * streams are buffered until the active streams completed.
+ *
+ * @author springcloudgateway &lt;springcloudgateway@gmail.com&gt;
+ * @version v1.0.0
+ */
+class Netty4ConnectionPool implements Closeable {
+
+    private final Netty4ClientHttpRequestFactory factory;
+    private final String host;
+    private final int port;
+    private final boolean secure;
+    private final boolean http2;
+    private final Bootstrap bootstrap;
+    private final FixedChannelPool http1Pool;
+    private volatile Future<Channel> http2Connection;
+
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private final AtomicInteger acquiredConnections = new AtomicInteger();
+    private final AtomicInteger pendingAcquires = new AtomicInteger();
+    private final LongAdder totalAcquires = new LongAdder();
+    private final LongAdder failedAcquires = new LongAdder();
+    private final LongAdder totalAcquireWaitNanos = new LongAdder();
+    private final AtomicLong maxAcquireWaitNanos = new AtomicLong();
+
+    Netty4ConnectionPool(Netty4ClientHttpRequestFactory factory, EventLoopGroup eventLoopGroup, String host, int port,
+            boolean secure) {
+        this.factory = notNullOf(factory, "factory");
+        this.host = host;
+        this.port = port;
+        this.secure = secure;
+        this.http2 = factory.isHttp2Enabled();
+        this.bootstrap = new Bootstrap().group(notNullOf(eventLoopGroup, "eventLoopGroup"))
+                .channel(NioSocketChannel.class)
+                .option(ChannelOption.ALLOCATOR, factory.getAllocator())
+                .option(ChannelOption.TCP_NODELAY, true)
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .remoteAddress(host, port);
+        if (http2) {
+            this.http1Pool = null;
+        } else {
+            long acquireTimeout = factory.getAcquireTimeout();
+            this.http1Pool = new FixedChannelPool(bootstrap, new AbstractChannelPoolHandler() {
+                @Override
+                public void channelCreated(Channel ch) throws Exception {
+                    initConnection(ch);
+                }
+            }, ChannelHealthChecker.ACTIVE, acquireTimeout > 0 ? AcquireTimeoutAction.FAIL : null,
+                    acquireTimeout > 0 ? acquireTimeout : -1, factory.getMaxConnectionsPerHost(),
+                    factory.getMaxPendingAcquires(), true, true);
+        }
+    }
+
+    /**
+     * Acquire a connection (or a HTTP/2 stream) from the pool.
+     *
+     * @return
+     */
+    Future<Channel> acquire() {
+        long beginNanoTime = System.nanoTime();
+        pendingAcquires.incrementAndGet();
+        Future<Channel> future = http2 ? openStream() : http1Pool.acquire();
+        future.addListener((FutureListener<Channel>) f -> {
+            pendingAcquires.decrementAndGet();
+            long waitNanos = System.nanoTime() - beginNanoTime;
+            totalAcquires.increment();
+            totalAcquireWaitNanos.add(waitNanos);
+            maxAcquireWaitNanos.accumulateAndGet(waitNanos, Math::max);
+            if (f.isSuccess()) {
+                acquiredConnections.incrementAndGet();
+                f.getNow().attr(KEY_IN_USE).set(true);
+            } else {
+                failedAcquires.increment();
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Add the handlers of the request, which are removed when the connection
+     * is released.
+     *
+     * @param channel
+     * @param streaming
+     *            Whether to skip the aggregation of the response.
+     * @param inflate
+     *            Whether to decompress the response content.
+     * @param executeHandler
+     */
+    void addRequestHandlers(Channel channel, boolean streaming, boolean inflate, ChannelHandler executeHandler) {
+        ChannelPipeline pipe = channel.pipeline();
+        if (factory.getReadTimeout() > 0) {
+            pipe.addLast(READ_TIMEOUT_HANDLER, new ReadTimeoutHandler(safeLongToInt(factory.getReadTimeout()), MILLISECONDS));
+        }
+        if (inflate) {
+            pipe.addLast(INFLATER_HANDLER, new HttpContentDecompressor());
+        }
+        if (!streaming) {
+            pipe.addLast(AGGREGATOR_HANDLER, new HttpObjectAggregator(factory.getMaxResponseSize()));
+        }
+        pipe.addLast(EXECUTE_HANDLER, executeHandler);
+    }
+
+    /**
+     * Release the connection back to the pool, the HTTP/2 stream or the
+     * connection that cannot be reused is closed.
+     *
+     * @param channel
+     * @param reusable
+     */
+    void release(Channel channel, boolean reusable) {
+        acquiredConnections.decrementAndGet();
+        channel.attr(KEY_IN_USE).set(false);
+        ChannelPipeline pipe = channel.pipeline();
+        for (String name : REQUEST_HANDLERS) {
+            if (nonNull(pipe.get(name))) {
+                pipe.remove(name);
+            }
+        }
+        channel.config().setAutoRead(true);
+        if (http2) {
+            channel.close();
+            return;
+        }
+        if (!reusable) {
+            channel.close();
+        }
+        // The closed connection is discarded by the release health check.
+        http1Pool.release(channel);
+    }
+
+    int getPendingAcquires() {
+        return pendingAcquires.get();
+    }
+
+    /**
+     * @return The number of the acquired connections, or the active streams
+     *         of HTTP/2.
+     */
+    int getAcquiredConnections() {
+        return acquiredConnections.get();
+    }
+
+    /**
+     * @return The number of the opened but not acquired connections, for
+     *         HTTP/2 the connection is idle if no active streams.
+     */
+    int getIdleConnections() {
+        int open = openConnections.get(), acquired = acquiredConnections.get();
+        if (http2) {
+            return acquired > 0 ? 0 : open;
+        }
+        return Math.max(open - acquired, 0);
+    }
+
+    ConnectionPoolStats getStats() {
+        return new ConnectionPoolStats(format("%s://%s:%s", secure ? "https" : "http", host, port), http2,
+                openConnections.get(), acquiredConnections.get(), pendingAcquires.get(), totalAcquires.sum(),
+                failedAcquires.sum(), totalAcquireWaitNanos.sum(), maxAcquireWaitNanos.get());
+    }
+
+    @Override
+    public void close() {
+        if (nonNull(http1Pool)) {
+            http1Pool.close();
+        }
+        Future<Channel> connection = http2Connection;
+        if (nonNull(connection) && connection.isSuccess()) {
+            connection.getNow().close();
+        }
+    }
+
+    private void initConnection(Channel ch) {
+        openConnections.incrementAndGet();
+        ch.closeFuture().addListener(future -> openConnections.decrementAndGet());
+        factory.configureChannel((SocketChannelConfig) ch.config());
+
+        ChannelPipeline pipe = ch.pipeline();
+        if (factory.isDebug()) {
+            pipe.addLast(new LoggingHandler(LogLevel.INFO));
+        }
+        if (secure) {
+            pipe.addLast(factory.getSslContext().newHandler(ch.alloc(), host, port));
+        }
+        if (http2) {
+            pipe.addLast(Http2FrameCodecBuilder.forClient()
+                    .initialSettings(Http2Settings.defaultSettings().pushEnabled(false))
+                    .encoderEnforceMaxConcurrentStreams(true)
+                    .build());
+            // The server initiated (push) streams are ignored.
+            pipe.addLast(new Http2MultiplexHandler(new ChannelInboundHandlerAdapter()));
+        } else {
+            pipe.addLast(new HttpClientCodec());
+        }
+        if (factory.getMaxIdleTime() > 0) {
+            pipe.addLast(new IdleStateHandler(0, 0, factory.getMaxIdleTime(), MILLISECONDS));
+            pipe.addLast(new IdleConnectionCloser());
+        }
+    }
+
+    private Future<Channel> openStream() {
+        Promise<Channel> promise = bootstrap.config().group().next().newPromise();
+        getHttp2Connection().addListener((FutureListener<Channel>) f -> {
+            if (!f.isSuccess()) {
+                promise.tryFailure(f.cause());
+                return;
+            }
+            new Http2StreamChannelBootstrap(f.getNow()).handler(new ChannelInitializer<Channel>() {
+                @Override
+                protected void initChannel(Channel ch) throws Exception {
+                    ch.pipeline().addLast(new Http2StreamFrameToHttpObjectCodec(false));
+                }
+            }).open().addListener(sf -> {
+                if (sf.isSuccess()) {
+                    promise.trySuccess((Channel) sf.getNow());
+                } else {
+                    promise.tryFailure(sf.cause());
+                }
+            });
+        });
+        return promise;
+    }
+
+    private synchronized Future<Channel> getHttp2Connection() {
+        Future<Channel> connection = http2Connection;
+        if (nonNull(connection) && (!connection.isDone() || (connection.isSuccess() && connection.getNow().isActive()))) {
+            return connection;
+        }
+        Promise<Channel> promise = bootstrap.config().group().next().newPromise();
+        ChannelFuture connectFuture = bootstrap.clone().handler(new ChannelInitializer<Channel>() {
+            @Override
+            protected void initChannel(Channel ch) throws Exception {
+                initConnection(ch);
+            }
+        }).connect();
+        connectFuture.addListener(cf -> {
+            if (!cf.isSuccess()) {
+                promise.tryFailure(cf.cause());
+                return;
+            }
+            Channel channel = connectFuture.channel();
+            SslHandler sslHandler = channel.pipeline().get(SslHandler.class);
+            if (!secure || isNull(sslHandler)) {
+                promise.trySuccess(channel);
+                return;
+            }
+            sslHandler.handshakeFuture().addListener(hf -> {
+                if (!hf.isSuccess()) {
+                    promise.tryFailure(hf.cause());
+                } else if (!ApplicationProtocolNames.HTTP_2.equals(sslHandler.applicationProtocol())) {
+                    channel.close();
+                    promise.tryFailure(new IllegalStateException(
+                            format("The destination %s:%s does not negotiate the HTTP/2 (h2) by ALPN", host, port)));
+                } else {
+                    promise.trySuccess(channel);
+                }
+            });
+        });
+        return (this.http2Connection = promise);
+    }
+
+    /**
+     * Close the idle connection which is not in use, the HTTP/2 connection is
+     * in use until all the streams are completed.
+     */
+    private class IdleConnectionCloser extends ChannelInboundHandlerAdapter {
+        @Override
+        public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+            if (evt instanceof IdleStateEvent) {
+                boolean inUse = http2 ? acquiredConnections.get() > 0 : Boolean.TRUE.equals(ctx.channel().attr(KEY_IN_USE).get());
+                if (!inUse) {
+                    ctx.close();
+                }
+                return;
+            }
+            super.userEventTriggered(ctx, evt);
+        }
+    }
+
+    /**
+     * The lease of the acquired connection, which ensures the connection is
+     * released only once, e.g. both the response completed and the error
+     * caught.
+     */
+    static class ChannelLease {
+        private final Netty4ConnectionPool pool;
+        private final Channel channel;
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        ChannelLease(Netty4ConnectionPool pool, Channel channel) {
+            this.pool = pool;
+            this.channel = channel;
+        }
+
+        Channel getChannel() {
+            return channel;
+        }
+
+        boolean isReleased() {
+            return released.get();
+        }
+
+        void release(boolean reusable) {
+            if (released.compareAndSet(false, true)) {
+                // Released after the current handler returns.
+                channel.eventLoop().execute(() -> pool.release(channel, reusable));
+            }
+        }
+    }
+
+    static final String READ_TIMEOUT_HANDLER = "readTimeout";
+    static final String INFLATER_HANDLER = "inflater";
+    static final String AGGREGATOR_HANDLER = "aggregator";
+    static final String EXECUTE_HANDLER = "executor";
+    private static final String[] REQUEST_HANDLERS = { READ_TIMEOUT_HANDLER, INFLATER_HANDLER, AGGREGATOR_HANDLER,
+            EXECUTE_HANDLER };
+    private static final AttributeKey<Boolean> KEY_IN_USE = AttributeKey
+            .valueOf(Netty4ConnectionPool.class.getName() + ".inUse");
+
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors. <springcloudgateway@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.remoting;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springcloud.gateway.core.lang.Assert2;
+import org.springcloud.gateway.core.remoting.Netty4ConnectionPool.ChannelLease;
+import org.springcloud.gateway.core.remoting.standard.HttpHeaders;
+
+import com.google.common.util.concurrent.SettableFuture;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpObject;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.ReferenceCountUtil;
+
+/**
+ * {@link ClientHttpResponse} implementation based on Netty 4, which is
+ * responded as soon as the response headers received, and the body is read
+ * from the content chunks without the full aggregation. The connection stops
+ * reading when the unread chunks over the high water mark.
+ * <p>
+ * Created via the {@link Netty4ClientHttpRequestFactory#setStreaming(boolean)}.
+ */
+class Netty4StreamingClientHttpResponse extends AbstractClientHttpResponse {
+
+    private final HttpResponse nettyResponse;
+    private final ChannelLease lease;
+    private final LinkedBlockingQueue<ByteBuf> chunks = new LinkedBlockingQueue<>();
+    private final AtomicLong unreadBytes = new AtomicLong();
+    private final InputStream body = new ChunkedInputStream();
+    private volatile boolean completed;
+    private volatile boolean closed;
+    private volatile Throwable cause;
+    private volatile HttpHeaders headers;
+
+    Netty4StreamingClientHttpResponse(HttpResponse nettyResponse, ChannelLease lease) {
+        Assert2.notNull(nettyResponse, "HttpResponse must not be null");
+        Assert2.notNull(lease, "ChannelLease must not be null");
+        this.nettyResponse = nettyResponse;
+        this.lease = lease;
+    }
+
+    @Override
+    public int getRawStatusCode() throws IOException {
+        return nettyResponse.status().code();
+    }
+
+    @Override
+    public String getStatusText() throws IOException {
+        return nettyResponse.status().reasonPhrase();
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        if (headers == null) {
+            HttpHeaders headers = new HttpHeaders();
+            for (Map.Entry<String, String> entry : nettyResponse.headers()) {
+                headers.add(entry.getKey(), entry.getValue());
+            }
+            this.headers = headers;
+        }
+        return headers;
+    }
+
+    @Override
+    public InputStream getBody() throws IOException {
+        return body;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        // The remaining content is unread, so the connection cannot be reused.
+        if (!completed) {
+            lease.release(false);
+        }
+        ByteBuf chunk;
+        while (nonNull(chunk = chunks.poll())) {
+            ReferenceCountUtil.safeRelease(chunk);
+        }
+    }
+
+    /**
+     * Called on the event loop when the content chunk received.
+     */
+    void onContent(ByteBuf content) {
+        if (closed) {
+            return;
+        }
+        if (content.isReadable()) {
+            unreadBytes.addAndGet(content.readableBytes());
+            chunks.offer(content.retain());
+            if (unreadBytes.get() > HIGH_WATER_MARK) {
+                lease.getChannel().config().setAutoRead(false);
+                // Re-check in case the chunks were drained concurrently.
+                if (unreadBytes.get() < LOW_WATER_MARK) {
+                    lease.getChannel().config().setAutoRead(true);
+                }
+            }
+        }
+    }
+
+    /**
+     * Called on the event loop when the last content received, or the
+     * connection failed.
+     */
+    void onComplete(Throwable cause) {
+        this.cause = cause;
+        this.completed = true;
+        chunks.offer(END_OF_CONTENT);
+    }
+
+    /**
+     * The input stream of the received chunks, blocked until the chunk
+     * available or the response completed.
+     */
+    private class ChunkedInputStream extends InputStream {
+        private ByteBuf current;
+
+        @Override
+        public int read() throws IOException {
+            ByteBuf buf = nextChunk();
+            return isNull(buf) ? -1 : (buf.readByte() & 0xFF);
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            ByteBuf buf = nextChunk();
+            if (isNull(buf)) {
+                return -1;
+            }
+            int n = Math.min(len, buf.readableBytes());
+            buf.readBytes(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return nonNull(current) ? current.readableBytes() : 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            Netty4StreamingClientHttpResponse.this.close();
+        }
+
+        private ByteBuf nextChunk() throws IOException {
+            if (nonNull(current) && current.isReadable()) {
+                return current;
+            }
+            if (nonNull(current)) {
+                ReferenceCountUtil.safeRelease(current);
+                current = null;
+            }
+            if (closed) {
+                throw new IOException("The response body already closed");
+            }
+            ByteBuf chunk;
+            try {
+                chunk = chunks.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted during reading the response body", e);
+            }
+            if (chunk == END_OF_CONTENT) {
+                // Keep the end marker for the subsequent reads.
+                chunks.offer(END_OF_CONTENT);
+                if (nonNull(cause)) {
+                    throw new IOException("Failed to read the response body", cause);
+                }
+                return null;
+            }
+            if (!completed && unreadBytes.addAndGet(-chunk.readableBytes()) < LOW_WATER_MARK
+                    && !lease.getChannel().config().isAutoRead()) {
+                lease.getChannel().config().setAutoRead(true);
+            }
+            return (current = chunk);
+        }
+    }
+
+    /**
+     * The handler of the streaming response, which is added per request.
+     */
+    static class StreamingResponseHandler extends SimpleChannelInboundHandler<HttpObject> {
+
+        private final SettableFuture<ClientHttpResponse> responseFuture;
+        private final ChannelLease lease;
+        private Netty4StreamingClientHttpResponse response;
+
+        StreamingResponseHandler(SettableFuture<ClientHttpResponse> responseFuture, ChannelLease lease) {
+            this.responseFuture = responseFuture;
+            this.lease = lease;
+        }
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext context, HttpObject msg) throws Exception {
+            if (msg instanceof HttpResponse) {
+                this.response = new Netty4StreamingClientHttpResponse((HttpResponse) msg, lease);
+                responseFuture.set(response);
+            }
+            if (msg instanceof HttpContent && nonNull(response)) {
+                response.onContent(((HttpContent) msg).content());
+                if (msg instanceof LastHttpContent) {
+                    response.onComplete(null);
+                    lease.release(HttpUtil.isKeepAlive(response.nettyResponse));
+                }
+            }
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext context, Throwable cause) throws Exception {
+            fail(cause);
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext context) throws Exception {
+            fail(new IOException("Connection closed before the response completed"));
+            context.fireChannelInactive();
+        }
+
+        private void fail(Throwable cause) {
+            if (lease.isReleased()) {
+                return;
+            }
+            if (!responseFuture.setException(cause) && nonNull(response)) {
+                response.onComplete(cause);
+            }
+            lease.release(false);
+        }
+    }
+
+    private static final ByteBuf END_OF_CONTENT = Unpooled.EMPTY_BUFFER;
+    private static final long HIGH_WATER_MARK = 1024 * 1024;
+    private static final long LOW_WATER_MARK = HIGH_WATER_MARK / 4;
+
+}
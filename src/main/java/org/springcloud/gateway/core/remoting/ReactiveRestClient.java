@@ -0,0 +1,641 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors. <springcloudgateway@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.remoting;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static org.springcloud.gateway.core.lang.Assert2.isTrueOf;
+import static org.springcloud.gateway.core.lang.Assert2.notNullOf;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+
+import javax.annotation.Nullable;
+
+import org.reactivestreams.Publisher;
+import org.springcloud.gateway.core.modelseri.JacksonUtils;
+import org.springcloud.gateway.core.reflect.ParameterizedTypeReference;
+import org.springcloud.gateway.core.remoting.exception.HttpClientErrorException;
+import org.springcloud.gateway.core.remoting.exception.HttpServerErrorException;
+import org.springcloud.gateway.core.remoting.exception.RestClientException;
+import org.springcloud.gateway.core.remoting.exception.UnknownHttpStatusCodeException;
+import org.springcloud.gateway.core.remoting.standard.HttpHeaders;
+import org.springcloud.gateway.core.remoting.standard.HttpMediaType;
+import org.springcloud.gateway.core.remoting.standard.HttpStatus;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.HttpMethod;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.netty.ByteBufFlux;
+import reactor.netty.http.HttpResources;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.client.HttpClientResponse;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.netty.resources.LoopResources;
+
+/**
+ * The non-blocking reactive counterpart of the {@link RestClient}, which is
+ * based on the reactor netty {@link HttpClient}, so it can be called from the
+ * reactive paths (e.g. the gateway filters) without blocking the event loop.
+ * <ul>
+ * <li>By default the event loops and connection pools of the global
+ * {@link HttpResources} are shared, which are also used by the gateway server
+ * and the routing client.</li>
+ * <li>The concurrent requests per destination (scheme, host and port) are
+ * limited, the requests over the limit are queued (bounded) until the
+ * running requests completed.</li>
+ * <li>Each request is bounded by the deadline, which includes the time of
+ * waiting in the queue and receiving the whole response.</li>
+ * <li>The JSON response body is decoded incrementally by the
+ * {@link JacksonUtils#getDefaultObjectMapper()}, the elements of the top
+ * level array are emitted as soon as they are decoded by
+ * {@link #getForFlux(URI, Class)}.</li>
+ * </ul>
+ *
+ * @author springcloudgateway &lt;springcloudgateway@gmail.com&gt;
+ * @version v1.0.0
+ * @see RestClient
+ */
+public class ReactiveRestClient {
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final ConcurrentMap<String, DestinationLimiter> destinationLimiters = new ConcurrentHashMap<>(8);
+    private int maxConcurrencyPerDestination = DEFAULT_MAX_CONCURRENCY_PER_DESTINATION;
+    private int maxPendingPerDestination = DEFAULT_MAX_PENDING_PER_DESTINATION;
+    private Duration defaultDeadline = DEFAULT_DEADLINE;
+    private int maxInMemorySize = DEFAULT_MAX_IN_MEMORY_SIZE;
+
+    /**
+     * Create a new instance of the {@link ReactiveRestClient}, which shares
+     * the global {@link HttpResources} with the gateway.
+     */
+    public ReactiveRestClient() {
+        this(HttpResources.get(), HttpResources.get());
+    }
+
+    /**
+     * Create a new instance of the {@link ReactiveRestClient} with the given
+     * event loops and connection provider, e.g. from the
+     * {@code ReactorResourceFactory}.
+     *
+     * @param loopResources
+     * @param connectionProvider
+     */
+    public ReactiveRestClient(LoopResources loopResources, ConnectionProvider connectionProvider) {
+        this(HttpClient.create((ConnectionProvider) notNullOf(connectionProvider, "connectionProvider")).runOn(
+                (LoopResources) notNullOf(loopResources, "loopResources")));
+    }
+
+    /**
+     * Create a new instance of the {@link ReactiveRestClient} with the given
+     * pre-configured {@link HttpClient}.
+     *
+     * @param httpClient
+     */
+    public ReactiveRestClient(HttpClient httpClient) {
+        this.httpClient = notNullOf(httpClient, "httpClient");
+        this.objectMapper = JacksonUtils.getDefaultObjectMapper();
+    }
+
+    /**
+     * Set the maximum number of the concurrent requests per destination.
+     * <p>
+     * By default this is set to
+     * {@link #DEFAULT_MAX_CONCURRENCY_PER_DESTINATION}.
+     */
+    public ReactiveRestClient setMaxConcurrencyPerDestination(int maxConcurrencyPerDestination) {
+        isTrueOf(maxConcurrencyPerDestination > 0, "maxConcurrencyPerDestination > 0");
+        this.maxConcurrencyPerDestination = maxConcurrencyPerDestination;
+        return this;
+    }
+
+    /**
+     * Set the maximum number of the queued requests per destination, the
+     * requests over the limit are failed immediately.
+     * <p>
+     * By default this is set to {@link #DEFAULT_MAX_PENDING_PER_DESTINATION}.
+     */
+    public ReactiveRestClient setMaxPendingPerDestination(int maxPendingPerDestination) {
+        isTrueOf(maxPendingPerDestination >= 0, "maxPendingPerDestination >= 0");
+        this.maxPendingPerDestination = maxPendingPerDestination;
+        return this;
+    }
+
+    /**
+     * Set the default deadline of the requests.
+     * <p>
+     * By default this is set to {@link #DEFAULT_DEADLINE}.
+     */
+    public ReactiveRestClient setDefaultDeadline(Duration defaultDeadline) {
+        notNullOf(defaultDeadline, "defaultDeadline");
+        isTrueOf(!defaultDeadline.isNegative() && !defaultDeadline.isZero(), "defaultDeadline > 0");
+        this.defaultDeadline = defaultDeadline;
+        return this;
+    }
+
+    /**
+     * Set the maximum number of bytes buffered in memory per response, i.e.
+     * the bytes of each JSON value in progress of the decoding (which fails
+     * with {@link org.springframework.core.io.buffer.DataBufferLimitException}
+     * when exceeded), and the bytes of the error status response body (which
+     * is truncated when exceeded). -1 means unlimited.
+     * <p>
+     * By default this is set to {@link #DEFAULT_MAX_IN_MEMORY_SIZE}.
+     */
+    public ReactiveRestClient setMaxInMemorySize(int maxInMemorySize) {
+        isTrueOf(maxInMemorySize >= -1, "maxInMemorySize >= -1");
+        this.maxInMemorySize = maxInMemorySize;
+        return this;
+    }
+
+    // GET
+
+    /**
+     * Retrieve a representation by doing a GET on the specified URI.
+     *
+     * @param uri
+     *            the URI
+     * @param responseType
+     *            the type of the return value
+     * @return the converted object, or empty if no body
+     */
+    public <T> Mono<T> getForObject(URI uri, Class<T> responseType) {
+        return this.<T> exchangeToFlux(uri, HttpMethod.GET, null, responseType, false, null).next();
+    }
+
+    /**
+     * Retrieve the elements of the JSON array (or the newline delimited JSON
+     * values) by doing a GET on the specified URI, each element is emitted
+     * as soon as it is decoded.
+     *
+     * @param uri
+     *            the URI
+     * @param elementType
+     *            the type of the elements
+     * @return the converted elements
+     */
+    public <T> Flux<T> getForFlux(URI uri, Class<T> elementType) {
+        return exchangeToFlux(uri, HttpMethod.GET, null, elementType, true, null);
+    }
+
+    /**
+     * Retrieve an entity by doing a GET on the specified URI.
+     *
+     * @param uri
+     *            the URI
+     * @param responseType
+     *            the type of the return value
+     * @return the entity
+     */
+    public <T> Mono<HttpResponseEntity<T>> getForEntity(URI uri, Class<T> responseType) {
+        return exchange(uri, HttpMethod.GET, null, responseType, null);
+    }
+
+    // POST
+
+    /**
+     * Create a new resource by POSTing the given object to the URI, and
+     * returns the converted response.
+     *
+     * @param uri
+     *            the URI
+     * @param request
+     *            the object to be POSTed (may be {@code null})
+     * @param responseType
+     *            the type of the return value
+     * @return the converted object, or empty if no body
+     */
+    public <T> Mono<T> postForObject(URI uri, @Nullable Object request, Class<T> responseType) {
+        return this.<T> exchangeToFlux(uri, HttpMethod.POST, toHttpEntity(request), responseType, false, null).next();
+    }
+
+    /**
+     * Create a new resource by POSTing the given object to the URI, and
+     * returns the response as entity.
+     *
+     * @param uri
+     *            the URI
+     * @param request
+     *            the object to be POSTed (may be {@code null})
+     * @param responseType
+     *            the type of the return value
+     * @return the entity
+     */
+    public <T> Mono<HttpResponseEntity<T>> postForEntity(URI uri, @Nullable Object request, Class<T> responseType) {
+        return exchange(uri, HttpMethod.POST, toHttpEntity(request), responseType, null);
+    }
+
+    // PUT & DELETE
+
+    public Mono<Void> put(URI uri, @Nullable Object request) {
+        return exchangeToFlux(uri, HttpMethod.PUT, toHttpEntity(request), Void.class, false, null).then();
+    }
+
+    public Mono<Void> delete(URI uri) {
+        return exchangeToFlux(uri, HttpMethod.DELETE, null, Void.class, false, null).then();
+    }
+
+    // General execution
+
+    /**
+     * Execute the HTTP method to the given URI, writing the given request
+     * entity to the request, and returns the response as entity.
+     *
+     * @param uri
+     *            the URI
+     * @param method
+     *            the HTTP method (GET, POST, etc)
+     * @param requestEntity
+     *            the entity (headers and/or body) to write to the request
+     *            (may be {@code null})
+     * @param responseType
+     *            the type of the return value
+     * @param deadline
+     *            the deadline of the request, or the default deadline if
+     *            {@code null}
+     * @return the response as entity
+     */
+    public <T> Mono<HttpResponseEntity<T>> exchange(
+            URI uri,
+            HttpMethod method,
+            @Nullable HttpEntity<?> requestEntity,
+            Class<T> responseType,
+            @Nullable Duration deadline) {
+        return exchange(uri, method, requestEntity, objectMapper.constructType(responseType), deadline);
+    }
+
+    /**
+     * Execute the HTTP method to the given URI, writing the given request
+     * entity to the request, and returns the response as entity. The given
+     * {@link ParameterizedTypeReference} is used to pass generic type
+     * information.
+     *
+     * @see #exchange(URI, HttpMethod, HttpEntity, Class, Duration)
+     */
+    public <T> Mono<HttpResponseEntity<T>> exchange(
+            URI uri,
+            HttpMethod method,
+            @Nullable HttpEntity<?> requestEntity,
+            ParameterizedTypeReference<T> responseType,
+            @Nullable Duration deadline) {
+        return exchange(uri, method, requestEntity, objectMapper.constructType(responseType.getType()), deadline);
+    }
+
+    /**
+     * Execute the HTTP method to the given URI, and returns the elements of
+     * the JSON array (or the newline delimited JSON values) response.
+     *
+     * @param uri
+     *            the URI
+     * @param method
+     *            the HTTP method (GET, POST, etc)
+     * @param requestEntity
+     *            the entity (headers and/or body) to write to the request
+     *            (may be {@code null})
+     * @param elementType
+     *            the type of the elements
+     * @param deadline
+     *            the deadline of the request, or the default deadline if
+     *            {@code null}
+     * @return the converted elements
+     */
+    public <T> Flux<T> exchangeToFlux(
+            URI uri,
+            HttpMethod method,
+            @Nullable HttpEntity<?> requestEntity,
+            Class<T> elementType,
+            @Nullable Duration deadline) {
+        return exchangeToFlux(uri, method, requestEntity, elementType, true, deadline);
+    }
+
+    private <T> Mono<HttpResponseEntity<T>> exchange(
+            URI uri,
+            HttpMethod method,
+            @Nullable HttpEntity<?> requestEntity,
+            JavaType responseType,
+            @Nullable Duration deadline) {
+        return execute(uri, method, requestEntity, (response, body) -> {
+            HttpHeaders headers = toHttpHeaders(response);
+            HttpStatus status = HttpStatus.valueOf(response.status().code());
+            return this.<T> decode(body, responseType, false)
+                    .next()
+                    .map(value -> new HttpResponseEntity<>(value, headers, status))
+                    .defaultIfEmpty(new HttpResponseEntity<>(headers, status));
+        }, deadline).next();
+    }
+
+    private <T> Flux<T> exchangeToFlux(
+            URI uri,
+            HttpMethod method,
+            @Nullable HttpEntity<?> requestEntity,
+            Type valueType,
+            boolean tokenizeArray,
+            @Nullable Duration deadline) {
+        JavaType javaType = objectMapper.constructType(valueType);
+        return execute(uri, method, requestEntity, (response, body) -> decode(body, javaType, tokenizeArray), deadline);
+    }
+
+    /**
+     * Execute the request under the concurrency limit of the destination and
+     * the deadline, the error status response is converted to the
+     * {@link HttpClientErrorException} or {@link HttpServerErrorException}.
+     */
+    private <V> Flux<V> execute(
+            URI uri,
+            HttpMethod method,
+            @Nullable HttpEntity<?> requestEntity,
+            BiFunction<HttpClientResponse, ByteBufFlux, Publisher<V>> responseHandler,
+            @Nullable Duration deadline) {
+        notNullOf(uri, "uri");
+        notNullOf(method, "method");
+        DestinationLimiter limiter = obtainDestinationLimiter(uri);
+
+        Flux<V> result = Flux.usingWhen(limiter.acquire(), permit -> {
+            byte[] body = encodeBody(requestEntity);
+            HttpClient client = httpClient.headers(headers -> {
+                if (nonNull(requestEntity)) {
+                    for (Map.Entry<String, List<String>> entry : requestEntity.getHeaders().entrySet()) {
+                        headers.add(entry.getKey(), entry.getValue());
+                    }
+                }
+                if (nonNull(body) && !headers.contains(HttpHeaders.CONTENT_TYPE)) {
+                    headers.set(HttpHeaders.CONTENT_TYPE, HttpMediaType.APPLICATION_JSON_VALUE);
+                }
+            });
+            HttpClient.ResponseReceiver<?> receiver = isNull(body) ? client.request(method).uri(uri.toString())
+                    : client.request(method).uri(uri.toString()).send(Mono.fromSupplier(() -> Unpooled.wrappedBuffer(body)));
+            return receiver.response((response, content) -> {
+                int statusCode = response.status().code();
+                if (statusCode >= 400) {
+                    return aggregateErrorBody(content).<V> flatMap(
+                            errorBody -> Mono.error(createStatusException(response, errorBody)));
+                }
+                return responseHandler.apply(response, content);
+            });
+        }, DestinationLimiter.Permit::releaseAsync, (permit, ex) -> permit.releaseAsync(), DestinationLimiter.Permit::releaseAsync);
+
+        return withDeadline(result, isNull(deadline) ? defaultDeadline : deadline, uri);
+    }
+
+    /**
+     * Apply the deadline to the whole flux, including the time of waiting for
+     * the permit and receiving all the elements.
+     */
+    private <V> Flux<V> withDeadline(Flux<V> source, Duration deadline, URI uri) {
+        return Flux.defer(() -> {
+            long deadlineNanoTime = System.nanoTime() + deadline.toNanos();
+            return source
+                    .timeout(Mono.delay(deadline),
+                            item -> Mono.delay(Duration.ofNanos(Math.max(deadlineNanoTime - System.nanoTime(), 0L))))
+                    .onErrorMap(TimeoutException.class, ex -> new RestClientException(
+                            format("Request deadline %sms exceeded for: %s", deadline.toMillis(), uri), ex));
+        });
+    }
+
+    /**
+     * Aggregate the error status response body at most the
+     * {@link #maxInMemorySize} bytes, the rest is read and discarded (so the
+     * connection can still be reused).
+     */
+    private Mono<byte[]> aggregateErrorBody(ByteBufFlux content) {
+        int limit = maxInMemorySize < 0 ? Integer.MAX_VALUE : maxInMemorySize;
+        return content.reduceWith(() -> new ByteArrayOutputStream(256), (out, chunk) -> {
+            int length = Math.min(chunk.readableBytes(), limit - out.size());
+            if (length > 0) {
+                byte[] bytes = new byte[length];
+                chunk.getBytes(chunk.readerIndex(), bytes);
+                out.write(bytes, 0, length);
+            }
+            return out;
+        }).map(ByteArrayOutputStream::toByteArray).defaultIfEmpty(new byte[0]);
+    }
+
+    private <T> Flux<T> decode(ByteBufFlux body, JavaType valueType, boolean tokenizeArray) {
+        if (valueType.getRawClass() == Void.class) {
+            // Drain the body to release the connection.
+            return body.then().thenMany(Flux.empty());
+        }
+        return Flux.defer(() -> {
+            JacksonStreamDecoder<T> decoder = new JacksonStreamDecoder<>(objectMapper, valueType, tokenizeArray,
+                    maxInMemorySize);
+            return body.concatMapIterable(chunk -> {
+                try {
+                    return decoder.decode(chunk);
+                } catch (IOException e) {
+                    throw Exceptions.propagate(new RestClientException("Failed to decode the JSON response body", e));
+                }
+            }).concatWith(Flux.defer(() -> {
+                try {
+                    return Flux.fromIterable(decoder.endOfInput());
+                } catch (IOException e) {
+                    return Flux.error(new RestClientException("Failed to decode the JSON response body", e));
+                }
+            }));
+        });
+    }
+
+    @Nullable
+    private byte[] encodeBody(@Nullable HttpEntity<?> requestEntity) {
+        Object body = isNull(requestEntity) ? null : requestEntity.getBody();
+        if (isNull(body)) {
+            return null;
+        } else if (body instanceof byte[]) {
+            return (byte[]) body;
+        } else if (body instanceof CharSequence) {
+            return body.toString().getBytes(UTF_8);
+        }
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new RestClientException("Failed to encode the JSON request body", e);
+        }
+    }
+
+    private HttpEntity<?> toHttpEntity(@Nullable Object request) {
+        if (request instanceof HttpEntity) {
+            return (HttpEntity<?>) request;
+        }
+        return isNull(request) ? null : new HttpEntity<>(request);
+    }
+
+    private DestinationLimiter obtainDestinationLimiter(URI uri) {
+        int port = Netty4ClientHttpRequest.getPort(uri);
+        String destination = String.valueOf(uri.getScheme()).concat("://").concat(String.valueOf(uri.getHost())).concat(
+                ":").concat(String.valueOf(port));
+        return destinationLimiters.computeIfAbsent(destination,
+                key -> new DestinationLimiter(key, maxConcurrencyPerDestination, maxPendingPerDestination));
+    }
+
+    private static HttpHeaders toHttpHeaders(HttpClientResponse response) {
+        HttpHeaders headers = new HttpHeaders();
+        for (Map.Entry<String, String> entry : response.responseHeaders()) {
+            headers.add(entry.getKey(), entry.getValue());
+        }
+        return headers;
+    }
+
+    private static RestClientException createStatusException(HttpClientResponse response, byte[] body) {
+        int statusCode = response.status().code();
+        String statusText = response.status().reasonPhrase();
+        HttpHeaders headers = toHttpHeaders(response);
+        HttpStatus status = HttpStatus.resolve(statusCode);
+        if (nonNull(status) && status.is4xxClientError()) {
+            return HttpClientErrorException.create(status, statusText, headers, body, UTF_8);
+        } else if (nonNull(status) && status.is5xxServerError()) {
+            return HttpServerErrorException.create(status, statusText, headers, body, UTF_8);
+        }
+        return new UnknownHttpStatusCodeException(statusCode, statusText, headers, body, UTF_8);
+    }
+
+    /**
+     * The non-blocking concurrency limiter of a destination, the waiting
+     * requests are granted in FIFO order when the permits are released.
+     */
+    static class DestinationLimiter {
+        private final String destination;
+        private final int maxConcurrency;
+        private final int maxPending;
+        private final AtomicInteger active = new AtomicInteger();
+        private final AtomicInteger pending = new AtomicInteger();
+        private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+
+        DestinationLimiter(String destination, int maxConcurrency, int maxPending) {
+            this.destination = destination;
+            this.maxConcurrency = maxConcurrency;
+            this.maxPending = maxPending;
+        }
+
+        Mono<Permit> acquire() {
+            return Mono.create(sink -> {
+                Waiter waiter = new Waiter(sink);
+                sink.onCancel(waiter::cancel);
+                if (tryAcquire()) {
+                    waiter.grant(new Permit());
+                    return;
+                }
+                if (pending.incrementAndGet() > maxPending) {
+                    pending.decrementAndGet();
+                    sink.error(new RestClientException(
+                            format("Too many pending requests of destination: %s, maxPending: %s", destination, maxPending)));
+                    return;
+                }
+                waiters.offer(waiter);
+                // The permits may be released before the waiter queued.
+                drain();
+            });
+        }
+
+        private boolean tryAcquire() {
+            for (;;) {
+                int current = active.get();
+                if (current >= maxConcurrency) {
+                    return false;
+                }
+                if (active.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        private void drain() {
+            while (!waiters.isEmpty() && tryAcquire()) {
+                Waiter waiter = waiters.poll();
+                if (isNull(waiter)) {
+                    active.decrementAndGet();
+                    continue;
+                }
+                pending.decrementAndGet();
+                waiter.grant(new Permit());
+            }
+        }
+
+        class Waiter {
+            private final MonoSink<Permit> sink;
+            private final AtomicReference<Object> state = new AtomicReference<>();
+
+            Waiter(MonoSink<Permit> sink) {
+                this.sink = sink;
+            }
+
+            void grant(Permit permit) {
+                if (state.compareAndSet(null, permit)) {
+                    sink.success(permit);
+                } else {
+                    // Cancelled when waiting, give back the permit.
+                    permit.release();
+                }
+            }
+
+            void cancel() {
+                Object prev = state.getAndSet(CANCELLED);
+                if (prev instanceof Permit) {
+                    ((Permit) prev).release();
+                }
+            }
+        }
+
+        /**
+         * The permit can be released only once, e.g. both cancelled and
+         * completed.
+         */
+        class Permit {
+            private final AtomicBoolean released = new AtomicBoolean(false);
+
+            void release() {
+                if (released.compareAndSet(false, true)) {
+                    active.decrementAndGet();
+                    drain();
+                }
+            }
+
+            Mono<Void> releaseAsync() {
+                return Mono.fromRunnable(this::release);
+            }
+        }
+
+        private static final Object CANCELLED = new Object();
+    }
+
+    public static final int DEFAULT_MAX_CONCURRENCY_PER_DESTINATION = 64;
+    public static final int DEFAULT_MAX_PENDING_PER_DESTINATION = 1024;
+    public static final Duration DEFAULT_DEADLINE = Duration.ofSeconds(30);
+    public static final int DEFAULT_MAX_IN_MEMORY_SIZE = 256 * 1024;
+
+}
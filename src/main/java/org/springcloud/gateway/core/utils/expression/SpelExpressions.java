@@ -19,9 +19,12 @@ import javax.annotation.Nullable;
 import org.springframework.context.expression.MapAccessor;
 import org.springframework.expression.EvaluationContext;
 import org.springframework.expression.EvaluationException;
+import org.springframework.expression.Expression;
 import org.springframework.expression.ExpressionParser;
 import org.springframework.expression.ParserContext;
 import org.springframework.expression.PropertyAccessor;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.expression.spel.support.ReflectivePropertyAccessor;
 import org.springframework.expression.spel.support.StandardEvaluationContext;
@@ -37,6 +40,9 @@ import static java.util.Objects.nonNull;
 import java.util.ArrayList;
 import java.util.List;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 import static org.springcloud.gateway.core.collection.CollectionUtils2.isEmptyArray;
 import static org.springcloud.gateway.core.collection.CollectionUtils2.safeList;
 import static org.springcloud.gateway.core.lang.Assert2.hasTextOf;
@@ -54,6 +60,12 @@ public abstract class SpelExpressions {
 	/** Class load of package prefixs. */
 	private List<String> knownPackagePrefixes = new ArrayList<>(4);
 
+	/**
+	 * The type locator shared by all evaluations of this instance, it is
+	 * immutable after {@link #create(Class...)} returned.
+	 */
+	private volatile StandardTypeLocator typeLocator;
+
 	private SpelExpressions() {
 	}
 
@@ -135,11 +147,9 @@ public abstract class SpelExpressions {
 			@Nullable CallbackFunction<EvaluationContext> customizer) throws EvaluationException {
 		hasTextOf(expression, "expression");
 
-		// Create expression parser.
+		// Create evaluation context.
 		StandardEvaluationContext context = new StandardEvaluationContext(model);
-		StandardTypeLocator locator = new StandardTypeLocator(ClassUtils.getDefaultClassLoader());
-		safeList(knownPackagePrefixes).forEach(p -> locator.registerImport(p));
-		context.setTypeLocator(locator);
+		context.setTypeLocator(getTypeLocator());
 		context.setPropertyAccessors(defaultPropertyAccessors);
 
 		// Customize evaluation context.
@@ -151,7 +161,41 @@ public abstract class SpelExpressions {
 			}
 		}
 
-		return (T) defaultParser.parseExpression(expression, ParserContext.TEMPLATE_EXPRESSION).getValue(context);
+		return (T) parseExpression(expression).getValue(context);
+	}
+
+	/**
+	 * Gets the parsed(and possibly compiled) template expression, the parsed
+	 * result is cached so that the same expression string is only parsed once.
+	 * </br>
+	 * Expressions are usually from the configuration, but some may be supplied
+	 * by the request (e.g. the dyeing log expression header), so the cache is
+	 * bounded and the least recently used expressions are evicted, so that the
+	 * dynamic expressions neither grow the cache nor keep out the configured
+	 * ones.
+	 * 
+	 * @param expression
+	 * @return
+	 */
+	public static Expression parseExpression(@NotBlank String expression) throws EvaluationException {
+		Expression expr = expressionCache.getIfPresent(expression);
+		if (expr == null) {
+			expr = defaultParser.parseExpression(expression, ParserContext.TEMPLATE_EXPRESSION);
+			expressionCache.put(expression, expr);
+		}
+		return expr;
+	}
+
+	private StandardTypeLocator getTypeLocator() {
+		StandardTypeLocator locator = this.typeLocator;
+		if (locator == null) {
+			locator = new StandardTypeLocator(ClassUtils.getDefaultClassLoader());
+			for (String prefix : safeList(knownPackagePrefixes)) {
+				locator.registerImport(prefix);
+			}
+			this.typeLocator = locator;
+		}
+		return locator;
 	}
 
 	/**
@@ -178,8 +222,22 @@ public abstract class SpelExpressions {
 		return hasSpelTemplateExpr(maybeExpr) ? maybeExpr : "#{".concat(maybeExpr).concat("}");
 	}
 
-	/** {@link ExpressionParser} */
-	private static final ExpressionParser defaultParser = new SpelExpressionParser();
+	/**
+	 * {@link ExpressionParser}, The {@link SpelCompilerMode#MIXED} mode
+	 * compiles the expression into bytecode after it has been interpreted
+	 * successfully a few times, and falls back to interpretation when the
+	 * compiled form fails (e.g. the variable type changed).
+	 */
+	private static final ExpressionParser defaultParser = new SpelExpressionParser(
+			new SpelParserConfiguration(SpelCompilerMode.MIXED, ClassUtils.getDefaultClassLoader()));
+
+	/** The max number of cached parsed expressions. */
+	private static final int DEFAULT_EXPRESSION_CACHE_MAX = 4096;
+
+	/** The parsed expressions LRU cache. */
+	private static final Cache<String, Expression> expressionCache = CacheBuilder.newBuilder()
+			.maximumSize(DEFAULT_EXPRESSION_CACHE_MAX)
+			.build();
 
 	/** {@link PropertyAccessor} */
 	@SuppressWarnings("serial")
@@ -31,6 +31,7 @@ import java.net.URI;
 import java.security.Principal;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.springframework.http.HttpCookie;
@@ -51,6 +52,11 @@ public class ReactiveRequestExtractor implements WebRequestExtractor {
 
     private final HttpRequest request;
 
+    /**
+     * The lazy parsed query parameters of the servlet request.
+     */
+    private Map<String, String> servletQueryParams;
+
     public ReactiveRequestExtractor(org.springframework.http.server.ServerHttpRequest request) {
         this.request = notNullOf(request, "request");
     }
@@ -116,8 +122,7 @@ public class ReactiveRequestExtractor implements WebRequestExtractor {
     @Override
     public Collection<String> getQueryNames() {
         if (request instanceof org.springframework.http.server.ServerHttpRequest) {
-            String urlQuery = ((org.springframework.http.server.ServerHttpRequest) (request)).getURI().getQuery();
-            return SystemHelperUtils2.toQueryParams(urlQuery).keySet();
+            return getServletQueryParams().keySet();
         } else if (request instanceof org.springframework.http.server.reactive.ServerHttpRequest) {
             return ((org.springframework.http.server.reactive.ServerHttpRequest) request).getQueryParams().keySet();
         } else if (request instanceof org.springframework.web.reactive.function.server.ServerRequest) {
@@ -129,8 +134,7 @@ public class ReactiveRequestExtractor implements WebRequestExtractor {
     @Override
     public String getQueryValue(String name) {
         if (request instanceof org.springframework.http.server.ServerHttpRequest) {
-            String urlQuery = ((org.springframework.http.server.ServerHttpRequest) (request)).getURI().getQuery();
-            return SystemHelperUtils2.toQueryParams(urlQuery).get(name);
+            return getServletQueryParams().get(name);
         } else if (request instanceof org.springframework.http.server.reactive.ServerHttpRequest) {
             return ((org.springframework.http.server.reactive.ServerHttpRequest) request).getQueryParams().getFirst(name);
         } else if (request instanceof org.springframework.web.reactive.function.server.ServerRequest) {
@@ -139,6 +143,14 @@ public class ReactiveRequestExtractor implements WebRequestExtractor {
         return null;
     }
 
+    private Map<String, String> getServletQueryParams() {
+        if (servletQueryParams == null) {
+            String urlQuery = ((org.springframework.http.server.ServerHttpRequest) (request)).getURI().getQuery();
+            servletQueryParams = SystemHelperUtils2.toQueryParams(urlQuery);
+        }
+        return servletQueryParams;
+    }
+
     @Override
     public Collection<String> getHeaderNames() {
         return request.getHeaders().keySet();
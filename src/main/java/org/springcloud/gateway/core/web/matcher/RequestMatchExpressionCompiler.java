@@ -0,0 +1,326 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors. <springcloudgateway@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.web.matcher;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static org.apache.commons.lang3.StringUtils.isBlank;
+import static org.apache.commons.lang3.StringUtils.trimToEmpty;
+import static org.springcloud.gateway.core.lang.Assert2.notNullOf;
+import static org.springcloud.gateway.core.web.matcher.SpelRequestMatcher.SPEL_KEYWORDS_REQUEST;
+import static org.springcloud.gateway.core.web.matcher.SpelRequestMatcher.SPEL_KEYWORDS_RULE;
+
+import java.util.Locale;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+import javax.validation.constraints.NotNull;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.util.AntPathMatcher;
+
+import org.springcloud.gateway.core.web.WebUtils.WebRequestExtractor;
+import org.springcloud.gateway.core.web.matcher.SpelRequestMatcher.MatchHttpRequestRule;
+import org.springcloud.gateway.core.web.matcher.SpelRequestMatcher.MatchProperty;
+
+/**
+ * {@link RequestMatchExpressionCompiler}, Compiles the common request match
+ * expressions that are only the plain boolean composition of the named rules
+ * into a pre-resolved decision tree, so that no SPEL parsing, reflection or
+ * allocation is required when matching. </br>
+ * </br>
+ * The supported grammar, for example:
+ *
+ * <pre>
+ * #{true}
+ * #{$defaultLogHeader.test($request)}
+ * #{$defaultLogHeader.or($defaultLogQuery).and($withPath.negate()).test($request)}
+ * #{$rule.test($request) &amp;&amp; !$defaultZoneHeader.test($request)}
+ * </pre>
+ *
+ * Any other expressions (e.g. the extension predicate variables such as
+ * '$routeId') are not compiled, and the caller should fallback to SPEL.
+ *
+ * @author springcloudgateway &lt;springcloudgateway@gmail.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+public abstract class RequestMatchExpressionCompiler {
+
+    /**
+     * Compile the request match expression.
+     *
+     * @param expression
+     *            The SPEL template expression.
+     * @param rules
+     *            The named rules that may be referenced by expression.
+     * @return Returns the compiled predicate, or null if it is not a plain
+     *         composition of named rules.
+     */
+    public static @Nullable CompiledRequestPredicate compile(
+            @Nullable String expression,
+            @NotNull Map<String, MatchHttpRequestRule> rules) {
+        notNullOf(rules, "rules");
+        String expr = trimToEmpty(expression);
+        if (!expr.startsWith("#{") || !expr.endsWith("}") || expr.indexOf("#{", 2) >= 0) {
+            return null;
+        }
+        try {
+            Parser parser = new Parser(expr.substring(2, expr.length() - 1), rules);
+            CompiledRequestPredicate predicate = parser.parseOr();
+            parser.skipWhitespace();
+            return parser.isEnd() ? predicate : null;
+        } catch (UnsupportedExpressionException e) {
+            return null;
+        }
+    }
+
+    /**
+     * The compiled request predicate, the current rule is only available when
+     * matching with {@link SpelRequestMatcher#find}.
+     */
+    @FunctionalInterface
+    public static interface CompiledRequestPredicate {
+        boolean test(@NotNull WebRequestExtractor extractor, @Nullable MatchHttpRequestRule currentRule);
+    }
+
+    /**
+     * Simple recursive descent parser for the rules composition expression.
+     */
+    private static class Parser {
+        private final String expr;
+        private final Map<String, MatchHttpRequestRule> rules;
+        private int pos;
+
+        private Parser(String expr, Map<String, MatchHttpRequestRule> rules) {
+            this.expr = expr;
+            this.rules = rules;
+        }
+
+        // or := and (('||' | 'or') and)*
+        CompiledRequestPredicate parseOr() {
+            CompiledRequestPredicate left = parseAnd();
+            while (acceptSymbol("||") || acceptKeyword("or")) {
+                CompiledRequestPredicate l = left, r = parseAnd();
+                left = (extractor, current) -> l.test(extractor, current) || r.test(extractor, current);
+            }
+            return left;
+        }
+
+        // and := unary (('&&' | 'and') unary)*
+        CompiledRequestPredicate parseAnd() {
+            CompiledRequestPredicate left = parseUnary();
+            while (acceptSymbol("&&") || acceptKeyword("and")) {
+                CompiledRequestPredicate l = left, r = parseUnary();
+                left = (extractor, current) -> l.test(extractor, current) && r.test(extractor, current);
+            }
+            return left;
+        }
+
+        // unary := ('!' | 'not') unary | primary
+        CompiledRequestPredicate parseUnary() {
+            if (acceptSymbol("!") || acceptKeyword("not")) {
+                CompiledRequestPredicate p = parseUnary();
+                return (extractor, current) -> !p.test(extractor, current);
+            }
+            return parsePrimary();
+        }
+
+        // primary := 'true' | 'false' | '(' or ')' | chain '.test($request)'
+        CompiledRequestPredicate parsePrimary() {
+            if (acceptKeyword("true")) {
+                return (extractor, current) -> true;
+            } else if (acceptKeyword("false")) {
+                return (extractor, current) -> false;
+            } else if (acceptSymbol("(")) {
+                CompiledRequestPredicate p = parseOr();
+                expectSymbol(")");
+                return p;
+            }
+            CompiledRequestPredicate chain = parseChain();
+            expectSymbol(".test(");
+            expectSymbol("$".concat(SPEL_KEYWORDS_REQUEST));
+            expectSymbol(")");
+            return chain;
+        }
+
+        // chain := rule ('.and(' chain ')' | '.or(' chain ')' | '.negate()')*
+        CompiledRequestPredicate parseChain() {
+            CompiledRequestPredicate left = parseRule();
+            while (true) {
+                if (acceptSymbol(".and(")) {
+                    CompiledRequestPredicate l = left, r = parseChain();
+                    expectSymbol(")");
+                    left = (extractor, current) -> l.test(extractor, current) && r.test(extractor, current);
+                } else if (acceptSymbol(".or(")) {
+                    CompiledRequestPredicate l = left, r = parseChain();
+                    expectSymbol(")");
+                    left = (extractor, current) -> l.test(extractor, current) || r.test(extractor, current);
+                } else if (acceptSymbol(".negate()")) {
+                    CompiledRequestPredicate l = left;
+                    left = (extractor, current) -> !l.test(extractor, current);
+                } else {
+                    return left;
+                }
+            }
+        }
+
+        // rule := '$' identifier
+        CompiledRequestPredicate parseRule() {
+            expectSymbol("$");
+            int start = pos;
+            while (pos < expr.length() && Character.isJavaIdentifierPart(expr.charAt(pos))) {
+                ++pos;
+            }
+            String name = expr.substring(start, pos);
+            if (SPEL_KEYWORDS_RULE.equals(name)) {
+                return (extractor, current) -> nonNull(current) && current.test(extractor);
+            }
+            MatchHttpRequestRule rule = rules.get(name);
+            if (isNull(rule)) {
+                throw new UnsupportedExpressionException();
+            }
+            CompiledRule compiled = new CompiledRule(rule);
+            return (extractor, current) -> compiled.test(extractor);
+        }
+
+        void skipWhitespace() {
+            while (pos < expr.length() && Character.isWhitespace(expr.charAt(pos))) {
+                ++pos;
+            }
+        }
+
+        boolean isEnd() {
+            return pos >= expr.length();
+        }
+
+        boolean acceptSymbol(String symbol) {
+            skipWhitespace();
+            if (expr.startsWith(symbol, pos)) {
+                pos += symbol.length();
+                return true;
+            }
+            return false;
+        }
+
+        boolean acceptKeyword(String keyword) {
+            skipWhitespace();
+            int end = pos + keyword.length();
+            if (expr.regionMatches(true, pos, keyword, 0, keyword.length())
+                    && (end >= expr.length() || !Character.isJavaIdentifierPart(expr.charAt(end)))) {
+                pos = end;
+                return true;
+            }
+            return false;
+        }
+
+        void expectSymbol(String symbol) {
+            if (!acceptSymbol(symbol)) {
+                throw new UnsupportedExpressionException();
+            }
+        }
+    }
+
+    /**
+     * The pre-resolved immutable snapshot of {@link MatchHttpRequestRule},
+     * which has the same semantics as
+     * {@link MatchHttpRequestRule#test(WebRequestExtractor)}.
+     */
+    static class CompiledRule {
+        private final int methodMask;
+        private final @Nullable String scheme;
+        private final @Nullable String host;
+        private final int port;
+        private final @Nullable String path;
+        private final @Nullable MatchProperty header;
+        private final @Nullable MatchProperty cookie;
+        private final @Nullable MatchProperty query;
+        private final AntPathMatcher pathMatcher;
+
+        CompiledRule(MatchHttpRequestRule rule) {
+            this.methodMask = isBlank(rule.getMethod()) ? ALL_METHODS_MASK : methodBit(rule.getMethod());
+            if (methodMask == 0) { // Unknown method, fallback to SPEL.
+                throw new UnsupportedExpressionException();
+            }
+            this.scheme = isBlank(rule.getScheme()) ? null : rule.getScheme();
+            this.host = isBlank(rule.getHost()) ? null : rule.getHost();
+            this.port = (isNull(rule.getPort()) || rule.getPort() <= 0) ? -1 : rule.getPort();
+            this.path = isBlank(rule.getPath()) ? null : rule.getPath();
+            this.header = rule.getHeader();
+            this.cookie = rule.getCookie();
+            this.query = rule.getQuery();
+            this.pathMatcher = new AntPathMatcher("/");
+        }
+
+        boolean test(WebRequestExtractor extractor) {
+            if (methodMask != ALL_METHODS_MASK && (methodBit(extractor.getMethod()) & methodMask) == 0) {
+                return false;
+            }
+            if (nonNull(scheme) && !scheme.equalsIgnoreCase(extractor.getScheme())) {
+                return false;
+            }
+            if (nonNull(host) && !host.equalsIgnoreCase(extractor.getHost())) {
+                return false;
+            }
+            if (port > 0) {
+                Integer requestPort = extractor.getPort();
+                if (isNull(requestPort) || requestPort.intValue() != port) {
+                    return false;
+                }
+            }
+            if (nonNull(path) && !pathMatcher.matchStart(path, extractor.getPath())) {
+                return false;
+            }
+            if (nonNull(header) && !header.getSymbol()
+                    .getFunction()
+                    .apply(trimToEmpty(extractor.getHeaderValue(header.getKey())), header.getValue())) {
+                return false;
+            }
+            if (nonNull(cookie) && !cookie.getSymbol()
+                    .getFunction()
+                    .apply(trimToEmpty(extractor.getCookieValue(cookie.getKey())), cookie.getValue())) {
+                return false;
+            }
+            if (nonNull(query) && !query.getSymbol()
+                    .getFunction()
+                    .apply(trimToEmpty(extractor.getQueryValue(query.getKey())), query.getValue())) {
+                return false;
+            }
+            return true;
+        }
+
+        static int methodBit(@Nullable String method) {
+            if (isNull(method)) {
+                return 0;
+            }
+            HttpMethod httpMethod = HttpMethod.resolve(method);
+            if (isNull(httpMethod)) {
+                httpMethod = HttpMethod.resolve(method.toUpperCase(Locale.US));
+            }
+            return isNull(httpMethod) ? 0 : (1 << httpMethod.ordinal());
+        }
+
+        static final int ALL_METHODS_MASK = -1;
+    }
+
+    @SuppressWarnings("serial")
+    private static class UnsupportedExpressionException extends RuntimeException {
+        UnsupportedExpressionException() {
+            super(null, null, false, false);
+        }
+    }
+
+}
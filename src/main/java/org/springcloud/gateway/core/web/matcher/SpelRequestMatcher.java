@@ -15,7 +15,6 @@
  */
 package org.springcloud.gateway.core.web.matcher;
 
-import static org.springcloud.gateway.core.collection.CollectionUtils2.safeList;
 import static org.springcloud.gateway.core.lang.Assert2.hasText;
 import static org.springcloud.gateway.core.lang.Assert2.hasTextOf;
 import static org.springcloud.gateway.core.lang.Assert2.isTrue;
@@ -25,6 +24,7 @@ import static java.lang.String.format;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.emptyMap;
 import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.unmodifiableMap;
 import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
 import static java.util.stream.Collectors.toList;
@@ -40,6 +40,8 @@ import static org.apache.commons.lang3.StringUtils.startsWith;
 import static org.apache.commons.lang3.StringUtils.trimToEmpty;
 import static org.springframework.util.CollectionUtils.isEmpty;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.BiFunction;
@@ -56,6 +58,10 @@ import org.springframework.util.AntPathMatcher;
 
 import org.springcloud.gateway.core.web.WebUtils.WebRequestExtractor;
 import org.springcloud.gateway.core.utils.expression.SpelExpressions;
+import org.springcloud.gateway.core.web.matcher.RequestMatchExpressionCompiler.CompiledRequestPredicate;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
@@ -82,6 +88,23 @@ public class SpelRequestMatcher {
     private @Nullable final List<MatchHttpRequestRule> ruleDefinitions;
     private @Nullable final Map<String, Supplier<Predicate<String>>> defaultExtraPredicateSupplierVariables;
 
+    /**
+     * The immutable base model pre-built from the rules and defaults extended
+     * predicate variables, which is copied for each matching.
+     */
+    @Getter(AccessLevel.NONE)
+    private final Map<String, Object> baseModel;
+
+    /**
+     * The compiled expressions LRU cache, which is keyed by the expression
+     * only, since the rules are snapshotted at construction and never changed,
+     * see {@link RequestMatchExpressionCompiler}
+     */
+    @Getter(AccessLevel.NONE)
+    private final Cache<String, CompiledRequestPredicate> compiledCache = CacheBuilder.newBuilder()
+            .maximumSize(DEFAULT_COMPILED_CACHE_MAX)
+            .build();
+
     /**
      * Construction {@link SpelRequestMatcher}
      * 
@@ -93,7 +116,9 @@ public class SpelRequestMatcher {
     }
 
     /**
-     * Construction {@link SpelRequestMatcher}
+     * Construction {@link SpelRequestMatcher}, the rules are snapshotted, so
+     * the later modifications of the definitions are not visible, and the
+     * changed rules must be applied by a new matcher.
      * 
      * @param ruleDefinitions
      *            The rule set definition to match.
@@ -104,10 +129,11 @@ public class SpelRequestMatcher {
      */
     public SpelRequestMatcher(List<MatchHttpRequestRule> ruleDefinitions,
             Map<String, Supplier<Predicate<String>>> defaultExtraPredicateSupplierVariables) {
-        this.ruleDefinitions = isEmpty(ruleDefinitions) ? emptyList() : ruleDefinitions;
-        this.ruleDefinitions.forEach(rule -> rule.validate()); // Validation
+        this.ruleDefinitions = isEmpty(ruleDefinitions) ? emptyList()
+                : unmodifiableList(ruleDefinitions.stream().map(rule -> rule.snapshot().validate()).collect(toList()));
         this.defaultExtraPredicateSupplierVariables = isEmpty(defaultExtraPredicateSupplierVariables) ? emptyMap()
                 : defaultExtraPredicateSupplierVariables;
+        this.baseModel = buildBaseModel();
     }
 
     /**
@@ -147,32 +173,21 @@ public class SpelRequestMatcher {
         notNullOf(extractor, "extractor");
         hasTextOf(expression, "expression");
 
-        // Add '$' prefix to build-in rules variables.
-        Map<String, Object> model = safeList(ruleDefinitions).stream().collect(toMap(r -> "$".concat(r.getName()), r -> r));
-
-        // Add '$' prefix to build-in request variables.
-        model.put("$".concat(SPEL_KEYWORDS_REQUEST), extractor);
-
-        // Add '$' prefix to default build-in extension predicate variables
-        // supplier.
-        defaultExtraPredicateSupplierVariables.forEach((varName, supplier) -> {
-            if (nonNull(model.putIfAbsent("$".concat(varName), supplier))) {
-                throw new IllegalArgumentException(
-                        format("Already exists for add built-in supplier variable name '%s'.", varName));
-            }
-        });
-
-        // Add '$' prefix to temporary build-in extension predicate variables
-        // supplier.
-        if (nonNull(extraPredicateSupplierVariables)) {
-            extraPredicateSupplierVariables.forEach((varName, supplier) -> {
-                if (nonNull(model.putIfAbsent("$".concat(varName), supplier))) {
-                    throw new IllegalArgumentException(
-                            format("Already exists for add temporary built-in supplier variable name '%s'.", varName));
+        // Prefer to use the compiled expression.
+        CompiledRequestPredicate compiled = getCompiledExpression(expression);
+        if (compiled != UNCOMPILABLE) {
+            checkExtraPredicateSupplierVariables(extraPredicateSupplierVariables);
+            List<MatchHttpRequestRule> result = new ArrayList<>(2);
+            for (MatchHttpRequestRule rule : ruleDefinitions) {
+                if (compiled.test(extractor, rule)) {
+                    result.add(rule);
                 }
-            });
+            }
+            return unmodifiableList(result);
         }
 
+        Map<String, Object> model = newModel(extractor, extraPredicateSupplierVariables);
+
         // do request matching.
         List<MatchHttpRequestRule> result = ruleDefinitions.stream().filter(e -> {
             model.put("$".concat(SPEL_KEYWORDS_RULE), e);
@@ -220,10 +235,76 @@ public class SpelRequestMatcher {
         notNullOf(extractor, "extractor");
         hasTextOf(expression, "expression");
 
-        // Add '$' prefix to build-in request and rules variables.
-        Map<String, Object> model = ruleDefinitions.stream().collect(toMap(r -> "$".concat(r.getName()), r -> r));
-        model.put("$".concat(SPEL_KEYWORDS_REQUEST), extractor);
-        model.put("$".concat(SPEL_KEYWORDS_RULES), ruleDefinitions.stream().collect(toMap(r -> r.getName(), r -> r)));
+        // Prefer to use the compiled expression.
+        CompiledRequestPredicate compiled = getCompiledExpression(expression);
+        if (compiled != UNCOMPILABLE) {
+            checkExtraPredicateSupplierVariables(extraPredicateSupplierVariables);
+            return compiled.test(extractor, null);
+        }
+
+        Map<String, Object> model = newModel(extractor, extraPredicateSupplierVariables);
+
+        try {
+            return spel.resolve(expression, model);
+        } catch (EvaluationException e) {
+            String errmsg = format("Cannot evaluate expression: '%s'", expression);
+            log.error(errmsg, e);
+            throw new EvaluationException(errmsg, e);
+        }
+    }
+
+    /**
+     * Gets the compiled expression, if the expression is not a plain boolean
+     * composition of the named rules, {@link #UNCOMPILABLE} is returned, and
+     * the SPEL should be used.
+     */
+    private CompiledRequestPredicate getCompiledExpression(String expression) {
+        CompiledRequestPredicate compiled = compiledCache.getIfPresent(expression);
+        if (isNull(compiled)) {
+            @SuppressWarnings("unchecked")
+            Map<String, MatchHttpRequestRule> rules = (Map<String, MatchHttpRequestRule>) baseModel
+                    .get("$".concat(SPEL_KEYWORDS_RULES));
+            compiled = RequestMatchExpressionCompiler.compile(expression, rules);
+            if (isNull(compiled)) {
+                compiled = UNCOMPILABLE;
+            }
+            // The expressions are usually from the configuration, but the
+            // dyeing log expression is from the request header, the least
+            // recently used are evicted.
+            compiledCache.put(expression, compiled);
+        }
+        return compiled;
+    }
+
+    /**
+     * The compiled expression never references the temporary extension
+     * predicate variables, but the conflicting variable names are rejected as
+     * same as the SPEL matching, see {@link #newModel}
+     */
+    private void checkExtraPredicateSupplierVariables(
+            @Nullable Map<String, Supplier<Predicate<String>>> extraPredicateSupplierVariables) {
+        if (isNull(extraPredicateSupplierVariables)) {
+            return;
+        }
+        for (String varName : extraPredicateSupplierVariables.keySet()) {
+            if (SPEL_KEYWORDS_REQUEST.equals(varName) || baseModel.containsKey("$".concat(varName))) {
+                throw new IllegalArgumentException(
+                        format("Already exists for add temporary built-in supplier variable name '%s'.", varName));
+            }
+        }
+    }
+
+    /**
+     * Build the immutable base model, which includes the '$' prefix build-in
+     * rules variables and the defaults extension predicate variables.
+     */
+    private Map<String, Object> buildBaseModel() {
+        Map<String, Object> model = new HashMap<>(ruleDefinitions.size() * 2 + defaultExtraPredicateSupplierVariables.size() + 4);
+
+        // Add '$' prefix to build-in rules variables.
+        ruleDefinitions.forEach(r -> model.put("$".concat(r.getName()), r));
+        model.put("$".concat(SPEL_KEYWORDS_RULES),
+                unmodifiableMap(ruleDefinitions.stream().collect(toMap(r -> r.getName(), r -> r))));
 
         // Add '$' prefix to default build-in extension predicate variables
         // supplier.
@@ -234,24 +315,35 @@ public class SpelRequestMatcher {
             }
         });
 
+        return unmodifiableMap(model);
+    }
+
+    /**
+     * New create the per-matching model copied from the base model, and add
+     * the '$' prefix request variable and the temporary extension predicate
+     * variables.
+     */
+    private Map<String, Object> newModel(
+            WebRequestExtractor extractor,
+            @Nullable Map<String, Supplier<Predicate<String>>> extraPredicateSupplierVariables) {
+        int extraSize = isNull(extraPredicateSupplierVariables) ? 0 : extraPredicateSupplierVariables.size();
+        Map<String, Object> model = new HashMap<>((int) ((baseModel.size() + extraSize + 2) / 0.75f) + 1);
+        model.putAll(baseModel);
+
+        // Add '$' prefix to build-in request variables.
+        model.put("$".concat(SPEL_KEYWORDS_REQUEST), extractor);
+
         // Add '$' prefix to temporary build-in extension predicate variables
         // supplier.
         if (nonNull(extraPredicateSupplierVariables)) {
             extraPredicateSupplierVariables.forEach((varName, supplier) -> {
                 if (nonNull(model.putIfAbsent("$".concat(varName), supplier))) {
                     throw new IllegalArgumentException(
-                            format("The already exists for add temporary built-in supplier variable name '%s'.", varName));
+                            format("Already exists for add temporary built-in supplier variable name '%s'.", varName));
                 }
             });
         }
-
-        try {
-            return spel.resolve(expression, model);
-        } catch (EvaluationException e) {
-            String errmsg = format("Cannot evaluate expression: '%s'", expression);
-            log.error(errmsg, e);
-            throw new EvaluationException(errmsg, e);
-        }
+        return model;
     }
 
     /**
@@ -365,7 +457,7 @@ public class SpelRequestMatcher {
             }
             // Match HTTP port
             boolean flagPort = (isNull(getPort()) || getPort() <= 0);
-            if (!flagPort && equalsIgnoreCase(extractor.getPort() + "", getPort() + "")) {
+            if (!flagPort && getPort().equals(extractor.getPort())) {
                 flagPort = true;
             }
             // Match HTTP path
@@ -398,6 +490,16 @@ public class SpelRequestMatcher {
             return flagMethod && flagSchema && flagHost && flagPort && flagPath && flagHeader && flagCookie && flagQuery;
         }
 
+        /**
+         * New create the deep copy of the rule, which is not affected by the
+         * later modifications of this rule.
+         */
+        MatchHttpRequestRule snapshot() {
+            return new MatchHttpRequestRule(name, method, scheme, host, port, path,
+                    isNull(header) ? null : header.snapshot(), isNull(cookie) ? null : cookie.snapshot(),
+                    isNull(query) ? null : query.snapshot(), new AntPathMatcher("/"));
+        }
+
         public MatchHttpRequestRule validate() {
             // Validation for name.
             hasTextOf(getName(), "rule name is required");
@@ -446,6 +548,10 @@ public class SpelRequestMatcher {
          */
         private @NotBlank String value;
 
+        MatchProperty snapshot() {
+            return new MatchProperty(symbol, key, value);
+        }
+
         public MatchProperty validate() {
             notNull(symbol, "matchMode is required");
             hasText(key, "key is required");
@@ -476,6 +582,9 @@ public class SpelRequestMatcher {
         private final BiFunction<String, String, Boolean> function;
     }
 
+    private static final CompiledRequestPredicate UNCOMPILABLE = (extractor, currentRule) -> false;
+    private static final int DEFAULT_COMPILED_CACHE_MAX = 1024;
+
     public static final String SPEL_KEYWORDS_REQUEST = "request";
     public static final String SPEL_KEYWORDS_RULES = "rules";
     public static final String SPEL_KEYWORDS_RULE = "rule";
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors.<springcloudgateway@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.commons.cb;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.RETURNS_MOCKS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springcloud.gateway.core.commons.cb.config.CBProperties;
+import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.client.discovery.event.HeartbeatEvent;
+
+import io.micrometer.core.instrument.Meter;
+
+/**
+ * {@link RouteCircuitBreakerRegistryTests}, The instance breakers and their
+ * gauges are evicted once the instance is deregistered or idle.
+ *
+ * @author springcloudgateway &lt;springcloudgateway@163.com, springcloudgateway@163.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+public class RouteCircuitBreakerRegistryTests {
+
+    private CBProperties config;
+    private GatewayMetricsFacade metricsFacade;
+    private DiscoveryClient discoveryClient;
+    private RouteCircuitBreakerRegistry registry;
+
+    @SuppressWarnings("unchecked")
+    @BeforeEach
+    public void setup() {
+        config = new CBProperties();
+        // The registered gauges are mocks.
+        metricsFacade = mock(GatewayMetricsFacade.class, RETURNS_MOCKS);
+        discoveryClient = mock(DiscoveryClient.class);
+        ObjectProvider<DiscoveryClient> discoveryClientProvider = mock(ObjectProvider.class);
+        when(discoveryClientProvider.getIfAvailable()).thenReturn(discoveryClient);
+        registry = new RouteCircuitBreakerRegistry(config, metricsFacade, discoveryClientProvider);
+    }
+
+    @Test
+    public void testEvictDeregisteredInstance() {
+        when(discoveryClient.getInstances("user-service")).thenReturn(asList(instance("user-1"), instance("user-2")));
+        SlidingWindowCircuitBreaker breaker1 = registry.getInstanceBreaker("route1", "user-service", "user-1");
+        SlidingWindowCircuitBreaker breaker2 = registry.getInstanceBreaker("route1", "user-service", "user-2");
+
+        registry.onApplicationEvent(new HeartbeatEvent(this, 1L));
+        verify(metricsFacade, never()).removeMeter(any(Meter.class));
+        assertSame(breaker1, registry.getInstanceBreaker("route1", "user-service", "user-1"));
+
+        // The user-2 is deregistered.
+        when(discoveryClient.getInstances("user-service")).thenReturn(singletonList(instance("user-1")));
+        registry.onApplicationEvent(new HeartbeatEvent(this, 2L));
+
+        verify(metricsFacade, times(5)).removeMeter(any(Meter.class));
+        assertSame(breaker1, registry.getInstanceBreaker("route1", "user-service", "user-1"));
+        assertNotSame(breaker2, registry.getInstanceBreaker("route1", "user-service", "user-2"));
+    }
+
+    @Test
+    public void testEvictIdleInstance() throws Exception {
+        config.setInstanceBreakerIdleExpire(Duration.ofMillis(50));
+        // Not load balanced by the discovery.
+        SlidingWindowCircuitBreaker breaker = registry.getInstanceBreaker("route1", null, "10.0.0.1:8080");
+
+        registry.evictInstanceBreakers();
+        assertSame(breaker, registry.getInstanceBreaker("route1", null, "10.0.0.1:8080"));
+
+        Thread.sleep(100);
+        registry.evictInstanceBreakers();
+
+        verify(metricsFacade, times(5)).removeMeter(any(Meter.class));
+        verify(discoveryClient, never()).getInstances(anyString());
+        assertNotSame(breaker, registry.getInstanceBreaker("route1", null, "10.0.0.1:8080"));
+    }
+
+    @Test
+    public void testKeepBreakersIfDiscoveryUnavailable() {
+        when(discoveryClient.getInstances("user-service")).thenThrow(new IllegalStateException("unavailable"));
+        SlidingWindowCircuitBreaker breaker = registry.getInstanceBreaker("route1", "user-service", "user-1");
+
+        registry.evictInstanceBreakers();
+
+        verify(metricsFacade, never()).removeMeter(any(Meter.class));
+        assertSame(breaker, registry.getInstanceBreaker("route1", "user-service", "user-1"));
+    }
+
+    private static DefaultServiceInstance instance(String instanceId) {
+        return new DefaultServiceInstance(instanceId, "user-service", "10.0.0.1", 8080, false);
+    }
+
+}
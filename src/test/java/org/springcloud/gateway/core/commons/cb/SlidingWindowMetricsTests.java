@@ -0,0 +1,86 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors.<springcloudgateway@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.commons.cb;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springcloud.gateway.core.commons.cb.SlidingWindowMetrics.Snapshot;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig.SlidingWindowType;
+
+/**
+ * {@link SlidingWindowMetricsTests}, The outcomes recorded concurrently into
+ * the time based window are never lost, including across the bucket rollover.
+ *
+ * @author springcloudgateway &lt;springcloudgateway@163.com, springcloudgateway@163.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+public class SlidingWindowMetricsTests {
+
+    @Test
+    public void testTimeBasedConcurrentRecording() throws Exception {
+        // The window is larger than the test duration, so all the buckets
+        // created (i.e. the rollovers) are still in the window.
+        SlidingWindowMetrics metrics = SlidingWindowMetrics.create(SlidingWindowType.TIME_BASED, 60);
+        int threads = 8, callsPerThread = 200_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            for (int i = 0; i < threads; i++) {
+                executor.execute(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    for (int j = 0; j < callsPerThread; j++) {
+                        metrics.record(j % 2 == 0, j % 4 == 0);
+                    }
+                });
+            }
+            start.countDown();
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(60, TimeUnit.SECONDS);
+        }
+
+        Snapshot snapshot = metrics.getSnapshot();
+        assertEquals(threads * callsPerThread, snapshot.getTotalCalls());
+        assertEquals(threads * callsPerThread / 2, snapshot.getFailedCalls());
+        assertEquals(threads * callsPerThread / 4, snapshot.getSlowCalls());
+    }
+
+    @Test
+    public void testCountBasedEvictsOldest() {
+        SlidingWindowMetrics metrics = SlidingWindowMetrics.create(SlidingWindowType.COUNT_BASED, 4);
+        for (int i = 0; i < 4; i++) {
+            metrics.record(true, false);
+        }
+        Snapshot snapshot = metrics.record(false, true);
+
+        assertEquals(4, snapshot.getTotalCalls());
+        assertEquals(3, snapshot.getFailedCalls());
+        assertEquals(1, snapshot.getSlowCalls());
+    }
+
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors.<springcloudgateway@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.commons.entrypoint;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springcloud.gateway.core.commons.entrypoint.config.LoggingProperties;
+import org.springcloud.gateway.core.commons.entrypoint.config.LoggingProperties.SinkType;
+import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade;
+import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade.MetricsName;
+import org.springframework.boot.ApplicationArguments;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * {@link AccessLogWriterTests}, The records are written by the dedicated
+ * writer thread as the JSON objects to the UDP/TCP collector.
+ *
+ * @author springcloudgateway &lt;springcloudgateway@163.com, springcloudgateway@163.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+public class AccessLogWriterTests {
+
+    private final Logger logger = LoggerFactory.getLogger(AccessLogWriterTests.class);
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    public void testWriteJsonToUdpSink() throws Exception {
+        try (DatagramSocket collector = new DatagramSocket(0, InetAddress.getLoopbackAddress())) {
+            collector.setSoTimeout(5_000);
+            AccessLogWriter writer = newWriter(SinkType.UDP, collector.getLocalPort(), mock(GatewayMetricsFacade.class));
+            try {
+                MDC.put("traceId", "t1");
+                writer.write(logger, "request {} {}", new Object[] { "GET", "/test" });
+            } finally {
+                MDC.clear();
+            }
+
+            DatagramPacket packet = new DatagramPacket(new byte[4096], 4096);
+            collector.receive(packet);
+            writer.destroy();
+
+            JsonNode record = mapper.readTree(new String(packet.getData(), 0, packet.getLength(), UTF_8));
+            assertEquals("request GET /test", record.get("message").asText());
+            assertEquals(logger.getName(), record.get("logger").asText());
+            assertEquals("t1", record.get("mdc").get("traceId").asText());
+            assertEquals(Thread.currentThread().getName(), record.get("thread").asText());
+        }
+    }
+
+    @Test
+    public void testWriteJsonLinesToTcpSink() throws Exception {
+        try (ServerSocket collector = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            collector.setSoTimeout(5_000);
+            AccessLogWriter writer = newWriter(SinkType.TCP, collector.getLocalPort(), mock(GatewayMetricsFacade.class));
+            writer.write(logger, "first {}", new Object[] { 1 });
+            writer.write(logger, "second {}", new Object[] { 2 });
+
+            try (Socket accepted = collector.accept()) {
+                accepted.setSoTimeout(5_000);
+                BufferedReader reader = new BufferedReader(new InputStreamReader(accepted.getInputStream(), UTF_8));
+                assertEquals("first 1", mapper.readTree(reader.readLine()).get("message").asText());
+                assertEquals("second 2", mapper.readTree(reader.readLine()).get("message").asText());
+            } finally {
+                writer.destroy();
+            }
+        }
+    }
+
+    @Test
+    public void testCountFailedWritesWhenCollectorUnavailable() throws Exception {
+        int port;
+        try (ServerSocket unused = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            port = unused.getLocalPort();
+        }
+        GatewayMetricsFacade metricsFacade = mock(GatewayMetricsFacade.class);
+        AccessLogWriter writer = newWriter(SinkType.TCP, port, metricsFacade);
+        writer.write(logger, "lost {}", new Object[] { 1 });
+        writer.destroy();
+
+        verify(metricsFacade, atLeastOnce()).counter(eq(MetricsName.LOGGING_SINK_FAIL_TOTAL), eq(1d));
+    }
+
+    private AccessLogWriter newWriter(SinkType sinkType, int port, GatewayMetricsFacade metricsFacade) throws Exception {
+        LoggingProperties loggingConfig = new LoggingProperties();
+        loggingConfig.getAsyncSink().setType(sinkType);
+        loggingConfig.getAsyncSink().setHost(InetAddress.getLoopbackAddress().getHostAddress());
+        loggingConfig.getAsyncSink().setPort(port);
+        loggingConfig.getAsyncSink().setConnectTimeoutMs(1_000);
+        AccessLogWriter writer = new AccessLogWriter(loggingConfig, metricsFacade);
+        writer.run(mock(ApplicationArguments.class));
+        return writer;
+    }
+
+}
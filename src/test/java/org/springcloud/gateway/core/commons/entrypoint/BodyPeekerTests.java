@@ -0,0 +1,124 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors.<springcloudgateway@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.commons.entrypoint;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+import org.springcloud.gateway.core.commons.entrypoint.EntrypointBaseGlobalFilter.BodyPeeker;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBuffer;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+
+import io.netty.buffer.PooledByteBufAllocator;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+/**
+ * {@link BodyPeekerTests}, Peek the head of the streaming body, which is
+ * completed only once the whole body is terminated or cancelled, and all the
+ * retained slices are released.
+ *
+ * @author springcloudgateway &lt;springcloudgateway@163.com, springcloudgateway@163.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+public class BodyPeekerTests {
+
+    private final NettyDataBufferFactory bufferFactory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+
+    @Test
+    public void testPeekEachFlushedPublisher() {
+        AtomicReference<String> peeked = new AtomicReference<>();
+        AtomicInteger completions = new AtomicInteger();
+        BodyPeeker peeker = new BodyPeeker(64, bytes -> {
+            completions.incrementAndGet();
+            peeked.set(new String(bytes, UTF_8));
+        });
+        List<DataBuffer> written = new ArrayList<>();
+
+        // e.g. the server sent events, each event is flushed.
+        Flux<Flux<DataBuffer>> body = peeker
+                .peekEach(Flux.just(Flux.just(buffer("data:1\n\n")), Flux.just(buffer("data:2\n\n"), buffer("data:3\n\n"))));
+        StepVerifier.create(body.concatMap(inner -> inner)).recordWith(() -> written).expectNextCount(3).verifyComplete();
+
+        assertEquals(1, completions.get());
+        assertEquals("data:1\n\ndata:2\n\ndata:3\n\n", peeked.get());
+        written.forEach(buffer -> assertEquals(1, ((NettyDataBuffer) buffer).getNativeBuffer().refCnt()));
+        written.forEach(DataBufferUtils::release);
+    }
+
+    @Test
+    public void testPeekTruncatedHead() {
+        AtomicReference<String> peeked = new AtomicReference<>();
+        BodyPeeker peeker = new BodyPeeker(5, bytes -> peeked.set(new String(bytes, UTF_8)));
+        List<DataBuffer> written = new ArrayList<>();
+
+        StepVerifier.create(peeker.peek(Flux.just(buffer("abc"), buffer("defgh"), buffer("ijk"))))
+                .recordWith(() -> written)
+                .expectNextCount(3)
+                .verifyComplete();
+
+        assertEquals("abcde", peeked.get());
+        written.forEach(buffer -> assertEquals(1, ((NettyDataBuffer) buffer).getNativeBuffer().refCnt()));
+        written.forEach(DataBufferUtils::release);
+    }
+
+    @Test
+    public void testCompleteWhenCancelled() {
+        AtomicReference<String> peeked = new AtomicReference<>();
+        BodyPeeker peeker = new BodyPeeker(64, bytes -> peeked.set(new String(bytes, UTF_8)));
+        DataBuffer first = buffer("partial");
+
+        StepVerifier.create(peeker.peekEach(Flux.just(Flux.just(first)).concatWith(Flux.never())).concatMap(inner -> inner))
+                .expectNextCount(1)
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+
+        assertEquals("partial", peeked.get());
+        assertEquals(1, ((NettyDataBuffer) first).getNativeBuffer().refCnt());
+        DataBufferUtils.release(first);
+    }
+
+    @Test
+    public void testNotCompletedBeforeTerminated() {
+        AtomicReference<String> peeked = new AtomicReference<>();
+        BodyPeeker peeker = new BodyPeeker(64, bytes -> peeked.set(new String(bytes, UTF_8)));
+        DataBuffer first = buffer("first");
+
+        StepVerifier.create(peeker.peekEach(Flux.just(Flux.just(first)).concatWith(Flux.never())).concatMap(inner -> inner))
+                .expectNextCount(1)
+                .then(() -> assertNull(peeked.get(), "The peeking should not be completed by the first flushed publisher"))
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+        DataBufferUtils.release(first);
+    }
+
+    private DataBuffer buffer(String value) {
+        byte[] bytes = value.getBytes(UTF_8);
+        return bufferFactory.allocateBuffer(bytes.length).write(bytes);
+    }
+
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors.<springcloudgateway@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.commons.helper;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_MOCKS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springcloud.gateway.core.commons.helper.HelperGatewayFilterFactory.BudgetConfig;
+import org.springcloud.gateway.core.commons.helper.HelperGatewayFilterFactory.RetryConfig;
+import org.springcloud.gateway.core.commons.helper.config.IamRetryProperties;
+import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade;
+import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade.MetricsName;
+import org.springframework.cloud.gateway.event.RefreshRoutesResultEvent;
+
+import io.micrometer.core.instrument.Meter;
+
+/**
+ * {@link HelperGatewayFilterFactoryTests}, The retry budget is disabled by
+ * default, and the budgets (and gauges) of the removed routes are discarded
+ * when the routes are refreshed.
+ *
+ * @author springcloudgateway &lt;springcloudgateway@163.com, springcloudgateway@163.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+public class HelperGatewayFilterFactoryTests {
+
+    private GatewayMetricsFacade metricsFacade;
+    private HelperGatewayFilterFactory factory;
+
+    @BeforeEach
+    public void setup() {
+        // The registered gauges are mocks.
+        this.metricsFacade = mock(GatewayMetricsFacade.class, RETURNS_MOCKS);
+        this.factory = new HelperGatewayFilterFactory(new IamRetryProperties(), metricsFacade);
+    }
+
+    @Test
+    public void testBudgetDisabledByDefault() {
+        assertFalse(new IamRetryProperties().getBudget().isEnabled());
+        factory.apply(newConfig("r1", null));
+
+        verify(metricsFacade, never()).gauge(eq(MetricsName.RETRY_BUDGET_BALANCE), any(), any(String[].class));
+    }
+
+    @Test
+    public void testDiscardBudgetOfRemovedRoute() {
+        factory.apply(newConfig("r1", enabledBudget()));
+        factory.apply(newConfig("r2", enabledBudget()));
+        refreshed();
+
+        // The r1 is rebuilt and the r2 is removed.
+        factory.apply(newConfig("r1", enabledBudget()));
+        refreshed();
+        verify(metricsFacade, times(1)).removeMeter(any(Meter.class));
+
+        // The r1 is rebuilt with the budget disabled.
+        factory.apply(newConfig("r1", new BudgetConfig()));
+        refreshed();
+        verify(metricsFacade, times(2)).removeMeter(any(Meter.class));
+    }
+
+    @Test
+    public void testKeepBudgetOfFailedRefresh() {
+        factory.apply(newConfig("r1", enabledBudget()));
+        refreshed();
+
+        factory.onApplicationEvent(new RefreshRoutesResultEvent(this, new IllegalStateException("failed")));
+        verify(metricsFacade, never()).removeMeter(any(Meter.class));
+    }
+
+    private void refreshed() {
+        factory.onApplicationEvent(new RefreshRoutesResultEvent(this));
+    }
+
+    private static RetryConfig newConfig(String routeId, BudgetConfig budget) {
+        RetryConfig config = new RetryConfig();
+        config.setRouteId(routeId);
+        config.setBudget(budget);
+        return config;
+    }
+
+    private static BudgetConfig enabledBudget() {
+        return new BudgetConfig(true, 0.2d, 10d, 100);
+    }
+
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors. <springcloudgateway@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.commons.ipfs;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springcloud.gateway.core.commons.ipfs.config.IPFSProperties.BlocklistStrategyProperties;
+import org.springcloud.gateway.core.net.IpPrefixTrie;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+
+import io.netty.util.NetUtil;
+
+/**
+ * {@link IpBlocklistFilterFactoryTests}, The forwarded headers are only
+ * trusted behind the trusted proxies, and the right-most untrusted hop is the
+ * client address.
+ *
+ * @author springcloudgateway &lt;springcloudgateway@gmail.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+public class IpBlocklistFilterFactoryTests {
+
+    private final List<String> headerNames = asList("X-Real-IP", "X-Forwarded-For");
+
+    @Test
+    public void testIgnoreForwardedHeadersOfUntrustedPeer() {
+        IpPrefixTrie trustedProxies = trustedProxies();
+        // The spoofed loop back address is not used.
+        MockServerWebExchange exchange = exchange("203.0.113.7", "X-Forwarded-For", "127.0.0.1");
+
+        assertAddress("203.0.113.7", IpBlocklistFilterFactory.resolveClientAddress(headerNames, trustedProxies, exchange));
+    }
+
+    @Test
+    public void testRightMostUntrustedHop() {
+        IpPrefixTrie trustedProxies = trustedProxies("10.0.0.0/8");
+        // The client prepends the spoofed hops, the trusted proxy appends the
+        // actual peer of it.
+        MockServerWebExchange exchange = exchange("10.0.0.2", "X-Forwarded-For", "127.0.0.1, 198.51.100.1, 203.0.113.7, 10.0.0.1");
+
+        assertAddress("203.0.113.7", IpBlocklistFilterFactory.resolveClientAddress(headerNames, trustedProxies, exchange));
+    }
+
+    @Test
+    public void testAllHopsTrusted() {
+        IpPrefixTrie trustedProxies = trustedProxies("10.0.0.0/8");
+        MockServerWebExchange exchange = exchange("10.0.0.2", "X-Forwarded-For", "10.0.0.3, 10.0.0.1");
+
+        assertAddress("10.0.0.3", IpBlocklistFilterFactory.resolveClientAddress(headerNames, trustedProxies, exchange));
+    }
+
+    @Test
+    public void testNoForwardedHeadersOfTrustedPeer() {
+        IpPrefixTrie trustedProxies = trustedProxies("10.0.0.0/8");
+        MockServerWebExchange exchange = exchange("10.0.0.2", "X-Other", "203.0.113.7");
+
+        assertAddress("10.0.0.2", IpBlocklistFilterFactory.resolveClientAddress(headerNames, trustedProxies, exchange));
+    }
+
+    @Test
+    public void testInvalidForwardedHop() {
+        IpPrefixTrie trustedProxies = trustedProxies("10.0.0.0/8");
+        MockServerWebExchange exchange = exchange("10.0.0.2", "X-Real-IP", "not-an-ip");
+
+        assertSame(SubnetFilterFactory.INVALID_ADDRESS,
+                IpBlocklistFilterFactory.resolveClientAddress(headerNames, trustedProxies, exchange));
+    }
+
+    private static IpPrefixTrie trustedProxies(String... cidrs) {
+        BlocklistStrategyProperties config = new BlocklistStrategyProperties();
+        config.setTrustedProxies(asList(cidrs));
+        return IpBlocklistFilterFactory.buildTrustedProxiesTrie(config);
+    }
+
+    private static MockServerWebExchange exchange(String remoteAddress, String header, String value) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get("/")
+                .remoteAddress(new InetSocketAddress(remoteAddress, 12345))
+                .header(header, value));
+    }
+
+    private static void assertAddress(String expected, byte[] actual) {
+        assertArrayEquals(NetUtil.createByteArrayFromIpAddressString(expected), actual);
+    }
+
+}
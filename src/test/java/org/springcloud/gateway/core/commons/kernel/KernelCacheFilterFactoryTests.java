@@ -0,0 +1,166 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors.<springcloudgateway@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.commons.kernel;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.time.Duration;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springcloud.gateway.core.commons.config.ReactiveByteArrayRedisTemplate;
+import org.springcloud.gateway.core.commons.kernel.KernelCacheFilterFactory.Config;
+import org.springcloud.gateway.core.commons.kernel.cache.ResponseCache;
+import org.springcloud.gateway.core.commons.kernel.cache.SimpleResponseCache;
+import org.springcloud.gateway.core.commons.kernel.config.ResponseCacheProperties;
+import org.springcloud.gateway.core.commons.kernel.config.ResponseCacheProperties.CompressionProperties;
+import org.springcloud.gateway.core.commons.kernel.encoding.ContentEncoder;
+import org.springcloud.gateway.core.commons.kernel.encoding.ContentEncodingNegotiator;
+import org.springcloud.gateway.core.commons.kernel.encoding.EncodedVariant;
+import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.google.common.cache.CacheBuilder;
+
+import io.netty.handler.codec.compression.Brotli;
+import io.netty.handler.codec.compression.Zstd;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link KernelCacheFilterFactoryTests}, The negotiated encoded variant is
+ * responded with only one cache lookup, and the unavailable encodings fallback
+ * to gzip.
+ *
+ * @author springcloudgateway &lt;springcloudgateway@163.com, springcloudgateway@163.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+public class KernelCacheFilterFactoryTests {
+
+    private KernelCacheFilterFactory factory;
+    private ResponseCache responseCache;
+    private GatewayFilter filter;
+
+    @BeforeEach
+    public void setup() {
+        this.factory = new KernelCacheFilterFactory(new ResponseCacheProperties(), mock(ReactiveByteArrayRedisTemplate.class),
+                mock(GatewayMetricsFacade.class));
+        this.responseCache = spy(new SimpleResponseCache(CacheBuilder.newBuilder().<String, byte[]> build()));
+        Map<String, ResponseCache> responseCaches = getResponseCaches();
+        responseCaches.put(ROUTE_ID, responseCache);
+
+        Config config = new Config();
+        config.getCompression().setEnabled(true);
+        config.getCompression().setEncodings(singletonList("gzip"));
+        this.filter = factory.apply(config);
+    }
+
+    @Test
+    public void testVariantHitWithOneLookup() {
+        MockServerWebExchange exchange = newExchange("gzip, br;q=0.5");
+        String hashKey = KernelCacheFilterFactory.getRequestHashKey(null, exchange);
+        responseCache.put(hashKey, IDENTITY_BODY.getBytes(UTF_8)).block();
+        responseCache.put(EncodedVariant.getVariantKey(hashKey, "gzip"), new EncodedVariant(1000L, ENCODED_BODY).toBytes())
+                .block();
+
+        filter.filter(exchange, e -> Mono.error(new IllegalStateException("Should be responded by cache")))
+                .block(Duration.ofSeconds(5));
+
+        assertEquals("gzip", exchange.getResponse().getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(new String(ENCODED_BODY, UTF_8), exchange.getResponse().getBodyAsString().block());
+        verify(responseCache, times(1)).get(anyString());
+    }
+
+    @Test
+    public void testIdentityHitWithoutAcceptEncoding() {
+        MockServerWebExchange exchange = newExchange(null);
+        String hashKey = KernelCacheFilterFactory.getRequestHashKey(null, exchange);
+        responseCache.put(hashKey, IDENTITY_BODY.getBytes(UTF_8)).block();
+
+        filter.filter(exchange, e -> Mono.error(new IllegalStateException("Should be responded by cache")))
+                .block(Duration.ofSeconds(5));
+
+        assertNull(exchange.getResponse().getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(IDENTITY_BODY, exchange.getResponse().getBodyAsString().block());
+        verify(responseCache, times(1)).get(anyString());
+    }
+
+    @Test
+    public void testIdentityHitWhenVariantMissing() {
+        MockServerWebExchange exchange = newExchange("gzip");
+        String hashKey = KernelCacheFilterFactory.getRequestHashKey(null, exchange);
+        responseCache.put(hashKey, IDENTITY_BODY.getBytes(UTF_8)).block();
+
+        filter.filter(exchange, e -> Mono.error(new IllegalStateException("Should be responded by cache")))
+                .block(Duration.ofSeconds(5));
+
+        assertNull(exchange.getResponse().getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(IDENTITY_BODY, exchange.getResponse().getBodyAsString().block());
+        verify(responseCache, times(2)).get(anyString());
+    }
+
+    @Test
+    public void testUnavailableEncodingsFallbackToGzip() {
+        assumeFalse(Brotli.isAvailable() || Zstd.isAvailable(), "The native libraries are on the classpath");
+        CompressionProperties compression = new CompressionProperties();
+        compression.setEnabled(true);
+        compression.setEncodings(asList("br", "zstd"));
+
+        ContentEncodingNegotiator negotiator = new ContentEncodingNegotiator(compression);
+
+        assertEquals(1, negotiator.getEncoders().size());
+        ContentEncoder encoder = negotiator.negotiate("br, zstd, gzip;q=0.1");
+        assertEquals("gzip", encoder.getName());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, ResponseCache> getResponseCaches() {
+        return (Map<String, ResponseCache>) ReflectionTestUtils.getField(factory, "responseCaches");
+    }
+
+    private MockServerWebExchange newExchange(String acceptEncoding) {
+        MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.get("/cached?id=1");
+        if (acceptEncoding != null) {
+            request.header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR,
+                Route.async().id(ROUTE_ID).uri("http://localhost:8080").predicate(e -> true).build());
+        return exchange;
+    }
+
+    private static final String ROUTE_ID = "r1";
+    private static final String IDENTITY_BODY = "{\"name\":\"iscg\"}";
+    private static final byte[] ENCODED_BODY = "encoded-body".getBytes(UTF_8);
+
+}
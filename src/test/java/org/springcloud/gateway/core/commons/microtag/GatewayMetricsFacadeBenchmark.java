@@ -0,0 +1,113 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors.<springcloudgateway@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.commons.microtag;
+
+import static org.mockito.Mockito.mock;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade.MeterTags;
+import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade.MetricsName;
+import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade.MetricsTag;
+import org.springcloud.gateway.core.commons.microtag.config.KernalMetProperties;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.commons.util.InetUtils;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.env.Environment;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+
+/**
+ * {@link GatewayMetricsFacadeBenchmark}, The time and the allocation (see the
+ * 'gc.alloc.rate.norm' of the GC profiler) of each recording of the route
+ * counters with the varargs tags, the prepared tags and the route only tags.
+ * Run by the main (with the GC profiler), or the JMH runner of the test
+ * classpath with '-prof gc'.
+ *
+ * @author springcloudgateway &lt;springcloudgateway@163.com, springcloudgateway@163.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class GatewayMetricsFacadeBenchmark {
+
+    private GatewayMetricsFacade metricsFacade;
+    private MockServerWebExchange exchange;
+    private MeterTags preparedTags;
+    private String signAlgorithm;
+    private String signHashing;
+
+    @Setup
+    public void setup() {
+        this.metricsFacade = new GatewayMetricsFacade(new KernalMetProperties(),
+                new PrometheusMeterRegistry(PrometheusConfig.DEFAULT), mock(InetUtils.class), mock(Environment.class));
+        ReflectionTestUtils.setField(metricsFacade, "localInstance",
+                new DefaultServiceInstance("gw1:8080", "gateway", "gw1", 8080, false));
+        this.exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/bench"));
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR,
+                Route.async().id("bench-route").uri("http://localhost:8080").predicate(e -> true).build());
+        // e.g. the tags of the simple sign filter config.
+        this.signAlgorithm = "S256";
+        this.signHashing = "UriParamsAndBody";
+        this.preparedTags = metricsFacade.prepareTags(MetricsTag.SIGN_ALG, signAlgorithm, MetricsTag.SIGN_HASH, signHashing);
+    }
+
+    @Benchmark
+    public void varargsTagsCounter() {
+        metricsFacade.counter(exchange, MetricsName.SIMPLE_SIGN_FAIL_TOTAL, 1, MetricsTag.SIGN_ALG, signAlgorithm,
+                MetricsTag.SIGN_HASH, signHashing);
+    }
+
+    @Benchmark
+    public void preparedTagsCounter() {
+        metricsFacade.counter(exchange, MetricsName.SIMPLE_SIGN_FAIL_TOTAL, 1, preparedTags);
+    }
+
+    @Benchmark
+    public void routeOnlyCounter() {
+        metricsFacade.counter(exchange, MetricsName.SIMPLE_SIGN_SUCCCESS_TOTAL, 1);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(GatewayMetricsFacadeBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors.<springcloudgateway@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.commons.microtag;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade.MeterTags;
+import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade.MetricsName;
+import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade.MetricsTag;
+import org.springcloud.gateway.core.commons.microtag.config.KernalMetProperties;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.commons.util.InetUtils;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.env.Environment;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+
+/**
+ * {@link GatewayMetricsFacadeTests}, The prepared tags record to the same
+ * series as the varargs tags, and the idle meters are removed only once they
+ * are confirmed idle, so that the recordings racing with the expiry are not
+ * lost.
+ *
+ * @author springcloudgateway &lt;springcloudgateway@163.com, springcloudgateway@163.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+public class GatewayMetricsFacadeTests {
+
+    private PrometheusMeterRegistry meterRegistry;
+    private GatewayMetricsFacade metricsFacade;
+    private MockServerWebExchange exchange;
+
+    @BeforeEach
+    public void setup() {
+        this.meterRegistry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        this.metricsFacade = new GatewayMetricsFacade(new KernalMetProperties(), meterRegistry, mock(InetUtils.class),
+                mock(Environment.class));
+        ReflectionTestUtils.setField(metricsFacade, "localInstance",
+                new DefaultServiceInstance("gw1:8080", "gateway", "gw1", 8080, false));
+        this.exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/test"));
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR,
+                Route.async().id(ROUTE_ID).uri("http://localhost:8080").predicate(e -> true).build());
+    }
+
+    @Test
+    public void testPreparedTagsRecordToSameSeries() {
+        MeterTags tags = metricsFacade.prepareTags(MetricsTag.FAULT_INJECTOR, "Abort");
+        metricsFacade.counter(exchange, MetricsName.FAULT_TOTAL, 1, tags);
+        metricsFacade.counter(exchange, MetricsName.FAULT_TOTAL, 1, tags);
+        metricsFacade.counter(exchange, MetricsName.FAULT_TOTAL, 1, MetricsTag.FAULT_INJECTOR, "Abort");
+
+        assertEquals(3d, findCounter().count());
+    }
+
+    @Test
+    public void testRacingRecordingNotLostOnExpiry() {
+        MeterTags tags = metricsFacade.prepareTags(MetricsTag.FAULT_INJECTOR, "Abort");
+        metricsFacade.counter(exchange, MetricsName.FAULT_TOTAL, 1, tags);
+        Counter counter = findCounter();
+
+        // The first check records the idle state, the second one retires it.
+        assertEquals(0, metricsFacade.expireIdleMeters(0));
+        assertEquals(0, metricsFacade.expireIdleMeters(0));
+        // e.g. the recording thread got the meter before it was retired.
+        counter.increment();
+        assertSame(counter, findCounter());
+
+        // The changed retired meter is not removed.
+        assertEquals(0, metricsFacade.expireIdleMeters(0));
+        assertEquals(2d, findCounter().count());
+
+        // The next recording resolves the same registered meter again.
+        metricsFacade.counter(exchange, MetricsName.FAULT_TOTAL, 1, tags);
+        assertSame(counter, findCounter());
+        assertEquals(0, metricsFacade.expireIdleMeters(0));
+        assertEquals(3d, findCounter().count());
+    }
+
+    @Test
+    public void testIdleMeterRemovedOnceConfirmed() {
+        MeterTags tags = metricsFacade.prepareTags(MetricsTag.FAULT_INJECTOR, "Abort");
+        metricsFacade.counter(exchange, MetricsName.FAULT_TOTAL, 1, tags);
+        metricsFacade.counter(exchange, MetricsName.FAULT_TOTAL, 1);
+        Counter counter = findCounter();
+
+        assertEquals(0, metricsFacade.expireIdleMeters(0));
+        assertEquals(0, metricsFacade.expireIdleMeters(0));
+        assertEquals(2, metricsFacade.expireIdleMeters(0));
+        assertNull(meterRegistry.find(MetricsName.FAULT_TOTAL.getName()).counter());
+
+        // The prepared tags do not record to the removed meter.
+        metricsFacade.counter(exchange, MetricsName.FAULT_TOTAL, 1, tags);
+        assertNotSame(counter, findCounter());
+        assertEquals(1d, findCounter().count());
+    }
+
+    private Counter findCounter() {
+        return meterRegistry.find(MetricsName.FAULT_TOTAL.getName())
+                .tags(MetricsTag.ROUTE_ID, ROUTE_ID, MetricsTag.FAULT_INJECTOR, "Abort")
+                .counter();
+    }
+
+    private static final String ROUTE_ID = "r1";
+
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors.<springcloudgateway@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.commons.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade;
+import org.springcloud.gateway.core.commons.model.AdaptiveConcurrencyLimiterFilterFactory.Config;
+import org.springcloud.gateway.core.commons.model.AdaptiveConcurrencyLimiterFilterFactory.KeyedLimiter;
+import org.springcloud.gateway.core.commons.model.config.IamRequestLimiterProperties;
+import org.springframework.cloud.gateway.event.RefreshRoutesResultEvent;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+
+import io.micrometer.core.instrument.Meter;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link AdaptiveConcurrencyLimiterFilterFactoryTests}, Only the limiters of
+ * the removed routes or the routes with the changed config are discarded when
+ * the routes are refreshed.
+ *
+ * @author springcloudgateway &lt;springcloudgateway@163.com, springcloudgateway@163.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+public class AdaptiveConcurrencyLimiterFilterFactoryTests {
+
+    private GatewayMetricsFacade metricsFacade;
+    private AdaptiveConcurrencyLimiterFilterFactory factory;
+
+    @BeforeEach
+    public void setup() {
+        this.metricsFacade = mock(GatewayMetricsFacade.class);
+        this.factory = new AdaptiveConcurrencyLimiterFilterFactory(new IamRequestLimiterProperties(), metricsFacade);
+    }
+
+    @Test
+    public void testKeepLimiterOfUnchangedRoute() {
+        GatewayFilter filter = factory.apply(newConfig("r1", 20));
+        refreshed();
+        request(filter, "r1");
+        KeyedLimiter keyed = factory.getLimiters().get("r1");
+
+        // The refreshing rebuilds the route filters with the equal config.
+        GatewayFilter rebuilt = factory.apply(newConfig("r1", 20));
+        refreshed();
+        request(rebuilt, "r1");
+
+        assertSame(keyed, factory.getLimiters().get("r1"));
+        verify(metricsFacade, never()).removeMeter(any(Meter.class));
+    }
+
+    @Test
+    public void testDiscardLimiterOfRemovedRoute() {
+        GatewayFilter filter1 = factory.apply(newConfig("r1", 20));
+        GatewayFilter filter2 = factory.apply(newConfig("r2", 20));
+        refreshed();
+        request(filter1, "r1");
+        request(filter2, "r2");
+
+        // The route r2 is removed.
+        factory.apply(newConfig("r1", 20));
+        refreshed();
+
+        assertEquals(1, factory.getLimiters().size());
+        assertTrue(factory.getLimiters().containsKey("r1"));
+        verify(metricsFacade, times(3)).removeMeter(any());
+    }
+
+    @Test
+    public void testDiscardLimiterOfChangedRoute() {
+        GatewayFilter filter1 = factory.apply(newConfig("r1", 20));
+        GatewayFilter filter2 = factory.apply(newConfig("r2", 20));
+        refreshed();
+        request(filter1, "r1");
+        request(filter2, "r2");
+        KeyedLimiter keyed2 = factory.getLimiters().get("r2");
+
+        factory.apply(newConfig("r1", 10));
+        factory.apply(newConfig("r2", 20));
+        refreshed();
+
+        assertEquals(1, factory.getLimiters().size());
+        assertSame(keyed2, factory.getLimiters().get("r2"));
+        verify(metricsFacade, times(3)).removeMeter(any());
+    }
+
+    @Test
+    public void testKeepLimitersWhenRefreshFailed() {
+        GatewayFilter filter = factory.apply(newConfig("r1", 20));
+        refreshed();
+        request(filter, "r1");
+
+        factory.onApplicationEvent(new RefreshRoutesResultEvent(this, new IllegalStateException("test")));
+
+        assertEquals(1, factory.getLimiters().size());
+        verify(metricsFacade, never()).removeMeter(any());
+    }
+
+    /**
+     * The route filters are rebuilt (i.e. applied) before the refreshed result
+     * event is published.
+     */
+    private void refreshed() {
+        factory.onApplicationEvent(new RefreshRoutesResultEvent(this));
+    }
+
+    private Config newConfig(String routeId, int initialLimit) {
+        Config config = new Config();
+        config.setRouteId(routeId);
+        config.setInitialLimit(initialLimit);
+        return config;
+    }
+
+    private void request(GatewayFilter filter, String routeId) {
+        Route route = Route.async().id(routeId).uri("http://localhost:8080").predicate(exchange -> true).build();
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/test"));
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route);
+        filter.filter(exchange, e -> Mono.empty()).block(Duration.ofSeconds(5));
+    }
+
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors.<springcloudgateway@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.commons.model.concurrency;
+
+import static java.util.Objects.nonNull;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Duration;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+import org.springcloud.gateway.core.commons.model.concurrency.AdaptiveConcurrencyLimiter.Listener;
+import org.springcloud.gateway.core.commons.model.config.IamRequestLimiterProperties.ConcurrencyLimiterProperties;
+
+import reactor.core.Disposable;
+
+/**
+ * {@link AdaptiveConcurrencyLimiterTests}, The queued waiters of the
+ * {@link AdaptiveConcurrencyLimiter} are granted or abandoned exactly once,
+ * and no slot is leaked when the cancelling races with the granting.
+ *
+ * @author springcloudgateway &lt;springcloudgateway@163.com, springcloudgateway@163.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+public class AdaptiveConcurrencyLimiterTests {
+
+    @Test
+    public void testRejectWithoutQueue() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", newConfig(0));
+        Listener listener = limiter.acquire().block(TIMEOUT);
+        assertNotNull(listener);
+
+        assertNull(limiter.acquire().block(TIMEOUT));
+        assertEquals(1, limiter.getRejected());
+        listener.onIgnore();
+        assertEquals(0, limiter.getInflight());
+    }
+
+    @Test
+    public void testGrantQueuedWaiterOnRelease() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", newConfig(1));
+        Listener first = limiter.tryAcquire();
+        AtomicReference<Listener> second = new AtomicReference<>();
+        limiter.acquire().subscribe(second::set);
+        assertEquals(1, limiter.getQueued());
+
+        first.onSuccess(1000L);
+        assertNotNull(second.get());
+        assertEquals(0, limiter.getQueued());
+        assertEquals(1, limiter.getInflight());
+        second.get().onIgnore();
+        assertEquals(0, limiter.getInflight());
+    }
+
+    @Test
+    public void testCancelQueuedWaiter() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", newConfig(1));
+        Listener first = limiter.tryAcquire();
+        AtomicReference<Listener> cancelled = new AtomicReference<>();
+        limiter.acquire().subscribe(cancelled::set).dispose();
+        assertEquals(0, limiter.getQueued());
+
+        first.onIgnore();
+        assertNull(cancelled.get());
+        assertEquals(0, limiter.getInflight());
+    }
+
+    @Test
+    public void testCancelRacesWithGrant() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int i = 0; i < 2000; i++) {
+                AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", newConfig(1));
+                Listener holder = limiter.tryAcquire();
+                AtomicReference<Listener> received = new AtomicReference<>();
+                Disposable waiting = limiter.acquire().subscribe(received::set);
+
+                CyclicBarrier barrier = new CyclicBarrier(2);
+                Future<?> granting = executor.submit(() -> {
+                    barrier.await();
+                    holder.onIgnore();
+                    return null;
+                });
+                Future<?> cancelling = executor.submit(() -> {
+                    barrier.await();
+                    waiting.dispose();
+                    return null;
+                });
+                granting.get(5, SECONDS);
+                cancelling.get(5, SECONDS);
+                // The received listener is completed by the subscriber.
+                if (nonNull(received.get())) {
+                    received.get().onIgnore();
+                }
+
+                assertEquals(0, limiter.getInflight(), "The slot leaked at round: " + i);
+                assertEquals(0, limiter.getQueued(), "The waiter leaked at round: " + i);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private ConcurrencyLimiterProperties newConfig(int maxQueueSize) {
+        ConcurrencyLimiterProperties config = new ConcurrencyLimiterProperties();
+        config.setInitialLimit(1);
+        config.setMinLimit(1);
+        config.setMaxLimit(1);
+        config.setMaxQueueSize(maxQueueSize);
+        config.setMaxQueueWaitMs(10_000L);
+        return config;
+    }
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+}
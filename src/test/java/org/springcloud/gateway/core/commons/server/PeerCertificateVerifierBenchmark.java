@@ -0,0 +1,150 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors.<springcloudgateway@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.commons.server;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.security.cert.CRL;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.CRLReason;
+import org.bouncycastle.cert.X509v2CRLBuilder;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springcloud.gateway.core.commons.fault.cert.KeyStoreUtil;
+import org.springcloud.gateway.core.commons.server.PeerCertificateVerifier.CrlIndex;
+import org.springcloud.gateway.core.commons.server.config.GatewayWebServerProperties;
+import org.springframework.core.io.FileSystemResource;
+
+import io.netty.handler.ssl.util.SelfSignedCertificate;
+
+/**
+ * {@link PeerCertificateVerifierBenchmark}, The revocation check of a client
+ * certificate against the CRL of the {@link #crlEntries} entries, by the
+ * {@link CrlIndex}, by the loaded {@link CRL} list one by one (i.e. the
+ * previous verification of each handshake), and the whole
+ * {@link PeerCertificateVerifier#verify} with the verified cache hit. Run by
+ * the main, or the JMH runner of the test classpath.
+ *
+ * @author springcloudgateway &lt;springcloudgateway@163.com, springcloudgateway@163.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PeerCertificateVerifierBenchmark {
+
+    @Param({ "100000" })
+    private int crlEntries;
+
+    private SelfSignedCertificate certificate;
+    private File crlFile;
+    private X509Certificate[] chain;
+    private List<CRL> crls;
+    private CrlIndex crlIndex;
+    private PeerCertificateVerifier verifier;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        this.certificate = new SelfSignedCertificate("client.iscg.local");
+        this.chain = new X509Certificate[] { certificate.cert() };
+        this.crlFile = File.createTempFile("iscg-bench-", ".crl");
+        Files.write(crlFile.toPath(), buildCrl(certificate, crlEntries));
+
+        try (InputStream in = new FileInputStream(crlFile)) {
+            this.crls = KeyStoreUtil.createCRL(in);
+        }
+        this.crlIndex = new CrlIndex(crls);
+
+        GatewayWebServerProperties config = new GatewayWebServerProperties();
+        config.getSslVerifier().getPeer().setCheckCNHost(false);
+        config.getSslVerifier().getPeer().setCheckCrlFile(new FileSystemResource(crlFile));
+        this.verifier = new PeerCertificateVerifier(config);
+        verifier.verify(chain, "10.0.0.1");
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        certificate.delete();
+        crlFile.delete();
+    }
+
+    @Benchmark
+    public boolean crlIndexIsRevoked() {
+        return crlIndex.isRevoked(certificate.cert());
+    }
+
+    @Benchmark
+    public boolean crlListIsRevoked() {
+        for (CRL crl : crls) {
+            if (crl.isRevoked(certificate.cert())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Benchmark
+    public void verifyCached() throws CertificateException {
+        verifier.verify(chain, "10.0.0.1");
+    }
+
+    private static byte[] buildCrl(SelfSignedCertificate certificate, int entries) throws Exception {
+        Date now = new Date();
+        X509v2CRLBuilder builder = new X509v2CRLBuilder(
+                X500Name.getInstance(certificate.cert().getIssuerX500Principal().getEncoded()), now);
+        Random random = new Random(1);
+        for (int i = 0; i < entries; i++) {
+            BigInteger serial = new BigInteger(96, random);
+            if (!serial.equals(certificate.cert().getSerialNumber())) {
+                builder.addCRLEntry(serial, now, CRLReason.keyCompromise);
+            }
+        }
+        return builder.build(new JcaContentSignerBuilder("SHA256withRSA").build(certificate.key())).getEncoded();
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(PeerCertificateVerifierBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
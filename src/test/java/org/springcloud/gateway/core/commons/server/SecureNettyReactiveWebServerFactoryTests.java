@@ -0,0 +1,116 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors.<springcloudgateway@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.commons.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade;
+import org.springcloud.gateway.core.commons.server.config.GatewayWebServerProperties;
+import org.springframework.boot.web.server.WebServer;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.netty.channel.Channel;
+import io.netty.handler.codec.http2.Http2FrameCodec;
+import io.netty.handler.codec.http2.Http2StreamChannel;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+
+/**
+ * {@link SecureNettyReactiveWebServerFactoryTests}, The cleartext HTTP/2
+ * (prior-knowledge) of the non-SSL listener, and only the configured
+ * SETTINGS are sent to the clients.
+ *
+ * @author springcloudgateway &lt;springcloudgateway@163.com, springcloudgateway@163.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+public class SecureNettyReactiveWebServerFactoryTests {
+
+    private WebServer webServer;
+
+    @AfterEach
+    public void cleanup() {
+        if (webServer != null) {
+            webServer.stop();
+        }
+    }
+
+    @Test
+    public void testH2cWithConfiguredSettings() {
+        GatewayWebServerProperties webServerConfig = new GatewayWebServerProperties();
+        webServerConfig.getHttp2().setH2cEnabled(true);
+        webServerConfig.getHttp2().setMaxConcurrentStreams(10L);
+        startServer(webServerConfig);
+
+        AtomicReference<Channel> streamChannel = new AtomicReference<>();
+        assertEquals("ok", get(streamChannel));
+        assertTrue(streamChannel.get() instanceof Http2StreamChannel, "The request should be a stream of h2c");
+        // The client is limited by the SETTINGS_MAX_CONCURRENT_STREAMS of the
+        // server.
+        assertEquals(10, maxActiveStreams(streamChannel.get()));
+    }
+
+    @Test
+    public void testH2cWithoutConfiguredSettings() {
+        GatewayWebServerProperties webServerConfig = new GatewayWebServerProperties();
+        webServerConfig.getHttp2().setH2cEnabled(true);
+        startServer(webServerConfig);
+
+        AtomicReference<Channel> streamChannel = new AtomicReference<>();
+        assertEquals("ok", get(streamChannel));
+        assertTrue(streamChannel.get() instanceof Http2StreamChannel, "The request should be a stream of h2c");
+        // The SETTINGS_MAX_CONCURRENT_STREAMS is not sent.
+        assertEquals(Integer.MAX_VALUE, maxActiveStreams(streamChannel.get()));
+    }
+
+    private void startServer(GatewayWebServerProperties webServerConfig) {
+        SecureNettyReactiveWebServerFactory factory = new SecureNettyReactiveWebServerFactory(0);
+        ReflectionTestUtils.setField(factory, "gatewayWebServerProperties", webServerConfig);
+        ReflectionTestUtils.setField(factory, "metricsFacade", mock(GatewayMetricsFacade.class));
+        HttpHandler handler = (request, response) -> {
+            DataBuffer body = response.bufferFactory().wrap("ok".getBytes());
+            return response.writeWith(Mono.just(body));
+        };
+        webServer = factory.getWebServer(handler);
+        webServer.start();
+    }
+
+    private String get(AtomicReference<Channel> streamChannel) {
+        return HttpClient.create()
+                .protocol(HttpProtocol.H2C)
+                .port(webServer.getPort())
+                .doOnResponse((response, connection) -> streamChannel.set(connection.channel()))
+                .get()
+                .uri("/")
+                .responseSingle((response, body) -> body.asString())
+                .block(Duration.ofSeconds(10));
+    }
+
+    private static int maxActiveStreams(Channel streamChannel) {
+        return streamChannel.parent().pipeline().get(Http2FrameCodec.class).connection().local().maxActiveStreams();
+    }
+
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors.<springcloudgateway@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.commons.server;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyStore;
+import java.security.SecureRandom;
+import java.security.cert.Certificate;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade;
+import org.springcloud.gateway.core.commons.microtag.GatewayMetricsFacade.MetricsName;
+import org.springcloud.gateway.core.commons.server.config.GatewayWebServerProperties;
+import org.springframework.boot.web.server.Ssl;
+import org.springframework.core.io.FileSystemResource;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.ssl.OpenSsl;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.ssl.SslProvider;
+import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
+import io.netty.handler.ssl.util.SelfSignedCertificate;
+import io.netty.util.concurrent.Future;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+/**
+ * {@link SslSessionResumptionManagerTests}, The session issued by a gateway
+ * node is resumed by another node (i.e. another server instance with its own
+ * SslContext and session cache) which shares the same ticket key file, and is
+ * not resumed by the node with a different key file.
+ *
+ * @author springcloudgateway &lt;springcloudgateway@163.com, springcloudgateway@163.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+public class SslSessionResumptionManagerTests {
+
+    private static @TempDir Path tempDir;
+    private static Ssl ssl;
+    private static EventLoopGroup clientGroup;
+
+    @BeforeAll
+    public static void setup() throws Exception {
+        assertTrue(OpenSsl.isAvailable(), "The OpenSSL (netty-tcnative) should be available");
+        SelfSignedCertificate certificate = new SelfSignedCertificate("localhost");
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        keyStore.load(null, null);
+        keyStore.setKeyEntry("gateway", certificate.key(), KEY_STORE_PASSWORD.toCharArray(),
+                new Certificate[] { certificate.cert() });
+        File keyStoreFile = tempDir.resolve("gateway.p12").toFile();
+        try (OutputStream out = new FileOutputStream(keyStoreFile)) {
+            keyStore.store(out, KEY_STORE_PASSWORD.toCharArray());
+        }
+        certificate.delete();
+
+        ssl = new Ssl();
+        ssl.setKeyStore(keyStoreFile.toURI().toString());
+        ssl.setKeyStoreType("PKCS12");
+        ssl.setKeyStorePassword(KEY_STORE_PASSWORD);
+        // The ticket of TLSv1.2 is issued in the handshake.
+        ssl.setEnabledProtocols(new String[] { "TLSv1.2" });
+        clientGroup = new NioEventLoopGroup(1);
+    }
+
+    @AfterAll
+    public static void cleanup() {
+        clientGroup.shutdownGracefully(0, 0, SECONDS);
+    }
+
+    @Test
+    public void testSecondServerResumesSession() throws Exception {
+        File sharedKeyFile = newKeyFile("shared.key");
+        GatewayMetricsFacade metricsFacade1 = mock(GatewayMetricsFacade.class);
+        GatewayMetricsFacade metricsFacade2 = mock(GatewayMetricsFacade.class);
+        DisposableServer server1 = startServer(sharedKeyFile, metricsFacade1);
+        DisposableServer server2 = startServer(sharedKeyFile, metricsFacade2);
+        try {
+            SslContext clientContext = newClientContext();
+
+            handshake(clientContext, server1.port());
+            verify(metricsFacade1, timeout(5000)).counter(MetricsName.TLS_FULL_HANDSHAKE_TOTAL, 1d);
+
+            // The second connection is made to the second server instance,
+            // which has never seen the session, so it can be resumed only
+            // by decrypting the ticket issued by the first server.
+            handshake(clientContext, server2.port());
+            verify(metricsFacade2, timeout(5000)).counter(MetricsName.TLS_SESSION_RESUMED_TOTAL, 1d);
+            verify(metricsFacade2, never()).counter(eq(MetricsName.TLS_FULL_HANDSHAKE_TOTAL), anyDouble());
+        } finally {
+            server1.disposeNow();
+            server2.disposeNow();
+        }
+    }
+
+    @Test
+    public void testServerWithDifferentKeyFileDoesNotResumeSession() throws Exception {
+        GatewayMetricsFacade metricsFacade1 = mock(GatewayMetricsFacade.class);
+        GatewayMetricsFacade metricsFacade2 = mock(GatewayMetricsFacade.class);
+        DisposableServer server1 = startServer(newKeyFile("node1.key"), metricsFacade1);
+        DisposableServer server2 = startServer(newKeyFile("node2.key"), metricsFacade2);
+        try {
+            SslContext clientContext = newClientContext();
+
+            handshake(clientContext, server1.port());
+            verify(metricsFacade1, timeout(5000)).counter(MetricsName.TLS_FULL_HANDSHAKE_TOTAL, 1d);
+
+            handshake(clientContext, server2.port());
+            verify(metricsFacade2, timeout(5000)).counter(MetricsName.TLS_FULL_HANDSHAKE_TOTAL, 1d);
+            verify(metricsFacade2, never()).counter(eq(MetricsName.TLS_SESSION_RESUMED_TOTAL), anyDouble());
+        } finally {
+            server1.disposeNow();
+            server2.disposeNow();
+        }
+    }
+
+    /**
+     * Start a server instance as the gateway node, which has its own
+     * {@link SslSessionResumptionManager} and SslContext.
+     */
+    private DisposableServer startServer(File keyFile, GatewayMetricsFacade metricsFacade) {
+        GatewayWebServerProperties webServerConfig = new GatewayWebServerProperties();
+        webServerConfig.getSslSession().getTicket().setEnabled(true);
+        webServerConfig.getSslSession().getTicket().setKeyFile(new FileSystemResource(keyFile));
+
+        SecureSslServerCustomizer customizer = new SecureSslServerCustomizer(webServerConfig,
+                new SslSessionResumptionManager(webServerConfig, metricsFacade),
+                new SniCertificateStore(webServerConfig, metricsFacade), new PeerCertificateVerifier(webServerConfig), ssl,
+                null, null);
+        return customizer.apply(HttpServer.create().host("127.0.0.1").port(0))
+                .handle((request, response) -> response.sendString(Mono.just("ok")))
+                .bindNow();
+    }
+
+    private SslContext newClientContext() throws Exception {
+        return SslContextBuilder.forClient()
+                .sslProvider(SslProvider.JDK)
+                .trustManager(InsecureTrustManagerFactory.INSTANCE)
+                .protocols("TLSv1.2")
+                .build();
+    }
+
+    /**
+     * The sessions of client are cached by the peer host and port, so the
+     * fixed peer (e.g. the load balancer address of the gateway fleet) is used
+     * for the connections of all the server instances.
+     */
+    private void handshake(SslContext clientContext, int port) throws Exception {
+        Channel channel = new Bootstrap().group(clientGroup)
+                .channel(NioSocketChannel.class)
+                .handler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel ch) {
+                        ch.pipeline().addLast(clientContext.newHandler(ch.alloc(), PEER_HOST, PEER_PORT));
+                    }
+                })
+                .connect("127.0.0.1", port)
+                .sync()
+                .channel();
+        try {
+            Future<Channel> handshake = channel.pipeline().get(SslHandler.class).handshakeFuture();
+            assertTrue(handshake.await(5, SECONDS), "The handshake should be completed");
+            assertTrue(handshake.isSuccess(), () -> "The handshake failed: " + handshake.cause());
+        } finally {
+            channel.close().sync();
+        }
+    }
+
+    private File newKeyFile(String name) throws Exception {
+        byte[] secret = new byte[48];
+        new SecureRandom().nextBytes(secret);
+        return Files.write(tempDir.resolve(name), secret).toFile();
+    }
+
+    private static final String KEY_STORE_PASSWORD = "changeit";
+    private static final String PEER_HOST = "localhost";
+    private static final int PEER_PORT = 443;
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors.<springcloudgateway@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.commons.tc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+import org.springcloud.gateway.core.commons.tc.MirrorBudget.Decision;
+import org.springcloud.gateway.core.commons.tc.config.TrafficProperties.ReplicationProperties;
+
+/**
+ * {@link MirrorBudgetTests}, The defaults keep the unbounded and
+ * non-adaptive replication, and the aborted mirrors are not sampled.
+ *
+ * @author springcloudgateway &lt;springcloudgateway@163.com, springcloudgateway@163.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+public class MirrorBudgetTests {
+
+    @Test
+    public void testDefaultsUnboundedAndNonAdaptive() {
+        MirrorBudget budget = new MirrorBudget(new ReplicationProperties());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(Decision.ACCEPT, budget.tryAcquire(TARGET_URI));
+        }
+        assertEquals(1000, budget.getInflight());
+        for (int i = 0; i < 1000; i++) {
+            budget.release(10_000L, false);
+        }
+        assertEquals(0, budget.getInflight());
+        assertEquals(1d, budget.getPercentageFactor());
+    }
+
+    @Test
+    public void testMaxInflight() {
+        ReplicationProperties config = new ReplicationProperties();
+        config.setMaxInflight(2);
+        MirrorBudget budget = new MirrorBudget(config);
+
+        assertEquals(Decision.ACCEPT, budget.tryAcquire(TARGET_URI));
+        assertEquals(Decision.ACCEPT, budget.tryAcquire(TARGET_URI));
+        assertEquals(Decision.DROP_INFLIGHT, budget.tryAcquire(TARGET_URI));
+        budget.release();
+        assertEquals(Decision.ACCEPT, budget.tryAcquire(TARGET_URI));
+    }
+
+    @Test
+    public void testAbortedMirrorsNotSampled() {
+        ReplicationProperties config = new ReplicationProperties();
+        config.setAdaptive(true);
+        config.setAdaptiveWindowMs(0L);
+        MirrorBudget budget = new MirrorBudget(config);
+
+        for (int i = 0; i < 20; i++) {
+            budget.tryAcquire(TARGET_URI);
+            budget.release();
+        }
+        assertEquals(1d, budget.getPercentageFactor());
+
+        for (int i = 0; i < 5; i++) {
+            budget.tryAcquire(TARGET_URI);
+            budget.release(10L, false);
+        }
+        assertEquals(0.5d, budget.getPercentageFactor());
+    }
+
+    private static final String TARGET_URI = "http://localhost:8888/";
+
+}
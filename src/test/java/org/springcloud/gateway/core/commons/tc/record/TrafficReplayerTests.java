@@ -0,0 +1,123 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors.<springcloudgateway@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.commons.tc.record;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.singletonMap;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+/**
+ * {@link TrafficReplayerTests}, The records are read back across the rolled
+ * (unmapped) segments, and the masked headers are replayed with the
+ * placeholders.
+ *
+ * @author springcloudgateway &lt;springcloudgateway@163.com, springcloudgateway@163.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+public class TrafficReplayerTests {
+
+    @TempDir
+    Path tempDir;
+
+    private final Map<String, String> receivedAuthorizations = new ConcurrentHashMap<>();
+    private DisposableServer server;
+
+    @BeforeEach
+    public void setup() {
+        this.server = HttpServer.create().host("127.0.0.1").port(0).handle((req, res) -> {
+            String authorization = req.requestHeaders().get(HttpHeaders.AUTHORIZATION);
+            receivedAuthorizations.put(req.uri(), String.valueOf(authorization));
+            return res.status(200).sendString(Mono.just("ok"));
+        }).bindNow();
+    }
+
+    @AfterEach
+    public void teardown() {
+        server.disposeNow();
+    }
+
+    @Test
+    public void testReadAllAcrossRolledSegments() throws IOException {
+        File dir = tempDir.toFile();
+        writeRecords(dir, 50);
+
+        List<TrafficRecord> records = new ArrayList<>();
+        assertEquals(50, TrafficSegmentStore.readAll(dir, records::add));
+        assertTrue(TrafficSegmentStore.listSegments(dir).size() > 1, "The records should be rolled to multiple segments");
+        for (int i = 0; i < records.size(); i++) {
+            assertEquals("/api/" + i, records.get(i).getPathAndQuery());
+        }
+    }
+
+    @Test
+    public void testReplayMaskedHeadersWithPlaceholder() throws IOException {
+        File dir = tempDir.toFile();
+        writeRecords(dir, 2);
+
+        TrafficReplayer replayer = new TrafficReplayer(dir, "http://127.0.0.1:" + server.port(), 0, 2, null,
+                singletonMap("authorization", "Bearer test-token"));
+        assertEquals(2, replayer.replay());
+
+        assertEquals("Bearer test-token", receivedAuthorizations.get("/api/0"));
+        assertEquals("Bearer test-token", receivedAuthorizations.get("/api/1"));
+    }
+
+    @Test
+    public void testReplayMaskedHeadersWithDefaultPlaceholder() throws IOException {
+        File dir = tempDir.toFile();
+        writeRecords(dir, 1);
+
+        TrafficReplayer replayer = new TrafficReplayer(dir, "http://127.0.0.1:" + server.port(), 0, 1, null);
+        assertEquals(1, replayer.replay());
+
+        assertEquals(TrafficCapture.MASKED_VALUE, receivedAuthorizations.get("/api/0"));
+    }
+
+    private void writeRecords(File dir, int count) throws IOException {
+        try (TrafficSegmentStore store = new TrafficSegmentStore(dir, 2048, 100)) {
+            for (int i = 0; i < count; i++) {
+                HttpHeaders requestHeaders = new HttpHeaders();
+                requestHeaders.add(HttpHeaders.AUTHORIZATION, TrafficCapture.MASKED_VALUE);
+                requestHeaders.add("X-Request-Id", "req-" + i);
+                assertTrue(store.append(new TrafficRecord(System.currentTimeMillis(), 1, "r1", "POST", "/api/" + i,
+                        requestHeaders, ("{\"id\":" + i + "}").getBytes(UTF_8), 200, new HttpHeaders(), "ok".getBytes(UTF_8),
+                        false, false)));
+            }
+            store.flush();
+        }
+    }
+
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors.<springcloudgateway@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.eventbus;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.junit.jupiter.api.Test;
+import org.springcloud.gateway.core.eventbus.EventBusSupport.OverflowPolicy;
+
+import com.google.common.eventbus.AllowConcurrentEvents;
+import com.google.common.eventbus.Subscribe;
+
+/**
+ * {@link EventBusSupportTests}, The stress tests of the bounded batching
+ * {@link EventBusSupport}, which verify the queue depth is always bounded by
+ * the ring buffer size, and the drop accounting of each
+ * {@link OverflowPolicy}, i.e. every posted event is either delivered or
+ * counted as dropped.
+ *
+ * @author springcloudgateway &lt;springcloudgateway@163.com, springcloudgateway@163.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+public class EventBusSupportTests {
+
+    @Test
+    public void testStressDropNewest() throws Exception {
+        doStress(OverflowPolicy.DROP_NEWEST);
+    }
+
+    @Test
+    public void testStressDropOldest() throws Exception {
+        doStress(OverflowPolicy.DROP_OLDEST);
+    }
+
+    @Test
+    public void testStressSample() throws Exception {
+        doStress(OverflowPolicy.SAMPLE);
+    }
+
+    @Test
+    public void testDropNewestKeepsTheEarliestEvents() throws Exception {
+        BlockingSubscriber subscriber = new BlockingSubscriber();
+        EventBusSupport eventBus = new EventBusSupport("test-drop-newest", 1, BUFFER_SIZE, BATCH_SIZE,
+                OverflowPolicy.DROP_NEWEST, SAMPLE_RATE);
+        try {
+            long posted = postWhileBlocked(eventBus, subscriber);
+            awaitAccounted(eventBus, subscriber, posted);
+
+            assertTrue(eventBus.getDroppedEvents() > 0, "The overflowed events should be dropped");
+            assertEquals(posted, eventBus.getPublishedEvents() + eventBus.getDroppedEvents());
+            // The new events are dropped, so the delivered are the earliest
+            // events in the published order.
+            assertOrdered(subscriber.sequences);
+            assertTrue(subscriber.getLastSequence() < posted - 1, "The newest event should be dropped");
+        } finally {
+            eventBus.close();
+        }
+    }
+
+    @Test
+    public void testDropOldestKeepsTheNewestEvents() throws Exception {
+        BlockingSubscriber subscriber = new BlockingSubscriber();
+        EventBusSupport eventBus = new EventBusSupport("test-drop-oldest", 1, BUFFER_SIZE, BATCH_SIZE,
+                OverflowPolicy.DROP_OLDEST, SAMPLE_RATE);
+        try {
+            long posted = postWhileBlocked(eventBus, subscriber);
+            awaitAccounted(eventBus, subscriber, posted);
+
+            assertTrue(eventBus.getDroppedEvents() > 0, "The overflowed events should be dropped");
+            assertOrdered(subscriber.sequences);
+            assertEquals(posted - 1, subscriber.getLastSequence(), "The newest event should be delivered");
+        } finally {
+            eventBus.close();
+        }
+    }
+
+    @Test
+    public void testSampleKeepsOneOfSampleRateOverflowedEvents() throws Exception {
+        BlockingSubscriber subscriber = new BlockingSubscriber();
+        EventBusSupport eventBus = new EventBusSupport("test-sample", 1, BUFFER_SIZE, BATCH_SIZE, OverflowPolicy.SAMPLE,
+                SAMPLE_RATE);
+        try {
+            long posted = postWhileBlocked(eventBus, subscriber);
+            awaitAccounted(eventBus, subscriber, posted);
+
+            // At most the events of buffer and the drained batch, and one of
+            // the sample rate overflowed events are published.
+            long maxPublished = BUFFER_SIZE + BATCH_SIZE + posted / SAMPLE_RATE + 1;
+            assertTrue(eventBus.getPublishedEvents() <= maxPublished,
+                    "published: " + eventBus.getPublishedEvents() + ", max: " + maxPublished);
+            assertOrdered(subscriber.sequences);
+        } finally {
+            eventBus.close();
+        }
+    }
+
+    /**
+     * Post millions of events by the concurrent producers to the fast
+     * subscriber, the queue depth is sampled concurrently.
+     */
+    private void doStress(OverflowPolicy policy) throws Exception {
+        CountingSubscriber subscriber = new CountingSubscriber();
+        EventBusSupport eventBus = new EventBusSupport("test-stress-" + policy, 1, BUFFER_SIZE, BATCH_SIZE, policy,
+                SAMPLE_RATE);
+        eventBus.register(subscriber);
+        try {
+            AtomicBoolean publishing = new AtomicBoolean(true);
+            AtomicInteger maxQueueDepth = new AtomicInteger();
+            Thread monitor = new Thread(() -> {
+                while (publishing.get()) {
+                    maxQueueDepth.accumulateAndGet(eventBus.getQueueDepth(), Math::max);
+                    Thread.yield();
+                }
+            }, "test-stress-monitor");
+            monitor.start();
+
+            CountDownLatch start = new CountDownLatch(1);
+            List<Thread> producers = new ArrayList<>(PRODUCERS);
+            for (int i = 0; i < PRODUCERS; i++) {
+                Thread producer = new Thread(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    for (long seq = 0; seq < EVENTS_PER_PRODUCER; seq++) {
+                        eventBus.post(new TestEvent(seq));
+                    }
+                }, "test-stress-producer-" + i);
+                producers.add(producer);
+                producer.start();
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Thread producer : producers) {
+                producer.join(SECONDS.toMillis(60));
+            }
+            long costNanos = System.nanoTime() - begin;
+            publishing.set(false);
+            monitor.join();
+
+            long posted = (long) PRODUCERS * EVENTS_PER_PRODUCER;
+            awaitAccounted(eventBus, subscriber, posted);
+
+            System.out.printf("Stress of %s posted %s events in %sms (%.2fM events/sec), delivered: %s, dropped: %s, "
+                    + "max queue depth: %s%n", policy, posted, costNanos / 1_000_000, posted * 1e3 / costNanos,
+                    subscriber.getDelivered(), eventBus.getDroppedEvents(), maxQueueDepth.get());
+
+            assertTrue(maxQueueDepth.get() <= BUFFER_SIZE, "The queue depth should be bounded: " + maxQueueDepth.get());
+            assertEquals(posted, subscriber.getDelivered() + eventBus.getDroppedEvents());
+            assertEquals(subscriber.getDelivered(), eventBus.getStats().getDeliveredEvents());
+            assertEquals(0, eventBus.getQueueDepth());
+        } finally {
+            eventBus.close();
+        }
+    }
+
+    /**
+     * Block the bus thread on the first event, and post the events until the
+     * ring buffer is overflowed many times, then unblock it.
+     */
+    private long postWhileBlocked(EventBusSupport eventBus, BlockingSubscriber subscriber) throws Exception {
+        eventBus.register(subscriber);
+        eventBus.post(new TestEvent(0));
+        assertTrue(subscriber.blocked.await(10, SECONDS), "The bus thread should be blocked on the first event");
+        long posted = 1;
+        for (; posted < BUFFER_SIZE * 20; posted++) {
+            eventBus.post(new TestEvent(posted));
+            assertTrue(eventBus.getQueueDepth() <= BUFFER_SIZE);
+        }
+        subscriber.unblock.countDown();
+        return posted;
+    }
+
+    private void awaitAccounted(EventBusSupport eventBus, DeliveredCounter subscriber, long posted) throws Exception {
+        long deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+        while (subscriber.getDelivered() + eventBus.getDroppedEvents() < posted && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(posted, subscriber.getDelivered() + eventBus.getDroppedEvents(),
+                "Every posted event should be delivered or dropped");
+    }
+
+    private static void assertOrdered(List<Long> sequences) {
+        for (int i = 1; i < sequences.size(); i++) {
+            assertTrue(sequences.get(i - 1) < sequences.get(i), "The events should be delivered in the published order");
+        }
+    }
+
+    static class TestEvent {
+        final long seq;
+
+        TestEvent(long seq) {
+            this.seq = seq;
+        }
+    }
+
+    interface DeliveredCounter {
+        long getDelivered();
+    }
+
+    public static class CountingSubscriber implements DeliveredCounter {
+        private final LongAdder delivered = new LongAdder();
+
+        @Subscribe
+        @AllowConcurrentEvents
+        public void onEvent(TestEvent event) {
+            delivered.increment();
+        }
+
+        @Override
+        public long getDelivered() {
+            return delivered.sum();
+        }
+    }
+
+    public static class BlockingSubscriber implements DeliveredCounter {
+        private final CountDownLatch blocked = new CountDownLatch(1);
+        private final CountDownLatch unblock = new CountDownLatch(1);
+        private final List<Long> sequences = new ArrayList<>();
+        private final AtomicLong delivered = new AtomicLong();
+
+        @Subscribe
+        public void onEvent(TestEvent event) throws InterruptedException {
+            if (event.seq == 0) {
+                blocked.countDown();
+                unblock.await(30, SECONDS);
+            }
+            // Only the bus thread appends.
+            sequences.add(event.seq);
+            delivered.incrementAndGet();
+        }
+
+        long getLastSequence() {
+            return sequences.get(sequences.size() - 1);
+        }
+
+        @Override
+        public long getDelivered() {
+            return delivered.get();
+        }
+    }
+
+    private static final int BUFFER_SIZE = 1024;
+    private static final int BATCH_SIZE = 256;
+    private static final int SAMPLE_RATE = 100;
+    private static final int PRODUCERS = 4;
+    private static final int EVENTS_PER_PRODUCER = 1_000_000;
+
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors.<springcloudgateway@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.framework.operator;
+
+import static java.lang.String.format;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springcloud.gateway.core.framework.operator.GenericOperatorAdapter.ResolvedOperator;
+
+/**
+ * {@link GenericOperatorAdapterBenchmark}, The time and the allocation of the
+ * operator dispatching on the request path, by the kind (the frozen dispatch
+ * table), by the kind name, by the captured resolved handle, and by the
+ * previous lookup (the kind name parsing, the eagerly formatted message and
+ * the synchronized registry), with the concurrent callers. Run by the main
+ * (with the GC profiler), or the JMH runner of the test classpath with '-prof
+ * gc'.
+ *
+ * @author springcloudgateway &lt;springcloudgateway@163.com, springcloudgateway@163.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Threads(4)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class GenericOperatorAdapterBenchmark {
+
+    private BenchOperatorAdapter adapter;
+    private ResolvedOperator<BenchKind, BenchOperator> resolved;
+
+    @Setup
+    public void setup() {
+        // The operators are also registered by class, so the classes must be
+        // distinct.
+        List<BenchOperator> operators = new ArrayList<>();
+        operators.add(new BenchOperator() {
+            @Override
+            public BenchKind kind() {
+                return BenchKind.RANDOM;
+            }
+        });
+        operators.add(new BenchOperator() {
+            @Override
+            public BenchKind kind() {
+                return BenchKind.WEIGHTED;
+            }
+        });
+        operators.add(new BenchOperator() {
+            @Override
+            public BenchKind kind() {
+                return BenchKind.CANARY;
+            }
+        });
+        this.adapter = new BenchOperatorAdapter(operators);
+        this.resolved = adapter.resolve(BenchKind.WEIGHTED);
+    }
+
+    @Benchmark
+    public BenchOperator forOperatorByKind() {
+        return adapter.forOperator(BenchKind.WEIGHTED);
+    }
+
+    @Benchmark
+    public BenchOperator forOperatorByName() {
+        return adapter.forOperator("WEIGHTED");
+    }
+
+    @Benchmark
+    public BenchOperator resolvedHandle() {
+        return resolved.get();
+    }
+
+    @Benchmark
+    public BenchOperator previousLookup() {
+        return adapter.previousForOperator(BenchKind.WEIGHTED);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(GenericOperatorAdapterBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+
+    public static enum BenchKind {
+        RANDOM, ROUND_ROBIN, WEIGHTED, LEAST_CONN, LEAST_TIME, HASH, CANARY, NONE;
+    }
+
+    public static interface BenchOperator extends Operator<BenchKind> {
+    }
+
+    static class BenchOperatorAdapter extends GenericOperatorAdapter<BenchKind, BenchOperator> {
+
+        BenchOperatorAdapter(List<BenchOperator> operators) {
+            super(operators);
+        }
+
+        /**
+         * The previous dispatching of {@link #forOperator(Enum)}.
+         */
+        BenchOperator previousForOperator(BenchKind k) {
+            String kindName = k.name();
+            BenchKind kind = null;
+            for (BenchKind candidate : BenchKind.values()) {
+                if (candidate.name().equalsIgnoreCase(kindName)) {
+                    kind = candidate;
+                    break;
+                }
+            }
+            String assertMsg = format("No such operator bean instance for kind name: '%s'", kindName);
+            BenchOperator operator = operatorAliasRegistry.get(kind);
+            if (operator == null) {
+                throw new NoSuchOperatorException(assertMsg);
+            }
+            return operator;
+        }
+    }
+
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors.<springcloudgateway@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.remoting;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.net.URI;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springcloud.gateway.core.remoting.RestClientStubServer.Pojo;
+import org.springcloud.gateway.core.remoting.exception.HttpClientErrorException;
+import org.springcloud.gateway.core.remoting.exception.HttpServerErrorException;
+import org.springcloud.gateway.core.remoting.standard.HttpStatus;
+
+/**
+ * {@link AbstractRestClientContract}, The contract of the blocking
+ * {@link RestClient} and the non-blocking {@link ReactiveRestClient}, both of
+ * them must behave the same against the {@link RestClientStubServer}.
+ *
+ * @author springcloudgateway &lt;springcloudgateway@163.com, springcloudgateway@163.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+abstract class AbstractRestClientContract {
+
+    protected RestClientStubServer server;
+
+    @BeforeEach
+    public void startServer() {
+        this.server = new RestClientStubServer();
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.close();
+    }
+
+    protected abstract <T> T getForObject(URI uri, Class<T> responseType);
+
+    protected abstract <T> T postForObject(URI uri, Object request, Class<T> responseType);
+
+    protected abstract <T> HttpResponseEntity<T> getForEntity(URI uri, Class<T> responseType);
+
+    protected abstract List<Pojo> getForList(URI uri);
+
+    @Test
+    public void testGetForObject() {
+        Pojo pojo = getForObject(server.uri("/pojo"), Pojo.class);
+
+        assertEquals("iscg-1", pojo.getName());
+        assertEquals(1, pojo.getValue());
+        assertEquals(2, pojo.getTags().size());
+    }
+
+    @Test
+    public void testPostForObject() {
+        Pojo pojo = postForObject(server.uri("/echo"), new Pojo("echo", 7), Pojo.class);
+
+        assertEquals("echo", pojo.getName());
+        assertEquals(7, pojo.getValue());
+    }
+
+    @Test
+    public void testGetForEntity() {
+        HttpResponseEntity<Pojo> entity = getForEntity(server.uri("/pojo"), Pojo.class);
+
+        assertEquals(HttpStatus.OK, entity.getStatusCode());
+        assertEquals("pojo", entity.getHeaders().getFirst("X-Stub"));
+        assertEquals("iscg-1", entity.getBody().getName());
+    }
+
+    @Test
+    public void testClientErrorStatus() {
+        HttpClientErrorException ex = assertThrows(HttpClientErrorException.class,
+                () -> getForObject(server.uri("/status/404"), Pojo.class));
+
+        assertEquals(404, ex.getRawStatusCode());
+        assertEquals("error-404", ex.getResponseBodyAsString());
+    }
+
+    @Test
+    public void testServerErrorStatus() {
+        HttpServerErrorException ex = assertThrows(HttpServerErrorException.class,
+                () -> getForObject(server.uri("/status/503"), Pojo.class));
+
+        assertEquals(503, ex.getRawStatusCode());
+        assertEquals("error-503", ex.getResponseBodyAsString());
+    }
+
+    @Test
+    public void testGetArray() {
+        List<Pojo> pojos = getForList(server.uri("/array"));
+
+        assertEquals(RestClientStubServer.ARRAY_SIZE, pojos.size());
+        for (int i = 0; i < pojos.size(); i++) {
+            assertEquals("iscg-" + i, pojos.get(i).getName());
+            assertEquals(i, pojos.get(i).getValue());
+        }
+    }
+
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors.<springcloudgateway@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.remoting;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+import org.springcloud.gateway.core.remoting.ReactiveRestClient.DestinationLimiter;
+import org.springcloud.gateway.core.remoting.ReactiveRestClient.DestinationLimiter.Permit;
+import org.springcloud.gateway.core.remoting.exception.RestClientException;
+
+import reactor.core.Disposable;
+
+/**
+ * {@link DestinationLimiterTests}, The FIFO granting and cancelling of the
+ * {@link DestinationLimiter}.
+ *
+ * @author springcloudgateway &lt;springcloudgateway@163.com, springcloudgateway@163.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+public class DestinationLimiterTests {
+
+    @Test
+    public void testGrantInFifoOrder() {
+        DestinationLimiter limiter = new DestinationLimiter("test", 1, 16);
+        Permit first = limiter.acquire().block(TIMEOUT);
+        List<Integer> granted = new CopyOnWriteArrayList<>();
+        List<Permit> permits = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            int index = i;
+            limiter.acquire().subscribe(permit -> {
+                granted.add(index);
+                permits.add(permit);
+            });
+        }
+        assertTrue(granted.isEmpty(), "The waiters should be queued when no permits available");
+
+        first.release();
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i + 1, granted.size(), "Only one waiter should be granted per released permit");
+            permits.get(i).release();
+        }
+        assertEquals(asList(0, 1, 2, 3, 4), granted);
+    }
+
+    @Test
+    public void testCancelWhileQueued() {
+        DestinationLimiter limiter = new DestinationLimiter("test", 1, 16);
+        Permit first = limiter.acquire().block(TIMEOUT);
+        AtomicReference<Permit> cancelled = new AtomicReference<>();
+        AtomicReference<Permit> next = new AtomicReference<>();
+        Disposable waiting = limiter.acquire().subscribe(cancelled::set);
+        limiter.acquire().subscribe(next::set);
+
+        waiting.dispose();
+        first.release();
+
+        // The cancelled waiter gives back the permit to the next one.
+        assertNull(cancelled.get());
+        assertNotNull(next.get());
+        next.get().release();
+        assertNotNull(limiter.acquire().block(TIMEOUT), "All permits should be returned");
+    }
+
+    @Test
+    public void testCancelAfterGrantedReleasesOnce() {
+        DestinationLimiter limiter = new DestinationLimiter("test", 1, 16);
+        Permit permit = limiter.acquire().block(TIMEOUT);
+        permit.release();
+        // Released again, e.g. both cancelled and completed.
+        permit.release();
+
+        Permit second = limiter.acquire().block(TIMEOUT);
+        AtomicReference<Permit> third = new AtomicReference<>();
+        limiter.acquire().subscribe(third::set);
+        assertNull(third.get(), "The double release must not leak an extra permit");
+        second.release();
+        assertNotNull(third.get());
+    }
+
+    @Test
+    public void testTooManyPending() {
+        DestinationLimiter limiter = new DestinationLimiter("test", 1, 1);
+        limiter.acquire().block(TIMEOUT);
+        limiter.acquire().subscribe();
+
+        assertThrows(RestClientException.class, () -> limiter.acquire().block(TIMEOUT));
+    }
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors.<springcloudgateway@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.remoting;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springcloud.gateway.core.modelseri.JacksonUtils;
+import org.springcloud.gateway.core.remoting.RestClientStubServer.Pojo;
+
+import org.springframework.core.io.buffer.DataBufferLimitException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+/**
+ * {@link JacksonStreamDecoderTests}, Decode the JSON values split at any byte
+ * boundary by the {@link JacksonStreamDecoder}.
+ *
+ * @author springcloudgateway &lt;springcloudgateway@163.com, springcloudgateway@163.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+public class JacksonStreamDecoderTests {
+
+    private final ObjectMapper objectMapper = JacksonUtils.getDefaultObjectMapper();
+
+    @Test
+    public void testTokenizeArraySplitByteByByte() throws IOException {
+        JacksonStreamDecoder<Pojo> decoder = newDecoder(Pojo.class, true);
+        List<Pojo> pojos = new ArrayList<>();
+        byte[] json = RestClientStubServer.arrayJson(10).getBytes(UTF_8);
+        for (byte b : json) {
+            pojos.addAll(decoder.decode(Unpooled.wrappedBuffer(new byte[] { b })));
+        }
+        pojos.addAll(decoder.endOfInput());
+
+        assertEquals(10, pojos.size());
+        for (int i = 0; i < pojos.size(); i++) {
+            assertEquals("iscg-" + i, pojos.get(i).getName());
+            // The nested arrays inside the elements are not tokenized.
+            assertEquals(asList("a", asList("b")), pojos.get(i).getTags());
+        }
+    }
+
+    @Test
+    public void testTokenizeArrayEmitsCompletedElements() throws IOException {
+        JacksonStreamDecoder<Pojo> decoder = newDecoder(Pojo.class, true);
+
+        assertEquals(1, decoder.decode(wrap("[" + RestClientStubServer.pojoJson(0) + ",{\"name\"")).size());
+        assertEquals(1, decoder.decode(wrap(":\"x\"}]")).size());
+        assertTrue(decoder.endOfInput().isEmpty());
+    }
+
+    @Test
+    public void testTokenizeNestedArrays() throws IOException {
+        JacksonStreamDecoder<List> decoder = newDecoder(List.class, true);
+        List<List> values = new ArrayList<>();
+        values.addAll(decoder.decode(wrap("[[1,[2]],[")));
+        values.addAll(decoder.decode(wrap("3],[]]")));
+        values.addAll(decoder.endOfInput());
+
+        assertEquals(asList(asList(1, asList(2)), asList(3), asList()), values);
+    }
+
+    @Test
+    public void testTokenizeArrayOfScalars() throws IOException {
+        JacksonStreamDecoder<Object> decoder = newDecoder(Object.class, true);
+        List<Object> values = new ArrayList<>();
+        values.addAll(decoder.decode(wrap("[1,\"tw")));
+        values.addAll(decoder.decode(wrap("o\",true,null,3.5]")));
+        values.addAll(decoder.endOfInput());
+
+        assertEquals(asList(1, "two", true, null, 3.5), values);
+    }
+
+    @Test
+    public void testNewlineDelimitedValues() throws IOException {
+        JacksonStreamDecoder<Pojo> decoder = newDecoder(Pojo.class, false);
+        List<Pojo> pojos = new ArrayList<>();
+        pojos.addAll(decoder.decode(wrap(RestClientStubServer.pojoJson(0) + "\n{\"name\":\"iscg-1\",")));
+        pojos.addAll(decoder.decode(wrap("\"value\":1}\n")));
+        pojos.addAll(decoder.endOfInput());
+
+        assertEquals(2, pojos.size());
+        assertEquals("iscg-0", pojos.get(0).getName());
+        assertEquals(1, pojos.get(1).getValue());
+    }
+
+    @Test
+    public void testWholeArrayWithoutTokenizing() throws IOException {
+        JacksonStreamDecoder<List> decoder = newDecoder(List.class, false);
+        List<List> values = new ArrayList<>();
+        values.addAll(decoder.decode(wrap("[1,")));
+        values.addAll(decoder.decode(wrap("2]")));
+        values.addAll(decoder.endOfInput());
+
+        assertEquals(asList(asList(1, 2)), values);
+    }
+
+    @Test
+    public void testTruncatedInput() throws IOException {
+        JacksonStreamDecoder<Pojo> decoder = newDecoder(Pojo.class, true);
+        decoder.decode(wrap("[" + RestClientStubServer.pojoJson(0) + ",{\"name\":"));
+
+        assertThrows(IOException.class, decoder::endOfInput);
+    }
+
+    @Test
+    public void testValueExceedsMaxInMemorySize() throws IOException {
+        JacksonStreamDecoder<Pojo> decoder = new JacksonStreamDecoder<>(objectMapper, objectMapper.constructType(Pojo.class),
+                true, 32);
+        decoder.decode(wrap("[{\"name\":\""));
+
+        // e.g. the huge or unterminated string value.
+        assertThrows(DataBufferLimitException.class, () -> decoder.decode(wrap("0123456789012345678901234567890123456789")));
+    }
+
+    @Test
+    public void testMaxInMemorySizeIsPerValue() throws IOException {
+        String pojoJson = RestClientStubServer.pojoJson(0);
+        JacksonStreamDecoder<Pojo> decoder = new JacksonStreamDecoder<>(objectMapper, objectMapper.constructType(Pojo.class),
+                true, pojoJson.length() + 2);
+        List<Pojo> pojos = new ArrayList<>();
+        pojos.addAll(decoder.decode(wrap("[")));
+        for (int i = 0; i < 10; i++) {
+            pojos.addAll(decoder.decode(wrap((i > 0 ? "," : "") + pojoJson)));
+        }
+        pojos.addAll(decoder.decode(wrap("]")));
+        pojos.addAll(decoder.endOfInput());
+
+        assertEquals(10, pojos.size());
+    }
+
+    private <T> JacksonStreamDecoder<T> newDecoder(Class<T> valueType, boolean tokenizeArray) {
+        return new JacksonStreamDecoder<>(objectMapper, objectMapper.constructType(valueType), tokenizeArray);
+    }
+
+    private static ByteBuf wrap(String chunk) {
+        return Unpooled.wrappedBuffer(chunk.getBytes(UTF_8));
+    }
+
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors.<springcloudgateway@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.remoting;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * {@link Netty4ClientHttpRequestFactoryTests}, The pending acquires, active
+ * and idle connections of the pools are exported as the gauges once bound.
+ *
+ * @author springcloudgateway &lt;springcloudgateway@163.com, springcloudgateway@163.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+public class Netty4ClientHttpRequestFactoryTests {
+
+    private RestClientStubServer server;
+    private Netty4ClientHttpRequestFactory factory;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    public void setup() {
+        this.server = new RestClientStubServer();
+        this.factory = new Netty4ClientHttpRequestFactory();
+        this.registry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    public void cleanup() throws Exception {
+        factory.close();
+        server.close();
+    }
+
+    @Test
+    public void testPoolGauges() throws Exception {
+        factory.bindTo(registry);
+        RestClient restClient = new RestClient(factory);
+
+        CompletableFuture<String> held = CompletableFuture
+                .supplyAsync(() -> restClient.getForObject(server.uri("/hold/a"), String.class));
+        awaitArrival("a");
+        assertEquals(1d, gauge(Netty4ClientHttpRequestFactory.METRICS_POOL_ACTIVE_CONNECTIONS).value());
+        assertEquals(0d, gauge(Netty4ClientHttpRequestFactory.METRICS_POOL_IDLE_CONNECTIONS).value());
+        assertEquals(0d, gauge(Netty4ClientHttpRequestFactory.METRICS_POOL_PENDING_ACQUIRES).value());
+
+        server.open("a");
+        assertEquals("\"a\"", held.get(10, TimeUnit.SECONDS));
+        // The connection is released on the event loop after the response.
+        awaitGauge(Netty4ClientHttpRequestFactory.METRICS_POOL_ACTIVE_CONNECTIONS, 0d);
+        assertEquals(1d, gauge(Netty4ClientHttpRequestFactory.METRICS_POOL_IDLE_CONNECTIONS).value());
+
+        // The gauges of the closed pools are removed.
+        factory.close();
+        assertNull(registry.find(Netty4ClientHttpRequestFactory.METRICS_POOL_ACTIVE_CONNECTIONS).gauge());
+    }
+
+    @Test
+    public void testBindExistingPools() throws Exception {
+        RestClient restClient = new RestClient(factory);
+        restClient.getForObject(server.uri("/pojo"), String.class);
+        assertNull(registry.find(Netty4ClientHttpRequestFactory.METRICS_POOL_IDLE_CONNECTIONS).gauge());
+
+        factory.bindTo(registry);
+        awaitGauge(Netty4ClientHttpRequestFactory.METRICS_POOL_IDLE_CONNECTIONS, 1d);
+    }
+
+    private Gauge gauge(String name) {
+        return registry.get(name)
+                .tag(Netty4ClientHttpRequestFactory.METRICS_TAG_DESTINATION, "http://127.0.0.1:" + server.uri("/").getPort())
+                .gauge();
+    }
+
+    private void awaitGauge(String name, double expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000L;
+        while (gauge(name).value() != expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, gauge(name).value());
+    }
+
+    private void awaitArrival(String id) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000L;
+        while (!server.getArrivals().contains(id) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(server.getArrivals().contains(id), "The request should be arrived");
+    }
+
+}
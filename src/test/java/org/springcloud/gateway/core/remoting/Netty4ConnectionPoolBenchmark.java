@@ -0,0 +1,89 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors.<springcloudgateway@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.remoting;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * {@link Netty4ConnectionPoolBenchmark}, The throughput of the concurrent
+ * requests of one destination through the keep-alive connection pool of the
+ * {@link Netty4ClientHttpRequestFactory}, with the pool smaller than and equal
+ * to the concurrency (i.e. the acquires are pending or not). Run by the main,
+ * or the JMH runner of the test classpath.
+ *
+ * @author springcloudgateway &lt;springcloudgateway@163.com, springcloudgateway@163.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(8)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class Netty4ConnectionPoolBenchmark {
+
+    @Param({ "2", "8" })
+    private int maxConnectionsPerHost;
+
+    private RestClientStubServer server;
+    private Netty4ClientHttpRequestFactory factory;
+    private RestClient restClient;
+    private URI uri;
+
+    @Setup
+    public void setup() {
+        this.server = new RestClientStubServer();
+        this.factory = new Netty4ClientHttpRequestFactory();
+        this.factory.setMaxConnectionsPerHost(maxConnectionsPerHost);
+        this.restClient = new RestClient(factory);
+        this.uri = server.uri("/pojo");
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        factory.close();
+        server.close();
+    }
+
+    @Benchmark
+    public String pooledGet() {
+        return restClient.getForObject(uri, String.class);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(Netty4ConnectionPoolBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors.<springcloudgateway@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.remoting;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.Test;
+import org.springcloud.gateway.core.remoting.RestClientStubServer.Pojo;
+import org.springcloud.gateway.core.remoting.exception.HttpServerErrorException;
+import org.springcloud.gateway.core.remoting.exception.RestClientException;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.test.StepVerifier;
+
+/**
+ * {@link ReactiveRestClientContractTests}, Runs the
+ * {@link AbstractRestClientContract} against the non-blocking
+ * {@link ReactiveRestClient}, and verifies the per destination limiting (FIFO
+ * granting, pending overflow, cancelling the queued requests), the deadline
+ * and the streaming of the JSON array elements.
+ *
+ * @author springcloudgateway &lt;springcloudgateway@163.com, springcloudgateway@163.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+public class ReactiveRestClientContractTests extends AbstractRestClientContract {
+
+    private final ReactiveRestClient restClient = new ReactiveRestClient(
+            HttpClient.create(ConnectionProvider.newConnection()));
+
+    @Override
+    protected <T> T getForObject(URI uri, Class<T> responseType) {
+        return restClient.getForObject(uri, responseType).block(TIMEOUT);
+    }
+
+    @Override
+    protected <T> T postForObject(URI uri, Object request, Class<T> responseType) {
+        return restClient.postForObject(uri, request, responseType).block(TIMEOUT);
+    }
+
+    @Override
+    protected <T> HttpResponseEntity<T> getForEntity(URI uri, Class<T> responseType) {
+        return restClient.getForEntity(uri, responseType).block(TIMEOUT);
+    }
+
+    @Override
+    protected List<Pojo> getForList(URI uri) {
+        return restClient.getForFlux(uri, Pojo.class).collectList().block(TIMEOUT);
+    }
+
+    @Test
+    public void testQueuedRequestsGrantedInFifoOrder() {
+        restClient.setMaxConcurrencyPerDestination(1);
+
+        Mono<String> a = restClient.getForObject(server.uri("/hold/a"), String.class).cache();
+        Mono<String> b = restClient.getForObject(server.uri("/hold/b"), String.class).cache();
+        Mono<String> c = restClient.getForObject(server.uri("/hold/c"), String.class).cache();
+        a.subscribe();
+        b.subscribe();
+        c.subscribe();
+
+        awaitUntil(() -> server.getArrivals().size() == 1);
+        server.open("a");
+        assertEquals("a", a.block(TIMEOUT));
+        awaitUntil(() -> server.getArrivals().size() == 2);
+        server.open("b");
+        assertEquals("b", b.block(TIMEOUT));
+        server.open("c");
+        assertEquals("c", c.block(TIMEOUT));
+
+        assertEquals(asList("a", "b", "c"), server.getArrivals());
+        assertEquals(1, server.getMaxInflight());
+    }
+
+    @Test
+    public void testTooManyPendingRequests() {
+        restClient.setMaxConcurrencyPerDestination(1);
+        restClient.setMaxPendingPerDestination(1);
+
+        Mono<String> a = restClient.getForObject(server.uri("/hold/a"), String.class).cache();
+        Mono<String> b = restClient.getForObject(server.uri("/hold/b"), String.class).cache();
+        a.subscribe();
+        b.subscribe();
+
+        StepVerifier.create(restClient.getForObject(server.uri("/hold/c"), String.class))
+                .expectErrorMatches(
+                        ex -> ex instanceof RestClientException && ex.getMessage().startsWith("Too many pending requests"))
+                .verify(TIMEOUT);
+
+        server.open("a");
+        server.open("b");
+        assertEquals("a", a.block(TIMEOUT));
+        assertEquals("b", b.block(TIMEOUT));
+        assertEquals(asList("a", "b"), server.getArrivals());
+    }
+
+    @Test
+    public void testCancelQueuedRequest() {
+        restClient.setMaxConcurrencyPerDestination(1);
+
+        Mono<String> a = restClient.getForObject(server.uri("/hold/a"), String.class).cache();
+        a.subscribe();
+        Disposable b = restClient.getForObject(server.uri("/hold/b"), String.class).subscribe();
+        Mono<String> c = restClient.getForObject(server.uri("/hold/c"), String.class).cache();
+        c.subscribe();
+
+        awaitUntil(() -> server.getArrivals().size() == 1);
+        b.dispose();
+        server.open("a");
+        server.open("b");
+        server.open("c");
+
+        assertEquals("a", a.block(TIMEOUT));
+        assertEquals("c", c.block(TIMEOUT));
+        // The cancelled request never reaches the server, and its permit is
+        // handed over to the next waiter.
+        assertEquals(asList("a", "c"), server.getArrivals());
+    }
+
+    @Test
+    public void testDeadlineExceededReleasesPermit() {
+        restClient.setMaxConcurrencyPerDestination(1);
+        restClient.setDefaultDeadline(Duration.ofMillis(300));
+
+        StepVerifier.create(restClient.getForObject(server.uri("/hold/never"), String.class))
+                .expectErrorMatches(ex -> ex instanceof RestClientException && ex.getMessage().contains("deadline"))
+                .verify(TIMEOUT);
+
+        Pojo pojo = restClient.getForObject(server.uri("/pojo"), Pojo.class).block(TIMEOUT);
+        assertEquals("iscg-1", pojo.getName());
+    }
+
+    @Test
+    public void testArrayElementsStreamed() {
+        StepVerifier.create(restClient.getForFlux(server.uri("/stream-array"), Pojo.class))
+                .assertNext(pojo -> assertEquals("iscg-0", pojo.getName()))
+                // The rest of the array is sent only after the first element
+                // is received.
+                .then(() -> server.open("stream"))
+                .assertNext(pojo -> assertEquals("iscg-1", pojo.getName()))
+                .assertNext(pojo -> assertEquals("iscg-2", pojo.getName()))
+                .expectComplete()
+                .verify(TIMEOUT);
+    }
+
+    @Test
+    public void testErrorBodyTruncatedToMaxInMemorySize() {
+        ReactiveRestClient limitedClient = new ReactiveRestClient(HttpClient.create(ConnectionProvider.create("limited", 1)))
+                .setMaxInMemorySize(100);
+
+        HttpServerErrorException ex = assertThrows(HttpServerErrorException.class,
+                () -> limitedClient.getForObject(server.uri("/large-status/500/65536"), Pojo.class).block(TIMEOUT));
+        assertEquals(500, ex.getRawStatusCode());
+        assertEquals(100, ex.getResponseBodyAsByteArray().length);
+
+        // The rest of the error body is drained and the connection released.
+        assertEquals("iscg-1", limitedClient.getForObject(server.uri("/pojo"), Pojo.class).block(TIMEOUT).getName());
+    }
+
+    @Test
+    public void testValueExceedsMaxInMemorySize() {
+        ReactiveRestClient limitedClient = new ReactiveRestClient(HttpClient.create(ConnectionProvider.newConnection()))
+                .setMaxInMemorySize(16);
+
+        StepVerifier.create(limitedClient.getForFlux(server.uri("/array"), Pojo.class))
+                .expectError(DataBufferLimitException.class)
+                .verify(TIMEOUT);
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        assertTrue(condition.getAsBoolean(), "The condition should be satisfied in " + TIMEOUT);
+    }
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors.<springcloudgateway@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.remoting;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springcloud.gateway.core.remoting.RestClientStubServer.Pojo;
+
+/**
+ * {@link RestClientContractTests}, Runs the {@link AbstractRestClientContract}
+ * against the blocking {@link RestClient}.
+ *
+ * @author springcloudgateway &lt;springcloudgateway@163.com, springcloudgateway@163.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+public class RestClientContractTests extends AbstractRestClientContract {
+
+    private final RestClient restClient = new RestClient();
+
+    @Override
+    protected <T> T getForObject(URI uri, Class<T> responseType) {
+        return restClient.getForObject(uri, responseType);
+    }
+
+    @Override
+    protected <T> T postForObject(URI uri, Object request, Class<T> responseType) {
+        return restClient.postForObject(uri, request, responseType);
+    }
+
+    @Override
+    protected <T> HttpResponseEntity<T> getForEntity(URI uri, Class<T> responseType) {
+        return restClient.getForEntity(uri, responseType);
+    }
+
+    @Override
+    protected List<Pojo> getForList(URI uri) {
+        return Arrays.asList(restClient.getForObject(uri, Pojo[].class));
+    }
+
+}
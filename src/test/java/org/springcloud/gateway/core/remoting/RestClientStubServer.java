@@ -0,0 +1,189 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors.<springcloudgateway@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.remoting;
+
+import static java.util.Collections.nCopies;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.netty.handler.codec.http.HttpHeaderNames;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+/**
+ * {@link RestClientStubServer}, The local stub HTTP server of the rest client
+ * contract tests.
+ * <ul>
+ * <li>GET /pojo: responds the {@link #POJO_JSON}</li>
+ * <li>POST /echo: echoes the request body</li>
+ * <li>GET /status/{code}: responds the status code with body
+ * 'error-{code}'</li>
+ * <li>GET /large-status/{code}/{size}: responds the status code with the body
+ * of the {size} bytes in the small chunks</li>
+ * <li>GET /array: responds the JSON array of {@link #ARRAY_SIZE} pojos, which
+ * is split into the small chunks in the middle of the elements</li>
+ * <li>GET /stream-array: responds the first element of the JSON array, and
+ * the rest after the gate 'stream' opened</li>
+ * <li>GET /hold/{id}: records the arrival and responds the JSON string id
+ * after the gate '{id}' opened</li>
+ * </ul>
+ *
+ * @author springcloudgateway &lt;springcloudgateway@163.com, springcloudgateway@163.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+class RestClientStubServer implements AutoCloseable {
+
+    private final Map<String, Sinks.Empty<Void>> gates = new ConcurrentHashMap<>(8);
+    private final List<String> arrivals = new CopyOnWriteArrayList<>();
+    private final AtomicInteger inflight = new AtomicInteger();
+    private final AtomicInteger maxInflight = new AtomicInteger();
+    private final DisposableServer server;
+
+    RestClientStubServer() {
+        this.server = HttpServer.create()
+                .host("127.0.0.1")
+                .port(0)
+                .route(routes -> routes
+                        .get("/pojo", (req, res) -> res.header(HttpHeaderNames.CONTENT_TYPE, JSON)
+                                .header("X-Stub", "pojo")
+                                .sendString(Mono.just(POJO_JSON)))
+                        .post("/echo", (req, res) -> res.header(HttpHeaderNames.CONTENT_TYPE, JSON)
+                                .send(req.receive().aggregate().retain()))
+                        .get("/status/{code}", (req, res) -> res.status(Integer.parseInt(req.param("code")))
+                                .sendString(Mono.just("error-" + req.param("code"))))
+                        .get("/large-status/{code}/{size}", (req, res) -> res.status(Integer.parseInt(req.param("code")))
+                                .sendString(Flux.fromArray(split(String.join("", nCopies(Integer.parseInt(req.param("size")), "x")), 1024))))
+                        .get("/array", (req, res) -> res.header(HttpHeaderNames.CONTENT_TYPE, JSON)
+                                .sendString(Flux.fromArray(split(arrayJson(ARRAY_SIZE), 7))))
+                        .get("/stream-array", (req, res) -> res.header(HttpHeaderNames.CONTENT_TYPE, JSON)
+                                .sendString(Flux.concat(Mono.just("[" + pojoJson(0) + ","),
+                                        gate("stream").asMono().then(Mono.just(pojoJson(1) + "," + pojoJson(2) + "]")))))
+                        .get("/hold/{id}", (req, res) -> {
+                            String id = req.param("id");
+                            arrivals.add(id);
+                            maxInflight.accumulateAndGet(inflight.incrementAndGet(), Math::max);
+                            return res.header(HttpHeaderNames.CONTENT_TYPE, JSON)
+                                    .sendString(gate(id).asMono().then(Mono.just("\"" + id + "\"")))
+                                    .then()
+                                    .doFinally(signal -> inflight.decrementAndGet());
+                        }))
+                .bindNow();
+    }
+
+    URI uri(String path) {
+        return URI.create("http://127.0.0.1:" + server.port() + path);
+    }
+
+    Sinks.Empty<Void> gate(String id) {
+        return gates.computeIfAbsent(id, key -> Sinks.empty());
+    }
+
+    void open(String id) {
+        gate(id).tryEmitEmpty();
+    }
+
+    List<String> getArrivals() {
+        return arrivals;
+    }
+
+    int getInflight() {
+        return inflight.get();
+    }
+
+    int getMaxInflight() {
+        return maxInflight.get();
+    }
+
+    @Override
+    public void close() {
+        server.disposeNow();
+    }
+
+    static String pojoJson(int value) {
+        return "{\"name\":\"iscg-" + value + "\",\"value\":" + value + ",\"tags\":[\"a\",[\"b\"]]}";
+    }
+
+    static String arrayJson(int size) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            json.append(i > 0 ? "," : "").append(pojoJson(i));
+        }
+        return json.append("]").toString();
+    }
+
+    static String[] split(String value, int chunkSize) {
+        String[] chunks = new String[(value.length() + chunkSize - 1) / chunkSize];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = value.substring(i * chunkSize, Math.min(value.length(), (i + 1) * chunkSize));
+        }
+        return chunks;
+    }
+
+    /**
+     * The value object of the stub responses.
+     */
+    public static class Pojo {
+        private String name;
+        private int value;
+        private List<Object> tags;
+
+        public Pojo() {
+        }
+
+        public Pojo(String name, int value) {
+            this.name = name;
+            this.value = value;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public int getValue() {
+            return value;
+        }
+
+        public void setValue(int value) {
+            this.value = value;
+        }
+
+        public List<Object> getTags() {
+            return tags;
+        }
+
+        public void setTags(List<Object> tags) {
+            this.tags = tags;
+        }
+    }
+
+    static final String JSON = "application/json";
+    static final String POJO_JSON = pojoJson(1);
+    static final int ARRAY_SIZE = 50;
+
+}
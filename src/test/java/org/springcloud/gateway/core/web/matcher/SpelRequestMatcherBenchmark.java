@@ -0,0 +1,117 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors.<springcloudgateway@163.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.web.matcher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springcloud.gateway.core.utils.expression.SpelExpressions;
+import org.springcloud.gateway.core.web.WebUtils.WebRequestExtractor;
+import org.springcloud.gateway.core.web.matcher.SpelRequestMatcher.MatchHttpRequestRule;
+import org.springcloud.gateway.core.web.matcher.SpelRequestMatcher.MatchProperty;
+import org.springcloud.gateway.core.web.matcher.SpelRequestMatcher.MatchSymbol;
+
+/**
+ * {@link SpelRequestMatcherBenchmark}, The time and the allocation of the
+ * request matching of the typical flight logs expression (e.g.
+ * 'preferOpenMatchExpression'), by the compiled predicate, by the SPEL
+ * evaluation of the cached parsed expression, and of the constant template.
+ * Run by the main (with the GC profiler), or the JMH runner of the test
+ * classpath with '-prof gc'.
+ *
+ * @author springcloudgateway &lt;springcloudgateway@163.com, springcloudgateway@163.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SpelRequestMatcherBenchmark {
+
+    private SpelRequestMatcher matcher;
+    private SpelExpressions spel;
+    private WebRequestExtractor request;
+
+    @Setup
+    public void setup() {
+        List<MatchHttpRequestRule> rules = new ArrayList<>();
+        rules.add(new MatchHttpRequestRule().withName("defaultLogHeader")
+                .withHeader(new MatchProperty(MatchSymbol.EQ, "X-Iscg-Log", "y")));
+        rules.add(new MatchHttpRequestRule().withName("defaultLogQuery")
+                .withQuery(new MatchProperty(MatchSymbol.EQ, "__iscg_log", "y")));
+        rules.add(new MatchHttpRequestRule().withName("openApiWithPath").withPath("/openapi/v2/**"));
+        this.matcher = new SpelRequestMatcher(rules);
+        this.spel = SpelExpressions.create();
+        this.request = new WebRequestExtractor() {
+            @Override
+            public String getPath() {
+                return "/openapi/v2/users";
+            }
+
+            @Override
+            public String getQueryValue(String name) {
+                return null;
+            }
+
+            @Override
+            public String getHeaderValue(String name) {
+                return "X-Iscg-Log".equals(name) ? "n" : null;
+            }
+        };
+    }
+
+    @Benchmark
+    public boolean compiledExpression() {
+        return matcher.matches(request, COMPILED_EXPRESSION);
+    }
+
+    @Benchmark
+    public boolean spelExpression() {
+        return matcher.matches(request, SPEL_EXPRESSION);
+    }
+
+    @Benchmark
+    public Boolean constantTemplate() {
+        return spel.resolve("#{true}");
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(SpelRequestMatcherBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+
+    private static final String COMPILED_EXPRESSION = "#{$defaultLogHeader.or($defaultLogQuery).or($openApiWithPath).test($request)}";
+    private static final String SPEL_EXPRESSION = "#{$defaultLogHeader.test($request) or $request.getPath().startsWith('/openapi/')}";
+
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2017 ~ 2025 the original author or authors. <springcloudgateway@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springcloud.gateway.core.web.matcher;
+
+import static java.util.Collections.singletonMap;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+import org.springcloud.gateway.core.web.WebUtils.WebRequestExtractor;
+import org.springcloud.gateway.core.web.matcher.SpelRequestMatcher.MatchHttpRequestRule;
+import org.springcloud.gateway.core.web.matcher.SpelRequestMatcher.MatchProperty;
+import org.springcloud.gateway.core.web.matcher.SpelRequestMatcher.MatchSymbol;
+
+/**
+ * {@link SpelRequestMatcherTests}
+ *
+ * @author springcloudgateway &lt;springcloudgateway@gmail.com&gt;
+ * @version v1.0.0
+ * @since v3.0.0
+ */
+public class SpelRequestMatcherTests {
+
+    @Test
+    public void testCompiledAndSpelMatchingAreSame() {
+        SpelRequestMatcher matcher = new SpelRequestMatcher(newRules());
+
+        // Compiled
+        assertTrue(matcher.matches(newRequest("/api/users", "y"), "#{$withApi.and($withLogHeader).test($request)}"));
+        assertFalse(matcher.matches(newRequest("/web/users", "y"), "#{$withApi.and($withLogHeader).test($request)}"));
+        // SPEL
+        assertTrue(matcher.matches(newRequest("/api/users", "y"),
+                "#{$withApi.test($request) and $request.getHeaderValue('X-Log') == 'y'}"));
+        assertFalse(matcher.matches(newRequest("/api/users", "n"),
+                "#{$withApi.test($request) and $request.getHeaderValue('X-Log') == 'y'}"));
+        assertEquals(1, matcher.find(newRequest("/api/users", "n"), "#{$rule.test($request)}").size());
+    }
+
+    @Test
+    public void testRulesSnapshottedAtConstruction() {
+        List<MatchHttpRequestRule> rules = newRules();
+        SpelRequestMatcher matcher = new SpelRequestMatcher(rules);
+        assertTrue(matcher.matches(newRequest("/api/users", "y"), "#{$withApi.test($request)}"));
+
+        rules.get(0).setPath("/other/**");
+        rules.add(new MatchHttpRequestRule().withName("added").withPath("/**"));
+
+        assertTrue(matcher.matches(newRequest("/api/users", "y"), "#{$withApi.test($request)}"));
+        assertTrue(matcher.matches(newRequest("/api/users", "y"), "#{$withApi.test($request) and true}"));
+        assertEquals(2, matcher.getRuleDefinitions().size());
+    }
+
+    @Test
+    public void testConflictExtraVariableOnCompiledExpression() {
+        SpelRequestMatcher matcher = new SpelRequestMatcher(newRules());
+        Supplier<Predicate<String>> supplier = () -> value -> true;
+
+        assertThrows(IllegalArgumentException.class, () -> matcher.matches(newRequest("/api/users", "y"),
+                "#{$withApi.test($request)}", singletonMap("withLogHeader", supplier)));
+        assertThrows(IllegalArgumentException.class,
+                () -> matcher.find(newRequest("/api/users", "y"), "#{$rule.test($request)}", singletonMap("request", supplier)));
+        assertTrue(matcher.matches(newRequest("/api/users", "y"), "#{$withApi.test($request)}",
+                singletonMap("routeId", supplier)));
+    }
+
+    private List<MatchHttpRequestRule> newRules() {
+        List<MatchHttpRequestRule> rules = new ArrayList<>();
+        rules.add(new MatchHttpRequestRule().withName("withApi").withPath("/api/**"));
+        rules.add(new MatchHttpRequestRule().withName("withLogHeader")
+                .withHeader(new MatchProperty(MatchSymbol.EQ, "X-Log", "y")));
+        return rules;
+    }
+
+    private WebRequestExtractor newRequest(String path, String logHeader) {
+        return new WebRequestExtractor() {
+            @Override
+            public String getPath() {
+                return path;
+            }
+
+            @Override
+            public String getHeaderValue(String name) {
+                return "X-Log".equals(name) ? logHeader : null;
+            }
+        };
+    }
+
+}